@@ -38,25 +38,44 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.File;
-import java.io.FileNotFoundException;
-import java.io.FileOutputStream;
-import java.io.OutputStream;
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
 
 import butterknife.ButterKnife;
 import butterknife.InjectView;
 import io.bunnies.fractalmaps.colouring.EnumColourStrategy;
+import io.bunnies.fractalmaps.compute.EnumPixelFormat;
+import io.bunnies.fractalmaps.compute.executor.RenderPriority;
 import io.bunnies.fractalmaps.compute.strategies.IFractalComputeStrategy;
 import io.bunnies.fractalmaps.compute.strategies.JuliaSeedSettable;
+import io.bunnies.fractalmaps.compute.strategies.StrategyStartup;
+import io.bunnies.fractalmaps.compute.strategies.cpu.CpuFractalComputeStrategy;
+import io.bunnies.fractalmaps.compute.strategies.cpu.JuliaCpuFractalComputeStrategy;
+import io.bunnies.fractalmaps.compute.strategies.cpu.MandelbrotCpuFractalComputeStrategy;
 import io.bunnies.fractalmaps.compute.strategies.renderscript.JuliaRenderscriptFractalComputeStrategy;
 import io.bunnies.fractalmaps.compute.strategies.renderscript.MandelbrotRenderscriptFractalComputeStrategy;
 import io.bunnies.fractalmaps.compute.strategies.renderscript.RenderscriptFractalComputeStrategy;
 import io.bunnies.fractalmaps.detail.DetailControlDelegate;
 import io.bunnies.fractalmaps.detail.DetailControlDialog;
+import io.bunnies.fractalmaps.export.BitmapExportJob;
+import io.bunnies.fractalmaps.export.ExportJob;
+import io.bunnies.fractalmaps.export.ExportQueue;
+import io.bunnies.fractalmaps.export.IExportCallback;
+import io.bunnies.fractalmaps.export.IExportProgressListener;
+import io.bunnies.fractalmaps.export.IterationExportJob;
+import io.bunnies.fractalmaps.export.PosterExportJob;
+import io.bunnies.fractalmaps.export.XyzTileExportJob;
+import io.bunnies.fractalmaps.export.XyzTileExporter;
+import io.bunnies.fractalmaps.export.ZoomSequenceJob;
+import io.bunnies.fractalmaps.export.ZoomSequenceRenderer;
 import io.bunnies.fractalmaps.menu.IFractalMenuDelegate;
 import io.bunnies.fractalmaps.menu.ISceneMenuDelegate;
 import io.bunnies.fractalmaps.overlay.IFractalOverlay;
@@ -69,8 +88,9 @@ import io.bunnies.fractalmaps.settings.FractalTypeEnum;
 import io.bunnies.fractalmaps.settings.SceneLayoutEnum;
 import io.bunnies.fractalmaps.settings.SettingsActivity;
 import io.bunnies.fractalmaps.settings.SettingsManager;
-import io.bunnies.fractalmaps.settings.saved_state.SavedGraphArea;
-import io.bunnies.fractalmaps.settings.saved_state.SavedJuliaGraph;
+import io.bunnies.fractalmaps.settings.saved_state.SavedFrame;
+import io.bunnies.fractalmaps.settings.saved_state.SavedLocation;
+import io.bunnies.fractalmaps.tiles.TileCache;
 import io.bunnies.fractalmaps.touch.FractalTouchHandler;
 import io.bunnies.fractalmaps.touch.MandelbrotTouchHandler;
 import io.bunnies.fractalmaps.view.FractalView;
@@ -98,6 +118,38 @@ public class FractalSceneActivity extends ActionBarActivity implements IFractalS
     public long sceneStartTime = 0;
     private static final int BUTTON_SPAM_MINIMUM_MS = 1000;
 
+    // Finished tiles kept on disk between launches, under the cache dir so the system can clear them
+    private static final String TILE_STORE_DIRECTORY = "tiles";
+    private static final long TILE_STORE_MAX_BYTES = 64L * 1024 * 1024;
+
+    // The last frame each view showed, to show again straight away on the next launch
+    private static final String SAVED_FRAME_DIRECTORY = "frames";
+    private static final String MANDELBROT_FRAME_FILE = "mandelbrot.frame";
+    private static final String JULIA_FRAME_FILE = "julia.frame";
+    // Every read and write of those files goes through this one thread, shared by every instance of the activity,
+    // so a write from onPause() never races another over the same temporary file, or a read after a rotation
+    private static ExecutorService savedFrameExecutor;
+
+    // Posters are rendered tile by tile off screen, this many pixels along their longest edge
+    private static final int POSTER_LONG_EDGE = 16384;
+    private static final int POSTER_PROGRESS_STEPS = 4;
+
+    // Iteration counts, to colour again without recomputing, go alongside the images
+    private static final String ITERATION_DATA_EXTENSION = ".iterations";
+
+    // Zoom videos start from the default view and go down to the current one, as frames to stitch together elsewhere
+    private static final int ZOOM_VIDEO_WIDTH = 1280;
+    private static final int ZOOM_VIDEO_HEIGHT = 720;
+    private static final int ZOOM_VIDEO_FRAMES_PER_DOUBLING = 30;
+
+    // Map tiles go into one directory per fractal and look, so exporting more places, or the same one again, adds to it
+    private static final String MAP_TILES_SUFFIX = "Tiles";
+
+    // Saves, shares and posters are written out one at a time on the queue's worker thread
+    private final ExportQueue exportQueue = ExportQueue.getSharedQueue();
+    // Long exports still running, by the menu item that started them, which cancels them instead until they're done
+    private final Map<Integer, ExportJob> longExportJobs = new HashMap<>();
+
     // Views
     public FractalView mandelbrotFractalView;
     public FractalView juliaFractalView;
@@ -161,17 +213,22 @@ public class FractalSceneActivity extends ActionBarActivity implements IFractalS
         this.firstFractalView.initialise();
         this.secondFractalView.initialise();
 
+        this.initialiseTileStore();
+
         this.initialiseToolbar();
 
         this.initialiseMandelbrotPresenter();
         this.initialiseJuliaPresenter();
+        this.prepareStrategies();
         this.initialiseViews();
 
         this.initialiseOverlays();
         this.settings.refreshColourSettings();
+        this.settings.refreshPixelFormatSettings();
 
         MandelbrotJuliaLocation savedParameters = this.loadSavedParameters(savedInstanceState);
         this.initialiseFractalParameters(savedParameters);
+        this.loadSavedFrames();
 
         this.initialiseRenderStates();
 
@@ -180,6 +237,70 @@ public class FractalSceneActivity extends ActionBarActivity implements IFractalS
         }
     }
 
+    // The tile cache outlives the activity, so the store is only opened the first time round, and off the UI thread
+    private void initialiseTileStore() {
+        TileCache.getSharedCache().openDiskStore(new File(this.getCacheDir(), TILE_STORE_DIRECTORY), TILE_STORE_MAX_BYTES);
+    }
+
+    // Read off the UI thread, and handed to the presenters to show as soon as their views are ready
+    private void loadSavedFrames() {
+        final File mandelbrotFrameFile = this.getSavedFrameFile(MANDELBROT_FRAME_FILE);
+        final File juliaFrameFile = this.getSavedFrameFile(JULIA_FRAME_FILE);
+
+        getSavedFrameExecutor().execute(new Runnable() {
+            @Override
+            public void run() {
+                final SavedFrame mandelbrotFrame = readSavedFrame(mandelbrotFrameFile);
+                final SavedFrame juliaFrame = readSavedFrame(juliaFrameFile);
+
+                runOnUiThread(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (isFinishing())
+                            return;
+
+                        if (mandelbrotFrame != null)
+                            mandelbrotFractalPresenter.restoreFrame(mandelbrotFrame);
+
+                        if (juliaFrame != null)
+                            juliaFractalPresenter.restoreFrame(juliaFrame);
+                    }
+                });
+            }
+        });
+    }
+
+    private static synchronized ExecutorService getSavedFrameExecutor() {
+        if (savedFrameExecutor == null) {
+            savedFrameExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable, "SavedFrameDisk");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+
+        return savedFrameExecutor;
+    }
+
+    private SavedFrame readSavedFrame(File file) {
+        if (!file.exists())
+            return null;
+
+        try {
+            return SavedFrame.readFrom(file);
+        } catch (IOException e) {
+            LOGGER.warn("Couldn't read saved frame {}: {}", file, e.getMessage());
+            return null;
+        }
+    }
+
+    private File getSavedFrameFile(String name) {
+        return new File(new File(this.getCacheDir(), SAVED_FRAME_DIRECTORY), name);
+    }
+
     private MandelbrotJuliaLocation loadSavedParameters(Bundle savedInstanceState) {
         double[] juliaParams = MandelbrotJuliaLocation.defaultJuliaParams.clone();
         double[] juliaGraphArea = MandelbrotJuliaLocation.defaultJuliaGraphArea.clone();
@@ -198,26 +319,20 @@ public class FractalSceneActivity extends ActionBarActivity implements IFractalS
         } else {
             LOGGER.debug("No saved instance state bundle, trying shared preferences");
 
-            SavedGraphArea savedMandelbrotGraph = this.settings.getPreviousMandelbrotGraph();
-            SavedJuliaGraph savedJuliaGraph = this.settings.getPreviousJuliaGraph();
+            SavedLocation savedMandelbrotLocation = this.settings.getPreviousMandelbrotLocation();
+            SavedLocation savedJuliaLocation = this.settings.getPreviousJuliaLocation();
 
-            if (savedMandelbrotGraph != null) {
+            if (savedMandelbrotLocation != null) {
                 LOGGER.debug("Restoring Mandelbrot from SharedPrefs");
 
-                mainGraphArea[0] = savedMandelbrotGraph.graphX;
-                mainGraphArea[1] = savedMandelbrotGraph.graphY;
-                mainGraphArea[2] = savedMandelbrotGraph.graphZ;
+                mainGraphArea = savedMandelbrotLocation.getGraphArea();
             }
 
-            if (savedJuliaGraph != null) {
+            if (savedJuliaLocation != null && savedJuliaLocation.getJuliaSeed() != null) {
                 LOGGER.debug("Restoring Julia from SharedPrefs");
 
-                juliaGraphArea[0] = savedJuliaGraph.graphX;
-                juliaGraphArea[1] = savedJuliaGraph.graphY;
-                juliaGraphArea[2] = savedJuliaGraph.graphZ;
-
-                juliaParams[0] = savedJuliaGraph.juliaSeedX;
-                juliaParams[1] = savedJuliaGraph.juliaSeedY;
+                juliaGraphArea = savedJuliaLocation.getGraphArea();
+                juliaParams = savedJuliaLocation.getJuliaSeed();
             }
         }
 
@@ -280,6 +395,13 @@ public class FractalSceneActivity extends ActionBarActivity implements IFractalS
         this.shiftGraphAreaIfDefault(this.juliaFractalPresenter);
     }
 
+    // Both strategies start up in parallel, off the UI thread, while the views are laid out
+    private void prepareStrategies() {
+        StrategyStartup startup = StrategyStartup.getSharedStartup();
+        startup.prepare(this.mandelbrotStrategy);
+        startup.prepare(this.juliaStrategy);
+    }
+
     public void initialiseViews() {
         if (!this.settings.getViewsSwitched()) {
             this.mandelbrotFractalView = this.firstFractalView;
@@ -337,6 +459,9 @@ public class FractalSceneActivity extends ActionBarActivity implements IFractalS
         this.mandelbrotStrategy.tearDown();
         this.juliaStrategy.tearDown();
 
+        // The queue outlives the activity, and its jobs hold callbacks into it, so nothing is left running
+        this.exportQueue.cancelAll();
+
         PreferenceManager.getDefaultSharedPreferences(this.getApplicationContext()).unregisterOnSharedPreferenceChangeListener(this.settings);
     }
 
@@ -345,8 +470,11 @@ public class FractalSceneActivity extends ActionBarActivity implements IFractalS
         double[] juliaGraphArea = this.juliaFractalPresenter.getGraphArea();
         double[] juliaParams = this.juliaSetter.getJuliaSeed();
 
-        this.settings.savePreviousMandelbrotGraph(new SavedGraphArea(mandelbrotGraphArea[0], mandelbrotGraphArea[1], mandelbrotGraphArea[2]));
-        this.settings.savePreviousJuliaGraph(new SavedJuliaGraph(juliaGraphArea[0], juliaGraphArea[1], juliaGraphArea[2], juliaParams[0], juliaParams[1]));
+        // No thumbnail, as the last frame is already kept by saveFrames()
+        this.settings.savePreviousMandelbrotLocation(SavedLocation.fromGraphArea(FractalTypeEnum.MANDELBROT, mandelbrotGraphArea, null,
+                this.mandelbrotFractalPresenter.getMaxIterations(), null));
+        this.settings.savePreviousJuliaLocation(SavedLocation.fromGraphArea(FractalTypeEnum.JULIA, juliaGraphArea, juliaParams,
+                this.juliaFractalPresenter.getMaxIterations(), null));
     }
 
     @Override
@@ -354,6 +482,46 @@ public class FractalSceneActivity extends ActionBarActivity implements IFractalS
         super.onPause();
 
         this.saveGraphStates();
+        this.saveFrames();
+        this.flushTileStore();
+    }
+
+    // The buffers are copied here, and compressed and written out off the UI thread
+    private void saveFrames() {
+        final SavedFrame mandelbrotFrame = this.mandelbrotFractalPresenter.saveFrame();
+        final SavedFrame juliaFrame = this.juliaFractalPresenter.saveFrame();
+        final File mandelbrotFrameFile = this.getSavedFrameFile(MANDELBROT_FRAME_FILE);
+        final File juliaFrameFile = this.getSavedFrameFile(JULIA_FRAME_FILE);
+
+        getSavedFrameExecutor().execute(new Runnable() {
+            @Override
+            public void run() {
+                writeSavedFrame(mandelbrotFrame, mandelbrotFrameFile);
+                writeSavedFrame(juliaFrame, juliaFrameFile);
+            }
+        });
+    }
+
+    private void writeSavedFrame(SavedFrame frame, File file) {
+        if (frame == null)
+            return;
+
+        File directory = file.getParentFile();
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            LOGGER.warn("Couldn't create {}", directory);
+            return;
+        }
+
+        try {
+            frame.writeTo(file);
+        } catch (IOException e) {
+            LOGGER.warn("Couldn't save frame {}: {}", file, e.getMessage());
+        }
+    }
+
+    // Off the UI thread, as forcing the segments out can take a while
+    private void flushTileStore() {
+        TileCache.getSharedCache().flushDiskStore();
     }
 
     @Override
@@ -511,6 +679,7 @@ public class FractalSceneActivity extends ActionBarActivity implements IFractalS
 
         saveItem.setEnabled(!stillRendering);
         shareItem.setEnabled(!stillRendering);
+        this.setLongExportItemTitles(menu);
 
         resetItem.setTitle(io.bunnies.fractalmaps.R.string.context_reset);
 
@@ -558,6 +727,7 @@ public class FractalSceneActivity extends ActionBarActivity implements IFractalS
 
         saveItem.setEnabled(!stillRendering);
         shareItem.setEnabled(!stillRendering);
+        this.setLongExportItemTitles(menu);
 
         resetItem.setTitle(io.bunnies.fractalmaps.R.string.context_reset);
 
@@ -584,6 +754,34 @@ public class FractalSceneActivity extends ActionBarActivity implements IFractalS
         }
     }
 
+    // The same items cancel the long exports that are being made
+    private void setLongExportItemTitles(ContextMenu menu) {
+        this.setLongExportItemTitle(menu, io.bunnies.fractalmaps.R.id.menuSavePoster, io.bunnies.fractalmaps.R.string.menu_save_poster, io.bunnies.fractalmaps.R.string.menu_cancel_poster);
+        this.setLongExportItemTitle(menu, io.bunnies.fractalmaps.R.id.menuExportIterations, io.bunnies.fractalmaps.R.string.menu_export_iterations, io.bunnies.fractalmaps.R.string.menu_cancel_iterations);
+        this.setLongExportItemTitle(menu, io.bunnies.fractalmaps.R.id.menuRenderZoomVideo, io.bunnies.fractalmaps.R.string.menu_render_zoom_video, io.bunnies.fractalmaps.R.string.menu_cancel_zoom_video);
+        this.setLongExportItemTitle(menu, io.bunnies.fractalmaps.R.id.menuExportMapTiles, io.bunnies.fractalmaps.R.string.menu_export_map_tiles, io.bunnies.fractalmaps.R.string.menu_cancel_map_tiles);
+    }
+
+    private void setLongExportItemTitle(ContextMenu menu, int itemId, int startTitle, int cancelTitle) {
+        menu.findItem(itemId).setTitle(this.longExportJobs.containsKey(itemId) ? cancelTitle : startTitle);
+    }
+
+    private void submitLongExport(int itemId, ExportJob job, IExportCallback callback) {
+        this.longExportJobs.put(itemId, job);
+        this.exportQueue.submit(job, callback);
+    }
+
+    // Returns whether there was one running to cancel
+    private boolean cancelLongExport(int itemId) {
+        ExportJob job = this.longExportJobs.get(itemId);
+        if (job == null)
+            return false;
+
+        LOGGER.info("Cancelling {}", job.getOutputFile());
+        job.cancel();
+        return true;
+    }
+
     @Override
     public boolean onContextItemSelected(MenuItem item) {
         boolean handled = false;
@@ -614,6 +812,22 @@ public class FractalSceneActivity extends ActionBarActivity implements IFractalS
                 this.shareImage(this.viewContext);
                 return true;
 
+            case io.bunnies.fractalmaps.R.id.menuSavePoster:
+                this.savePoster(this.viewContext);
+                return true;
+
+            case io.bunnies.fractalmaps.R.id.menuExportIterations:
+                this.exportIterationData(this.viewContext);
+                return true;
+
+            case io.bunnies.fractalmaps.R.id.menuRenderZoomVideo:
+                this.renderZoomVideo(this.viewContext);
+                return true;
+
+            case io.bunnies.fractalmaps.R.id.menuExportMapTiles:
+                this.exportMapTiles(this.viewContext);
+                return true;
+
             default:
                 LOGGER.debug("Context item selected that wasn't handled");
                 return true;
@@ -873,12 +1087,20 @@ public class FractalSceneActivity extends ActionBarActivity implements IFractalS
             this.scheduleRecomputeBasedOnPreferences(this.juliaFractalPresenter, true);
     }
 
+    @Override
+    public void onPixelFormatChanged(EnumPixelFormat pixelFormat) {
+        this.mandelbrotFractalPresenter.setPixelFormat(pixelFormat);
+        this.juliaFractalPresenter.setPixelFormat(pixelFormat);
+    }
+
     @Override
     public void onFractalViewReady(IFractalPresenter presenter) {
         LOGGER.debug("Fractal view ready");
 
         this.shiftGraphAreaIfDefault(presenter);
-        this.scheduleRecomputeBasedOnPreferences(presenter, true);
+
+        // A frame from last time already holds some of the pixels, so don't throw them away
+        this.scheduleRecomputeBasedOnPreferences(presenter, !presenter.hasRestoredFrame());
     }
 
     private void shiftGraphAreaIfDefault(IFractalPresenter presenter) {
@@ -942,50 +1164,35 @@ public class FractalSceneActivity extends ActionBarActivity implements IFractalS
         this.saveImage(bitmap, this.formImageTitle("Julia"));
     }
 
-    private File saveImage(Bitmap bitmap, String title) {
+    private void saveImage(Bitmap bitmap, String title) {
+        this.saveImage(bitmap, title, false);
+    }
+
+    // Only the copy is made here, the view carries on rendering while the queue encodes and writes it
+    private void saveImage(Bitmap bitmap, String title, boolean share) {
         File fractalImage = this.getImageOutputFile(title);
         LOGGER.info("Saving '{}' to '{}'", title, fractalImage.getAbsolutePath());
 
-        OutputStream output = null;
-        try {
-            output = new FileOutputStream(fractalImage);
-        } catch (FileNotFoundException e) {
-            LOGGER.error("Failed to open file for writing: {}", e);
-        }
-
-        boolean couldWriteImage = this.writeBitmapToPNGStream(output, bitmap);
-        if (!couldWriteImage) {
-            this.showLongToast("Failed to save image!");
-            return null;
+        Bitmap snapshot = bitmap.copy(bitmap.getConfig(), false);
+        if (snapshot == null) {
+            this.showLongToast(share ? "Failed to share image, because it couldn't be saved first" : "Failed to save image!");
+            return;
         }
 
-        addImageToGallery(fractalImage.getAbsolutePath(), this.getApplicationContext());
-        this.showShortToast("Saved " + title + " to " + fractalImage.getAbsolutePath());
-
-        return fractalImage;
+        this.exportQueue.submit(new BitmapExportJob(snapshot, fractalImage), new ImageExportCallback(title, share, true));
     }
 
     private File getImageOutputFile(String title) {
+        return this.getOutputFile(title, ".png");
+    }
+
+    private File getOutputFile(String title, String extension) {
         File path = Environment.getExternalStorageDirectory();
         File fractalsDirectory = new File(path.getAbsolutePath() + "/FractalMaps/");
-        File fractalImage = new File(fractalsDirectory, title + ".png");
+        File outputFile = new File(fractalsDirectory, title + extension);
 
         this.createApplicationDirectoryIfNecessary();
-        return fractalImage;
-    }
-
-    private boolean writeBitmapToPNGStream(OutputStream output, Bitmap bitmap) {
-        try {
-            bitmap.compress(Bitmap.CompressFormat.PNG, 100, output);
-            output.flush();
-            output.close();
-        } catch (Exception e) {
-            LOGGER.error("Failed to write image: {}", e);
-
-            return false;
-        }
-
-        return true;
+        return outputFile;
     }
 
     private void createApplicationDirectoryIfNecessary() {
@@ -1035,15 +1242,11 @@ public class FractalSceneActivity extends ActionBarActivity implements IFractalS
         this.shareImage(bitmap, this.formImageTitle("Julia"));
     }
 
-    private boolean shareImage(Bitmap bitmap, String title) {
-        File image = this.saveImage(bitmap, title);
-        if (image == null) {
-            LOGGER.error("Couldn't share image because it couldn't be saved!");
-            this.showShortToast("Failed to share image, because it couldn't be saved first");
-
-            return false;
-        }
+    private void shareImage(Bitmap bitmap, String title) {
+        this.saveImage(bitmap, title, true);
+    }
 
+    private void startShareIntent(File image, String title) {
         Uri uri = Uri.fromFile(image);
         Intent intent = new Intent();
         intent.setAction(Intent.ACTION_SEND);
@@ -1051,8 +1254,237 @@ public class FractalSceneActivity extends ActionBarActivity implements IFractalS
 
         intent.putExtra(Intent.EXTRA_STREAM, uri);
         startActivity(Intent.createChooser(intent, "Share " + title + " image using"));
+    }
 
-        return true;
+    // Starts a poster of whatever the view shows, or cancels the one being made
+    private void savePoster(View viewContext) {
+        if (this.cancelLongExport(io.bunnies.fractalmaps.R.id.menuSavePoster))
+            return;
+
+        if (viewContext == this.juliaFractalView) {
+            LOGGER.info("Saving Julia poster");
+
+            JuliaRenderscriptFractalComputeStrategy strategy = new JuliaRenderscriptFractalComputeStrategy();
+            double[] juliaSeed = this.juliaSetter.getJuliaSeed();
+            strategy.setJuliaSeed(juliaSeed[0], juliaSeed[1]);
+            this.savePoster(this.juliaFractalPresenter, this.juliaFractalView, strategy, this.formImageTitle("JuliaPoster"));
+        } else if (viewContext == this.mandelbrotFractalView) {
+            LOGGER.info("Saving Mandelbrot poster");
+
+            this.savePoster(this.mandelbrotFractalPresenter, this.mandelbrotFractalView,
+                    new MandelbrotRenderscriptFractalComputeStrategy(), this.formImageTitle("MandelbrotPoster"));
+        }
+    }
+
+    // The poster covers what the view shows, at the view's aspect ratio, with a strategy of its own so the views carry on
+    private void savePoster(FractalPresenter presenter, View view, RenderscriptFractalComputeStrategy strategy, String title) {
+        strategy.setContext(this);
+        strategy.setColourStrategy(presenter.getComputeStrategy().getColourStrategy());
+
+        int width;
+        int height;
+        if (view.getWidth() >= view.getHeight()) {
+            width = POSTER_LONG_EDGE;
+            height = Math.max(1, (int) Math.round((double) POSTER_LONG_EDGE * view.getHeight() / view.getWidth()));
+        } else {
+            height = POSTER_LONG_EDGE;
+            width = Math.max(1, (int) Math.round((double) POSTER_LONG_EDGE * view.getWidth() / view.getHeight()));
+        }
+
+        double[] graphArea = presenter.getGraphArea();
+        int maxIterations = presenter.getMaxIterations(graphArea[2] / width);
+
+        this.submitLongExport(io.bunnies.fractalmaps.R.id.menuSavePoster, new PosterExportJob(this.getImageOutputFile(title), strategy, graphArea,
+                width, height, maxIterations, new PosterProgressListener(title)), new ImageExportCallback(title, false, true));
+
+        this.showShortToast("Saving " + width + "x" + height + " poster, this will take a while");
+    }
+
+    // Iteration counts for the view's area, at the view's size, for colouring again later. Or cancels the export being made.
+    private void exportIterationData(View viewContext) {
+        if (this.cancelLongExport(io.bunnies.fractalmaps.R.id.menuExportIterations))
+            return;
+
+        if (viewContext == this.juliaFractalView) {
+            LOGGER.info("Exporting Julia iteration data");
+
+            JuliaCpuFractalComputeStrategy strategy = new JuliaCpuFractalComputeStrategy();
+            double[] juliaSeed = this.juliaSetter.getJuliaSeed();
+            strategy.setJuliaSeed(juliaSeed[0], juliaSeed[1]);
+            this.exportIterationData(this.juliaFractalPresenter, this.juliaFractalView, strategy, this.formImageTitle("Julia"));
+        } else if (viewContext == this.mandelbrotFractalView) {
+            LOGGER.info("Exporting Mandelbrot iteration data");
+
+            this.exportIterationData(this.mandelbrotFractalPresenter, this.mandelbrotFractalView,
+                    new MandelbrotCpuFractalComputeStrategy(), this.formImageTitle("Mandelbrot"));
+        }
+    }
+
+    private void exportIterationData(FractalPresenter presenter, View view, CpuFractalComputeStrategy strategy, String title) {
+        File outputFile = this.getOutputFile(title, ITERATION_DATA_EXTENSION);
+
+        this.submitLongExport(io.bunnies.fractalmaps.R.id.menuExportIterations, new IterationExportJob(outputFile, strategy, presenter.getGraphArea(),
+                view.getWidth(), view.getHeight(), presenter.getMaxIterations(), null), new ImageExportCallback(title, false, false));
+    }
+
+    // Frames zooming from the default view into whatever the view shows now, or cancels the video being made
+    private void renderZoomVideo(View viewContext) {
+        if (this.cancelLongExport(io.bunnies.fractalmaps.R.id.menuRenderZoomVideo))
+            return;
+
+        if (viewContext == this.juliaFractalView) {
+            LOGGER.info("Rendering Julia zoom video");
+
+            JuliaRenderscriptFractalComputeStrategy strategy = new JuliaRenderscriptFractalComputeStrategy();
+            double[] juliaSeed = this.juliaSetter.getJuliaSeed();
+            strategy.setJuliaSeed(juliaSeed[0], juliaSeed[1]);
+            this.renderZoomVideo(this.juliaFractalView, this.juliaFractalPresenter, strategy,
+                    MandelbrotJuliaLocation.defaultJuliaGraphArea[2], this.formImageTitle("JuliaZoom"));
+        } else if (viewContext == this.mandelbrotFractalView) {
+            LOGGER.info("Rendering Mandelbrot zoom video");
+
+            this.renderZoomVideo(this.mandelbrotFractalView, this.mandelbrotFractalPresenter, new MandelbrotRenderscriptFractalComputeStrategy(),
+                    MandelbrotJuliaLocation.defaultMandelbrotGraphArea[2], this.formImageTitle("MandelbrotZoom"));
+        }
+    }
+
+    private void renderZoomVideo(View view, FractalPresenter presenter, RenderscriptFractalComputeStrategy strategy, double startGraphWidth, String title) {
+        // The video is its own shape rather than the view's, so it ends on the middle of the view
+        double[] graphArea = ZoomSequenceRenderer.endGraphArea(presenter.getGraphArea(), view.getWidth(), view.getHeight(),
+                ZOOM_VIDEO_WIDTH, ZOOM_VIDEO_HEIGHT);
+        double doublings = Math.log(startGraphWidth / graphArea[2]) / Math.log(2);
+        if (doublings <= 0) {
+            this.showShortToast("Zoom in before rendering a zoom video");
+            return;
+        }
+
+        strategy.setContext(this);
+        strategy.setColourStrategy(presenter.getComputeStrategy().getColourStrategy());
+
+        int frameCount = Math.max(2, (int) Math.ceil(doublings * ZOOM_VIDEO_FRAMES_PER_DOUBLING) + 1);
+        this.submitLongExport(io.bunnies.fractalmaps.R.id.menuRenderZoomVideo, new ZoomSequenceJob(this.getOutputFile(title, ""), strategy, presenter,
+                graphArea, startGraphWidth, ZOOM_VIDEO_WIDTH, ZOOM_VIDEO_HEIGHT, frameCount, null), new ImageExportCallback(title, false, false));
+
+        this.showShortToast("Rendering " + frameCount + " zoom video frames, this will take a while");
+    }
+
+    // Map tiles of the view, from the whole default view down to the view's own detail. Or cancels the tiles being made.
+    private void exportMapTiles(View viewContext) {
+        if (this.cancelLongExport(io.bunnies.fractalmaps.R.id.menuExportMapTiles))
+            return;
+
+        if (viewContext == this.juliaFractalView) {
+            LOGGER.info("Exporting Julia map tiles");
+
+            JuliaCpuFractalComputeStrategy strategy = new JuliaCpuFractalComputeStrategy();
+            double[] juliaSeed = this.juliaSetter.getJuliaSeed();
+            strategy.setJuliaSeed(juliaSeed[0], juliaSeed[1]);
+            this.exportMapTiles(this.juliaFractalPresenter, this.juliaFractalView, strategy,
+                    MandelbrotJuliaLocation.defaultJuliaGraphArea, "Julia" + Integer.toHexString(Arrays.hashCode(juliaSeed)));
+        } else if (viewContext == this.mandelbrotFractalView) {
+            LOGGER.info("Exporting Mandelbrot map tiles");
+
+            this.exportMapTiles(this.mandelbrotFractalPresenter, this.mandelbrotFractalView, new MandelbrotCpuFractalComputeStrategy(),
+                    MandelbrotJuliaLocation.defaultMandelbrotGraphArea, "Mandelbrot");
+        }
+    }
+
+    private void exportMapTiles(FractalPresenter presenter, View view, CpuFractalComputeStrategy strategy, double[] defaultGraphArea, String fractalName) {
+        strategy.setColourStrategy(presenter.getComputeStrategy().getColourStrategy());
+
+        // Zoom level 0 is a square as wide as the default view, centred on the real axis
+        double[] world = {defaultGraphArea[0], defaultGraphArea[2] / 2, defaultGraphArea[2]};
+        double[] graphArea = presenter.getGraphArea();
+        double regionHeight = graphArea[2] * view.getHeight() / view.getWidth();
+
+        double viewPixelSize = graphArea[2] / view.getWidth();
+        int maxZoom = (int) Math.ceil(Math.log(world[2] / (XyzTileExporter.TILE_SIZE * viewPixelSize)) / Math.log(2));
+        maxZoom = Math.max(0, Math.min(maxZoom, XyzTileExporter.MAX_ZOOM));
+
+        String title = fractalName + MAP_TILES_SUFFIX + "_" + strategy.getColourStrategy() + "_"
+                + presenter.getMaxIterations(world[2] / XyzTileExporter.TILE_SIZE);
+        this.submitLongExport(io.bunnies.fractalmaps.R.id.menuExportMapTiles, new XyzTileExportJob(this.getOutputFile(title, ""), false, strategy, presenter,
+                world, graphArea, regionHeight, 0, maxZoom, null), new ImageExportCallback(title, false, false));
+
+        this.showShortToast("Exporting map tiles down to zoom level " + maxZoom);
+    }
+
+    // Adds finished images to the gallery, then tells the user, or hands them on to share
+    private class ImageExportCallback implements IExportCallback {
+        private final String title;
+        private final boolean share;
+        private final boolean addToGallery;
+
+        ImageExportCallback(String title, boolean share, boolean addToGallery) {
+            this.title = title;
+            this.share = share;
+            this.addToGallery = addToGallery;
+        }
+
+        @Override
+        public void onExportWritten(ExportJob job, File file) {
+            if (this.addToGallery)
+                addImageToGallery(file.getAbsolutePath(), getApplicationContext());
+        }
+
+        @Override
+        public void onExportFinished(ExportJob job, File file) {
+            this.forgetLongExport(job);
+            showShortToast("Saved " + this.title + " to " + file.getAbsolutePath());
+
+            if (this.share && !isFinishing())
+                startShareIntent(file, this.title);
+        }
+
+        @Override
+        public void onExportFailed(ExportJob job, Exception exception) {
+            this.forgetLongExport(job);
+
+            if (this.share) {
+                LOGGER.error("Couldn't share image because it couldn't be saved!");
+                showShortToast("Failed to share image, because it couldn't be saved first");
+            } else {
+                showLongToast("Failed to save image!");
+            }
+        }
+
+        @Override
+        public void onExportCancelled(ExportJob job) {
+            this.forgetLongExport(job);
+
+            // Everything is cancelled when the activity goes, which needs no telling
+            if (!isFinishing())
+                showShortToast("Cancelled saving " + this.title);
+        }
+
+        private void forgetLongExport(ExportJob job) {
+            Iterator<ExportJob> jobs = longExportJobs.values().iterator();
+            while (jobs.hasNext()) {
+                if (jobs.next() == job)
+                    jobs.remove();
+            }
+        }
+    }
+
+    // Toasts every so often, rather than for every strip
+    private class PosterProgressListener implements IExportProgressListener {
+        private final String title;
+        private int lastStep = 0;
+
+        PosterProgressListener(String title) {
+            this.title = title;
+        }
+
+        @Override
+        public void onExportProgress(int rowsDone, int totalRows) {
+            LOGGER.debug("Poster '{}': {} of {} rows", this.title, rowsDone, totalRows);
+
+            int step = (int) ((long) rowsDone * POSTER_PROGRESS_STEPS / totalRows);
+            if (step > this.lastStep && rowsDone < totalRows) {
+                this.lastStep = step;
+                showShortToast("Poster " + (step * 100 / POSTER_PROGRESS_STEPS) + "% done");
+            }
+        }
     }
 
     // Utilities
@@ -1180,6 +1612,17 @@ public class FractalSceneActivity extends ActionBarActivity implements IFractalS
         }
     }
 
+    @Override
+    public void onFractalInteraction(IFractalPresenter presenter) {
+        this.setForegroundPresenter(presenter);
+    }
+
+    // The view being touched gets first pick of the render workers, the other fills in behind it
+    private void setForegroundPresenter(IFractalPresenter presenter) {
+        this.mandelbrotStrategy.setRenderPriority(presenter == this.mandelbrotFractalPresenter ? RenderPriority.FOREGROUND : RenderPriority.BACKGROUND);
+        this.juliaStrategy.setRenderPriority(presenter == this.juliaFractalPresenter ? RenderPriority.FOREGROUND : RenderPriority.BACKGROUND);
+    }
+
     @Override
     public void onFractalLongClick(IFractalPresenter presenter, float x, float y) {
         this.contextFromTouchHandler = true;
@@ -1198,6 +1641,7 @@ public class FractalSceneActivity extends ActionBarActivity implements IFractalS
 
     private void setPinPosition(float x, float y) {
         this.pinOverlay.setPosition(x, y);
+        this.mandelbrotFractalPresenter.setRenderFocus(x, y);
         this.mandelbrotFractalView.postUIThreadRedraw();
 
         double[] graphTapPosition = this.mandelbrotFractalPresenter.getGraphPositionFromClickedPosition(x, y);
@@ -1265,6 +1709,7 @@ public class FractalSceneActivity extends ActionBarActivity implements IFractalS
 
     @Override
     public void startedDraggingPin() {
+        this.setForegroundPresenter(this.juliaFractalPresenter);
         this.pinOverlay.setHilighted(true);
     }
 
@@ -1272,6 +1717,7 @@ public class FractalSceneActivity extends ActionBarActivity implements IFractalS
     public void stoppedDraggingPin(float x, float y) {
         this.pinDragged(x, y, true);
         this.pinOverlay.setHilighted(false);
+        this.mandelbrotFractalPresenter.setRenderFocus(x, y);
         this.juliaStrategy.stopAllRendering();
         this.juliaFractalPresenter.clearPixelSizes();
         this.juliaFractalPresenter.recomputeGraph(FractalPresenter.DEFAULT_PIXEL_SIZE);
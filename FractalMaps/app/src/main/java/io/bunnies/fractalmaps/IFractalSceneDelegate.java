@@ -1,6 +1,7 @@
 package io.bunnies.fractalmaps;
 
 import io.bunnies.fractalmaps.colouring.EnumColourStrategy;
+import io.bunnies.fractalmaps.compute.EnumPixelFormat;
 import io.bunnies.fractalmaps.overlay.pin.PinColour;
 import io.bunnies.fractalmaps.presenter.IFractalPresenter;
 import io.bunnies.fractalmaps.settings.SceneLayoutEnum;
@@ -10,6 +11,8 @@ public interface IFractalSceneDelegate {
 
     public void onFractalLongClick(IFractalPresenter presenter, float x, float y);
 
+    public void onFractalInteraction(IFractalPresenter presenter);
+
     public void onFractalRecomputeScheduled(IFractalPresenter presenter);
 
     public void onFractalRecomputed(IFractalPresenter presenter, double timeTakenInSeconds);
@@ -22,6 +25,8 @@ public interface IFractalSceneDelegate {
 
     public void onJuliaColourSchemeChanged(EnumColourStrategy colourStrategy, boolean reRender);
 
+    public void onPixelFormatChanged(EnumPixelFormat pixelFormat);
+
     public void onFractalViewReady(IFractalPresenter presenter);
 
     public void onSceneLayoutChanged(SceneLayoutEnum layoutType);
@@ -0,0 +1,157 @@
+package io.bunnies.fractalmaps.colouring;
+
+/*
+ * Java versions of the colouring functions in colouring.rsh, for code that colours points off the
+ * RenderScript path. Keep the two in step.
+ */
+public class ColourStrategies {
+    private static final double PI = 3.1415926535;
+    private static final int COLOUR_SPACING = 30;
+
+    public static int colourPoint(EnumColourStrategy colourStrategy, int iterations, int maxIterations) {
+        if (iterations >= maxIterations)
+            return colourInsidePoint();
+
+        switch (colourStrategy) {
+            case PURPLE_YELLOW:
+                return colourPurpleYellowPoint(iterations, maxIterations);
+
+            case RGB:
+                return colourRGBPoint(iterations);
+
+            case PASTEL:
+                return colourPastelPoint(iterations);
+
+            default:
+                return colourPurpleRedPoint(iterations, maxIterations);
+        }
+    }
+
+    public static int colourInsidePoint() {
+        return 0xFFFFFFFF;
+    }
+
+    public static int colourPurpleRedPoint(int iterations, int maxIterations) {
+        if (iterations <= 0) {
+            return 0xFF000000;
+        }
+
+        // Percentage (0.0 -- 1.0)
+        double colourCode = (double) iterations / (double) maxIterations;
+
+        int colourCodeR = Math.min((int) (255 * 6 * colourCode), 255);
+        int colourCodeG = (int) (255 * colourCode);
+
+        float c = (float) (7 * PI * colourCode);
+        int colourCodeB = (int) (127.5 - 127.5 * Math.cos(c));
+
+        return (0xFF << 24) + (colourCodeR << 16) + (colourCodeG << 8) + (colourCodeB);
+    }
+
+    public static int colourPurpleYellowPoint(int iterations, int maxIterations) {
+        if (iterations <= 0) {
+            return 0xFF000000;
+        }
+
+        // Percentage (0.0 -- 1.0)
+        double colourCode = (double) iterations / (double) maxIterations;
+
+        int colourCodeR = Math.min((int) (255 * 2 * colourCode), 255);
+        int colourCodeG = (int) (255 * colourCode);
+
+        float c = (float) (3 * PI * colourCode);
+        int colourCodeB = (int) (127.5 - 127.5 * Math.cos(c));
+
+        return (0xFF << 24) + (colourCodeR << 16) + (colourCodeG << 8) + (colourCodeB);
+    }
+
+    public static int colourRGBPoint(int iterations) {
+        if (iterations <= 0) {
+            return 0xFF000000;
+        }
+
+        // Number of iterations that we can handle in each segment of the colour scheme
+        int maxValueForColour = 220;
+        int iterationsPerSegment = (int) Math.floor(((float) maxValueForColour) / (float) COLOUR_SPACING);
+        int iterationsPerPeriod = iterationsPerSegment * 6;
+
+        // Normalise the iteration count to be between 1 and iterationsPerSegment * noOfSegments (i.e. 6)
+        boolean exceeded = false;
+        if (iterations >= iterationsPerPeriod) {
+            exceeded = true;
+            iterations = iterations % iterationsPerPeriod;
+        }
+
+        int colourCodeR = 0;
+        int colourCodeG = 0;
+        int colourCodeB = 0;
+
+        if (iterations < iterationsPerSegment && !exceeded) {
+            // 1. From Black (0,0,0) to Blue (0,0,255)
+            colourCodeB = iterations * COLOUR_SPACING;
+        } else if (iterations < iterationsPerSegment) {
+            // 7. From Magenta (255,0,255) to Blue (0,0,255)
+            colourCodeR = maxValueForColour - (iterations * COLOUR_SPACING);
+            colourCodeB = maxValueForColour;
+        } else if (iterations < iterationsPerSegment * 2) {
+            // 2. From Blue (0,0,255) to Cyan (0,255,255)
+            colourCodeG = (iterations - iterationsPerSegment) * COLOUR_SPACING;
+            colourCodeB = maxValueForColour;
+        } else if (iterations < iterationsPerSegment * 3) {
+            // 3. From Cyan (0,255,255) to Green (0,255,0)
+            colourCodeG = maxValueForColour;
+            colourCodeB = maxValueForColour - ((iterations - (iterationsPerSegment * 2)) * COLOUR_SPACING);
+        } else if (iterations < iterationsPerSegment * 4) {
+            // 4. From Green (0,255,0) to Yellow (255,255,0)
+            colourCodeR = (iterations - (iterationsPerSegment * 3)) * COLOUR_SPACING;
+            colourCodeG = maxValueForColour;
+        } else if (iterations < iterationsPerSegment * 5) {
+            // 5. From Yellow (255,255,0) to Red (255,0,0)
+            colourCodeR = maxValueForColour;
+            colourCodeG = maxValueForColour - ((iterations - (iterationsPerSegment * 4)) * COLOUR_SPACING);
+        } else {
+            // 6. From Red (255,0,0) to Magenta (255,0,255)
+            colourCodeR = maxValueForColour;
+            colourCodeB = (iterations - (iterationsPerSegment * 5)) * COLOUR_SPACING;
+        }
+
+        return (0xFF << 24) + (colourCodeR << 16) + (colourCodeG << 8) + (colourCodeB);
+    }
+
+    public static int colourPastelPoint(int iterations) {
+        // Black if the point escaped after 0 iterations
+        if (iterations == 0) {
+            return 0xFF000000;
+        }
+
+        // 2pi represents 255 iterations
+        float theta = (float) (((float) iterations / (float) 255) * 2 * PI);
+
+        float r = theta;
+        float x = (float) (theta * (2.0 * (Math.cos(theta) + 1)));
+        float y = (float) (theta * (2.0 * (Math.sin(theta) + 1)));
+
+        // Number of colours used in each component, and the starting point of each
+        int colourRange = 230;
+        int startColour = 25;
+
+        int colourCodeR = boundColour((int) (colourRange * r), colourRange) + startColour;
+        int colourCodeG = boundColour((int) (colourRange * y), colourRange) + startColour;
+        int colourCodeB = boundColour((int) (colourRange * x), colourRange) + startColour;
+
+        return (0xFF << 24) + (colourCodeR << 16) + (colourCodeG << 8) + (colourCodeB);
+    }
+
+    private static int boundColour(int colour, int colourRange) {
+        if (colour > (colourRange * 2)) {
+            int i = colour / (colourRange * 2);
+            colour = colour - (colourRange * 2 * i);
+        }
+
+        if (colour > colourRange) {
+            colour = colourRange - (colour - colourRange);
+        }
+
+        return colour;
+    }
+}
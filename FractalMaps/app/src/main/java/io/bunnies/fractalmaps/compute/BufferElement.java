@@ -0,0 +1,14 @@
+package io.bunnies.fractalmaps.compute;
+
+// Element types that frame buffers are pooled by
+public enum BufferElement {
+    INT32(4),
+    UINT16(2),
+    UINT8(1);
+
+    public final int bytesPerElement;
+
+    BufferElement(int bytesPerElement) {
+        this.bytesPerElement = bytesPerElement;
+    }
+}
@@ -0,0 +1,17 @@
+package io.bunnies.fractalmaps.compute;
+
+import android.graphics.Bitmap;
+
+// How the view's bitmap stores each pixel. Full colour for quality, or half the memory and upload cost.
+public enum EnumPixelFormat {
+    ARGB_8888(Bitmap.Config.ARGB_8888, 4),
+    RGB_565(Bitmap.Config.RGB_565, 2);
+
+    public final Bitmap.Config bitmapConfig;
+    public final int bytesPerPixel;
+
+    EnumPixelFormat(Bitmap.Config bitmapConfig, int bytesPerPixel) {
+        this.bitmapConfig = bitmapConfig;
+        this.bytesPerPixel = bytesPerPixel;
+    }
+}
@@ -0,0 +1,88 @@
+package io.bunnies.fractalmaps.compute;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/*
+ * Orders render work so that whatever is nearest the focus point (where the user last pinched, or the pin)
+ * resolves first. Strategies that render whole rows use the row ordering, tiled strategies the tile ordering.
+ */
+public class FocusFirstScheduler {
+    // Every row that starts a pixel block, nearest to focusY first. Blocks are aligned to focusY.
+    public static int[] orderRows(int height, int pixelBlockSize, int focusY) {
+        int lastRow = height - pixelBlockSize;
+        if (lastRow < 0)
+            return new int[0];
+
+        focusY = clamp(focusY, 0, lastRow);
+
+        int[] rows = new int[(lastRow / pixelBlockSize) + 1];
+        int numRows = 0;
+
+        // Walk outwards from the focus row, alternating below and above it
+        int below = focusY;
+        int above = focusY - pixelBlockSize;
+        while (below <= lastRow || above >= 0) {
+            if (below <= lastRow) {
+                rows[numRows++] = below;
+                below += pixelBlockSize;
+            }
+
+            if (above >= 0) {
+                rows[numRows++] = above;
+                above -= pixelBlockSize;
+            }
+        }
+
+        return Arrays.copyOf(rows, numRows);
+    }
+
+    // Splits an ordering into chunks of at most linesPerChunk rows, one chunk per progress update
+    public static int[][] chunkRows(int[] rows, int linesPerChunk) {
+        int chunks = (int) Math.ceil(rows.length / (double) linesPerChunk);
+        int[][] chunkedRows = new int[chunks][];
+
+        for (int chunk = 0; chunk < chunks; chunk++) {
+            int start = chunk * linesPerChunk;
+            chunkedRows[chunk] = Arrays.copyOfRange(rows, start, Math.min(start + linesPerChunk, rows.length));
+        }
+
+        return chunkedRows;
+    }
+
+    // Tiles {x, y, width, height} covering the view, in order of their centre's distance from the focus
+    public static List<int[]> orderTiles(int width, int height, int tileSize, final int focusX, final int focusY) {
+        List<int[]> tiles = new ArrayList<>();
+        for (int y = 0; y < height; y += tileSize) {
+            for (int x = 0; x < width; x += tileSize) {
+                int tileWidth = Math.min(tileSize, width - x);
+                int tileHeight = Math.min(tileSize, height - y);
+                tiles.add(new int[]{x, y, tileWidth, tileHeight});
+            }
+        }
+
+        Collections.sort(tiles, new Comparator<int[]>() {
+            @Override
+            public int compare(int[] a, int[] b) {
+                long distanceA = distanceSquared(a, focusX, focusY);
+                long distanceB = distanceSquared(b, focusX, focusY);
+                return distanceA < distanceB ? -1 : (distanceA == distanceB ? 0 : 1);
+            }
+        });
+
+        return tiles;
+    }
+
+    private static long distanceSquared(int[] tile, int focusX, int focusY) {
+        long dx = (tile[0] + tile[2] / 2) - focusX;
+        long dy = (tile[1] + tile[3] / 2) - focusY;
+        return (dx * dx) + (dy * dy);
+    }
+
+    private static int clamp(int value, int min, int max) {
+        return Math.max(min, Math.min(max, value));
+    }
+}
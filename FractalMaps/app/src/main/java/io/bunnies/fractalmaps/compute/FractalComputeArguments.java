@@ -1,5 +1,7 @@
 package io.bunnies.fractalmaps.compute;
 
+import android.graphics.Bitmap;
+
 public class FractalComputeArguments {
     public final int pixelBlockSize;
     public final int maxIterations;
@@ -10,10 +12,22 @@ public class FractalComputeArguments {
     public final double xMin;
     public final double yMax;
     public final double pixelSize;
-    public int[] pixelBuffer;
-    public int[] pixelBufferSizes;
+    // Rendered into the back buffer, which is swapped to the front as each part is published
+    public PixelBufferPair pixelBuffers;
+    // The pixel block size each pixel was last computed at, one unsigned byte per pixel
+    public byte[] pixelBufferSizes;
+    // Each pixel's escape count as in IterationCounts, laid out like pixelBufferSizes. Null if they aren't wanted.
+    public int[] pixelIterations;
     public long startTime;
 
+    // The view's bitmap, for strategies that can write pixels straight into it. Null to go through pixelBuffers only.
+    public Bitmap outputBitmap;
+    public EnumPixelFormat pixelFormat = EnumPixelFormat.RGB_565;
+
+    // Point in the view that should resolve first, defaults to the centre
+    public int focusX;
+    public int focusY;
+
     public FractalComputeArguments(int pixelBlockSize,
                                    final int maxIterations,
                                    final int linesPerProgressUpdate,
@@ -23,8 +37,8 @@ public class FractalComputeArguments {
                                    final double xMin,
                                    final double yMax,
                                    final double pixelSize,
-                                   int[] pixelBuffer,
-                                   int[] pixelBufferSizes) {
+                                   PixelBufferPair pixelBuffers,
+                                   byte[] pixelBufferSizes) {
         this.pixelBlockSize = pixelBlockSize;
         this.maxIterations = maxIterations;
         this.linesPerProgressUpdate = linesPerProgressUpdate;
@@ -34,7 +48,9 @@ public class FractalComputeArguments {
         this.xMin = xMin;
         this.yMax = yMax;
         this.pixelSize = pixelSize;
-        this.pixelBuffer = pixelBuffer;
+        this.pixelBuffers = pixelBuffers;
         this.pixelBufferSizes = pixelBufferSizes;
+        this.focusX = viewWidth / 2;
+        this.focusY = viewHeight / 2;
     }
 }
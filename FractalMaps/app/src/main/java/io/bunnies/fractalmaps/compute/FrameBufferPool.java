@@ -0,0 +1,197 @@
+package io.bunnies.fractalmaps.compute;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/*
+ * Frame-sized arrays, kept for reuse rather than left for the garbage collector. Buffers are keyed by
+ * element type and dimensions, so rotating back and forth reuses the arrays from last time. Borrowed
+ * buffers always come back zeroed, just like a new array.
+ *
+ * The counters show how much allocation is still happening: every miss allocates a new buffer.
+ */
+public class FrameBufferPool {
+    private static final Logger LOGGER = LoggerFactory.getLogger(FrameBufferPool.class);
+
+    // Enough for a few full frames of pixels and pixel sizes on a 1080p screen
+    private static final long DEFAULT_MAX_POOLED_BYTES = 48L * 1024 * 1024;
+
+    private static FrameBufferPool sharedPool;
+
+    private final long maxPooledBytes;
+    private final Map<Key, ArrayDeque<Object>> pooledBuffers = new HashMap<>();
+    private long pooledBytes = 0;
+
+    private long allocatedBuffers = 0;
+    private long allocatedBytes = 0;
+    private long reusedBuffers = 0;
+    private long discardedBuffers = 0;
+
+    public static synchronized FrameBufferPool getSharedPool() {
+        if (sharedPool == null)
+            sharedPool = new FrameBufferPool(DEFAULT_MAX_POOLED_BYTES);
+
+        return sharedPool;
+    }
+
+    public FrameBufferPool(long maxPooledBytes) {
+        this.maxPooledBytes = maxPooledBytes;
+    }
+
+    public synchronized int[] borrowIntBuffer(int width, int height) {
+        int[] buffer = (int[]) this.takePooled(new Key(BufferElement.INT32, width, height));
+        if (buffer != null) {
+            Arrays.fill(buffer, 0);
+            return buffer;
+        }
+
+        this.countAllocation(BufferElement.INT32, width, height);
+        return new int[width * height];
+    }
+
+    public synchronized void returnIntBuffer(int[] buffer, int width, int height) {
+        if (buffer == null || buffer.length != width * height)
+            return;
+
+        this.putPooled(new Key(BufferElement.INT32, width, height), buffer);
+    }
+
+    public synchronized byte[] borrowByteBuffer(int width, int height) {
+        byte[] buffer = (byte[]) this.takePooled(new Key(BufferElement.UINT8, width, height));
+        if (buffer != null) {
+            Arrays.fill(buffer, (byte) 0);
+            return buffer;
+        }
+
+        this.countAllocation(BufferElement.UINT8, width, height);
+        return new byte[width * height];
+    }
+
+    public synchronized void returnByteBuffer(byte[] buffer, int width, int height) {
+        if (buffer == null || buffer.length != width * height)
+            return;
+
+        this.putPooled(new Key(BufferElement.UINT8, width, height), buffer);
+    }
+
+    private Object takePooled(Key key) {
+        ArrayDeque<Object> buffers = this.pooledBuffers.get(key);
+        if (buffers == null || buffers.isEmpty())
+            return null;
+
+        this.pooledBytes -= key.getBytes();
+        this.reusedBuffers++;
+        return buffers.pollLast();
+    }
+
+    private void putPooled(Key key, Object buffer) {
+        if (key.getBytes() > this.maxPooledBytes) {
+            this.discardedBuffers++;
+            return;
+        }
+
+        // Make room by dropping buffers of other sizes first, as those are the least likely to come back
+        Iterator<Map.Entry<Key, ArrayDeque<Object>>> entries = this.pooledBuffers.entrySet().iterator();
+        while (this.pooledBytes + key.getBytes() > this.maxPooledBytes && entries.hasNext()) {
+            Map.Entry<Key, ArrayDeque<Object>> entry = entries.next();
+            if (entry.getKey().equals(key))
+                continue;
+
+            this.discardAll(entry.getKey(), entry.getValue());
+            entries.remove();
+        }
+
+        ArrayDeque<Object> buffers = this.pooledBuffers.get(key);
+        if (buffers == null) {
+            buffers = new ArrayDeque<>();
+            this.pooledBuffers.put(key, buffers);
+        }
+
+        while (this.pooledBytes + key.getBytes() > this.maxPooledBytes && !buffers.isEmpty()) {
+            buffers.pollFirst();
+            this.pooledBytes -= key.getBytes();
+            this.discardedBuffers++;
+        }
+
+        buffers.offerLast(buffer);
+        this.pooledBytes += key.getBytes();
+    }
+
+    private void discardAll(Key key, ArrayDeque<Object> buffers) {
+        this.pooledBytes -= key.getBytes() * buffers.size();
+        this.discardedBuffers += buffers.size();
+        buffers.clear();
+    }
+
+    private void countAllocation(BufferElement element, int width, int height) {
+        this.allocatedBuffers++;
+        this.allocatedBytes += (long) width * height * element.bytesPerElement;
+
+        LOGGER.debug("Allocated new {}x{} {} frame buffer, {} so far", width, height, element, this.allocatedBuffers);
+    }
+
+    public synchronized void clear() {
+        for (Map.Entry<Key, ArrayDeque<Object>> entry : this.pooledBuffers.entrySet()) {
+            this.discardAll(entry.getKey(), entry.getValue());
+        }
+        this.pooledBuffers.clear();
+    }
+
+    // Buffers that had to be allocated because the pool had none to lend
+    public synchronized long getAllocatedBufferCount() {
+        return this.allocatedBuffers;
+    }
+
+    public synchronized long getAllocatedBytes() {
+        return this.allocatedBytes;
+    }
+
+    public synchronized long getReusedBufferCount() {
+        return this.reusedBuffers;
+    }
+
+    // Buffers let go to the garbage collector to keep the pool within its budget
+    public synchronized long getDiscardedBufferCount() {
+        return this.discardedBuffers;
+    }
+
+    public synchronized long getPooledBytes() {
+        return this.pooledBytes;
+    }
+
+    private static class Key {
+        private final BufferElement element;
+        private final int width;
+        private final int height;
+
+        Key(BufferElement element, int width, int height) {
+            this.element = element;
+            this.width = width;
+            this.height = height;
+        }
+
+        long getBytes() {
+            return (long) this.width * this.height * this.element.bytesPerElement;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key))
+                return false;
+
+            Key other = (Key) o;
+            return this.element == other.element && this.width == other.width && this.height == other.height;
+        }
+
+        @Override
+        public int hashCode() {
+            return (31 * ((31 * this.element.hashCode()) + this.width)) + this.height;
+        }
+    }
+}
@@ -1,9 +1,15 @@
 package io.bunnies.fractalmaps.compute;
 
 public interface IFractalComputeDelegate {
-    public void postUpdate(int[] pixels, int[] pixelSizes);
+    public void postUpdate(PixelBufferPair pixels, byte[] pixelSizes);
 
-    public void postFinished(int[] pixels, int[] pixelSizes, int pixelBlockSize, double timeTakenInSeconds);
+    // Only rows [rowStart, rowEnd) of the buffers have changed since the last update
+    public void postUpdate(PixelBufferPair pixels, byte[] pixelSizes, int rowStart, int rowEnd);
+
+    // The strategy has written its latest pixels straight into the view's bitmap, which only needs redrawing
+    public void postBitmapUpdate();
+
+    public void postFinished(PixelBufferPair pixels, byte[] pixelSizes, int pixelBlockSize, double timeTakenInSeconds);
 
     public void onComputeStarted(int pixelBlockSize);
 }
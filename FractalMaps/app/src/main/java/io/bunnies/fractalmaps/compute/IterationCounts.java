@@ -0,0 +1,36 @@
+package io.bunnies.fractalmaps.compute;
+
+import io.bunnies.fractalmaps.colouring.ColourStrategies;
+import io.bunnies.fractalmaps.colouring.EnumColourStrategy;
+
+/*
+ * Escape counts kept for each pixel next to its colour, so a pixel can be coloured again for a different
+ * iteration budget rather than computed again. A count is how many iterations the point took to escape,
+ * or for a point that didn't escape, the bitwise not of the budget it got. Either way the count says on
+ * its own which budgets it's good for, whatever render it came from.
+ */
+public class IterationCounts {
+    // For pixels whose colour came from somewhere without counts, such as a cached tile
+    public static final int UNKNOWN = Integer.MIN_VALUE;
+
+    // iterations as returned by iteratePoint(), maxIterations if the point never escaped
+    public static int encode(int iterations, int maxIterations) {
+        return (iterations < maxIterations) ? iterations : ~maxIterations;
+    }
+
+    // Whether the count gives the point's colour with this budget: escaped points always do, the rest only for budgets no bigger
+    public static boolean isKnownAt(int count, int maxIterations) {
+        if (count >= 0)
+            return true;
+
+        return count != UNKNOWN && ~count >= maxIterations;
+    }
+
+    // The point's colour with this budget, for counts that isKnownAt() it
+    public static int colourAt(int count, EnumColourStrategy colourStrategy, int maxIterations) {
+        if (count < 0)
+            return ColourStrategies.colourInsidePoint();
+
+        return ColourStrategies.colourPoint(colourStrategy, count, maxIterations);
+    }
+}
@@ -0,0 +1,334 @@
+package io.bunnies.fractalmaps.compute;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+/*
+ * Front and back pixel buffers for one view. The UI only ever reads the front, the compute engine only
+ * ever writes the back, and publishing swaps them over atomically.
+ *
+ * Writers bracket their writes with beginWrite() and publish(), and can't nest them. beginWrite() sleeps
+ * until any UI reader still holding the buffer from before the last swap lets go, then brings it up to
+ * date by copying across just the region that was published last time. Readers never block: acquireFront()
+ * counts them in, and retries if a swap happens underneath it, and the last one out of a buffer wakes the writer.
+ *
+ * Both buffers wrap around: view pixel (x, y) lives at indexOf(x, y), measured from (originX, originY).
+ * Panning just moves the origin and clears the strips that come into view. The pixel sizes array that
+ * goes with these buffers uses the same layout.
+ */
+public class PixelBufferPair {
+    private final int width;
+    private final int height;
+
+    private final int[][] buffers;
+    private final AtomicInteger frontIndex = new AtomicInteger(0);
+    private final AtomicIntegerArray readers = new AtomicIntegerArray(2);
+
+    private volatile int originX = 0;
+    private volatile int originY = 0;
+
+    private final ReentrantLock writeLock = new ReentrantLock();
+    // Writers wait on this for a buffer's readers to go, and the last reader out notifies it
+    private final Object readersGone = new Object();
+    // Regions {x, y, width, height}, in buffer layout, that the back buffer is missing. Only touched under writeLock.
+    private final List<int[]> staleRegions = new ArrayList<>();
+
+    public PixelBufferPair(int width, int height) {
+        this.width = width;
+        this.height = height;
+        this.buffers = new int[][]{new int[width * height], new int[width * height]};
+    }
+
+    // Borrows both buffers from the pool, to be handed back with release()
+    public PixelBufferPair(int width, int height, FrameBufferPool pool) {
+        this.width = width;
+        this.height = height;
+        this.buffers = new int[][]{pool.borrowIntBuffer(width, height), pool.borrowIntBuffer(width, height)};
+    }
+
+    public int getWidth() {
+        return this.width;
+    }
+
+    public int getHeight() {
+        return this.height;
+    }
+
+    public int getOriginX() {
+        return this.originX;
+    }
+
+    public int getOriginY() {
+        return this.originY;
+    }
+
+    // Where view pixel (x, y) is stored, in these buffers and in the matching pixel sizes array
+    public int indexOf(int x, int y) {
+        int bufferX = x + this.originX;
+        if (bufferX >= this.width)
+            bufferX -= this.width;
+
+        int bufferY = y + this.originY;
+        if (bufferY >= this.height)
+            bufferY -= this.height;
+
+        return (bufferY * this.width) + bufferX;
+    }
+
+    // View rows [rowStart, rowEnd) as at most two {start, end} ranges of buffer rows
+    public List<int[]> bufferRowRanges(int rowStart, int rowEnd) {
+        List<int[]> rowRanges = new ArrayList<>(2);
+        int[][] spans = wrapSpan(rowStart, rowEnd - rowStart, this.originY, this.height);
+        for (int[] span : spans) {
+            rowRanges.add(new int[]{span[0], span[0] + span[1]});
+        }
+
+        return rowRanges;
+    }
+
+    // The current front buffer, without counting as a reader. Only safe while nothing is publishing.
+    public int[] peekFront() {
+        return this.buffers[this.frontIndex.get()];
+    }
+
+    public int[] acquireFront() {
+        while (true) {
+            int index = this.frontIndex.get();
+            this.readers.incrementAndGet(index);
+
+            if (this.frontIndex.get() == index)
+                return this.buffers[index];
+
+            // Swapped while we were counting ourselves in, try the new front
+            this.releaseReader(index);
+        }
+    }
+
+    public void releaseFront(int[] front) {
+        int index = (front == this.buffers[0]) ? 0 : 1;
+        this.releaseReader(index);
+    }
+
+    private void releaseReader(int index) {
+        if (this.readers.decrementAndGet(index) > 0)
+            return;
+
+        synchronized (this.readersGone) {
+            this.readersGone.notifyAll();
+        }
+    }
+
+    // Returns the back buffer, up to date with the front, for writing. Must be followed by publish().
+    public int[] beginWrite() {
+        this.lockForWriting();
+
+        int backIndex = 1 - this.frontIndex.get();
+        this.waitForReaders(backIndex);
+        this.syncBackBuffer();
+
+        return this.buffers[backIndex];
+    }
+
+    // As beginWrite(), for a writer about to replace every pixel in plain row order. Rendering must be stopped.
+    public int[] beginFullWrite() {
+        int[] back = this.beginWrite();
+
+        this.waitForReaders(this.frontIndex.get());
+        this.originX = 0;
+        this.originY = 0;
+
+        return back;
+    }
+
+    // Swaps the back buffer, in which only the given region of the view has changed, to the front
+    public void publish(int x, int y, int regionWidth, int regionHeight) {
+        if (!this.writeLock.isHeldByCurrentThread())
+            throw new IllegalStateException("publish() without beginWrite()");
+
+        try {
+            this.frontIndex.set(1 - this.frontIndex.get());
+            this.staleRegions.addAll(this.bufferRegions(x, y, regionWidth, regionHeight));
+        } finally {
+            this.writeLock.unlock();
+        }
+    }
+
+    public void publishRows(int rowStart, int rowEnd) {
+        this.publish(0, rowStart, this.width, rowEnd - rowStart);
+    }
+
+    public void publishAll() {
+        this.publish(0, 0, this.width, this.height);
+    }
+
+    /*
+     * Moves the picture by (dx, dy) without copying it: the origin moves the other way, and only the strips
+     * that come into view are cleared, in both buffers and in pixelSizes. Rendering must be stopped.
+     */
+    public void translate(int dx, int dy, byte[] pixelSizes, byte unrenderedPixelSize) {
+        dx = Math.max(-this.width, Math.min(dx, this.width));
+        dy = Math.max(-this.height, Math.min(dy, this.height));
+
+        this.lockForWriting();
+        try {
+            this.waitForReaders(0);
+            this.waitForReaders(1);
+            this.syncBackBuffer();
+
+            this.originX = floorMod(this.originX - dx, this.width);
+            this.originY = floorMod(this.originY - dy, this.height);
+
+            List<int[]> exposedRegions = new ArrayList<>();
+            if (dx > 0)
+                exposedRegions.add(new int[]{0, 0, dx, this.height});
+            else if (dx < 0)
+                exposedRegions.add(new int[]{this.width + dx, 0, -dx, this.height});
+
+            if (dy > 0)
+                exposedRegions.add(new int[]{0, 0, this.width, dy});
+            else if (dy < 0)
+                exposedRegions.add(new int[]{0, this.height + dy, this.width, -dy});
+
+            for (int[] exposed : exposedRegions) {
+                for (int[] region : this.bufferRegions(exposed[0], exposed[1], exposed[2], exposed[3])) {
+                    fillRegion(this.buffers[0], this.width, region, 0);
+                    fillRegion(this.buffers[1], this.width, region, 0);
+                    fillRegion(pixelSizes, this.width, region, unrenderedPixelSize);
+                }
+            }
+        } finally {
+            this.writeLock.unlock();
+        }
+    }
+
+    // Copies an array in this layout, such as the front buffer or the pixel sizes, out in plain row order
+    public void copyInRowOrder(int[] source, int[] destination) {
+        this.copyRowsInOrder(source, destination);
+    }
+
+    public void copyInRowOrder(byte[] source, byte[] destination) {
+        this.copyRowsInOrder(source, destination);
+    }
+
+    private void copyRowsInOrder(Object source, Object destination) {
+        int originX = this.originX;
+        int firstLength = this.width - originX;
+
+        for (int y = 0; y < this.height; y++) {
+            int bufferRowStart = this.indexOf(0, y) - originX;
+            int rowStart = y * this.width;
+            System.arraycopy(source, bufferRowStart + originX, destination, rowStart, firstLength);
+            System.arraycopy(source, bufferRowStart, destination, rowStart + firstLength, originX);
+        }
+    }
+
+    // Hands both buffers back to the pool once nobody is using them. Rendering must be stopped, and the pair not used again.
+    public void release(FrameBufferPool pool) {
+        this.lockForWriting();
+        try {
+            this.waitForReaders(0);
+            this.waitForReaders(1);
+            this.staleRegions.clear();
+
+            pool.returnIntBuffer(this.buffers[0], this.width, this.height);
+            pool.returnIntBuffer(this.buffers[1], this.width, this.height);
+        } finally {
+            this.writeLock.unlock();
+        }
+    }
+
+    // The lock is reentrant, but a writer that came back in would wait for readers it might be holding itself
+    private void lockForWriting() {
+        if (this.writeLock.isHeldByCurrentThread())
+            throw new IllegalStateException("Already writing, publish() first");
+
+        this.writeLock.lock();
+    }
+
+    // Call holding writeLock, so no swap can bring new readers onto the buffer. Waits through interrupts, as nothing can be written until they've gone.
+    private void waitForReaders(int index) {
+        boolean interrupted = false;
+        synchronized (this.readersGone) {
+            while (this.readers.get(index) > 0) {
+                try {
+                    this.readersGone.wait();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        }
+
+        if (interrupted)
+            Thread.currentThread().interrupt();
+    }
+
+    private void syncBackBuffer() {
+        int backIndex = 1 - this.frontIndex.get();
+        int[] front = this.buffers[1 - backIndex];
+        int[] back = this.buffers[backIndex];
+        for (int[] region : this.staleRegions) {
+            copyRegion(front, back, this.width, region);
+        }
+        this.staleRegions.clear();
+    }
+
+    // A region of the view as up to four regions of the buffers, split where it wraps
+    private List<int[]> bufferRegions(int x, int y, int regionWidth, int regionHeight) {
+        List<int[]> regions = new ArrayList<>(4);
+        for (int[] rows : wrapSpan(y, regionHeight, this.originY, this.height)) {
+            for (int[] columns : wrapSpan(x, regionWidth, this.originX, this.width)) {
+                regions.add(new int[]{columns[0], rows[0], columns[1], rows[1]});
+            }
+        }
+
+        return regions;
+    }
+
+    // {start, length} spans of buffer coordinates covering [start, start + length) of the view
+    private static int[][] wrapSpan(int start, int length, int origin, int size) {
+        if (length <= 0)
+            return new int[0][];
+
+        int bufferStart = floorMod(start + origin, size);
+        if (bufferStart + length <= size)
+            return new int[][]{{bufferStart, length}};
+
+        int firstLength = size - bufferStart;
+        return new int[][]{{bufferStart, firstLength}, {0, length - firstLength}};
+    }
+
+    private static int floorMod(int value, int modulus) {
+        int result = value % modulus;
+        return result < 0 ? result + modulus : result;
+    }
+
+    private static void copyRegion(int[] source, int[] destination, int width, int[] region) {
+        if (region[0] == 0 && region[2] == width) {
+            System.arraycopy(source, region[1] * width, destination, region[1] * width, region[3] * width);
+            return;
+        }
+
+        for (int y = region[1]; y < region[1] + region[3]; y++) {
+            int offset = (y * width) + region[0];
+            System.arraycopy(source, offset, destination, offset, region[2]);
+        }
+    }
+
+    private static void fillRegion(int[] array, int width, int[] region, int value) {
+        for (int y = region[1]; y < region[1] + region[3]; y++) {
+            int offset = (y * width) + region[0];
+            Arrays.fill(array, offset, offset + region[2], value);
+        }
+    }
+
+    private static void fillRegion(byte[] array, int width, int[] region, byte value) {
+        for (int y = region[1]; y < region[1] + region[3]; y++) {
+            int offset = (y * width) + region[0];
+            Arrays.fill(array, offset, offset + region[2], value);
+        }
+    }
+}
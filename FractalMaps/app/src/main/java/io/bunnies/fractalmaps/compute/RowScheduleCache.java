@@ -0,0 +1,91 @@
+package io.bunnies.fractalmaps.compute;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/*
+ * Chunked row orderings from FocusFirstScheduler, built the first time a render asks for one and kept
+ * while they're still being asked for. Only the least recently used schedules are dropped, so the couple
+ * a render alternates between (crude then detailed) stay cached while the user keeps panning.
+ */
+public class RowScheduleCache {
+    private final Map<Key, int[][]> schedules;
+
+    private long builtSchedules = 0;
+    private long cachedSchedules = 0;
+
+    public RowScheduleCache(final int maxSchedules) {
+        this.schedules = new LinkedHashMap<Key, int[][]>(maxSchedules, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, int[][]> eldest) {
+                return this.size() > maxSchedules;
+            }
+        };
+    }
+
+    public synchronized int[][] getSchedule(int height, int linesPerChunk, int pixelBlockSize, int focusY) {
+        Key key = new Key(height, linesPerChunk, pixelBlockSize, focusY);
+
+        int[][] schedule = this.schedules.get(key);
+        if (schedule != null) {
+            this.cachedSchedules++;
+            return schedule;
+        }
+
+        int[] rows = FocusFirstScheduler.orderRows(height, pixelBlockSize, focusY);
+        schedule = FocusFirstScheduler.chunkRows(rows, linesPerChunk);
+
+        this.schedules.put(key, schedule);
+        this.builtSchedules++;
+
+        return schedule;
+    }
+
+    public synchronized void clear() {
+        this.schedules.clear();
+    }
+
+    public synchronized int size() {
+        return this.schedules.size();
+    }
+
+    public synchronized long getBuiltScheduleCount() {
+        return this.builtSchedules;
+    }
+
+    public synchronized long getCachedScheduleCount() {
+        return this.cachedSchedules;
+    }
+
+    private static class Key {
+        private final int height;
+        private final int linesPerChunk;
+        private final int pixelBlockSize;
+        private final int focusY;
+
+        Key(int height, int linesPerChunk, int pixelBlockSize, int focusY) {
+            this.height = height;
+            this.linesPerChunk = linesPerChunk;
+            this.pixelBlockSize = pixelBlockSize;
+            this.focusY = focusY;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key))
+                return false;
+
+            Key other = (Key) o;
+            return this.height == other.height && this.linesPerChunk == other.linesPerChunk
+                    && this.pixelBlockSize == other.pixelBlockSize && this.focusY == other.focusY;
+        }
+
+        @Override
+        public int hashCode() {
+            int result = this.height;
+            result = (31 * result) + this.linesPerChunk;
+            result = (31 * result) + this.pixelBlockSize;
+            return (31 * result) + this.focusY;
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package io.bunnies.fractalmaps.compute;
+
+import io.bunnies.fractalmaps.colouring.EnumColourStrategy;
+
+/*
+ * Carries the last render across a zoom. Every new pixel takes the colour of the nearest old one as a
+ * preview, and new pixels that sit exactly on a point the last render computed keep that sample, so the
+ * next render skips them. Zooming in 2x lands a quarter of the new pixels on old samples, zooming out 2x
+ * lands every new pixel that's still inside the old view on one.
+ *
+ * The budget grows as the view zooms in, so pixels are coloured again from their iteration counts for the
+ * new budget. Escaped points keep their sample whatever the budget, points that didn't escape only when the
+ * budget hasn't grown past the one they were given, as they might escape with more.
+ *
+ * Pinch zooms rarely end on an exact ratio, so snapGraphArea() nudges ones that end close to a whole
+ * number ratio onto it, and lines the new pixel grid up with the old one.
+ */
+public class ZoomResampler {
+    // How far, as a fraction, a zoom can be from a whole number ratio and still be snapped onto it
+    public static final double SNAP_TOLERANCE = 0.03;
+
+    // How far, in old pixels, a new pixel can be from an old sample and still count as on it
+    private static final double SAMPLE_EPSILON = 1e-3;
+
+    private final int width;
+    private final int height;
+    private final byte samplePixelSize;
+    private final byte unrenderedPixelSize;
+
+    // For each new column (or row): the nearest old column, and whether it's exactly on it
+    private final int[] sourceColumns;
+    private final boolean[] exactColumns;
+    private final int[] sourceRows;
+    private final boolean[] exactRows;
+
+    private int lastReusedPixelCount = 0;
+
+    public ZoomResampler(int width, int height, byte samplePixelSize, byte unrenderedPixelSize) {
+        this.width = width;
+        this.height = height;
+        this.samplePixelSize = samplePixelSize;
+        this.unrenderedPixelSize = unrenderedPixelSize;
+
+        this.sourceColumns = new int[width];
+        this.exactColumns = new boolean[width];
+        this.sourceRows = new int[height];
+        this.exactRows = new boolean[height];
+    }
+
+    public int getLastReusedPixelCount() {
+        return this.lastReusedPixelCount;
+    }
+
+    // The new graph area, moved to the nearest whole number zoom ratio with its pixels on the old grid if it's close enough
+    public double[] snapGraphArea(double[] oldGraphArea, double[] newGraphArea) {
+        double oldPixelSize = oldGraphArea[2] / this.width;
+        double newPixelSize = newGraphArea[2] / this.width;
+
+        boolean zoomedIn = newPixelSize <= oldPixelSize;
+        double ratio = zoomedIn ? oldPixelSize / newPixelSize : newPixelSize / oldPixelSize;
+        long wholeRatio = Math.round(ratio);
+        if (wholeRatio < 2 || Math.abs(ratio - wholeRatio) > wholeRatio * SNAP_TOLERANCE)
+            return newGraphArea;
+
+        double snappedPixelSize = zoomedIn ? oldPixelSize / wholeRatio : oldPixelSize * wholeRatio;
+        double gridSize = Math.min(oldPixelSize, snappedPixelSize);
+
+        // Keep the middle of the view where it was, then move onto the finer of the two grids
+        double centreX = newGraphArea[0] + (newPixelSize * this.width / 2.0);
+        double centreY = newGraphArea[1] - (newPixelSize * this.height / 2.0);
+        double xMin = centreX - (snappedPixelSize * this.width / 2.0);
+        double yMax = centreY + (snappedPixelSize * this.height / 2.0);
+
+        double[] snappedGraphArea = new double[3];
+        snappedGraphArea[0] = oldGraphArea[0] + (Math.round((xMin - oldGraphArea[0]) / gridSize) * gridSize);
+        snappedGraphArea[1] = oldGraphArea[1] - (Math.round((oldGraphArea[1] - yMax) / gridSize) * gridSize);
+        snappedGraphArea[2] = snappedPixelSize * this.width;
+
+        return snappedGraphArea;
+    }
+
+    /*
+     * Fills newPixels, newPixelSizes and newIterations, all in plain row order, from the last render over
+     * oldGraphArea, coloured for maxIterations. Pixels off the old view are cleared. Returns how many pixels
+     * kept their sample.
+     */
+    public int resample(double[] oldGraphArea, double[] newGraphArea, int[] oldPixels, byte[] oldPixelSizes, int[] oldIterations,
+                        int[] newPixels, byte[] newPixelSizes, int[] newIterations,
+                        EnumColourStrategy colourStrategy, int maxIterations) {
+        double oldPixelSize = oldGraphArea[2] / this.width;
+        double newPixelSize = newGraphArea[2] / this.width;
+        double step = newPixelSize / oldPixelSize;
+
+        mapAxis((newGraphArea[0] - oldGraphArea[0]) / oldPixelSize, step, this.width, this.sourceColumns, this.exactColumns);
+        mapAxis((oldGraphArea[1] - newGraphArea[1]) / oldPixelSize, step, this.height, this.sourceRows, this.exactRows);
+
+        int reusedPixels = 0;
+
+        for (int y = 0; y < this.height; y++) {
+            int rowStart = y * this.width;
+            int sourceY = this.sourceRows[y];
+
+            if (sourceY < 0) {
+                for (int x = 0; x < this.width; x++) {
+                    newPixels[rowStart + x] = 0;
+                    newPixelSizes[rowStart + x] = this.unrenderedPixelSize;
+                    newIterations[rowStart + x] = IterationCounts.UNKNOWN;
+                }
+                continue;
+            }
+
+            int sourceRowStart = sourceY * this.width;
+            for (int x = 0; x < this.width; x++) {
+                int index = rowStart + x;
+                int sourceX = this.sourceColumns[x];
+                if (sourceX < 0) {
+                    newPixels[index] = 0;
+                    newPixelSizes[index] = this.unrenderedPixelSize;
+                    newIterations[index] = IterationCounts.UNKNOWN;
+                    continue;
+                }
+
+                int source = sourceRowStart + sourceX;
+                int count = oldIterations[source];
+                boolean known = oldPixelSizes[source] != this.unrenderedPixelSize && IterationCounts.isKnownAt(count, maxIterations);
+                if (known) {
+                    newPixels[index] = IterationCounts.colourAt(count, colourStrategy, maxIterations);
+                    newIterations[index] = count;
+                } else {
+                    newPixels[index] = oldPixels[source];
+                    newIterations[index] = IterationCounts.UNKNOWN;
+                }
+
+                boolean onSample = this.exactRows[y] && this.exactColumns[x] && oldPixelSizes[source] == this.samplePixelSize;
+                if (onSample && known) {
+                    newPixelSizes[index] = this.samplePixelSize;
+                    reusedPixels++;
+                } else {
+                    newPixelSizes[index] = this.unrenderedPixelSize;
+                }
+            }
+        }
+
+        this.lastReusedPixelCount = reusedPixels;
+        return reusedPixels;
+    }
+
+    // Old pixel nearest each new one along an axis, or -1 if it's off the old view
+    private static void mapAxis(double offset, double step, int size, int[] sources, boolean[] exact) {
+        for (int i = 0; i < size; i++) {
+            double position = offset + (i * step);
+            long nearest = Math.round(position);
+
+            if (nearest < 0 || nearest >= size) {
+                sources[i] = -1;
+                exact[i] = false;
+            } else {
+                sources[i] = (int) nearest;
+                exact[i] = Math.abs(position - nearest) < SAMPLE_EPSILON;
+            }
+        }
+    }
+}
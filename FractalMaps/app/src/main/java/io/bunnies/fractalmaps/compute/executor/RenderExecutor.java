@@ -0,0 +1,191 @@
+package io.bunnies.fractalmaps.compute.executor;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Iterator;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+ * Process-wide pool of render workers shared by every compute strategy.
+ *
+ * Each worker owns a deque. Tasks submitted from a worker go on the front of its own deque, so a render's
+ * next chunk stays on the same core; tasks from other threads are spread round-robin. An idle worker
+ * takes the highest priority task it can find, from its own deque first and then by stealing from the
+ * back of the others.
+ */
+public class RenderExecutor {
+    private static final Logger LOGGER = LoggerFactory.getLogger(RenderExecutor.class);
+
+    private static RenderExecutor sharedExecutor;
+
+    private final Worker[] workers;
+    private final Object workAvailableLock = new Object();
+    // Tasks in all the deques. Only changes under workAvailableLock, together with the deque, so it never lags them.
+    private int queuedTasks = 0;
+
+    private final AtomicInteger nextWorker = new AtomicInteger();
+    private final AtomicLong completedTasks = new AtomicLong();
+    private final AtomicLong stolenTasks = new AtomicLong();
+
+    public static synchronized RenderExecutor getSharedExecutor() {
+        if (sharedExecutor == null) {
+            int numberOfWorkers = Math.max(2, Runtime.getRuntime().availableProcessors());
+            sharedExecutor = new RenderExecutor(numberOfWorkers);
+        }
+
+        return sharedExecutor;
+    }
+
+    public RenderExecutor(int numberOfWorkers) {
+        this.workers = new Worker[numberOfWorkers];
+        for (int i = 0; i < numberOfWorkers; i++) {
+            this.workers[i] = new Worker(i);
+        }
+
+        for (Worker worker : this.workers) {
+            worker.start();
+        }
+
+        LOGGER.debug("Started render executor with {} workers", numberOfWorkers);
+    }
+
+    public int getNumberOfWorkers() {
+        return this.workers.length;
+    }
+
+    public long getCompletedTaskCount() {
+        return this.completedTasks.get();
+    }
+
+    public long getStolenTaskCount() {
+        return this.stolenTasks.get();
+    }
+
+    public void submit(RenderTask task) {
+        Worker currentWorker = this.currentWorker();
+        synchronized (this.workAvailableLock) {
+            if (currentWorker != null) {
+                currentWorker.deque.offerFirst(task);
+            } else {
+                int index = (this.nextWorker.getAndIncrement() & Integer.MAX_VALUE) % this.workers.length;
+                this.workers[index].deque.offerLast(task);
+            }
+
+            this.queuedTasks++;
+            this.workAvailableLock.notify();
+        }
+    }
+
+    // Returns true if the task was still queued, and so will now never run
+    public boolean remove(RenderTask task) {
+        synchronized (this.workAvailableLock) {
+            for (Worker worker : this.workers) {
+                if (worker.deque.remove(task)) {
+                    this.queuedTasks--;
+                    return true;
+                }
+            }
+        }
+
+        return false;
+    }
+
+    public void shutdown() {
+        for (Worker worker : this.workers) {
+            worker.interrupt();
+        }
+    }
+
+    private Worker currentWorker() {
+        Thread currentThread = Thread.currentThread();
+        if (currentThread instanceof Worker && ((Worker) currentThread).getExecutor() == this)
+            return (Worker) currentThread;
+
+        return null;
+    }
+
+    private RenderTask findTask(Worker self) {
+        for (RenderPriority priority : RenderPriority.values()) {
+            RenderTask task = takeTask(self.deque, priority, false);
+            if (task != null)
+                return task;
+
+            for (int i = 1; i < this.workers.length; i++) {
+                Worker victim = this.workers[(self.index + i) % this.workers.length];
+                task = takeTask(victim.deque, priority, true);
+                if (task != null) {
+                    this.stolenTasks.incrementAndGet();
+                    return task;
+                }
+            }
+        }
+
+        return null;
+    }
+
+    private RenderTask takeTask(LinkedBlockingDeque<RenderTask> deque, RenderPriority priority, boolean fromBack) {
+        Iterator<RenderTask> iterator = fromBack ? deque.descendingIterator() : deque.iterator();
+        while (iterator.hasNext()) {
+            RenderTask task = iterator.next();
+            if (task.getPriority() != priority)
+                continue;
+
+            // Another worker may have taken it since we looked, remove() tells us who won
+            synchronized (this.workAvailableLock) {
+                if (deque.remove(task)) {
+                    this.queuedTasks--;
+                    return task;
+                }
+            }
+        }
+
+        return null;
+    }
+
+    private class Worker extends Thread {
+        private final int index;
+        private final LinkedBlockingDeque<RenderTask> deque = new LinkedBlockingDeque<RenderTask>();
+
+        public Worker(int index) {
+            super("RenderWorker-" + index);
+            this.index = index;
+            this.setDaemon(true);
+        }
+
+        RenderExecutor getExecutor() {
+            return RenderExecutor.this;
+        }
+
+        public void run() {
+            while (!this.isInterrupted()) {
+                RenderTask task = findTask(this);
+
+                if (task == null) {
+                    // The count already covers anything queued while we were looking, so look again if it's not zero
+                    try {
+                        synchronized (workAvailableLock) {
+                            if (queuedTasks == 0) {
+                                workAvailableLock.wait();
+                            }
+                        }
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+
+                    continue;
+                }
+
+                try {
+                    task.run();
+                } catch (Throwable throwable) {
+                    LOGGER.error("Render task failed: " + throwable.getLocalizedMessage());
+                }
+
+                completedTasks.incrementAndGet();
+            }
+        }
+    }
+}
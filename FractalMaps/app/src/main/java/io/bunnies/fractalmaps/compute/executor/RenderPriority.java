@@ -0,0 +1,7 @@
+package io.bunnies.fractalmaps.compute.executor;
+
+// Declared in the order workers should prefer them
+public enum RenderPriority {
+    FOREGROUND,
+    BACKGROUND
+}
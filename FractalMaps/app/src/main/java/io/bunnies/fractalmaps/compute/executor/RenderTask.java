@@ -0,0 +1,6 @@
+package io.bunnies.fractalmaps.compute.executor;
+
+public abstract class RenderTask implements Runnable {
+    // Read every time a worker looks for work, so raising a view's priority affects tasks already queued
+    public abstract RenderPriority getPriority();
+}
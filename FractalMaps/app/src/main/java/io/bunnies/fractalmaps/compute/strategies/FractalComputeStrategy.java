@@ -2,16 +2,22 @@ package io.bunnies.fractalmaps.compute.strategies;
 
 import io.bunnies.fractalmaps.colouring.EnumColourStrategy;
 import io.bunnies.fractalmaps.compute.IFractalComputeDelegate;
+import io.bunnies.fractalmaps.compute.executor.RenderPriority;
 
 public abstract class FractalComputeStrategy implements IFractalComputeStrategy {
     protected int width;
     protected int height;
     protected IFractalComputeDelegate delegate;
     protected EnumColourStrategy colourStrategy;
+    protected volatile RenderPriority renderPriority = RenderPriority.BACKGROUND;
 
     // Render calculating variables
     protected double xMin, yMax, pixelSize;
 
+    @Override
+    public void prepare() {
+    }
+
     @Override
     public void initialise(int width, int height, IFractalComputeDelegate delegate) {
         this.width = width;
@@ -19,6 +25,11 @@ public abstract class FractalComputeStrategy implements IFractalComputeStrategy
         this.delegate = delegate;
     }
 
+    @Override
+    public boolean canCompute() {
+        return true;
+    }
+
     @Override
     public void setColourStrategy(EnumColourStrategy colourStrategy) {
         this.colourStrategy = colourStrategy;
@@ -28,4 +39,14 @@ public abstract class FractalComputeStrategy implements IFractalComputeStrategy
     public EnumColourStrategy getColourStrategy() {
         return this.colourStrategy;
     }
+
+    @Override
+    public void setRenderPriority(RenderPriority priority) {
+        this.renderPriority = priority;
+    }
+
+    @Override
+    public RenderPriority getRenderPriority() {
+        return this.renderPriority;
+    }
 }
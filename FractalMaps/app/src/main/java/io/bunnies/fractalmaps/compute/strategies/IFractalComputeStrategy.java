@@ -3,16 +3,26 @@ package io.bunnies.fractalmaps.compute.strategies;
 import io.bunnies.fractalmaps.colouring.EnumColourStrategy;
 import io.bunnies.fractalmaps.compute.FractalComputeArguments;
 import io.bunnies.fractalmaps.compute.IFractalComputeDelegate;
+import io.bunnies.fractalmaps.compute.executor.RenderPriority;
 
 public interface IFractalComputeStrategy {
+    // Setup that doesn't depend on the view size, so it can start before layout. Off the UI thread, and safe to repeat.
+    public void prepare();
+
     public void initialise(int width, int height, IFractalComputeDelegate delegate);
 
     public void tearDown();
 
     public void computeFractal(FractalComputeArguments arguments);
 
+    // Whether renders will run at all once initialised, false if e.g. RenderScript failed to start. Renders that can't run never finish.
+    public boolean canCompute();
+
     public boolean shouldPerformCrudeFirst();
 
+    // Whether this strategy can render straight into the bitmap passed as FractalComputeArguments.outputBitmap
+    public boolean supportsBitmapOutput();
+
     public void setColourStrategy(EnumColourStrategy colourStrategy);
 
     public EnumColourStrategy getColourStrategy();
@@ -24,4 +34,8 @@ public interface IFractalComputeStrategy {
     public double getMaxZoomLevel();
 
     public void stopAllRendering();
+
+    public void setRenderPriority(RenderPriority priority);
+
+    public RenderPriority getRenderPriority();
 }
@@ -0,0 +1,97 @@
+package io.bunnies.fractalmaps.compute.strategies;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.bunnies.fractalmaps.compute.IFractalComputeDelegate;
+
+/*
+ * Sets compute strategies up off the UI thread. prepare() starts the part that doesn't depend on the view
+ * size as soon as a strategy exists, and initialise() does the rest once its view has been laid out, then
+ * hands back to the UI thread. There's a thread per view, so both strategies come up in parallel and each
+ * view can start rendering as soon as its own is ready.
+ */
+public class StrategyStartup {
+    private static final Logger LOGGER = LoggerFactory.getLogger(StrategyStartup.class);
+
+    private static final int STARTUP_THREADS = 2;
+
+    private static StrategyStartup sharedStartup;
+
+    private final Executor backgroundExecutor;
+    private final Executor uiExecutor;
+
+    public static synchronized StrategyStartup getSharedStartup() {
+        if (sharedStartup == null) {
+            final Handler mainHandler = new Handler(Looper.getMainLooper());
+            Executor uiExecutor = new Executor() {
+                @Override
+                public void execute(Runnable command) {
+                    mainHandler.post(command);
+                }
+            };
+
+            sharedStartup = new StrategyStartup(Executors.newFixedThreadPool(STARTUP_THREADS, new StartupThreadFactory()), uiExecutor);
+        }
+
+        return sharedStartup;
+    }
+
+    public StrategyStartup(Executor backgroundExecutor, Executor uiExecutor) {
+        this.backgroundExecutor = backgroundExecutor;
+        this.uiExecutor = uiExecutor;
+    }
+
+    public void prepare(final IFractalComputeStrategy strategy) {
+        final long queuedTime = System.nanoTime();
+
+        this.backgroundExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                long startTime = System.nanoTime();
+                strategy.prepare();
+
+                LOGGER.info("Prepared {} in {} ms, after waiting {} ms", strategy.getClass().getSimpleName(),
+                        (System.nanoTime() - startTime) / 1000000D, (startTime - queuedTime) / 1000000D);
+            }
+        });
+    }
+
+    // Runs onReady on the UI thread once the strategy is ready to render at this size
+    public void initialise(final IFractalComputeStrategy strategy, final int width, final int height,
+                           final IFractalComputeDelegate delegate, final Runnable onReady) {
+        final long queuedTime = System.nanoTime();
+
+        this.backgroundExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                long startTime = System.nanoTime();
+                strategy.initialise(width, height, delegate);
+
+                LOGGER.info("Initialised {} at {}x{} in {} ms, after waiting {} ms", strategy.getClass().getSimpleName(),
+                        width, height, (System.nanoTime() - startTime) / 1000000D, (startTime - queuedTime) / 1000000D);
+
+                uiExecutor.execute(onReady);
+            }
+        });
+    }
+
+    private static class StartupThreadFactory implements ThreadFactory {
+        private final AtomicInteger threadNumber = new AtomicInteger(0);
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "StrategyStartup-" + this.threadNumber.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
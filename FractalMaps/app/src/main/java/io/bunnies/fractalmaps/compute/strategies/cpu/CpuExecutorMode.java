@@ -0,0 +1,10 @@
+package io.bunnies.fractalmaps.compute.strategies.cpu;
+
+public enum CpuExecutorMode {
+    // Tiles run as tasks on the process-wide render executor
+    SHARED_POOL,
+    // A task per tile on a fixed pool of platform threads of the strategy's own, as a baseline for VIRTUAL_THREADS
+    FIXED_POOL,
+    // A virtual thread per tile, with the iteration itself run on a small bounded carrier pool
+    VIRTUAL_THREADS
+}
@@ -0,0 +1,273 @@
+package io.bunnies.fractalmaps.compute.strategies.cpu;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.concurrent.LinkedBlockingQueue;
+
+import io.bunnies.fractalmaps.colouring.ColourStrategies;
+import io.bunnies.fractalmaps.colouring.EnumColourStrategy;
+import io.bunnies.fractalmaps.compute.FocusFirstScheduler;
+import io.bunnies.fractalmaps.compute.FractalComputeArguments;
+import io.bunnies.fractalmaps.compute.IFractalComputeDelegate;
+import io.bunnies.fractalmaps.compute.IterationCounts;
+import io.bunnies.fractalmaps.compute.PixelBufferPair;
+import io.bunnies.fractalmaps.compute.executor.RenderExecutor;
+import io.bunnies.fractalmaps.compute.strategies.FractalComputeStrategy;
+
+/*
+ * Computes fractals in plain Java, a tile at a time. Follows the same rules as the RenderScript kernel:
+ * one point per pixel block, skipping blocks that are already at least as detailed.
+ */
+public abstract class CpuFractalComputeStrategy extends FractalComputeStrategy {
+    final Logger LOGGER = LoggerFactory.getLogger(CpuFractalComputeStrategy.class);
+
+    private static final int TILE_SIZE = 64;
+    private static final double LOG_2 = Math.log(2.0D);
+
+    // Smooth counts carry on iterating past escape until |z|^2 passes this, as the correction is only good for large z
+    protected static final double SMOOTHING_BAILOUT = 256.0D;
+    // In case a big Julia seed keeps pulling z back in
+    protected static final int MAX_SMOOTHING_ITERATIONS = 8;
+
+    private final CpuExecutorMode executorMode;
+    private ICpuTileExecutor tileExecutor;
+
+    private LinkedBlockingQueue<FractalComputeArguments> renderQueueList = new LinkedBlockingQueue<FractalComputeArguments>(2);
+    private final Object renderLock = new Object();
+    private CpuRender currentRender;
+
+    public CpuFractalComputeStrategy() {
+        this(CpuExecutorMode.SHARED_POOL);
+    }
+
+    public CpuFractalComputeStrategy(CpuExecutorMode executorMode) {
+        this.executorMode = executorMode;
+    }
+
+    @Override
+    public synchronized void initialise(int width, int height, IFractalComputeDelegate delegate) {
+        super.initialise(width, height, delegate);
+
+        this.stopAllRendering();
+        this.renderQueueList = new LinkedBlockingQueue<FractalComputeArguments>(2);
+
+        if (this.tileExecutor == null)
+            this.tileExecutor = this.createTileExecutor();
+    }
+
+    private ICpuTileExecutor createTileExecutor() {
+        RenderExecutor renderExecutor = RenderExecutor.getSharedExecutor();
+
+        if (this.executorMode == CpuExecutorMode.VIRTUAL_THREADS) {
+            if (VirtualThreadTileExecutor.isSupported())
+                return new VirtualThreadTileExecutor(renderExecutor.getNumberOfWorkers());
+
+            LOGGER.warn("Virtual threads are not supported here, using the shared render executor");
+        }
+
+        if (this.executorMode == CpuExecutorMode.FIXED_POOL)
+            return new FixedPoolTileExecutor(renderExecutor.getNumberOfWorkers());
+
+        return new SharedPoolTileExecutor(renderExecutor);
+    }
+
+    // The mode actually in use, which is the shared pool if virtual threads were asked for but are missing
+    public CpuExecutorMode getExecutorMode() {
+        if (this.tileExecutor == null)
+            return this.executorMode;
+
+        return this.tileExecutor.getMode();
+    }
+
+    @Override
+    public synchronized void tearDown() {
+        this.stopAllRendering();
+
+        if (this.tileExecutor != null) {
+            this.tileExecutor.shutdown();
+            this.tileExecutor = null;
+        }
+    }
+
+    @Override
+    public void computeFractal(FractalComputeArguments arguments) {
+        this.renderQueueList.offer(arguments);
+
+        this.startNextRenderIfIdle();
+    }
+
+    private void startNextRenderIfIdle() {
+        CpuRender render;
+        synchronized (this.renderLock) {
+            if (this.currentRender != null || this.tileExecutor == null)
+                return;
+
+            FractalComputeArguments arguments = this.renderQueueList.poll();
+            if (arguments == null)
+                return;
+
+            int tileSize = Math.max(1, TILE_SIZE / arguments.pixelBlockSize) * arguments.pixelBlockSize;
+            List<int[]> tiles = FocusFirstScheduler.orderTiles(arguments.viewWidth, arguments.viewHeight, tileSize, arguments.focusX, arguments.focusY);
+
+            render = new CpuRender(this, arguments, tiles);
+            this.currentRender = render;
+        }
+
+        render.arguments.startTime = System.nanoTime();
+        this.delegate.onComputeStarted(render.arguments.pixelBlockSize);
+
+        if (render.getNumberOfTiles() == 0) {
+            this.finishRender(render);
+            this.onRenderComplete(render);
+            return;
+        }
+
+        this.tileExecutor.execute(render);
+    }
+
+    void onRenderComplete(CpuRender render) {
+        synchronized (this.renderLock) {
+            if (this.currentRender == render)
+                this.currentRender = null;
+        }
+
+        this.startNextRenderIfIdle();
+    }
+
+    // Tiles are aligned to multiples of the pixel block size, so blocks never straddle two tiles. Pixels go
+    // into a buffer the size of the tile, which stays 0 (fully transparent) wherever nothing was computed.
+    int[] computeTile(CpuRender render, int[] tile) {
+        FractalComputeArguments arguments = render.arguments;
+        PixelBufferPair pixelBuffers = arguments.pixelBuffers;
+        byte[] pixelBufferSizes = arguments.pixelBufferSizes;
+        int[] pixelIterations = arguments.pixelIterations;
+        int pixelBlockSize = arguments.pixelBlockSize;
+        EnumColourStrategy colourStrategy = this.getColourStrategy();
+
+        int tileWidth = tile[2];
+        int[] tilePixels = new int[tile[2] * tile[3]];
+
+        for (int tileY = 0; tileY < tile[3]; tileY += pixelBlockSize) {
+            if (render.isCancelled())
+                return null;
+
+            int yPixel = tile[1] + tileY;
+            int blockHeight = Math.min(pixelBlockSize, tile[3] - tileY);
+            double y0 = arguments.yMax - ((double) yPixel * arguments.pixelSize);
+
+            for (int tileX = 0; tileX < tileWidth; tileX += pixelBlockSize) {
+                int xPixel = tile[0] + tileX;
+                int origin = pixelBuffers.indexOf(xPixel, yPixel);
+                if ((pixelBufferSizes[origin] & 0xFF) <= pixelBlockSize)
+                    continue;
+
+                double x0 = arguments.xMin + ((double) xPixel * arguments.pixelSize);
+                int iterations = this.iteratePoint(x0, y0, arguments.maxIterations);
+                int colour = ColourStrategies.colourPoint(colourStrategy, iterations, arguments.maxIterations);
+                int count = IterationCounts.encode(iterations, arguments.maxIterations);
+
+                // Pixels in the block that are already finer than it, such as samples kept from before a zoom, keep their colour
+                int blockWidth = Math.min(pixelBlockSize, tileWidth - tileX);
+                for (int blockY = 0; blockY < blockHeight; blockY++) {
+                    int tileRowStart = ((tileY + blockY) * tileWidth) + tileX;
+                    for (int blockX = 0; blockX < blockWidth; blockX++) {
+                        int index = pixelBuffers.indexOf(xPixel + blockX, yPixel + blockY);
+                        if ((pixelBufferSizes[index] & 0xFF) < pixelBlockSize)
+                            continue;
+
+                        tilePixels[tileRowStart + blockX] = colour;
+                        pixelBufferSizes[index] = (byte) pixelBlockSize;
+                        if (pixelIterations != null)
+                            pixelIterations[index] = count;
+                    }
+                }
+
+                pixelBufferSizes[origin] = (byte) arguments.defaultPixelSize;
+            }
+        }
+
+        return tilePixels;
+    }
+
+    void publishTile(CpuRender render, int[] tile, int[] tilePixels) {
+        FractalComputeArguments arguments = render.arguments;
+        PixelBufferPair pixelBuffers = arguments.pixelBuffers;
+
+        int[] backPixels = pixelBuffers.beginWrite();
+        try {
+            for (int tileY = 0; tileY < tile[3]; tileY++) {
+                int tileRowStart = tileY * tile[2];
+                for (int tileX = 0; tileX < tile[2]; tileX++) {
+                    int colour = tilePixels[tileRowStart + tileX];
+                    if (colour != 0)
+                        backPixels[pixelBuffers.indexOf(tile[0] + tileX, tile[1] + tileY)] = colour;
+                }
+            }
+        } finally {
+            arguments.pixelBuffers.publish(tile[0], tile[1], tile[2], tile[3]);
+        }
+
+        if (arguments.linesPerProgressUpdate >= arguments.viewHeight)
+            return;
+
+        this.delegate.postUpdate(arguments.pixelBuffers, arguments.pixelBufferSizes, tile[1], tile[1] + tile[3]);
+    }
+
+    void finishRender(CpuRender render) {
+        FractalComputeArguments arguments = render.arguments;
+        double renderTime = (System.nanoTime() - arguments.startTime) / 1000000000D;
+
+        this.delegate.postFinished(arguments.pixelBuffers, arguments.pixelBufferSizes, arguments.pixelBlockSize, renderTime);
+
+        LOGGER.info("Took {} seconds to do CPU compute ({})", renderTime, this.getExecutorMode());
+    }
+
+    @Override
+    public boolean supportsBitmapOutput() {
+        return false;
+    }
+
+    @Override
+    public boolean shouldPerformCrudeFirst() {
+        return true;
+    }
+
+    @Override
+    public void stopAllRendering() {
+        CpuRender render;
+        synchronized (this.renderLock) {
+            this.renderQueueList.clear();
+
+            render = this.currentRender;
+            this.currentRender = null;
+        }
+
+        if (render == null)
+            return;
+
+        LOGGER.debug("Aborting render...");
+
+        render.cancelAndWait();
+    }
+
+    // Number of iterations before the point escaped, or maxIterations if it never did
+    public abstract int iteratePoint(double x0, double y0, int maxIterations);
+
+    // As iteratePoint, plus how far through the next iteration the point got, for smooth colouring.
+    // The whole part is always what iteratePoint returns.
+    public abstract double smoothIteratePoint(double x0, double y0, int maxIterations);
+
+    // The usual continuous escape count correction, measured extraIterations past escape at modulusSquared,
+    // and kept to [0, 1) so it never changes the whole part
+    protected static double smoothIterations(int iterations, int extraIterations, double modulusSquared) {
+        double fraction = extraIterations + 1.0D - (Math.log(0.5D * Math.log(modulusSquared) / LOG_2) / LOG_2);
+        // Clamped after adding, as a fraction just under 1 can still round the sum up
+        double smoothed = iterations + Math.max(0.0D, fraction);
+        if (smoothed >= iterations + 1)
+            smoothed = Math.nextAfter(iterations + 1.0D, Double.NEGATIVE_INFINITY);
+
+        return smoothed;
+    }
+}
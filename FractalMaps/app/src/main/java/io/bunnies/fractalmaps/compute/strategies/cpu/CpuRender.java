@@ -0,0 +1,124 @@
+package io.bunnies.fractalmaps.compute.strategies.cpu;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.bunnies.fractalmaps.compute.FractalComputeArguments;
+import io.bunnies.fractalmaps.compute.executor.RenderPriority;
+
+/*
+ * One render split into tiles. Executors claim tiles in focus-first order, compute them and then publish
+ * them into the back buffer. Computing and publishing are guarded so that once cancelAndWait returns, nothing more is written
+ * into the pixel buffers or posted to the delegate.
+ */
+public class CpuRender {
+    private final CpuFractalComputeStrategy strategy;
+    final FractalComputeArguments arguments;
+
+    private final List<int[]> tiles;
+    private final AtomicInteger nextTile = new AtomicInteger();
+    private final AtomicInteger remainingTiles;
+
+    private volatile boolean cancelled = false;
+    private final Set<Thread> activeThreads = new HashSet<>();
+
+    public CpuRender(CpuFractalComputeStrategy strategy, FractalComputeArguments arguments, List<int[]> tiles) {
+        this.strategy = strategy;
+        this.arguments = arguments;
+        this.tiles = tiles;
+        this.remainingTiles = new AtomicInteger(tiles.size());
+    }
+
+    public int getNumberOfTiles() {
+        return this.tiles.size();
+    }
+
+    public RenderPriority getPriority() {
+        return this.strategy.getRenderPriority();
+    }
+
+    public boolean isCancelled() {
+        return this.cancelled;
+    }
+
+    public boolean hasUnclaimedTiles() {
+        return !this.cancelled && this.nextTile.get() < this.tiles.size();
+    }
+
+    // The next tile to work on, or null when they have all been claimed or the render was cancelled
+    public int[] claimNextTile() {
+        if (this.cancelled)
+            return null;
+
+        int index = this.nextTile.getAndIncrement();
+        if (index >= this.tiles.size())
+            return null;
+
+        return this.tiles.get(index);
+    }
+
+    // The tile's pixels, or null if the render was cancelled
+    public int[] computeTile(int[] tile) {
+        if (!this.enter())
+            return null;
+
+        try {
+            return this.strategy.computeTile(this, tile);
+        } finally {
+            this.exit();
+        }
+    }
+
+    public void publishTile(int[] tile, int[] tilePixels) {
+        if (tilePixels == null || !this.enter())
+            return;
+
+        boolean finished = false;
+        try {
+            if (this.cancelled)
+                return;
+
+            this.strategy.publishTile(this, tile, tilePixels);
+
+            finished = this.remainingTiles.decrementAndGet() == 0;
+            if (finished)
+                this.strategy.finishRender(this);
+        } finally {
+            this.exit();
+        }
+
+        if (finished)
+            this.strategy.onRenderComplete(this);
+    }
+
+    public void cancelAndWait() {
+        synchronized (this) {
+            this.cancelled = true;
+
+            Thread currentThread = Thread.currentThread();
+            while (!this.activeThreads.isEmpty() && !(this.activeThreads.size() == 1 && this.activeThreads.contains(currentThread))) {
+                try {
+                    this.wait();
+                } catch (InterruptedException e) {
+                    currentThread.interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private synchronized boolean enter() {
+        if (this.cancelled)
+            return false;
+
+        this.activeThreads.add(Thread.currentThread());
+        return true;
+    }
+
+    private synchronized void exit() {
+        this.activeThreads.remove(Thread.currentThread());
+        this.notifyAll();
+    }
+}
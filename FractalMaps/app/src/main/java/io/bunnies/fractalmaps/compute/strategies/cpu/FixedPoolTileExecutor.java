@@ -0,0 +1,56 @@
+package io.bunnies.fractalmaps.compute.strategies.cpu;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/*
+ * The classic arrangement: a task per tile on a fixed pool of platform threads that belongs to this executor,
+ * each computing its tile and publishing it on the same thread. Tasks left from a cancelled render still go
+ * through the pool's queue, but find nothing to claim.
+ */
+public class FixedPoolTileExecutor implements ICpuTileExecutor {
+    private final ExecutorService pool;
+
+    public FixedPoolTileExecutor(int numberOfThreads) {
+        this.pool = Executors.newFixedThreadPool(numberOfThreads, new PoolThreadFactory());
+    }
+
+    @Override
+    public void execute(final CpuRender render) {
+        for (int i = 0; i < render.getNumberOfTiles(); i++) {
+            this.pool.execute(new Runnable() {
+                @Override
+                public void run() {
+                    int[] tile = render.claimNextTile();
+                    if (tile == null)
+                        return;
+
+                    render.publishTile(tile, render.computeTile(tile));
+                }
+            });
+        }
+    }
+
+    @Override
+    public void shutdown() {
+        this.pool.shutdownNow();
+    }
+
+    @Override
+    public CpuExecutorMode getMode() {
+        return CpuExecutorMode.FIXED_POOL;
+    }
+
+    private static class PoolThreadFactory implements ThreadFactory {
+        private final AtomicInteger nextThreadNumber = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "RenderPool-" + this.nextThreadNumber.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package io.bunnies.fractalmaps.compute.strategies.cpu;
+
+public interface ICpuTileExecutor {
+    // Starts working through the render's tiles, returning straight away
+    public void execute(CpuRender render);
+
+    public void shutdown();
+
+    public CpuExecutorMode getMode();
+}
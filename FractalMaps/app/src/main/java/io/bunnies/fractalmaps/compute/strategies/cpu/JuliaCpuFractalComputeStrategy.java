@@ -0,0 +1,98 @@
+package io.bunnies.fractalmaps.compute.strategies.cpu;
+
+import io.bunnies.fractalmaps.compute.strategies.JuliaSeedSettable;
+
+public class JuliaCpuFractalComputeStrategy extends CpuFractalComputeStrategy implements JuliaSeedSettable {
+    private volatile double juliaX = 0;
+    private volatile double juliaY = 0;
+
+    public JuliaCpuFractalComputeStrategy() {
+        super();
+    }
+
+    public JuliaCpuFractalComputeStrategy(CpuExecutorMode executorMode) {
+        super(executorMode);
+    }
+
+    @Override
+    public double getIterationBase() {
+        return 1.58D;
+    }
+
+    @Override
+    public double getIterationConstantFactor() {
+        return 6.46D;
+    }
+
+    public double getMaxZoomLevel() {
+        return -20;
+    }
+
+    @Override
+    public double[] getJuliaSeed() {
+        return new double[]{this.juliaX, this.juliaY};
+    }
+
+    @Override
+    public void setJuliaSeed(double juliaX, double juliaY) {
+        this.juliaX = juliaX;
+        this.juliaY = juliaY;
+    }
+
+    @Override
+    public int iteratePoint(double x0, double y0, int maxIterations) {
+        double seedX = this.juliaX;
+        double seedY = this.juliaY;
+        double x = x0;
+        double y = y0;
+
+        for (int iterationNumber = 0; iterationNumber < maxIterations; iterationNumber++) {
+            // z^2 + c
+            double newx = (x * x) - (y * y) + seedX;
+            double newy = (2 * x * y) + seedY;
+
+            x = newx;
+            y = newy;
+
+            if ((x * x + y * y) > 4)
+                return iterationNumber;
+        }
+
+        return maxIterations;
+    }
+
+    @Override
+    public double smoothIteratePoint(double x0, double y0, int maxIterations) {
+        double seedX = this.juliaX;
+        double seedY = this.juliaY;
+        double x = x0;
+        double y = y0;
+
+        for (int iterationNumber = 0; iterationNumber < maxIterations; iterationNumber++) {
+            double newx = (x * x) - (y * y) + seedX;
+            double newy = (2 * x * y) + seedY;
+
+            x = newx;
+            y = newy;
+
+            double modulusSquared = x * x + y * y;
+            if (modulusSquared > 4) {
+                int extraIterations = 0;
+                while (modulusSquared <= SMOOTHING_BAILOUT && extraIterations < MAX_SMOOTHING_ITERATIONS) {
+                    newx = (x * x) - (y * y) + seedX;
+                    newy = (2 * x * y) + seedY;
+
+                    x = newx;
+                    y = newy;
+
+                    modulusSquared = x * x + y * y;
+                    extraIterations++;
+                }
+
+                return smoothIterations(iterationNumber, extraIterations, modulusSquared);
+            }
+        }
+
+        return maxIterations;
+    }
+}
@@ -0,0 +1,76 @@
+package io.bunnies.fractalmaps.compute.strategies.cpu;
+
+public class MandelbrotCpuFractalComputeStrategy extends CpuFractalComputeStrategy {
+    public MandelbrotCpuFractalComputeStrategy() {
+        super();
+    }
+
+    public MandelbrotCpuFractalComputeStrategy(CpuExecutorMode executorMode) {
+        super(executorMode);
+    }
+
+    @Override
+    public int iteratePoint(double x0, double y0, int maxIterations) {
+        double x = x0;
+        double y = y0;
+
+        for (int iterationNumber = 0; iterationNumber < maxIterations; iterationNumber++) {
+            double newx = (x * x) - (y * y) + x0;
+            double newy = (2 * x * y) + y0;
+
+            x = newx;
+            y = newy;
+
+            if ((x * x + y * y) > 4)
+                return iterationNumber;
+        }
+
+        return maxIterations;
+    }
+
+    @Override
+    public double smoothIteratePoint(double x0, double y0, int maxIterations) {
+        double x = x0;
+        double y = y0;
+
+        for (int iterationNumber = 0; iterationNumber < maxIterations; iterationNumber++) {
+            double newx = (x * x) - (y * y) + x0;
+            double newy = (2 * x * y) + y0;
+
+            x = newx;
+            y = newy;
+
+            double modulusSquared = x * x + y * y;
+            if (modulusSquared > 4) {
+                int extraIterations = 0;
+                while (modulusSquared <= SMOOTHING_BAILOUT && extraIterations < MAX_SMOOTHING_ITERATIONS) {
+                    newx = (x * x) - (y * y) + x0;
+                    newy = (2 * x * y) + y0;
+
+                    x = newx;
+                    y = newy;
+
+                    modulusSquared = x * x + y * y;
+                    extraIterations++;
+                }
+
+                return smoothIterations(iterationNumber, extraIterations, modulusSquared);
+            }
+        }
+
+        return maxIterations;
+    }
+
+    // Same constants as the RenderScript Mandelbrot strategy
+    public double getIterationBase() {
+        return 1.24D;
+    }
+
+    public double getIterationConstantFactor() {
+        return 54.0D;
+    }
+
+    public double getMaxZoomLevel() {
+        return -31;
+    }
+}
@@ -0,0 +1,61 @@
+package io.bunnies.fractalmaps.compute.strategies.cpu;
+
+import io.bunnies.fractalmaps.compute.executor.RenderExecutor;
+import io.bunnies.fractalmaps.compute.executor.RenderPriority;
+import io.bunnies.fractalmaps.compute.executor.RenderTask;
+
+/*
+ * Runs a render as one runner task per worker. Each runner does a single tile and then resubmits itself,
+ * so the executor can slip in a higher priority view's work between tiles.
+ */
+public class SharedPoolTileExecutor implements ICpuTileExecutor {
+    private final RenderExecutor renderExecutor;
+
+    public SharedPoolTileExecutor(RenderExecutor renderExecutor) {
+        this.renderExecutor = renderExecutor;
+    }
+
+    @Override
+    public void execute(CpuRender render) {
+        int numberOfRunners = Math.min(this.renderExecutor.getNumberOfWorkers(), render.getNumberOfTiles());
+        for (int i = 0; i < numberOfRunners; i++) {
+            this.renderExecutor.submit(new TileRunner(render));
+        }
+    }
+
+    @Override
+    public void shutdown() {
+        // The render executor is shared by every strategy, so it stays up
+    }
+
+    @Override
+    public CpuExecutorMode getMode() {
+        return CpuExecutorMode.SHARED_POOL;
+    }
+
+    private class TileRunner extends RenderTask {
+        private final CpuRender render;
+
+        TileRunner(CpuRender render) {
+            this.render = render;
+        }
+
+        @Override
+        public RenderPriority getPriority() {
+            return this.render.getPriority();
+        }
+
+        @Override
+        public void run() {
+            int[] tile = this.render.claimNextTile();
+            if (tile == null)
+                return;
+
+            int[] tilePixels = this.render.computeTile(tile);
+            this.render.publishTile(tile, tilePixels);
+
+            if (this.render.hasUnclaimedTiles())
+                renderExecutor.submit(this);
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package io.bunnies.fractalmaps.compute.strategies.cpu;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import io.bunnies.fractalmaps.compute.executor.RenderPriority;
+
+/*
+ * Gives every tile its own virtual thread to orchestrate it, while the iteration itself runs on a bounded
+ * pool of carrier threads. A tile's thread parks while its iteration is queued or running, and publishes
+ * the result once it is back, so waiting on the delegate never ties up a carrier. Cancelling a render just
+ * lets the parked threads fall through, which keeps bursts of submit and cancel (dragging the pin) cheap.
+ *
+ * Virtual threads are looked up reflectively as Android's runtime does not have them; use isSupported()
+ * and fall back to the shared pool where it returns false.
+ */
+public class VirtualThreadTileExecutor implements ICpuTileExecutor {
+    private static final Logger LOGGER = LoggerFactory.getLogger(VirtualThreadTileExecutor.class);
+
+    private final ExecutorService tileThreads;
+    private final ThreadPoolExecutor carrierPool;
+    private final AtomicLong nextSequenceNumber = new AtomicLong();
+
+    public static boolean isSupported() {
+        return findVirtualThreadFactory() != null;
+    }
+
+    private static Method findVirtualThreadFactory() {
+        try {
+            return Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+
+    public VirtualThreadTileExecutor(int numberOfCarriers) {
+        Method virtualThreadFactory = findVirtualThreadFactory();
+        if (virtualThreadFactory == null)
+            throw new IllegalStateException("Virtual threads are not available on this runtime");
+
+        try {
+            this.tileThreads = (ExecutorService) virtualThreadFactory.invoke(null);
+        } catch (Exception e) {
+            throw new IllegalStateException("Failed to create virtual thread executor", e);
+        }
+
+        this.carrierPool = new ThreadPoolExecutor(numberOfCarriers, numberOfCarriers, 0L, TimeUnit.MILLISECONDS,
+                new PriorityBlockingQueue<Runnable>(), new CarrierThreadFactory());
+
+        LOGGER.debug("Started virtual thread tile executor with {} carriers", numberOfCarriers);
+    }
+
+    @Override
+    public void execute(final CpuRender render) {
+        for (int i = 0; i < render.getNumberOfTiles(); i++) {
+            this.tileThreads.execute(new Runnable() {
+                @Override
+                public void run() {
+                    renderTile(render);
+                }
+            });
+        }
+    }
+
+    private void renderTile(final CpuRender render) {
+        final int[] tile = render.claimNextTile();
+        if (tile == null)
+            return;
+
+        IterationJob job = new IterationJob(render, tile, this.nextSequenceNumber.getAndIncrement());
+        this.carrierPool.execute(job);
+
+        int[] tilePixels;
+        try {
+            tilePixels = job.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        } catch (ExecutionException e) {
+            LOGGER.error("Failed to compute tile: " + e.getCause());
+            return;
+        }
+
+        render.publishTile(tile, tilePixels);
+    }
+
+    @Override
+    public void shutdown() {
+        this.tileThreads.shutdownNow();
+        this.carrierPool.shutdownNow();
+    }
+
+    @Override
+    public CpuExecutorMode getMode() {
+        return CpuExecutorMode.VIRTUAL_THREADS;
+    }
+
+    // Carriers take the highest priority iteration first, then the oldest. The priority is the render's when the job was
+    // queued, as a job's order mustn't change while it's in the priority queue.
+    private static class IterationJob extends FutureTask<int[]> implements Comparable<IterationJob> {
+        private final RenderPriority priority;
+        private final long sequenceNumber;
+
+        IterationJob(final CpuRender render, final int[] tile, long sequenceNumber) {
+            super(new Callable<int[]>() {
+                @Override
+                public int[] call() {
+                    return render.computeTile(tile);
+                }
+            });
+
+            this.priority = render.getPriority();
+            this.sequenceNumber = sequenceNumber;
+        }
+
+        @Override
+        public int compareTo(IterationJob other) {
+            int priorityOrder = this.priority.compareTo(other.priority);
+            if (priorityOrder != 0)
+                return priorityOrder;
+
+            return this.sequenceNumber < other.sequenceNumber ? -1 : (this.sequenceNumber == other.sequenceNumber ? 0 : 1);
+        }
+    }
+
+    private static class CarrierThreadFactory implements ThreadFactory {
+        private final AtomicInteger nextThreadNumber = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "RenderCarrier-" + this.nextThreadNumber.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package io.bunnies.fractalmaps.compute.strategies.renderscript;
+
+import android.support.v8.renderscript.Allocation;
+import android.support.v8.renderscript.Element;
+import android.support.v8.renderscript.RenderScript;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+
+import io.bunnies.fractalmaps.compute.BufferElement;
+
+/*
+ * Script allocations for one RenderScript context, kept for reuse instead of being destroyed whenever the
+ * size they're needed at changes. Allocations are keyed by element type and element count.
+ */
+class AllocationPool {
+    private static final Logger LOGGER = LoggerFactory.getLogger(AllocationPool.class);
+
+    private final RenderScript renderScript;
+    private final int maxPooledPerSize;
+    private final Map<String, ArrayDeque<Allocation>> pooledAllocations = new HashMap<>();
+
+    private long createdAllocations = 0;
+    private long reusedAllocations = 0;
+    private long destroyedAllocations = 0;
+
+    AllocationPool(RenderScript renderScript, int maxPooledPerSize) {
+        this.renderScript = renderScript;
+        this.maxPooledPerSize = maxPooledPerSize;
+    }
+
+    synchronized Allocation borrow(BufferElement element, int count) {
+        ArrayDeque<Allocation> allocations = this.pooledAllocations.get(key(element, count));
+        if (allocations != null && !allocations.isEmpty()) {
+            this.reusedAllocations++;
+            return allocations.pollLast();
+        }
+
+        this.createdAllocations++;
+        LOGGER.debug("Creating {} allocation of {} elements", element, count);
+
+        return Allocation.createSized(this.renderScript, this.createElement(element), count, Allocation.USAGE_SCRIPT);
+    }
+
+    synchronized void giveBack(Allocation allocation, BufferElement element) {
+        if (allocation == null)
+            return;
+
+        String key = key(element, allocation.getType().getCount());
+        ArrayDeque<Allocation> allocations = this.pooledAllocations.get(key);
+        if (allocations == null) {
+            allocations = new ArrayDeque<>();
+            this.pooledAllocations.put(key, allocations);
+        }
+
+        if (allocations.size() >= this.maxPooledPerSize) {
+            allocations.pollFirst().destroy();
+            this.destroyedAllocations++;
+        }
+
+        allocations.offerLast(allocation);
+    }
+
+    synchronized void destroy() {
+        for (ArrayDeque<Allocation> allocations : this.pooledAllocations.values()) {
+            for (Allocation allocation : allocations) {
+                allocation.destroy();
+                this.destroyedAllocations++;
+            }
+        }
+
+        this.pooledAllocations.clear();
+    }
+
+    synchronized long getCreatedAllocationCount() {
+        return this.createdAllocations;
+    }
+
+    synchronized long getReusedAllocationCount() {
+        return this.reusedAllocations;
+    }
+
+    synchronized long getDestroyedAllocationCount() {
+        return this.destroyedAllocations;
+    }
+
+    private Element createElement(BufferElement element) {
+        switch (element) {
+            case UINT8:
+                return Element.U8(this.renderScript);
+            case UINT16:
+                return Element.U16(this.renderScript);
+            case INT32:
+            default:
+                return Element.I32(this.renderScript);
+        }
+    }
+
+    private static String key(BufferElement element, int count) {
+        return element.name() + ":" + count;
+    }
+}
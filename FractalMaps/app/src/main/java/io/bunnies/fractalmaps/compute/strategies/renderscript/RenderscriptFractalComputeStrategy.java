@@ -1,8 +1,9 @@
 package io.bunnies.fractalmaps.compute.strategies.renderscript;
 
 import android.content.Context;
+import android.graphics.Bitmap;
+import android.os.Build;
 import android.support.v8.renderscript.*;
-import android.util.SparseArray;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -12,29 +13,56 @@ import java.util.Arrays;
 import java.util.List;
 import java.util.concurrent.LinkedBlockingQueue;
 
-import io.bunnies.fractalmaps.R;
+import io.bunnies.fractalmaps.compute.BufferElement;
+import io.bunnies.fractalmaps.compute.EnumPixelFormat;
 import io.bunnies.fractalmaps.compute.FractalComputeArguments;
 import io.bunnies.fractalmaps.compute.IFractalComputeDelegate;
+import io.bunnies.fractalmaps.compute.IterationCounts;
+import io.bunnies.fractalmaps.compute.RowScheduleCache;
+import io.bunnies.fractalmaps.compute.executor.RenderExecutor;
 import io.bunnies.fractalmaps.compute.strategies.FractalComputeStrategy;
-import io.bunnies.fractalmaps.presenter.FractalPresenter;
 
 public abstract class RenderscriptFractalComputeStrategy extends FractalComputeStrategy {
     final Logger LOGGER = LoggerFactory.getLogger(RenderscriptFractalComputeStrategy.class);
 
+    // Shared with the other strategy, see RenderscriptRuntime for how the script's globals are kept apart
+    private RenderscriptRuntime runtime;
     private RenderScript renderScript;
     protected ScriptC_mandelbrot fractalRenderScript;
     private Allocation pixelBufferAllocation;
     private Allocation pixelBufferSizesAllocation;
+    // Each render's counts as the budget less the iterations taken, see mandelbrot.rs, read back once it stops
+    private Allocation pixelIterationsAllocation;
+    private AllocationPool allocationPool;
+    // Shares its memory with the view's bitmap, so the kernel can write pixels straight into it
+    private Allocation bitmapAllocation;
+    private Bitmap bitmapAllocationSource;
     private Context context;
+    private boolean tornDown = false;
 
     private LinkedBlockingQueue<FractalComputeArguments> renderQueueList = new LinkedBlockingQueue<FractalComputeArguments>();
-    private RenderscriptRenderThread renderThreadList;
+    private RenderExecutor renderExecutor = RenderExecutor.getSharedExecutor();
+    private final Object renderTaskLock = new Object();
+    private RenderscriptRenderTask currentRenderTask;
     private Boolean rendersComplete;
 
     private Allocation row_indices_alloc;
-    public SparseArray<SparseArray<int[][]>> rowIndices;
+    private int[] stagingPixels;
+    private byte[] stagingPixelSizes;
+    private short[] stagingPixelIterations;
+    private final RowScheduleCache rowSchedules = new RowScheduleCache(MAX_ROW_SCHEDULES);
+    // When the strategy was last initialised, until the first pixels from it are published
+    private volatile long initialisedTime = 0;
 
     private static final int MIN_LINES_PER_PROGRESS_UPDATE = 32;
+    // Row index allocations come in a couple of sizes per render, frame allocations in one per view size
+    private static final int MAX_POOLED_ALLOCATIONS_PER_SIZE = 2;
+    // Crude and detailed at a couple of focus points and update sizes
+    private static final int MAX_ROW_SCHEDULES = 8;
+
+    // As in mandelbrot.rs: the count of a pixel the render hasn't written, and of an escape too early to fit in two bytes
+    static final int ITERATIONS_NOT_RENDERED = 0xFFFF;
+    static final int ITERATIONS_TOO_EARLY = 0xFFFE;
 
     public void setContext(Context context) {
         this.context = context;
@@ -44,133 +72,84 @@ public abstract class RenderscriptFractalComputeStrategy extends FractalComputeS
         return this.context;
     }
 
+    // Called off the UI thread by the startup pipeline, so it's kept apart from tearDown() and from itself
     @Override
-    public void initialise(int width, int height, IFractalComputeDelegate delegate) {
+    public synchronized void initialise(int width, int height, IFractalComputeDelegate delegate) {
         super.initialise(width, height, delegate);
 
-        this.initialiseRenderThread();
+        this.initialiseRenderQueue();
         this.initialiseRenderScript();
 
-        this.initialiseRowIndexCache(Arrays.asList(FractalPresenter.CRUDE_PIXEL_BLOCK, FractalPresenter.DEFAULT_PIXEL_SIZE), 1, 32);
+        this.initialisedTime = System.nanoTime();
     }
 
-    public void initialiseRowIndexCache(List<Integer> pixelBlockSizesToPrecompute, int minPowerOfTwo, int maxPowerOfTwo) {
-        this.rowIndices = new SparseArray<SparseArray<int[][]>>(20);
-        int size = this.width * this.height;
-
-        for (int power = minPowerOfTwo; power <= maxPowerOfTwo; power++) {
-            int linesPerProgressUpdate = (int) (this.height / Math.pow(2, power));
-            if (linesPerProgressUpdate <= MIN_LINES_PER_PROGRESS_UPDATE) {
-                linesPerProgressUpdate = MIN_LINES_PER_PROGRESS_UPDATE;
-            }
-
-            SparseArray<int[][]> pixelBlockArray = new SparseArray<int[][]>(2);
-            for (Integer pixelBlockSize : pixelBlockSizesToPrecompute) {
-                ArrayList<Integer> row_indices = new ArrayList<Integer>(2000);
-
-                int numberOfThreads = 2;
-                for (int threadID = 0; threadID < numberOfThreads; threadID++) {
-                    int yStart = (this.height / 2) + (threadID * pixelBlockSize);
-                    int yEnd = this.height;
-
-                    int xPixelMin = 0;
-                    int xPixelMax = this.width;
-                    int yPixelMin = yStart;
-                    int yPixelMax = yEnd;
-
-                    int imgWidth = xPixelMax - xPixelMin;
-                    int xPixel = 0;
-                    int yPixel = 0;
-                    int yIncrement = 0;
-
-                    int pixelIncrement = pixelBlockSize * numberOfThreads;
-                    int originalIncrement = pixelIncrement;
-
-                    int loopCount = 0;
-
-                    for (yIncrement = yPixelMin; yPixel < yPixelMax + (numberOfThreads * pixelBlockSize); yIncrement += pixelIncrement) {
-                        yPixel = yIncrement;
-
-                        pixelIncrement = (loopCount * originalIncrement);
-                        if (loopCount % 2 == 0) {
-                            pixelIncrement *= -1;
-                        }
-
-                        loopCount++;
-
-                        if (((imgWidth * (yPixel + pixelBlockSize - 1)) + xPixelMax) > size || yPixel < 0) {
-                            //rsDebug("exceeded bounds of image", 0);
-                            //rsDebug("yPixel", yPixel);
-                            //rsDebug("pixelBufferSizesLength", arraySize);
-                            continue;
-                        }
-
-                        row_indices.add(yPixel);
-                    }
-                }
-
-                int numRows = row_indices.size();
-                int[] primRowIndices = this.buildIntArray(row_indices);
-                int progressUpdates = (int) Math.ceil(numRows / (double) linesPerProgressUpdate);
-                int[][] indices = new int[progressUpdates][];
-
-                int progressUpdate = 0;
-                for (int i = 0; i < numRows; i += linesPerProgressUpdate) {
-                    indices[progressUpdate] = Arrays.copyOfRange(primRowIndices, i, i + linesPerProgressUpdate);
-                    progressUpdate++;
-                }
-
-                pixelBlockArray.put(pixelBlockSize, indices);
-            }
+    // Without a context, or if the shared runtime failed to start, every render stops before it's begun
+    @Override
+    public synchronized boolean canCompute() {
+        return this.context != null && this.renderScript != null;
+    }
 
-            this.rowIndices.put(linesPerProgressUpdate, pixelBlockArray);
-        }
+    // Row orders are built the first time a render asks for them, rather than up front for every size
+    int[][] getRowIndices(int linesPerProgressUpdate, int pixelBlockSize, int focusY) {
+        return this.rowSchedules.getSchedule(this.height, linesPerProgressUpdate, pixelBlockSize, focusY);
     }
 
-    public void initialiseRenderThread() {
-        if (this.renderThreadList != null) {
-            this.stopAllRendering();
-            this.interruptThreads();
-        }
+    RowScheduleCache getRowSchedules() {
+        return this.rowSchedules;
+    }
 
+    public void initialiseRenderQueue() {
+        this.stopAllRendering();
 
         this.rendersComplete = false;
         this.renderQueueList = new LinkedBlockingQueue<FractalComputeArguments>(2);
-        this.renderThreadList = new RenderscriptRenderThread(this);
-        this.renderThreadList.start();
-
-    }
-
-    public void interruptThreads() {
-        if (renderThreadList != null)
-            renderThreadList.interrupt();
     }
 
     private void initialisePixelBufferAllocation(int size) {
-        this.pixelBufferAllocation = Allocation.createSized(this.renderScript, Element.I32(this.renderScript), size, Allocation.USAGE_SCRIPT);
-        this.fractalRenderScript.bind_returnPixelBuffer(this.pixelBufferAllocation);
+        this.allocationPool.giveBack(this.pixelBufferAllocation, BufferElement.INT32);
+        this.pixelBufferAllocation = this.allocationPool.borrow(BufferElement.INT32, size);
     }
 
     private void initialisePixelBufferSizesAllocation(int size) {
-        this.pixelBufferSizesAllocation = Allocation.createSized(this.renderScript, Element.I32(this.renderScript), size, Allocation.USAGE_SCRIPT);
-        this.fractalRenderScript.bind_returnPixelBufferSizes(this.pixelBufferSizesAllocation);
+        this.allocationPool.giveBack(this.pixelBufferSizesAllocation, BufferElement.UINT8);
+        this.pixelBufferSizesAllocation = this.allocationPool.borrow(BufferElement.UINT8, size);
     }
 
-    private boolean initialiseRenderScript() {
+    private void initialisePixelIterationsAllocation(int size) {
+        this.allocationPool.giveBack(this.pixelIterationsAllocation, BufferElement.UINT16);
+        this.pixelIterationsAllocation = this.allocationPool.borrow(BufferElement.UINT16, size);
+    }
+
+    // Takes a reference to the shared context and script, neither of which depend on the view size
+    @Override
+    public synchronized void prepare() {
+        // A resize keeps the context, and with it any allocations pooled at the old size
+        if (this.runtime != null || this.tornDown)
+            return;
+
         try {
-            this.renderScript = RenderScript.create(this.context);
-            this.fractalRenderScript = new ScriptC_mandelbrot(this.renderScript, context.getResources(), R.raw.mandelbrot);
+            this.runtime = RenderscriptRuntime.acquire(this.context);
         } catch (Throwable throwable) {
             LOGGER.error("Failed to initialise renderscript: " + throwable.getLocalizedMessage());
-            return false;
+            return;
         }
 
-        this.fractalRenderScript.set_gScript(this.fractalRenderScript);
+        this.renderScript = this.runtime.getRenderScript();
+        this.fractalRenderScript = this.runtime.getScript();
+        this.allocationPool = new AllocationPool(this.renderScript, MAX_POOLED_ALLOCATIONS_PER_SIZE);
+    }
+
+    private boolean initialiseRenderScript() {
+        this.prepare();
+        if (this.renderScript == null)
+            return false;
 
+        long startTime = System.nanoTime();
         this.initialisePixelBufferAllocation(this.width * this.height);
         this.initialisePixelBufferSizesAllocation(this.width * this.height);
+        this.initialisePixelIterationsAllocation(this.width * this.height);
 
-        LOGGER.debug("Initialised renderscript objects successfully");
+        LOGGER.info("Startup: allocations in {} ms", (System.nanoTime() - startTime) / 1000000D);
 
         return true;
     }
@@ -186,21 +165,36 @@ public abstract class RenderscriptFractalComputeStrategy extends FractalComputeS
             this.pixelBufferSizesAllocation = null;
         }
 
-        if (this.fractalRenderScript != null) {
-            this.fractalRenderScript.destroy();
-            this.fractalRenderScript = null;
+        if (this.pixelIterationsAllocation != null) {
+            this.pixelIterationsAllocation.destroy();
+            this.pixelIterationsAllocation = null;
+        }
+
+        this.destroyBitmapAllocation();
+
+        if (this.row_indices_alloc != null) {
+            this.row_indices_alloc.destroy();
+            this.row_indices_alloc = null;
+        }
+
+        if (this.allocationPool != null) {
+            this.allocationPool.destroy();
+            this.allocationPool = null;
         }
 
-        if (this.renderScript != null) {
-            this.renderScript.destroy();
-            this.renderScript = null;
+        // The context and script are shared, so they only go once the other strategy has let go of them too
+        this.fractalRenderScript = null;
+        this.renderScript = null;
+        if (this.runtime != null) {
+            this.runtime.release();
+            this.runtime = null;
         }
     }
 
     @Override
     public synchronized void tearDown() {
+        this.tornDown = true;
         this.stopAllRendering();
-        this.interruptThreads();
 
         this.destroyRenderscriptObjects();
     }
@@ -212,164 +206,332 @@ public abstract class RenderscriptFractalComputeStrategy extends FractalComputeS
         this.scheduleRendering(arguments);
     }
 
-    private int[] buildIntArray(List<Integer> integers) {
-        int[] ints = new int[integers.size()];
-        int i = 0;
-        for (Integer n : integers) {
-            ints[i++] = n;
-        }
-        return ints;
+    // Runs a whole render on the calling thread, rather than through the render executor
+    public void computeFractalWithArguments(FractalComputeArguments arguments) {
+        new RenderscriptRenderTask(this, arguments).runToCompletion();
     }
 
-    public void computeFractalWithArguments(FractalComputeArguments arguments) {
+    boolean prepareRender(RenderscriptRenderTask task) {
         if (this.renderScript == null)
-            return;
+            return false;
+
+        FractalComputeArguments arguments = task.arguments;
 
         int boundedLinesPerProgressUpdate = arguments.linesPerProgressUpdate;
         if (boundedLinesPerProgressUpdate <= MIN_LINES_PER_PROGRESS_UPDATE) {
             boundedLinesPerProgressUpdate = MIN_LINES_PER_PROGRESS_UPDATE;
         }
 
-        int lastAllocSize = boundedLinesPerProgressUpdate;
-
         this.delegate.onComputeStarted(arguments.pixelBlockSize);
 
-        long setupStart = System.nanoTime();
+        task.setupStart = System.nanoTime();
 
         int size = arguments.viewHeight * arguments.viewWidth;
 
-        if (this.pixelBufferAllocation == null || this.pixelBufferAllocation.getType().getCount() != size) {
-            if (this.pixelBufferAllocation != null)
-                this.pixelBufferAllocation.destroy();
-
+        if (this.pixelBufferAllocation == null || this.pixelBufferAllocation.getType().getCount() != size)
             this.initialisePixelBufferAllocation(size);
-        }
-
-        if (this.pixelBufferSizesAllocation == null || this.pixelBufferSizesAllocation.getType().getCount() != size) {
-            if (this.pixelBufferSizesAllocation != null)
-                this.pixelBufferSizesAllocation.destroy();
 
+        if (this.pixelBufferSizesAllocation == null || this.pixelBufferSizesAllocation.getType().getCount() != size)
             this.initialisePixelBufferSizesAllocation(size);
-        }
 
-        if (this.pixelBufferAllocation != null)
-            this.pixelBufferAllocation.copyFrom(arguments.pixelBuffer);
+        if (this.pixelIterationsAllocation == null || this.pixelIterationsAllocation.getType().getCount() != size)
+            this.initialisePixelIterationsAllocation(size);
+
+        if (this.pixelBufferAllocation != null) {
+            int[] frontPixels = arguments.pixelBuffers.acquireFront();
+            try {
+                this.pixelBufferAllocation.copyFrom(frontPixels);
+            } finally {
+                arguments.pixelBuffers.releaseFront(frontPixels);
+            }
+        }
 
         if (this.pixelBufferSizesAllocation != null)
             this.pixelBufferSizesAllocation.copyFrom(arguments.pixelBufferSizes);
 
-        //Log.i("GFCS", "Starting renderscript");
-        //(int pixelBlockSize, int maxIterations, int defaultPixelSize,
-        // int viewWidth, int viewHeight, double xMin, double yMax,
-        // double pixelSize, int arraySize) {
+        // Rather than uploading the counts, the kernel starts from none and only the ones it writes are read back
+        if (this.pixelIterationsAllocation != null && arguments.pixelIterations != null && this.fractalRenderScript != null) {
+            synchronized (this.runtime.getScriptLock()) {
+                this.fractalRenderScript.bind_returnPixelIterations(this.pixelIterationsAllocation);
+                this.fractalRenderScript.set_arraySize(size);
+                this.fractalRenderScript.invoke_forgetIterations();
+            }
 
-        if (renderThreadList.abortSignalled())
-            return;
+            task.iterationsOutput = true;
+        }
+
+        task.bitmapOutput = this.initialiseBitmapOutput(arguments.outputBitmap, arguments.pixelFormat);
 
-        this.fractalRenderScript.set_pixelBlockSize(arguments.pixelBlockSize);
-        this.fractalRenderScript.set_maxIterations(arguments.maxIterations);
-        this.fractalRenderScript.set_defaultPixelSize(arguments.defaultPixelSize);
-        this.fractalRenderScript.set_viewWidth(arguments.viewWidth);
+        if (task.isCancelled())
+            return false;
 
-        this.fractalRenderScript.set_xMin(arguments.xMin);
-        this.fractalRenderScript.set_yMax(arguments.yMax);
-        this.fractalRenderScript.set_pixelSize(arguments.pixelSize);
-        this.fractalRenderScript.set_arraySize(size);
-        this.fractalRenderScript.set_colourMode(this.getColourStrategy().ordinal());
+        task.rowIndices = this.getRowIndices(boundedLinesPerProgressUpdate, arguments.pixelBlockSize, arguments.focusY);
+        task.linesPerProgressUpdate = boundedLinesPerProgressUpdate;
 
-        if (this.row_indices_alloc == null || this.row_indices_alloc.getType().getCount() != size) {
-            if (this.row_indices_alloc != null)
-                this.row_indices_alloc.destroy();
+        return true;
+    }
 
-            this.row_indices_alloc = Allocation.createSized(this.renderScript, Element.I32(this.renderScript), boundedLinesPerProgressUpdate, Allocation.USAGE_SCRIPT);
-            this.fractalRenderScript.set_gIn(row_indices_alloc);
-            this.fractalRenderScript.set_gOut(row_indices_alloc);
+    // Wraps the view's bitmap for the kernel, if there is one it can write to. Returns whether it will.
+    private boolean initialiseBitmapOutput(Bitmap bitmap, EnumPixelFormat pixelFormat) {
+        if (bitmap == null || bitmap.getConfig() != pixelFormat.bitmapConfig || !this.supportsBitmapOutput())
+            return false;
+
+        if (bitmap != this.bitmapAllocationSource) {
+            this.destroyBitmapAllocation();
+
+            this.bitmapAllocation = Allocation.createFromBitmap(this.renderScript, bitmap, Allocation.MipmapControl.MIPMAP_NONE,
+                    Allocation.USAGE_SCRIPT | Allocation.USAGE_SHARED);
+            this.bitmapAllocationSource = bitmap;
+        } else {
+            // Pick up anything drawn into the bitmap from Java since the last render, such as a pan
+            this.bitmapAllocation.syncAll(Allocation.USAGE_SHARED);
         }
 
-        long setupEnd = System.nanoTime();
-        double setupTime = (setupEnd - setupStart) / 1000000000D;
-        //Log.i("GFCS", "Took " + setupTime + " seconds to set up for RS compute");
-
-        SparseArray<int[][]> rowIndexMap = this.rowIndices.get(boundedLinesPerProgressUpdate);
-        int[][] indices = rowIndexMap.get(arguments.pixelBlockSize);
-        int progressUpdates = indices.length;
-        for (int i = 0; i < progressUpdates; i++) {
-            int linesInProgressUpdate = indices[i].length;
-
-            if (linesInProgressUpdate != lastAllocSize) {
-                row_indices_alloc.destroy();
-                row_indices_alloc = Allocation.createSized(this.renderScript, Element.I32(this.renderScript), linesInProgressUpdate, Allocation.USAGE_SCRIPT);
-                this.fractalRenderScript.set_gIn(row_indices_alloc);
-                this.fractalRenderScript.set_gOut(row_indices_alloc);
-                lastAllocSize = linesInProgressUpdate;
-                //Log.i("GFCS", "Created new allocation size");
-            }
+        return true;
+    }
 
-            //Log.i("RFCS", "Checking if abort signalled");
-            if (renderThreadList.abortSignalled())
-                return;
-            //Log.i("RFCS", "Abort not signalled");
+    // Everything the kernel reads, set again before every chunk as the other strategy may have changed it. Call holding the script lock.
+    private void setScriptGlobals(RenderscriptRenderTask task) {
+        FractalComputeArguments arguments = task.arguments;
+        ScriptC_mandelbrot script = this.fractalRenderScript;
+
+        script.bind_returnPixelBuffer(this.pixelBufferAllocation);
+        script.bind_returnPixelBufferSizes(this.pixelBufferSizesAllocation);
+        script.bind_returnPixelIterations(this.pixelIterationsAllocation);
+        script.set_pixelIterationsOutput(task.iterationsOutput ? 1 : 0);
+        script.set_gIn(this.row_indices_alloc);
+        script.set_gOut(this.row_indices_alloc);
+
+        if (task.bitmapOutput && this.bitmapAllocation != null) {
+            script.set_gBitmapOut(this.bitmapAllocation);
+            script.set_outputFormat(arguments.pixelFormat == EnumPixelFormat.RGB_565 ? 1 : 0);
+            script.set_bitmapOutput(1);
+        } else {
+            script.set_bitmapOutput(0);
+        }
 
-            row_indices_alloc.copyFrom(indices[i]);
+        script.set_pixelBlockSize(arguments.pixelBlockSize);
+        script.set_maxIterations(arguments.maxIterations);
+        script.set_defaultPixelSize(arguments.defaultPixelSize);
+        script.set_viewWidth(arguments.viewWidth);
+        script.set_viewHeight(arguments.viewHeight);
+        script.set_originX(arguments.pixelBuffers.getOriginX());
+        script.set_originY(arguments.pixelBuffers.getOriginY());
+
+        script.set_xMin(arguments.xMin);
+        script.set_yMax(arguments.yMax);
+        script.set_pixelSize(arguments.pixelSize);
+        script.set_arraySize(arguments.viewWidth * arguments.viewHeight);
+        script.set_colourMode(this.getColourStrategy().ordinal());
+    }
 
-            if (this.fractalRenderScript == null)
-                return;
+    private void destroyBitmapAllocation() {
+        if (this.bitmapAllocation != null) {
+            this.bitmapAllocation.destroy();
+            this.bitmapAllocation = null;
+        }
+
+        this.bitmapAllocationSource = null;
+    }
+
+    boolean renderChunk(RenderscriptRenderTask task, int chunk) {
+        FractalComputeArguments arguments = task.arguments;
+        int[] rows = task.rowIndices[chunk];
+        long chunkStart = System.nanoTime();
+
+        if (this.row_indices_alloc == null || this.row_indices_alloc.getType().getCount() != rows.length) {
+            this.allocationPool.giveBack(this.row_indices_alloc, BufferElement.INT32);
+            this.row_indices_alloc = this.allocationPool.borrow(BufferElement.INT32, rows.length);
+        }
+
+        if (task.isCancelled())
+            return false;
+
+        row_indices_alloc.copyFrom(rows);
 
+        if (this.fractalRenderScript == null)
+            return false;
+
+        synchronized (this.runtime.getScriptLock()) {
+            this.setScriptGlobals(task);
             this.invokeComputeFunction();
+        }
 
-            if (arguments.pixelBuffer != null) {
-                //Log.i("GFCS", "Copying pixel buffer");
-                if (this.pixelBufferAllocation == null)
-                    return;
+        boolean postUpdates = !task.isCancelled() && task.linesPerProgressUpdate != arguments.viewHeight;
 
-                this.pixelBufferAllocation.copyTo(arguments.pixelBuffer);
-            } else {
-                return;
+        // The pixels are already in the bitmap, so it can be drawn before they're copied back for panning and zooming
+        if (task.bitmapOutput && this.bitmapAllocation != null) {
+            this.bitmapAllocation.syncAll(Allocation.USAGE_SCRIPT);
+
+            if (postUpdates) {
+                this.delegate.postBitmapUpdate();
+                task.countUpdate(System.nanoTime() - chunkStart);
             }
+        }
 
-            if (arguments.pixelBufferSizes != null) {
-                //Log.i("GFCS", "Copying pixel buffer sizes");
-                if (this.pixelBufferSizesAllocation == null)
-                    return;
+        if (arguments.pixelBuffers == null || arguments.pixelBufferSizes == null)
+            return false;
 
-                this.pixelBufferSizesAllocation.copyTo(arguments.pixelBufferSizes);
-            } else {
-                return;
-            }
+        if (this.pixelBufferAllocation == null || this.pixelBufferSizesAllocation == null)
+            return false;
+
+        // Only copy back the rows this chunk touched, rather than the whole frame
+        List<int[]> rowRanges = touchedRowRanges(rows, arguments.pixelBlockSize, arguments.viewHeight);
+        if (rowRanges.isEmpty())
+            return true;
 
-            //Log.i("RFCS", "Checking if abort signalled to do a progress update");
-            boolean abortSignalled = renderThreadList.abortSignalled();
-            //Log.i("RFCS", "Result: " + abortSignalled);
-            if (!abortSignalled && boundedLinesPerProgressUpdate != arguments.viewHeight) {
-                //Log.i("RFCS", "Done progress update");
-                this.delegate.postUpdate(arguments.pixelBuffer, arguments.pixelBufferSizes);
+        int[] backPixels = arguments.pixelBuffers.beginWrite();
+        try {
+            for (int[] rowRange : rowRanges) {
+                for (int[] bufferRowRange : arguments.pixelBuffers.bufferRowRanges(rowRange[0], rowRange[1])) {
+                    this.copyRowsFromAllocations(arguments, backPixels, bufferRowRange[0], bufferRowRange[1]);
+                }
             }
+        } finally {
+            arguments.pixelBuffers.publishRows(rowRanges.get(0)[0], rowRanges.get(rowRanges.size() - 1)[1]);
         }
 
+        long initialisedTime = this.initialisedTime;
+        if (initialisedTime != 0) {
+            this.initialisedTime = 0;
+            LOGGER.info("Time to first render: {} ms", (System.nanoTime() - initialisedTime) / 1000000D);
+        }
 
-        //Log.i("GFCS", "Done");
-//
-//        for (int i = 0; i < size; i++) {
-//            if (arguments.pixelBuffer[i] != 0) {
-//                Log.i("GFCS", "Not zero");
-//            }
-//        }
+        if (postUpdates && !task.bitmapOutput) {
+            for (int[] rowRange : rowRanges) {
+                this.delegate.postUpdate(arguments.pixelBuffers, arguments.pixelBufferSizes, rowRange[0], rowRange[1]);
+            }
+            task.countUpdate(System.nanoTime() - chunkStart);
+        }
 
+        return true;
+    }
+
+    void finishRender(RenderscriptRenderTask task) {
+        FractalComputeArguments arguments = task.arguments;
         long endTime = System.nanoTime();
 
-        //Log.i("RFCS", "Checking if abort signalled to post finished");
-        boolean abortSignalled = renderThreadList.abortSignalled();
-        //Log.i("RFCS", "Result: " + abortSignalled);
+        this.copyIterationsFromAllocation(task);
 
-        if (!abortSignalled)
-            this.delegate.postFinished(arguments.pixelBuffer, arguments.pixelBufferSizes, arguments.pixelBlockSize, (endTime - arguments.startTime) / 1000000000D);
+        if (!task.isCancelled())
+            this.delegate.postFinished(arguments.pixelBuffers, arguments.pixelBufferSizes, arguments.pixelBlockSize, (endTime - arguments.startTime) / 1000000000D);
 
-        double allTime = (endTime - setupStart) / 1000000000D;
+        double allTime = (endTime - task.setupStart) / 1000000000D;
         LOGGER.info("Took {} seconds to do RS compute", allTime);
+        LOGGER.debug("{} progress updates, {} ms each on average, {}", task.updates, task.getAverageUpdateMillis(),
+                task.bitmapOutput ? "straight into the bitmap" : "through the pixel buffers");
+
+        if (this.allocationPool != null) {
+            LOGGER.debug("Allocations: {} created, {} reused, {} destroyed",
+                    this.allocationPool.getCreatedAllocationCount(),
+                    this.allocationPool.getReusedAllocationCount(),
+                    this.allocationPool.getDestroyedAllocationCount());
+        }
+    }
+
+    private void copyRowsFromAllocations(FractalComputeArguments arguments, int[] backPixels, int rowStart, int rowEnd) {
+        int offset = rowStart * arguments.viewWidth;
+        int count = (rowEnd - rowStart) * arguments.viewWidth;
+
+        if (this.stagingPixels == null || this.stagingPixels.length < count) {
+            this.stagingPixels = new int[count];
+            this.stagingPixelSizes = new byte[count];
+        }
+
+        this.pixelBufferAllocation.copy1DRangeTo(offset, count, this.stagingPixels);
+        this.pixelBufferSizesAllocation.copy1DRangeTo(offset, count, this.stagingPixelSizes);
+
+        System.arraycopy(this.stagingPixels, 0, backPixels, offset, count);
+        System.arraycopy(this.stagingPixelSizes, 0, arguments.pixelBufferSizes, offset, count);
+    }
+
+    // Once per render, when it finishes or is stopped, rather than with every chunk's pixels
+    private void copyIterationsFromAllocation(RenderscriptRenderTask task) {
+        FractalComputeArguments arguments = task.arguments;
+        if (!task.iterationsOutput || task.iterationsCopied || this.pixelIterationsAllocation == null)
+            return;
+
+        task.iterationsCopied = true;
+
+        int count = this.pixelIterationsAllocation.getType().getCount();
+        if (this.stagingPixelIterations == null || this.stagingPixelIterations.length != count)
+            this.stagingPixelIterations = new short[count];
+
+        this.pixelIterationsAllocation.copyTo(this.stagingPixelIterations);
+
+        int[] pixelIterations = arguments.pixelIterations;
+        for (int i = 0; i < count; i++) {
+            int iterationsLeft = this.stagingPixelIterations[i] & 0xFFFF;
+            if (iterationsLeft != ITERATIONS_NOT_RENDERED)
+                pixelIterations[i] = decodeIterations(iterationsLeft, arguments.maxIterations);
+        }
+    }
+
+    // From the budget less the iterations taken, as the kernel writes them, to a count as in IterationCounts
+    static int decodeIterations(int iterationsLeft, int maxIterations) {
+        if (iterationsLeft == ITERATIONS_TOO_EARLY)
+            return IterationCounts.UNKNOWN;
+
+        return IterationCounts.encode(maxIterations - iterationsLeft, maxIterations);
+    }
+
+    // Each row index covers pixelBlockSize rows, merge them into contiguous [start, end) ranges
+    static List<int[]> touchedRowRanges(int[] rows, int pixelBlockSize, int height) {
+        int[] sortedRows = rows.clone();
+        Arrays.sort(sortedRows);
+
+        List<int[]> ranges = new ArrayList<int[]>();
+        int[] current = null;
+        for (int row : sortedRows) {
+            int rowEnd = Math.min(row + pixelBlockSize, height);
+            if (current != null && row <= current[1]) {
+                current[1] = Math.max(current[1], rowEnd);
+            } else {
+                current = new int[]{row, rowEnd};
+                ranges.add(current);
+            }
+        }
+
+        return ranges;
     }
 
     void scheduleRendering(FractalComputeArguments arguments) {
         boolean couldAddToQueue = renderQueueList.offer(arguments);
+
+        this.startNextRenderIfIdle();
+    }
+
+    private void startNextRenderIfIdle() {
+        synchronized (this.renderTaskLock) {
+            if (this.currentRenderTask != null)
+                return;
+
+            FractalComputeArguments arguments = this.renderQueueList.poll();
+            if (arguments == null)
+                return;
+
+            this.currentRenderTask = new RenderscriptRenderTask(this, arguments);
+            this.renderExecutor.submit(this.currentRenderTask);
+        }
+    }
+
+    void submitRenderTask(RenderscriptRenderTask task) {
+        this.renderExecutor.submit(task);
+    }
+
+    void onRenderTaskComplete(RenderscriptRenderTask task) {
+        synchronized (this.renderTaskLock) {
+            if (this.currentRenderTask == task)
+                this.currentRenderTask = null;
+        }
+
+        this.startNextRenderIfIdle();
+    }
+
+    @Override
+    public boolean supportsBitmapOutput() {
+        // Before API 18 the allocation can't share the bitmap's memory, so it would be one more copy rather than one fewer
+        return Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR2;
     }
 
     @Override
@@ -379,16 +541,26 @@ public abstract class RenderscriptFractalComputeStrategy extends FractalComputeS
 
     @Override
     public void stopAllRendering() {
-        if (!this.renderQueueList.isEmpty())
-            this.renderQueueList.clear();
+        RenderscriptRenderTask task;
+        synchronized (this.renderTaskLock) {
+            if (!this.renderQueueList.isEmpty())
+                this.renderQueueList.clear();
 
-        if (!(this.renderThreadList == null))
-            this.renderThreadList.stopRendering();
+            task = this.currentRenderTask;
+            this.currentRenderTask = null;
+        }
 
-    }
+        if (task == null)
+            return;
+
+        LOGGER.debug("Aborting render...");
+
+        // Blocks until any chunk in progress has finished, so nothing more gets written or posted
+        this.renderExecutor.remove(task);
+        task.cancelAndWait();
 
-    public FractalComputeArguments getNextRendering() throws InterruptedException {
-        return this.renderQueueList.take();
+        // The pixels it did get to are kept, so their counts come back too
+        this.copyIterationsFromAllocation(task);
     }
 
     protected abstract void invokeComputeFunction();
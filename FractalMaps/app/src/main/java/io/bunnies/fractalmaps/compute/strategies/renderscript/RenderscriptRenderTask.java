@@ -0,0 +1,129 @@
+package io.bunnies.fractalmaps.compute.strategies.renderscript;
+
+import io.bunnies.fractalmaps.compute.FractalComputeArguments;
+import io.bunnies.fractalmaps.compute.executor.RenderPriority;
+import io.bunnies.fractalmaps.compute.executor.RenderTask;
+
+/*
+ * One render, run a chunk at a time on the shared render executor. After each chunk the task resubmits
+ * itself, which gives the executor a chance to run a higher priority view's chunk in between.
+ */
+public class RenderscriptRenderTask extends RenderTask {
+    private final RenderscriptFractalComputeStrategy strategy;
+    final FractalComputeArguments arguments;
+
+    // Filled in by the strategy when the render is prepared
+    int[][] rowIndices;
+    int linesPerProgressUpdate;
+    long setupStart;
+    boolean bitmapOutput;
+    // Whether the kernel writes counts for this render, and whether they've been read back since
+    boolean iterationsOutput;
+    boolean iterationsCopied;
+
+    // Progress updates posted, and the time from the start of each chunk until its update was posted
+    int updates;
+    private long updateNanos;
+
+    private int nextChunk = -1;
+    private volatile boolean cancelled = false;
+    private boolean running = false;
+    private Thread runningThread;
+
+    public RenderscriptRenderTask(RenderscriptFractalComputeStrategy strategy, FractalComputeArguments arguments) {
+        this.strategy = strategy;
+        this.arguments = arguments;
+    }
+
+    @Override
+    public RenderPriority getPriority() {
+        return this.strategy.getRenderPriority();
+    }
+
+    public boolean isCancelled() {
+        return this.cancelled;
+    }
+
+    @Override
+    public void run() {
+        synchronized (this) {
+            if (this.cancelled) {
+                this.strategy.onRenderTaskComplete(this);
+                return;
+            }
+
+            this.running = true;
+            this.runningThread = Thread.currentThread();
+        }
+
+        boolean moreChunks = false;
+        try {
+            moreChunks = this.step();
+        } finally {
+            synchronized (this) {
+                this.running = false;
+                this.runningThread = null;
+                this.notifyAll();
+            }
+        }
+
+        if (moreChunks && !this.cancelled) {
+            this.strategy.submitRenderTask(this);
+        } else {
+            this.strategy.onRenderTaskComplete(this);
+        }
+    }
+
+    void runToCompletion() {
+        while (!this.cancelled && this.step()) ;
+    }
+
+    // Prepares the render and does its first chunk, or does the next chunk. Returns true while chunks remain.
+    private boolean step() {
+        if (this.nextChunk < 0) {
+            this.arguments.startTime = System.nanoTime();
+
+            if (this.strategy.getContext() == null || !this.strategy.prepareRender(this))
+                return false;
+
+            this.nextChunk = 0;
+        }
+
+        if (this.nextChunk < this.rowIndices.length) {
+            if (!this.strategy.renderChunk(this, this.nextChunk))
+                return false;
+
+            this.nextChunk++;
+        }
+
+        if (this.nextChunk < this.rowIndices.length)
+            return true;
+
+        this.strategy.finishRender(this);
+        return false;
+    }
+
+    void countUpdate(long nanos) {
+        this.updates++;
+        this.updateNanos += nanos;
+    }
+
+    double getAverageUpdateMillis() {
+        return this.updates == 0 ? 0 : (this.updateNanos / (double) this.updates) / 1000000D;
+    }
+
+    public void cancelAndWait() {
+        synchronized (this) {
+            this.cancelled = true;
+
+            while (this.running && this.runningThread != Thread.currentThread()) {
+                try {
+                    this.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package io.bunnies.fractalmaps.compute.strategies.renderscript;
+
+import android.content.Context;
+import android.support.v8.renderscript.RenderScript;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.bunnies.fractalmaps.R;
+
+/*
+ * The RenderScript context and mandelbrot script, shared by every strategy that holds a reference, and
+ * destroyed when the last one lets go. Creating them is most of the cost of starting up, so the two views
+ * only pay it once.
+ *
+ * The script's globals are shared too. A strategy sets every global it uses and invokes the script while
+ * holding getScriptLock(). Commands run on the context in the order they're sent, so each invoke sees the
+ * globals set just before it, whatever the other strategy sends afterwards.
+ */
+class RenderscriptRuntime {
+    private static final Logger LOGGER = LoggerFactory.getLogger(RenderscriptRuntime.class);
+
+    private static RenderscriptRuntime sharedRuntime;
+    private static int references = 0;
+
+    private final RenderScript renderScript;
+    private final ScriptC_mandelbrot script;
+    private final Object scriptLock = new Object();
+
+    // Creates the runtime if nobody holds it. Every acquire() must be matched by a release().
+    static synchronized RenderscriptRuntime acquire(Context context) {
+        if (sharedRuntime == null)
+            sharedRuntime = new RenderscriptRuntime(context.getApplicationContext());
+
+        references++;
+        return sharedRuntime;
+    }
+
+    static synchronized int getReferenceCount() {
+        return references;
+    }
+
+    private RenderscriptRuntime(Context context) {
+        long startTime = System.nanoTime();
+        this.renderScript = RenderScript.create(context);
+
+        long contextTime = System.nanoTime();
+        try {
+            this.script = new ScriptC_mandelbrot(this.renderScript, context.getResources(), R.raw.mandelbrot);
+        } catch (Throwable throwable) {
+            this.renderScript.destroy();
+            throw throwable;
+        }
+
+        this.script.set_gScript(this.script);
+
+        LOGGER.info("Startup: context in {} ms, script in {} ms", (contextTime - startTime) / 1000000D,
+                (System.nanoTime() - contextTime) / 1000000D);
+    }
+
+    RenderScript getRenderScript() {
+        return this.renderScript;
+    }
+
+    ScriptC_mandelbrot getScript() {
+        return this.script;
+    }
+
+    Object getScriptLock() {
+        return this.scriptLock;
+    }
+
+    void release() {
+        synchronized (RenderscriptRuntime.class) {
+            if (references == 0 || this != sharedRuntime)
+                throw new IllegalStateException("release() without acquire()");
+
+            references--;
+            if (references > 0)
+                return;
+
+            sharedRuntime = null;
+        }
+
+        LOGGER.debug("Destroying renderscript runtime");
+        this.script.destroy();
+        this.renderScript.destroy();
+    }
+}
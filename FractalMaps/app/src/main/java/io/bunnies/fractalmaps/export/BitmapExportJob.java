@@ -0,0 +1,56 @@
+package io.bunnies.fractalmaps.export;
+
+import android.graphics.Bitmap;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.CancellationException;
+
+/*
+ * Writes a copy of a view's bitmap out as a PNG. The copy is taken up front, which is one quick memory copy
+ * on the UI thread, and the view goes on rendering into its own bitmap while this one is encoded.
+ */
+public class BitmapExportJob extends ExportJob {
+    // Enough rows for the encoder to split across its threads, without unpacking the whole bitmap at once
+    private static final int ROWS_PER_STRIP = 256;
+
+    private final Bitmap snapshot;
+
+    // Takes ownership of the snapshot, and recycles it once written
+    public BitmapExportJob(Bitmap snapshot, File outputFile) {
+        super(outputFile);
+        this.snapshot = snapshot;
+    }
+
+    @Override
+    protected void export() throws IOException {
+        int width = this.snapshot.getWidth();
+        int height = this.snapshot.getHeight();
+        int[] strip = new int[width * Math.min(ROWS_PER_STRIP, height)];
+
+        OutputStream output = new BufferedOutputStream(new FileOutputStream(this.getOutputFile()));
+        try {
+            PngWriter writer = new PngWriter(output, width, height, ExportExecutor.getPngEncoderExecutor());
+            for (int y = 0; y < height; y += ROWS_PER_STRIP) {
+                if (this.isCancelled())
+                    throw new CancellationException("Export cancelled");
+
+                int rows = Math.min(ROWS_PER_STRIP, height - y);
+                this.snapshot.getPixels(strip, 0, width, 0, y, width, rows);
+                writer.writeRows(strip, 0, width, rows);
+            }
+
+            writer.finish();
+        } finally {
+            output.close();
+        }
+    }
+
+    @Override
+    protected void release() {
+        this.snapshot.recycle();
+    }
+}
@@ -0,0 +1,45 @@
+package io.bunnies.fractalmaps.export;
+
+import android.os.Build;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/*
+ * The threads exports share, one per core, for splitting an export's work up. PngWriter joins its chunks
+ * with Deflater.SYNC_FLUSH, which only arrived in KitKat, so before that it gets no executor and deflates
+ * on the calling thread.
+ */
+public class ExportExecutor {
+    private static ExecutorService sharedExecutor;
+
+    public static synchronized ExecutorService getSharedExecutor() {
+        if (sharedExecutor == null) {
+            int threads = Runtime.getRuntime().availableProcessors();
+            sharedExecutor = Executors.newFixedThreadPool(threads, new ExportThreadFactory());
+        }
+
+        return sharedExecutor;
+    }
+
+    // The shared executor where PngWriter can use one, otherwise null
+    public static ExecutorService getPngEncoderExecutor() {
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.KITKAT)
+            return null;
+
+        return getSharedExecutor();
+    }
+
+    private static class ExportThreadFactory implements ThreadFactory {
+        private final AtomicInteger threadNumber = new AtomicInteger(0);
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "ExportPool-" + this.threadNumber.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
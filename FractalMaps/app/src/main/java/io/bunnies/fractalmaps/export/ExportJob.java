@@ -0,0 +1,48 @@
+package io.bunnies.fractalmaps.export;
+
+import java.io.File;
+import java.io.IOException;
+
+/*
+ * Something the ExportQueue writes to a file on its worker thread. Jobs carry everything they need with
+ * them, so the views can carry on rendering while they wait. A cancelled job stops at the next point it
+ * checks, and the queue deletes whatever it had written.
+ */
+public abstract class ExportJob {
+    private final File outputFile;
+    private volatile boolean cancelled = false;
+
+    protected ExportJob(File outputFile) {
+        this.outputFile = outputFile;
+    }
+
+    public File getOutputFile() {
+        return this.outputFile;
+    }
+
+    // Safe from any thread
+    public void cancel() {
+        this.cancelled = true;
+        this.onCancelled();
+    }
+
+    public boolean isCancelled() {
+        return this.cancelled;
+    }
+
+    // For jobs that can be interrupted sooner than their next check
+    protected void onCancelled() {
+    }
+
+    // Runs on the worker thread. Throws CancellationException if cancelled part way through.
+    protected abstract void export() throws IOException;
+
+    // Runs on the worker thread if the job doesn't finish. Returns false if the output couldn't be deleted.
+    protected boolean deleteOutput() {
+        return !this.outputFile.exists() || this.outputFile.delete();
+    }
+
+    // Runs on the worker thread once the job is done with, whether it ran, failed or was cancelled first
+    protected void release() {
+    }
+}
@@ -0,0 +1,148 @@
+package io.bunnies.fractalmaps.export;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/*
+ * Saves, shares and posters, run one at a time on a worker thread so writing them never holds the UI up.
+ * Each job reports back through its callback on the UI thread: finished, failed or cancelled. Jobs that
+ * don't finish have their output file deleted, so nothing half written ends up in the gallery.
+ */
+public class ExportQueue {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ExportQueue.class);
+
+    private static ExportQueue sharedQueue;
+
+    private final Executor workerExecutor;
+    private final Executor uiExecutor;
+    // Submitted and not yet reported back
+    private final List<ExportJob> pendingJobs = new ArrayList<>();
+
+    public static synchronized ExportQueue getSharedQueue() {
+        if (sharedQueue == null) {
+            final Handler mainHandler = new Handler(Looper.getMainLooper());
+            Executor uiExecutor = new Executor() {
+                @Override
+                public void execute(Runnable command) {
+                    mainHandler.post(command);
+                }
+            };
+
+            sharedQueue = new ExportQueue(Executors.newSingleThreadExecutor(new ExportThreadFactory()), uiExecutor);
+        }
+
+        return sharedQueue;
+    }
+
+    public ExportQueue(Executor workerExecutor, Executor uiExecutor) {
+        this.workerExecutor = workerExecutor;
+        this.uiExecutor = uiExecutor;
+    }
+
+    public void submit(final ExportJob job, final IExportCallback callback) {
+        synchronized (this.pendingJobs) {
+            this.pendingJobs.add(job);
+        }
+
+        this.workerExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                runJob(job, callback);
+            }
+        });
+    }
+
+    public int getPendingJobCount() {
+        synchronized (this.pendingJobs) {
+            return this.pendingJobs.size();
+        }
+    }
+
+    // Cancels everything waiting or running, for when whoever submitted them is going away
+    public void cancelAll() {
+        List<ExportJob> jobs;
+        synchronized (this.pendingJobs) {
+            jobs = new ArrayList<>(this.pendingJobs);
+        }
+
+        for (ExportJob job : jobs) {
+            job.cancel();
+        }
+    }
+
+    private void runJob(final ExportJob job, final IExportCallback callback) {
+        final File file = job.getOutputFile();
+        long startTime = System.nanoTime();
+
+        Exception failure = null;
+        try {
+            if (!job.isCancelled())
+                job.export();
+        } catch (CancellationException e) {
+            LOGGER.debug("Export to {} stopped part way", file);
+        } catch (IOException | RuntimeException e) {
+            failure = e;
+        } finally {
+            job.release();
+        }
+
+        final boolean finished = (failure == null && !job.isCancelled());
+        if (!finished && !job.deleteOutput())
+            LOGGER.warn("Couldn't delete unfinished export {}", file);
+
+        // The file is good whatever happens here
+        if (finished) {
+            try {
+                callback.onExportWritten(job, file);
+            } catch (RuntimeException e) {
+                LOGGER.warn("Follow-up for {} failed: {}", file, e);
+            }
+        }
+
+        if (failure != null) {
+            LOGGER.error("Export to {} failed: {}", file, failure);
+        } else {
+            LOGGER.info("Export to {} {} after {} ms", file, finished ? "finished" : "cancelled",
+                    (System.nanoTime() - startTime) / 1000000D);
+        }
+
+        final Exception reportedFailure = failure;
+        this.uiExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                synchronized (pendingJobs) {
+                    pendingJobs.remove(job);
+                }
+
+                if (reportedFailure != null) {
+                    callback.onExportFailed(job, reportedFailure);
+                } else if (finished) {
+                    callback.onExportFinished(job, file);
+                } else {
+                    callback.onExportCancelled(job);
+                }
+            }
+        });
+    }
+
+    private static class ExportThreadFactory implements ThreadFactory {
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "ExportQueue");
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
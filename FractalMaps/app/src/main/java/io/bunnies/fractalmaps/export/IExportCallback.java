@@ -0,0 +1,15 @@
+package io.bunnies.fractalmaps.export;
+
+import java.io.File;
+
+public interface IExportCallback {
+    // On the worker thread, once the file is complete, for follow-up work that shouldn't hold the UI up
+    public void onExportWritten(ExportJob job, File file);
+
+    // The rest are on the UI thread
+    public void onExportFinished(ExportJob job, File file);
+
+    public void onExportFailed(ExportJob job, Exception exception);
+
+    public void onExportCancelled(ExportJob job);
+}
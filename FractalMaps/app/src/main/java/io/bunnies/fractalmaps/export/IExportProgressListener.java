@@ -0,0 +1,6 @@
+package io.bunnies.fractalmaps.export;
+
+public interface IExportProgressListener {
+    // Called on the export thread each time another strip of rows has been written
+    public void onExportProgress(int rowsDone, int totalRows);
+}
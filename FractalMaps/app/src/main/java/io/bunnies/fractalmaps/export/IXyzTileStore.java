@@ -0,0 +1,15 @@
+package io.bunnies.fractalmaps.export;
+
+import java.io.IOException;
+
+/*
+ * Where XyzTileExporter puts its PNG tiles, by zoom level and tile column and row. Tiles already in the store
+ * are skipped, so a store that keeps what was written before it was interrupted lets an export carry on.
+ */
+public interface IXyzTileStore {
+    public boolean contains(int zoom, int x, int y);
+
+    public void write(int zoom, int x, int y, byte[] png) throws IOException;
+
+    public void close() throws IOException;
+}
@@ -0,0 +1,203 @@
+package io.bunnies.fractalmaps.export;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.ExecutorService;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+import io.bunnies.fractalmaps.colouring.ColourStrategies;
+import io.bunnies.fractalmaps.colouring.EnumColourStrategy;
+import io.bunnies.fractalmaps.settings.FractalTypeEnum;
+
+/*
+ * A rendered area kept as iteration counts rather than colours, so it can be coloured again any way without
+ * computing it again, here or on another machine. Each value is the smooth iteration count: the whole part
+ * is the count the app colours by, and maxIterations means the point never escaped.
+ *
+ * The file is a fixed header, an index of every tile, then the tiles, each one a deflated block of big
+ * endian floats in row order. Edge tiles only hold the pixels inside the image. The file is memory-mapped,
+ * and any tile can be read without touching the others.
+ *
+ *   int magic, int version, int fractal type, int width, int height, int tile size,
+ *   double xMin, double yMax, double graph width, double seed x, double seed y, int max iterations,
+ *   then per tile, across each row of tiles in turn: long offset, int length
+ */
+public class IterationData {
+    static final int MAGIC = 0x46524954;
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = (7 * 4) + (5 * 8);
+    static final int INDEX_ENTRY_BYTES = 8 + 4;
+
+    private final ByteBuffer mapped;
+    private final FractalTypeEnum fractalType;
+    private final int width;
+    private final int height;
+    private final int tileSize;
+    private final double[] graphArea;
+    private final double[] juliaSeed;
+    private final int maxIterations;
+
+    public static IterationData open(File file) throws IOException {
+        RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+        try {
+            FileChannel channel = randomAccessFile.getChannel();
+            return new IterationData(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()), file);
+        } finally {
+            // The mapping outlives the file being closed
+            randomAccessFile.close();
+        }
+    }
+
+    private IterationData(ByteBuffer mapped, File file) throws IOException {
+        this.mapped = mapped;
+        if (mapped.capacity() < HEADER_BYTES || mapped.getInt(0) != MAGIC || mapped.getInt(4) != VERSION)
+            throw new IOException("Not an iteration data file: " + file);
+
+        ByteBuffer header = mapped.duplicate();
+        header.position(8);
+
+        int fractalType = header.getInt();
+        FractalTypeEnum[] fractalTypes = FractalTypeEnum.values();
+        if (fractalType < 0 || fractalType >= fractalTypes.length)
+            throw new IOException("Unknown fractal type " + fractalType);
+
+        this.fractalType = fractalTypes[fractalType];
+        this.width = header.getInt();
+        this.height = header.getInt();
+        this.tileSize = header.getInt();
+        this.graphArea = new double[]{header.getDouble(), header.getDouble(), header.getDouble()};
+        this.juliaSeed = new double[]{header.getDouble(), header.getDouble()};
+        this.maxIterations = header.getInt();
+
+        if (this.width <= 0 || this.height <= 0 || this.tileSize <= 0)
+            throw new IOException("Bad size " + this.width + "x" + this.height + " in tiles of " + this.tileSize);
+
+        long indexEnd = HEADER_BYTES + ((long) this.getTilesAcross() * this.getTilesDown() * INDEX_ENTRY_BYTES);
+        if (mapped.capacity() < indexEnd)
+            throw new IOException("Truncated tile index in " + file);
+    }
+
+    public FractalTypeEnum getFractalType() {
+        return this.fractalType;
+    }
+
+    public int getWidth() {
+        return this.width;
+    }
+
+    public int getHeight() {
+        return this.height;
+    }
+
+    public int getTileSize() {
+        return this.tileSize;
+    }
+
+    public int getTilesAcross() {
+        return (this.width + this.tileSize - 1) / this.tileSize;
+    }
+
+    public int getTilesDown() {
+        return (this.height + this.tileSize - 1) / this.tileSize;
+    }
+
+    public double[] getGraphArea() {
+        return this.graphArea.clone();
+    }
+
+    public double[] getJuliaSeed() {
+        return this.juliaSeed.clone();
+    }
+
+    public int getMaxIterations() {
+        return this.maxIterations;
+    }
+
+    public int getTileWidth(int tileX) {
+        return Math.min(this.tileSize, this.width - (tileX * this.tileSize));
+    }
+
+    public int getTileHeight(int tileY) {
+        return Math.min(this.tileSize, this.height - (tileY * this.tileSize));
+    }
+
+    // The smooth iteration counts for one tile, in row order, getTileWidth(tileX) wide
+    public float[] readTile(int tileX, int tileY) throws IOException {
+        if (tileX < 0 || tileX >= this.getTilesAcross() || tileY < 0 || tileY >= this.getTilesDown())
+            throw new IllegalArgumentException("No tile " + tileX + ", " + tileY);
+
+        int indexEntry = HEADER_BYTES + (((tileY * this.getTilesAcross()) + tileX) * INDEX_ENTRY_BYTES);
+        long offset = this.mapped.getLong(indexEntry);
+        int length = this.mapped.getInt(indexEntry + 8);
+        if (offset < indexEntry || length < 0 || offset + length > this.mapped.capacity())
+            throw new IOException("Bad index entry for tile " + tileX + ", " + tileY);
+
+        byte[] compressed = new byte[length];
+        ByteBuffer block = this.mapped.duplicate();
+        block.position((int) offset);
+        block.get(compressed);
+
+        byte[] raw = new byte[this.getTileWidth(tileX) * this.getTileHeight(tileY) * 4];
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(compressed);
+            if (inflater.inflate(raw) != raw.length || !inflater.finished())
+                throw new IOException("Tile " + tileX + ", " + tileY + " is the wrong size");
+        } catch (DataFormatException e) {
+            throw new IOException("Tile " + tileX + ", " + tileY + " is corrupt", e);
+        } finally {
+            inflater.end();
+        }
+
+        float[] values = new float[raw.length / 4];
+        ByteBuffer.wrap(raw).asFloatBuffer().get(values);
+        return values;
+    }
+
+    // One tile coloured as the app would have coloured it
+    public int[] colourTile(int tileX, int tileY, EnumColourStrategy colourStrategy) throws IOException {
+        float[] values = this.readTile(tileX, tileY);
+
+        int[] pixels = new int[values.length];
+        for (int i = 0; i < values.length; i++) {
+            pixels[i] = ColourStrategies.colourPoint(colourStrategy, (int) values[i], this.maxIterations);
+        }
+
+        return pixels;
+    }
+
+    // The whole image coloured and streamed out as a PNG, a row of tiles at a time
+    public void writePng(EnumColourStrategy colourStrategy, OutputStream output, ExecutorService executor) throws IOException {
+        PngWriter writer = new PngWriter(output, this.width, this.height, executor);
+        int[] strip = new int[this.width * Math.min(this.tileSize, this.height)];
+
+        for (int tileY = 0; tileY < this.getTilesDown(); tileY++) {
+            int stripHeight = this.getTileHeight(tileY);
+
+            for (int tileX = 0; tileX < this.getTilesAcross(); tileX++) {
+                int tileWidth = this.getTileWidth(tileX);
+                int[] tilePixels = this.colourTile(tileX, tileY, colourStrategy);
+                for (int row = 0; row < stripHeight; row++) {
+                    System.arraycopy(tilePixels, row * tileWidth, strip, (row * this.width) + (tileX * this.tileSize), tileWidth);
+                }
+            }
+
+            writer.writeRows(strip, 0, this.width, stripHeight);
+        }
+
+        writer.finish();
+    }
+
+    static byte[] floatsToBytes(float[] values) {
+        ByteBuffer bytes = ByteBuffer.allocate(values.length * 4);
+        FloatBuffer floats = bytes.asFloatBuffer();
+        floats.put(values);
+        return bytes.array();
+    }
+}
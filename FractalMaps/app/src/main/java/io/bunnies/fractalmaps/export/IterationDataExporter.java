@@ -0,0 +1,211 @@
+package io.bunnies.fractalmaps.export;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.zip.Deflater;
+
+import io.bunnies.fractalmaps.compute.strategies.JuliaSeedSettable;
+import io.bunnies.fractalmaps.compute.strategies.cpu.CpuFractalComputeStrategy;
+import io.bunnies.fractalmaps.settings.FractalTypeEnum;
+
+/*
+ * Computes a graph area's smooth iteration counts and writes them out in the IterationData format, a row of
+ * tiles at a time. The RenderScript kernel only ever gives back colours, so the counts come from the CPU
+ * strategy's iteration, which follows the same rules. Given an executor, each row's tiles are computed and
+ * compressed in parallel.
+ */
+public class IterationDataExporter {
+    private static final Logger LOGGER = LoggerFactory.getLogger(IterationDataExporter.class);
+
+    public static final int TILE_SIZE = 256;
+
+    private final CpuFractalComputeStrategy strategy;
+    private final ExecutorService executor;
+    private volatile boolean cancelled = false;
+
+    public IterationDataExporter(CpuFractalComputeStrategy strategy, ExecutorService executor) {
+        this.strategy = strategy;
+        this.executor = executor;
+    }
+
+    // Safe from any thread. export() throws CancellationException once it notices.
+    public void cancel() {
+        this.cancelled = true;
+    }
+
+    // graphArea is {xMin, yMax, width} as in the presenters, stretched over width pixels
+    public void export(final double[] graphArea, final int width, final int height, final int maxIterations, File file,
+                       IExportProgressListener listener) throws IOException {
+        long startTime = System.nanoTime();
+        final double pixelSize = graphArea[2] / width;
+        int tilesAcross = (width + TILE_SIZE - 1) / TILE_SIZE;
+        int tilesDown = (height + TILE_SIZE - 1) / TILE_SIZE;
+
+        RandomAccessFile output = new RandomAccessFile(file, "rw");
+        try {
+            output.setLength(0);
+            output.write(this.createHeader(graphArea, width, height, maxIterations));
+
+            // The index is filled in as tiles are written, and goes in once they all are
+            ByteBuffer index = ByteBuffer.allocate(tilesAcross * tilesDown * IterationData.INDEX_ENTRY_BYTES);
+            output.write(index.array());
+
+            for (int tileY = 0; tileY < tilesDown; tileY++) {
+                if (this.cancelled)
+                    throw new CancellationException("Export cancelled");
+
+                final int top = tileY * TILE_SIZE;
+                final int tileHeight = Math.min(TILE_SIZE, height - top);
+
+                List<Callable<byte[]>> tiles = new ArrayList<>();
+                for (int tileX = 0; tileX < tilesAcross; tileX++) {
+                    final int left = tileX * TILE_SIZE;
+                    final int tileWidth = Math.min(TILE_SIZE, width - left);
+
+                    tiles.add(new Callable<byte[]>() {
+                        @Override
+                        public byte[] call() {
+                            return compressTile(computeTile(graphArea, pixelSize, maxIterations, left, top, tileWidth, tileHeight));
+                        }
+                    });
+                }
+
+                for (byte[] tile : this.runAll(tiles)) {
+                    index.putLong(output.getFilePointer());
+                    index.putInt(tile.length);
+                    output.write(tile);
+                }
+
+                if (listener != null)
+                    listener.onExportProgress(top + tileHeight, height);
+            }
+
+            output.seek(IterationData.HEADER_BYTES);
+            output.write(index.array());
+            output.getFD().sync();
+        } finally {
+            output.close();
+        }
+
+        LOGGER.info("Exported {}x{} iteration counts in {} seconds", width, height, (System.nanoTime() - startTime) / 1000000000D);
+    }
+
+    private byte[] createHeader(double[] graphArea, int width, int height, int maxIterations) {
+        FractalTypeEnum fractalType = FractalTypeEnum.MANDELBROT;
+        double[] juliaSeed = {0, 0};
+        if (this.strategy instanceof JuliaSeedSettable) {
+            fractalType = FractalTypeEnum.JULIA;
+            juliaSeed = ((JuliaSeedSettable) this.strategy).getJuliaSeed();
+        }
+
+        ByteBuffer header = ByteBuffer.allocate(IterationData.HEADER_BYTES);
+        header.putInt(IterationData.MAGIC);
+        header.putInt(IterationData.VERSION);
+        header.putInt(fractalType.ordinal());
+        header.putInt(width);
+        header.putInt(height);
+        header.putInt(TILE_SIZE);
+        header.putDouble(graphArea[0]);
+        header.putDouble(graphArea[1]);
+        header.putDouble(graphArea[2]);
+        header.putDouble(juliaSeed[0]);
+        header.putDouble(juliaSeed[1]);
+        header.putInt(maxIterations);
+        return header.array();
+    }
+
+    float[] computeTile(double[] graphArea, double pixelSize, int maxIterations, int left, int top, int tileWidth, int tileHeight) {
+        float[] values = new float[tileWidth * tileHeight];
+
+        for (int y = 0; y < tileHeight; y++) {
+            if (this.cancelled)
+                throw new CancellationException("Export cancelled");
+
+            double y0 = graphArea[1] - ((top + y) * pixelSize);
+            for (int x = 0; x < tileWidth; x++) {
+                double x0 = graphArea[0] + ((left + x) * pixelSize);
+                values[(y * tileWidth) + x] = toStoredValue(this.strategy.smoothIteratePoint(x0, y0, maxIterations));
+            }
+        }
+
+        return values;
+    }
+
+    // Rounding to a float mustn't carry the count up to the next whole number, which would change its colour
+    static float toStoredValue(double smoothIterations) {
+        float value = (float) smoothIterations;
+        if ((int) value != (int) smoothIterations)
+            value = Math.nextAfter(value, Double.NEGATIVE_INFINITY);
+
+        return value;
+    }
+
+    private static byte[] compressTile(float[] values) {
+        byte[] raw = IterationData.floatsToBytes(values);
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION);
+        try {
+            deflater.setInput(raw);
+            deflater.finish();
+
+            byte[] buffer = new byte[Math.max(64, raw.length / 4)];
+            int length = 0;
+            while (!deflater.finished()) {
+                if (length == buffer.length) {
+                    byte[] bigger = new byte[buffer.length * 2];
+                    System.arraycopy(buffer, 0, bigger, 0, length);
+                    buffer = bigger;
+                }
+                length += deflater.deflate(buffer, length, buffer.length - length);
+            }
+
+            byte[] compressed = new byte[length];
+            System.arraycopy(buffer, 0, compressed, 0, length);
+            return compressed;
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private <T> List<T> runAll(List<Callable<T>> tasks) throws IOException {
+        List<T> results = new ArrayList<>(tasks.size());
+        try {
+            if (this.executor == null) {
+                for (Callable<T> task : tasks) {
+                    results.add(task.call());
+                }
+                return results;
+            }
+
+            for (Future<T> future : this.executor.invokeAll(tasks)) {
+                results.add(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted exporting iteration counts");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof CancellationException)
+                throw (CancellationException) e.getCause();
+
+            throw new IOException("Failed to export iteration counts", e.getCause());
+        } catch (CancellationException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IOException("Failed to export iteration counts", e);
+        }
+
+        return results;
+    }
+}
@@ -0,0 +1,39 @@
+package io.bunnies.fractalmaps.export;
+
+import java.io.File;
+import java.io.IOException;
+
+import io.bunnies.fractalmaps.compute.strategies.cpu.CpuFractalComputeStrategy;
+
+/*
+ * Writes a graph area's iteration counts through IterationDataExporter, for colouring again later.
+ */
+public class IterationExportJob extends ExportJob {
+    private final IterationDataExporter exporter;
+    private final double[] graphArea;
+    private final int width;
+    private final int height;
+    private final int maxIterations;
+    private final IExportProgressListener listener;
+
+    public IterationExportJob(File outputFile, CpuFractalComputeStrategy strategy, double[] graphArea, int width,
+                              int height, int maxIterations, IExportProgressListener listener) {
+        super(outputFile);
+        this.exporter = new IterationDataExporter(strategy, ExportExecutor.getSharedExecutor());
+        this.graphArea = graphArea.clone();
+        this.width = width;
+        this.height = height;
+        this.maxIterations = maxIterations;
+        this.listener = listener;
+    }
+
+    @Override
+    protected void export() throws IOException {
+        this.exporter.export(this.graphArea, this.width, this.height, this.maxIterations, this.getOutputFile(), this.listener);
+    }
+
+    @Override
+    protected void onCancelled() {
+        this.exporter.cancel();
+    }
+}
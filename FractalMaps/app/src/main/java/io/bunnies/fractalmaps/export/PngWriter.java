@@ -0,0 +1,414 @@
+package io.bunnies.fractalmaps.export;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.zip.Adler32;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/*
+ * Writes an RGB PNG a few rows at a time, so an image far bigger than would fit in memory can be streamed
+ * straight to a file. Each row gets whichever filter leaves the smallest sum of bytes, the same heuristic
+ * libpng uses, and the filtered rows are deflated into IDAT chunks as they arrive. Alpha is dropped.
+ *
+ * Given an executor, the rows are split into chunks that are filtered and deflated on all of its threads,
+ * the way pigz does it. Each chunk is raw deflate ending in a sync flush, primed with the last 32KB before
+ * it so it compresses as well as one long stream would, and the chunks are joined behind a single zlib
+ * header with the checksum worked out as they're written. That needs Deflater.SYNC_FLUSH, so only pass an
+ * executor where the platform has it.
+ */
+public class PngWriter {
+    private static final byte[] SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+    private static final int IDAT_CHUNK_BYTES = 64 * 1024;
+    private static final int BYTES_PER_PIXEL = 3;
+
+    // Deflate with a 32KB window at the default level
+    private static final byte[] ZLIB_HEADER = {0x78, (byte) 0x9C};
+    private static final int DICTIONARY_BYTES = 32 * 1024;
+    private static final int PARALLEL_CHUNK_BYTES = 128 * 1024;
+    private static final int DEFLATE_BUFFER_BYTES = 16 * 1024;
+
+    static final int FILTER_NONE = 0;
+    static final int FILTER_SUB = 1;
+    static final int FILTER_UP = 2;
+    static final int FILTER_AVERAGE = 3;
+    static final int FILTER_PAETH = 4;
+
+    private final DataOutputStream output;
+    private final int width;
+    private final int height;
+    private final int filteredRowBytes;
+    private final ExecutorService executor;
+
+    // One deflater for the whole image when there's no executor to share the work with
+    private final Deflater streamDeflater;
+    private final Adler32 checksum = new Adler32();
+
+    private byte[] previousRow;
+    private byte[] dictionary = new byte[0];
+    private byte[] filteredRows = new byte[0];
+    private final byte[] idatBuffer = new byte[IDAT_CHUNK_BYTES];
+    private int idatLength = 0;
+    private int rowsWritten = 0;
+
+    public PngWriter(OutputStream output, int width, int height) throws IOException {
+        this(output, width, height, null);
+    }
+
+    public PngWriter(OutputStream output, int width, int height, ExecutorService executor) throws IOException {
+        this.output = new DataOutputStream(output);
+        this.width = width;
+        this.height = height;
+        this.filteredRowBytes = (width * BYTES_PER_PIXEL) + 1;
+        this.executor = executor;
+        this.previousRow = new byte[width * BYTES_PER_PIXEL];
+
+        this.output.write(SIGNATURE);
+        this.writeHeader();
+        this.writeImageData(ZLIB_HEADER, 0, ZLIB_HEADER.length);
+
+        this.streamDeflater = (executor == null) ? new Deflater(Deflater.DEFAULT_COMPRESSION, true) : null;
+    }
+
+    public int getRowsWritten() {
+        return this.rowsWritten;
+    }
+
+    // Writes rowCount rows of ARGB pixels, each stride apart, starting at offset
+    public void writeRows(int[] pixels, int offset, int stride, int rowCount) throws IOException {
+        if (this.rowsWritten + rowCount > this.height)
+            throw new IllegalStateException("More rows than the image has");
+
+        if (rowCount <= 0)
+            return;
+
+        int filteredLength = rowCount * this.filteredRowBytes;
+        if (this.filteredRows.length < filteredLength)
+            this.filteredRows = new byte[filteredLength];
+
+        boolean lastRows = (this.rowsWritten + rowCount == this.height);
+        if (this.executor == null) {
+            filterRows(pixels, offset, stride, this.width, 0, rowCount, this.previousRow, this.filteredRows);
+            this.checksum.update(this.filteredRows, 0, filteredLength);
+            this.deflateStream(filteredLength, lastRows);
+        } else {
+            this.filterAndDeflateInParallel(pixels, offset, stride, rowCount, lastRows);
+        }
+
+        toRgb(pixels, offset + ((rowCount - 1) * stride), this.width, this.previousRow);
+        this.rowsWritten += rowCount;
+    }
+
+    // Ends the image once every row has been written. Doesn't close the stream underneath.
+    public void finish() throws IOException {
+        if (this.rowsWritten != this.height)
+            throw new IllegalStateException("Only " + this.rowsWritten + " of " + this.height + " rows written");
+
+        int adler = (int) this.checksum.getValue();
+        byte[] trailer = new byte[4];
+        putInt(trailer, 0, adler);
+        this.writeImageData(trailer, 0, trailer.length);
+        this.flushImageData();
+
+        this.writeChunk("IEND", new byte[0], 0, 0);
+        this.output.flush();
+    }
+
+    private void deflateStream(int length, boolean lastRows) throws IOException {
+        byte[] buffer = new byte[DEFLATE_BUFFER_BYTES];
+
+        this.streamDeflater.setInput(this.filteredRows, 0, length);
+        if (lastRows)
+            this.streamDeflater.finish();
+
+        while (lastRows ? !this.streamDeflater.finished() : !this.streamDeflater.needsInput()) {
+            int deflated = this.streamDeflater.deflate(buffer);
+            this.writeImageData(buffer, 0, deflated);
+        }
+
+        if (lastRows)
+            this.streamDeflater.end();
+    }
+
+    private void filterAndDeflateInParallel(final int[] pixels, final int offset, final int stride, int rowCount,
+                                            boolean lastRows) throws IOException {
+        final byte[] filtered = this.filteredRows;
+        final byte[] firstPreviousRow = this.previousRow;
+        int chunkRows = Math.max(1, PARALLEL_CHUNK_BYTES / this.filteredRowBytes);
+
+        // Filtering only needs the pixels, so every chunk can go at once
+        List<Callable<Void>> filterTasks = new ArrayList<>();
+        for (int chunkStart = 0; chunkStart < rowCount; chunkStart += chunkRows) {
+            final int firstRow = chunkStart;
+            final int lastRow = Math.min(rowCount, chunkStart + chunkRows);
+
+            filterTasks.add(new Callable<Void>() {
+                @Override
+                public Void call() {
+                    byte[] rowAbove = firstPreviousRow;
+                    if (firstRow > 0) {
+                        rowAbove = new byte[width * BYTES_PER_PIXEL];
+                        toRgb(pixels, offset + ((firstRow - 1) * stride), width, rowAbove);
+                    }
+
+                    filterRows(pixels, offset, stride, width, firstRow, lastRow, rowAbove, filtered);
+                    return null;
+                }
+            });
+        }
+        this.runAll(filterTasks);
+
+        // Then each chunk deflates on its own, primed with whatever came before it
+        final byte[] previousDictionary = this.dictionary;
+        List<Callable<byte[]>> deflateTasks = new ArrayList<>();
+        for (int chunkStart = 0; chunkStart < rowCount; chunkStart += chunkRows) {
+            final int start = chunkStart * this.filteredRowBytes;
+            final int end = Math.min(rowCount, chunkStart + chunkRows) * this.filteredRowBytes;
+            final boolean finalChunk = lastRows && (chunkStart + chunkRows >= rowCount);
+
+            deflateTasks.add(new Callable<byte[]>() {
+                @Override
+                public byte[] call() {
+                    return deflateChunk(filtered, start, end - start,
+                            dictionaryBefore(previousDictionary, filtered, start), finalChunk);
+                }
+            });
+        }
+
+        List<byte[]> deflatedChunks = this.runAll(deflateTasks);
+
+        // The checksum has to run in order, but it's far quicker than deflating
+        int filteredLength = rowCount * this.filteredRowBytes;
+        this.checksum.update(filtered, 0, filteredLength);
+        for (byte[] deflatedChunk : deflatedChunks) {
+            this.writeImageData(deflatedChunk, 0, deflatedChunk.length);
+        }
+
+        this.dictionary = dictionaryBefore(previousDictionary, filtered, filteredLength);
+    }
+
+    private <T> List<T> runAll(List<Callable<T>> tasks) throws IOException {
+        List<T> results = new ArrayList<>(tasks.size());
+        try {
+            for (Future<T> future : this.executor.invokeAll(tasks)) {
+                results.add(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted encoding PNG");
+        } catch (ExecutionException e) {
+            throw new IOException("Failed to encode PNG", e.getCause());
+        }
+
+        return results;
+    }
+
+    // Raw deflate, ending on a byte boundary with a sync flush so the next chunk can follow straight on
+    static byte[] deflateChunk(byte[] data, int offset, int length, byte[] dictionary, boolean finalChunk) {
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        ByteArrayOutputStream deflated = new ByteArrayOutputStream(length / 2);
+        byte[] buffer = new byte[DEFLATE_BUFFER_BYTES];
+
+        try {
+            if (dictionary.length > 0)
+                deflater.setDictionary(dictionary);
+
+            deflater.setInput(data, offset, length);
+            if (finalChunk) {
+                deflater.finish();
+                while (!deflater.finished()) {
+                    int count = deflater.deflate(buffer);
+                    deflated.write(buffer, 0, count);
+                }
+            } else {
+                int count;
+                do {
+                    count = deflater.deflate(buffer, 0, buffer.length, Deflater.SYNC_FLUSH);
+                    deflated.write(buffer, 0, count);
+                } while (count == buffer.length);
+            }
+        } finally {
+            deflater.end();
+        }
+
+        return deflated.toByteArray();
+    }
+
+    // The last 32KB of data before end, reaching back into what was written before data if it's short
+    static byte[] dictionaryBefore(byte[] previousDictionary, byte[] data, int end) {
+        int fromData = Math.min(end, DICTIONARY_BYTES);
+        int fromPrevious = Math.min(previousDictionary.length, DICTIONARY_BYTES - fromData);
+
+        byte[] dictionary = new byte[fromPrevious + fromData];
+        System.arraycopy(previousDictionary, previousDictionary.length - fromPrevious, dictionary, 0, fromPrevious);
+        System.arraycopy(data, end - fromData, dictionary, fromPrevious, fromData);
+        return dictionary;
+    }
+
+    // Filters rows [firstRow, lastRow) into filtered, one filter type byte then the row each
+    static void filterRows(int[] pixels, int offset, int stride, int width, int firstRow, int lastRow,
+                           byte[] rowAbove, byte[] filtered) {
+        int rowBytes = width * BYTES_PER_PIXEL;
+        byte[][] rows = {new byte[rowBytes], new byte[rowBytes]};
+
+        byte[][] filteredRows = new byte[5][];
+        for (int filter = 0; filter < filteredRows.length; filter++) {
+            filteredRows[filter] = new byte[rowBytes + 1];
+            filteredRows[filter][0] = (byte) filter;
+        }
+
+        for (int row = firstRow; row < lastRow; row++) {
+            byte[] currentRow = rows[row & 1];
+            byte[] previousRow = (row == firstRow) ? rowAbove : rows[(row - 1) & 1];
+            toRgb(pixels, offset + (row * stride), width, currentRow);
+
+            byte[] filteredRow = chooseFilteredRow(currentRow, previousRow, filteredRows);
+            System.arraycopy(filteredRow, 0, filtered, row * (rowBytes + 1), rowBytes + 1);
+        }
+    }
+
+    private void writeHeader() throws IOException {
+        byte[] header = new byte[13];
+        putInt(header, 0, this.width);
+        putInt(header, 4, this.height);
+        header[8] = 8;  // Bit depth
+        header[9] = 2;  // Truecolour
+        header[10] = 0; // Deflate
+        header[11] = 0; // Adaptive filtering
+        header[12] = 0; // Not interlaced
+
+        this.writeChunk("IHDR", header, 0, header.length);
+    }
+
+    // Gathers the zlib stream into IDAT chunks of a sensible size, however it arrives
+    private void writeImageData(byte[] data, int offset, int length) throws IOException {
+        while (length > 0) {
+            int count = Math.min(length, this.idatBuffer.length - this.idatLength);
+            System.arraycopy(data, offset, this.idatBuffer, this.idatLength, count);
+            this.idatLength += count;
+            offset += count;
+            length -= count;
+
+            if (this.idatLength == this.idatBuffer.length)
+                this.flushImageData();
+        }
+    }
+
+    private void flushImageData() throws IOException {
+        if (this.idatLength == 0)
+            return;
+
+        this.writeChunk("IDAT", this.idatBuffer, 0, this.idatLength);
+        this.idatLength = 0;
+    }
+
+    private void writeChunk(String type, byte[] data, int offset, int length) throws IOException {
+        byte[] typeBytes = type.getBytes("US-ASCII");
+
+        CRC32 crc = new CRC32();
+        crc.update(typeBytes);
+        crc.update(data, offset, length);
+
+        this.output.writeInt(length);
+        this.output.write(typeBytes);
+        this.output.write(data, offset, length);
+        this.output.writeInt((int) crc.getValue());
+    }
+
+    static void toRgb(int[] pixels, int offset, int width, byte[] rgb) {
+        for (int x = 0, i = 0; x < width; x++) {
+            int pixel = pixels[offset + x];
+            rgb[i++] = (byte) (pixel >> 16);
+            rgb[i++] = (byte) (pixel >> 8);
+            rgb[i++] = (byte) pixel;
+        }
+    }
+
+    // Filters the row every way, returning the one, with its filter type byte first, whose bytes sum smallest as signed values
+    static byte[] chooseFilteredRow(byte[] row, byte[] previousRow, byte[][] filteredRows) {
+        byte[] bestRow = null;
+        long bestSum = Long.MAX_VALUE;
+
+        for (int filter = FILTER_NONE; filter <= FILTER_PAETH; filter++) {
+            byte[] filteredRow = filteredRows[filter];
+            long sum = filterRow(filter, row, previousRow, filteredRow);
+            if (sum < bestSum) {
+                bestSum = sum;
+                bestRow = filteredRow;
+            }
+        }
+
+        return bestRow;
+    }
+
+    // Fills filteredRow from index 1, returning the sum of the absolute values of the filtered bytes
+    static long filterRow(int filter, byte[] row, byte[] previousRow, byte[] filteredRow) {
+        long sum = 0;
+        for (int i = 0; i < row.length; i++) {
+            int current = row[i] & 0xFF;
+            int left = (i >= BYTES_PER_PIXEL) ? row[i - BYTES_PER_PIXEL] & 0xFF : 0;
+            int up = previousRow[i] & 0xFF;
+            int upLeft = (i >= BYTES_PER_PIXEL) ? previousRow[i - BYTES_PER_PIXEL] & 0xFF : 0;
+
+            int predicted;
+            switch (filter) {
+                case FILTER_SUB:
+                    predicted = left;
+                    break;
+
+                case FILTER_UP:
+                    predicted = up;
+                    break;
+
+                case FILTER_AVERAGE:
+                    predicted = (left + up) >>> 1;
+                    break;
+
+                case FILTER_PAETH:
+                    predicted = paeth(left, up, upLeft);
+                    break;
+
+                default:
+                    predicted = 0;
+                    break;
+            }
+
+            byte filtered = (byte) (current - predicted);
+            filteredRow[i + 1] = filtered;
+            sum += Math.abs(filtered);
+        }
+
+        return sum;
+    }
+
+    private static int paeth(int left, int up, int upLeft) {
+        int estimate = left + up - upLeft;
+        int leftDistance = Math.abs(estimate - left);
+        int upDistance = Math.abs(estimate - up);
+        int upLeftDistance = Math.abs(estimate - upLeft);
+
+        if (leftDistance <= upDistance && leftDistance <= upLeftDistance)
+            return left;
+
+        if (upDistance <= upLeftDistance)
+            return up;
+
+        return upLeft;
+    }
+
+    private static void putInt(byte[] bytes, int offset, int value) {
+        bytes[offset] = (byte) (value >>> 24);
+        bytes[offset + 1] = (byte) (value >>> 16);
+        bytes[offset + 2] = (byte) (value >>> 8);
+        bytes[offset + 3] = (byte) value;
+    }
+}
@@ -0,0 +1,66 @@
+package io.bunnies.fractalmaps.export;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import io.bunnies.fractalmaps.compute.strategies.IFractalComputeStrategy;
+
+/*
+ * Renders a graph area far bigger than the screen through TiledFractalExporter. The job owns its strategy,
+ * which should be a fresh one rather than a view's, and tears it down when done.
+ */
+public class PosterExportJob extends ExportJob {
+    private static final int OUTPUT_BUFFER_BYTES = 256 * 1024;
+
+    private final IFractalComputeStrategy strategy;
+    private final TiledFractalExporter exporter;
+    private final double[] graphArea;
+    private final int width;
+    private final int height;
+    private final int maxIterations;
+    private final IExportProgressListener listener;
+
+    public PosterExportJob(File outputFile, IFractalComputeStrategy strategy, double[] graphArea, int width, int height,
+                           int maxIterations, IExportProgressListener listener) {
+        super(outputFile);
+        this.strategy = strategy;
+        this.exporter = new TiledFractalExporter(strategy);
+        this.graphArea = graphArea.clone();
+        this.width = width;
+        this.height = height;
+        this.maxIterations = maxIterations;
+        this.listener = listener;
+    }
+
+    public int getWidth() {
+        return this.width;
+    }
+
+    public int getHeight() {
+        return this.height;
+    }
+
+    @Override
+    protected void export() throws IOException {
+        OutputStream output = new BufferedOutputStream(new FileOutputStream(this.getOutputFile()), OUTPUT_BUFFER_BYTES);
+        try {
+            this.exporter.export(this.graphArea, this.width, this.height, this.maxIterations, output, this.listener);
+        } finally {
+            output.close();
+        }
+    }
+
+    // Stops the tile being rendered, rather than waiting for it
+    @Override
+    protected void onCancelled() {
+        this.exporter.cancel();
+    }
+
+    @Override
+    protected void release() {
+        this.strategy.tearDown();
+    }
+}
@@ -0,0 +1,146 @@
+package io.bunnies.fractalmaps.export;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import io.bunnies.fractalmaps.compute.FractalComputeArguments;
+import io.bunnies.fractalmaps.compute.IFractalComputeDelegate;
+import io.bunnies.fractalmaps.compute.PixelBufferPair;
+import io.bunnies.fractalmaps.compute.strategies.IFractalComputeStrategy;
+
+/*
+ * Renders an image far bigger than the screen, one tile at a time, and streams it out as a PNG. Only one
+ * tile and one strip of tiles are held at once, so a poster of hundreds of megapixels costs a few tens of
+ * megabytes whatever its size.
+ *
+ * The strategy is set up at the tile size and belongs to the exporter until export() returns, so give it
+ * one that isn't drawing a view. Everything runs on the calling thread, which waits for each tile.
+ */
+public class TiledFractalExporter {
+    private static final Logger LOGGER = LoggerFactory.getLogger(TiledFractalExporter.class);
+
+    public static final int TILE_SIZE = 256;
+
+    private static final int FULL_PIXEL_SIZE = 1;
+    private static final byte UNRENDERED_PIXEL_SIZE = (byte) 0xFF;
+    private static final long CANCEL_POLL_MILLIS = 100;
+
+    private final IFractalComputeStrategy strategy;
+    private final Semaphore tileFinished = new Semaphore(0);
+    private volatile boolean cancelled = false;
+
+    public TiledFractalExporter(IFractalComputeStrategy strategy) {
+        this.strategy = strategy;
+    }
+
+    // Safe from any thread. export() throws CancellationException once it notices.
+    public void cancel() {
+        this.cancelled = true;
+        this.strategy.stopAllRendering();
+    }
+
+    // graphArea is {xMin, yMax, width} as in the presenters, stretched over width pixels
+    public void export(double[] graphArea, int width, int height, int maxIterations, OutputStream output,
+                       IExportProgressListener listener) throws IOException {
+        long startTime = System.nanoTime();
+        double pixelSize = graphArea[2] / width;
+
+        PixelBufferPair tileBuffers = new PixelBufferPair(TILE_SIZE, TILE_SIZE);
+        byte[] tileSizes = new byte[TILE_SIZE * TILE_SIZE];
+        int[] strip = new int[width * TILE_SIZE];
+
+        this.strategy.initialise(TILE_SIZE, TILE_SIZE, new TileDelegate());
+        if (!this.strategy.canCompute())
+            throw new IOException("Strategy can't compute, so no tile would ever finish");
+
+        PngWriter writer = new PngWriter(output, width, height, ExportExecutor.getPngEncoderExecutor());
+        for (int stripY = 0; stripY < height; stripY += TILE_SIZE) {
+            int stripHeight = Math.min(TILE_SIZE, height - stripY);
+
+            for (int tileX = 0; tileX < width; tileX += TILE_SIZE) {
+                int tileWidth = Math.min(TILE_SIZE, width - tileX);
+
+                Arrays.fill(tileSizes, UNRENDERED_PIXEL_SIZE);
+                FractalComputeArguments arguments = new FractalComputeArguments(FULL_PIXEL_SIZE,
+                        maxIterations,
+                        TILE_SIZE,
+                        FULL_PIXEL_SIZE,
+                        TILE_SIZE,
+                        TILE_SIZE,
+                        graphArea[0] + (tileX * pixelSize),
+                        graphArea[1] - (stripY * pixelSize),
+                        pixelSize,
+                        tileBuffers,
+                        tileSizes);
+                arguments.startTime = System.nanoTime();
+
+                this.strategy.computeFractal(arguments);
+                this.awaitTile();
+
+                int[] tilePixels = tileBuffers.acquireFront();
+                try {
+                    for (int row = 0; row < stripHeight; row++) {
+                        System.arraycopy(tilePixels, row * TILE_SIZE, strip, (row * width) + tileX, tileWidth);
+                    }
+                } finally {
+                    tileBuffers.releaseFront(tilePixels);
+                }
+            }
+
+            writer.writeRows(strip, 0, width, stripHeight);
+            if (listener != null)
+                listener.onExportProgress(stripY + stripHeight, height);
+        }
+
+        writer.finish();
+
+        LOGGER.info("Exported {}x{} in {} seconds", width, height, (System.nanoTime() - startTime) / 1000000000D);
+    }
+
+    private void awaitTile() {
+        try {
+            while (!this.tileFinished.tryAcquire(CANCEL_POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+                if (this.cancelled)
+                    throw new CancellationException("Export cancelled");
+            }
+        } catch (InterruptedException e) {
+            this.strategy.stopAllRendering();
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Export interrupted");
+        }
+
+        if (this.cancelled)
+            throw new CancellationException("Export cancelled");
+    }
+
+    // Only the end of each tile matters, progress within one is too fine to report
+    private class TileDelegate implements IFractalComputeDelegate {
+        @Override
+        public void postUpdate(PixelBufferPair pixels, byte[] pixelSizes) {
+        }
+
+        @Override
+        public void postUpdate(PixelBufferPair pixels, byte[] pixelSizes, int rowStart, int rowEnd) {
+        }
+
+        @Override
+        public void postBitmapUpdate() {
+        }
+
+        @Override
+        public void postFinished(PixelBufferPair pixels, byte[] pixelSizes, int pixelBlockSize, double timeTakenInSeconds) {
+            tileFinished.release();
+        }
+
+        @Override
+        public void onComputeStarted(int pixelBlockSize) {
+        }
+    }
+}
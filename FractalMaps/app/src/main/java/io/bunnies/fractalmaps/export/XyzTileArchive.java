@@ -0,0 +1,261 @@
+package io.bunnies.fractalmaps.export;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/*
+ * Tiles packed into one file, which is kinder to phone storage than tens of thousands of little files. Tiles
+ * are appended as they come, each with a header and a checksum, and close() writes an index of where every
+ * tile is, then a trailer pointing at the index:
+ *
+ *   int magic, int version,
+ *   then per tile: int record magic, int zoom, int x, int y, int length, int CRC-32 of the PNG, the PNG,
+ *   then int index magic, int tile count, per tile: int zoom, int x, int y, long offset of the PNG, int length,
+ *   then long offset of the index, int trailer magic
+ *
+ * An archive can be opened again to add more, and the first new tile goes where its index was. If it was
+ * never closed, the tiles are scanned instead, and anything after the last whole tile is dropped.
+ *
+ * Only for one thread at a time.
+ */
+public class XyzTileArchive implements IXyzTileStore {
+    private static final Logger LOGGER = LoggerFactory.getLogger(XyzTileArchive.class);
+
+    static final int MAGIC = 0x58595A41;
+    static final int VERSION = 1;
+    static final int RECORD_MAGIC = 0x58595A54;
+    static final int INDEX_MAGIC = 0x58595A49;
+    static final int TRAILER_MAGIC = 0x58595A45;
+
+    private static final int HEADER_BYTES = 4 + 4;
+    private static final int RECORD_HEADER_BYTES = 6 * 4;
+    private static final int INDEX_ENTRY_BYTES = (3 * 4) + 8 + 4;
+    private static final int TRAILER_BYTES = 8 + 4;
+
+    private final File file;
+    private final RandomAccessFile randomAccessFile;
+    // In the order the tiles are in the file
+    private final Map<String, TileEntry> index = new LinkedHashMap<>();
+    private boolean indexWritten = false;
+
+    public XyzTileArchive(File file) throws IOException {
+        this.file = file;
+        this.randomAccessFile = new RandomAccessFile(file, "rw");
+
+        try {
+            if (this.randomAccessFile.length() == 0) {
+                ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+                header.putInt(MAGIC);
+                header.putInt(VERSION);
+                this.randomAccessFile.write(header.array());
+            } else {
+                this.open();
+            }
+        } catch (IOException e) {
+            this.randomAccessFile.close();
+            throw e;
+        }
+    }
+
+    public int size() {
+        return this.index.size();
+    }
+
+    @Override
+    public boolean contains(int zoom, int x, int y) {
+        return this.index.containsKey(keyOf(zoom, x, y));
+    }
+
+    // The tile's PNG, or null if it isn't in the archive
+    public byte[] read(int zoom, int x, int y) throws IOException {
+        TileEntry entry = this.index.get(keyOf(zoom, x, y));
+        if (entry == null)
+            return null;
+
+        byte[] png = new byte[entry.length];
+        this.randomAccessFile.seek(entry.offset);
+        this.randomAccessFile.readFully(png);
+        return png;
+    }
+
+    @Override
+    public void write(int zoom, int x, int y, byte[] png) throws IOException {
+        String key = keyOf(zoom, x, y);
+        if (this.index.containsKey(key))
+            return;
+
+        if (this.indexWritten)
+            this.cutOffIndex();
+
+        CRC32 checksum = new CRC32();
+        checksum.update(png);
+
+        ByteBuffer record = ByteBuffer.allocate(RECORD_HEADER_BYTES + png.length);
+        record.putInt(RECORD_MAGIC);
+        record.putInt(zoom);
+        record.putInt(x);
+        record.putInt(y);
+        record.putInt(png.length);
+        record.putInt((int) checksum.getValue());
+        record.put(png);
+
+        long recordOffset = this.randomAccessFile.length();
+        this.randomAccessFile.seek(recordOffset);
+        this.randomAccessFile.write(record.array());
+
+        this.index.put(key, new TileEntry(zoom, x, y, recordOffset + RECORD_HEADER_BYTES, png.length));
+    }
+
+    // Writes the index and closes the file. The archive can be opened again to add more.
+    @Override
+    public void close() throws IOException {
+        try {
+            if (!this.indexWritten)
+                this.writeIndex();
+
+            this.randomAccessFile.getFD().sync();
+        } finally {
+            this.randomAccessFile.close();
+        }
+    }
+
+    private void writeIndex() throws IOException {
+        long indexOffset = this.randomAccessFile.length();
+
+        ByteBuffer index = ByteBuffer.allocate(8 + (this.index.size() * INDEX_ENTRY_BYTES) + TRAILER_BYTES);
+        index.putInt(INDEX_MAGIC);
+        index.putInt(this.index.size());
+        for (TileEntry entry : this.index.values()) {
+            index.putInt(entry.zoom);
+            index.putInt(entry.x);
+            index.putInt(entry.y);
+            index.putLong(entry.offset);
+            index.putInt(entry.length);
+        }
+        index.putLong(indexOffset);
+        index.putInt(TRAILER_MAGIC);
+
+        this.randomAccessFile.seek(indexOffset);
+        this.randomAccessFile.write(index.array());
+        this.indexWritten = true;
+    }
+
+    private void open() throws IOException {
+        long length = this.randomAccessFile.length();
+        if (length < HEADER_BYTES)
+            throw new IOException("Not a tile archive: " + this.file);
+
+        this.randomAccessFile.seek(0);
+        if (this.randomAccessFile.readInt() != MAGIC || this.randomAccessFile.readInt() != VERSION)
+            throw new IOException("Not a tile archive: " + this.file);
+
+        if (!this.loadIndex())
+            this.scanTiles();
+    }
+
+    // Reads the index a closed archive ends with, returning false if there isn't a whole one
+    private boolean loadIndex() throws IOException {
+        long length = this.randomAccessFile.length();
+        if (length < HEADER_BYTES + 8 + TRAILER_BYTES)
+            return false;
+
+        this.randomAccessFile.seek(length - TRAILER_BYTES);
+        long indexOffset = this.randomAccessFile.readLong();
+        if (this.randomAccessFile.readInt() != TRAILER_MAGIC || indexOffset < HEADER_BYTES || indexOffset > length - TRAILER_BYTES - 8)
+            return false;
+
+        this.randomAccessFile.seek(indexOffset);
+        int count = this.randomAccessFile.readInt() == INDEX_MAGIC ? this.randomAccessFile.readInt() : -1;
+        if (count < 0 || indexOffset + 8 + ((long) count * INDEX_ENTRY_BYTES) + TRAILER_BYTES != length)
+            return false;
+
+        for (int i = 0; i < count; i++) {
+            TileEntry entry = new TileEntry(this.randomAccessFile.readInt(), this.randomAccessFile.readInt(),
+                    this.randomAccessFile.readInt(), this.randomAccessFile.readLong(), this.randomAccessFile.readInt());
+            if (entry.offset < HEADER_BYTES + RECORD_HEADER_BYTES || entry.offset + entry.length > indexOffset) {
+                this.index.clear();
+                return false;
+            }
+
+            this.index.put(keyOf(entry.zoom, entry.x, entry.y), entry);
+        }
+
+        this.indexWritten = true;
+        return true;
+    }
+
+    // Finds every whole tile in an archive that wasn't closed, and drops whatever comes after the last one
+    private void scanTiles() throws IOException {
+        long length = this.randomAccessFile.length();
+        long position = HEADER_BYTES;
+        byte[] recordHeader = new byte[RECORD_HEADER_BYTES];
+        CRC32 checksum = new CRC32();
+
+        while (position + RECORD_HEADER_BYTES <= length) {
+            this.randomAccessFile.seek(position);
+            this.randomAccessFile.readFully(recordHeader);
+
+            ByteBuffer header = ByteBuffer.wrap(recordHeader);
+            int magic = header.getInt();
+            int zoom = header.getInt();
+            int x = header.getInt();
+            int y = header.getInt();
+            int pngLength = header.getInt();
+            int expectedChecksum = header.getInt();
+            if (magic != RECORD_MAGIC || pngLength < 0 || position + RECORD_HEADER_BYTES + pngLength > length)
+                break;
+
+            byte[] png = new byte[pngLength];
+            this.randomAccessFile.readFully(png);
+            checksum.reset();
+            checksum.update(png);
+            if ((int) checksum.getValue() != expectedChecksum)
+                break;
+
+            this.index.put(keyOf(zoom, x, y), new TileEntry(zoom, x, y, position + RECORD_HEADER_BYTES, pngLength));
+            position += RECORD_HEADER_BYTES + pngLength;
+        }
+
+        if (position < length) {
+            LOGGER.warn("Dropping {} bytes after the last whole tile in {}", length - position, this.file);
+            this.randomAccessFile.setLength(position);
+        }
+
+        LOGGER.debug("Recovered {} tiles from {}", this.index.size(), this.file);
+    }
+
+    // New tiles go where the index was, and close() writes a new one after them
+    private void cutOffIndex() throws IOException {
+        this.randomAccessFile.seek(this.randomAccessFile.length() - TRAILER_BYTES);
+        this.randomAccessFile.setLength(this.randomAccessFile.readLong());
+        this.indexWritten = false;
+    }
+
+    private static String keyOf(int zoom, int x, int y) {
+        return zoom + "/" + x + "/" + y;
+    }
+
+    private static class TileEntry {
+        final int zoom;
+        final int x;
+        final int y;
+        final long offset;
+        final int length;
+
+        TileEntry(int zoom, int x, int y, long offset, int length) {
+            this.zoom = zoom;
+            this.x = x;
+            this.y = y;
+            this.offset = offset;
+            this.length = length;
+        }
+    }
+}
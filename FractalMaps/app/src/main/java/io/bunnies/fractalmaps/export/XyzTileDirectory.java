@@ -0,0 +1,55 @@
+package io.bunnies.fractalmaps.export;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+/*
+ * Tiles as {zoom}/{x}/{y}.png under a directory, which a web map viewer can serve as it is. Each tile goes to
+ * a temporary file that's renamed into place, so any tile that's there is whole.
+ */
+public class XyzTileDirectory implements IXyzTileStore {
+    private static final String TILE_EXTENSION = ".png";
+    private static final String TEMPORARY_EXTENSION = ".tmp";
+
+    private final File directory;
+
+    public XyzTileDirectory(File directory) throws IOException {
+        if (!directory.isDirectory() && !directory.mkdirs())
+            throw new IOException("Couldn't create " + directory);
+
+        this.directory = directory;
+    }
+
+    public File getTileFile(int zoom, int x, int y) {
+        return new File(this.directory, zoom + File.separator + x + File.separator + y + TILE_EXTENSION);
+    }
+
+    @Override
+    public boolean contains(int zoom, int x, int y) {
+        return this.getTileFile(zoom, x, y).isFile();
+    }
+
+    @Override
+    public void write(int zoom, int x, int y, byte[] png) throws IOException {
+        File tileFile = this.getTileFile(zoom, x, y);
+        File columnDirectory = tileFile.getParentFile();
+        if (!columnDirectory.isDirectory() && !columnDirectory.mkdirs())
+            throw new IOException("Couldn't create " + columnDirectory);
+
+        File temporaryFile = new File(columnDirectory, y + TEMPORARY_EXTENSION);
+        FileOutputStream output = new FileOutputStream(temporaryFile);
+        try {
+            output.write(png);
+        } finally {
+            output.close();
+        }
+
+        if (!temporaryFile.renameTo(tileFile))
+            throw new IOException("Couldn't move " + temporaryFile + " to " + tileFile);
+    }
+
+    @Override
+    public void close() {
+    }
+}
@@ -0,0 +1,57 @@
+package io.bunnies.fractalmaps.export;
+
+import java.io.File;
+import java.io.IOException;
+
+import io.bunnies.fractalmaps.compute.strategies.cpu.CpuFractalComputeStrategy;
+import io.bunnies.fractalmaps.presenter.IFractalPresenter;
+
+/*
+ * Writes a region's map tiles through XyzTileExporter, into a z/x/y directory or a packed archive. Unlike
+ * other exports, whatever was written before a cancel or a failure is kept, so the same export run again
+ * carries on from there.
+ */
+public class XyzTileExportJob extends ExportJob {
+    private final boolean packed;
+    private final XyzTileExporter exporter;
+    private final double[] world;
+    private final double[] region;
+    private final double regionHeight;
+    private final int minZoom;
+    private final int maxZoom;
+    private final IExportProgressListener listener;
+
+    public XyzTileExportJob(File output, boolean packed, CpuFractalComputeStrategy strategy, IFractalPresenter iterationBudget,
+                            double[] world, double[] region, double regionHeight, int minZoom, int maxZoom,
+                            IExportProgressListener listener) {
+        super(output);
+        this.packed = packed;
+        this.exporter = new XyzTileExporter(strategy, iterationBudget, ExportExecutor.getSharedExecutor());
+        this.world = world.clone();
+        this.region = region.clone();
+        this.regionHeight = regionHeight;
+        this.minZoom = minZoom;
+        this.maxZoom = maxZoom;
+        this.listener = listener;
+    }
+
+    @Override
+    protected void export() throws IOException {
+        IXyzTileStore store = this.packed ? new XyzTileArchive(this.getOutputFile()) : new XyzTileDirectory(this.getOutputFile());
+        try {
+            this.exporter.export(this.world, this.region, this.regionHeight, this.minZoom, this.maxZoom, store, this.listener);
+        } finally {
+            store.close();
+        }
+    }
+
+    @Override
+    protected void onCancelled() {
+        this.exporter.cancel();
+    }
+
+    @Override
+    protected boolean deleteOutput() {
+        return true;
+    }
+}
@@ -0,0 +1,263 @@
+package io.bunnies.fractalmaps.export;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import io.bunnies.fractalmaps.colouring.ColourStrategies;
+import io.bunnies.fractalmaps.colouring.EnumColourStrategy;
+import io.bunnies.fractalmaps.compute.strategies.cpu.CpuFractalComputeStrategy;
+import io.bunnies.fractalmaps.presenter.IFractalPresenter;
+
+/*
+ * Renders part of a fractal as slippy map tiles, for a web map viewer. Zoom level 0 is one TILE_SIZE tile
+ * covering the whole world square, and each level down splits every tile into four, numbered from the top
+ * left as x rightwards and y downwards.
+ *
+ * Tiles are computed through the CPU strategy's iteration and encoded on every thread of the executor, and
+ * stored as each one finishes. Tiles already in the store aren't rendered again, so running the same
+ * export over a store that was interrupted picks up where it stopped.
+ */
+public class XyzTileExporter {
+    private static final Logger LOGGER = LoggerFactory.getLogger(XyzTileExporter.class);
+
+    public static final int TILE_SIZE = 256;
+    // Tile numbers stay ints down to here
+    public static final int MAX_ZOOM = 30;
+
+    // Tiles queued on the executor at once, per thread
+    private static final int TILES_PER_THREAD = 4;
+
+    private final CpuFractalComputeStrategy strategy;
+    private final IFractalPresenter iterationBudget;
+    private final ExecutorService executor;
+    private volatile boolean cancelled = false;
+
+    public XyzTileExporter(CpuFractalComputeStrategy strategy, IFractalPresenter iterationBudget, ExecutorService executor) {
+        this.strategy = strategy;
+        this.iterationBudget = iterationBudget;
+        this.executor = executor;
+    }
+
+    // Safe from any thread. export() throws CancellationException once it notices.
+    public void cancel() {
+        this.cancelled = true;
+    }
+
+    /*
+     * Writes every tile from minZoom to maxZoom that overlaps the region, a graph area {xMin, yMax, width} as in
+     * the presenters, regionHeight tall. world is the square {xMin, yMax, size} that zoom level 0 covers.
+     */
+    public void export(double[] world, double[] region, double regionHeight, int minZoom, int maxZoom,
+                       IXyzTileStore store, IExportProgressListener listener) throws IOException {
+        if (minZoom < 0 || maxZoom > MAX_ZOOM || minZoom > maxZoom)
+            throw new IllegalArgumentException("Zoom levels " + minZoom + " to " + maxZoom + " are out of range");
+
+        long startTime = System.nanoTime();
+        EnumColourStrategy colourStrategy = this.strategy.getColourStrategy();
+
+        long totalTiles = 0;
+        for (int zoom = minZoom; zoom <= maxZoom; zoom++) {
+            int[] range = tileRange(world, region, regionHeight, zoom);
+            totalTiles += (long) Math.max(0, range[2] - range[0] + 1) * Math.max(0, range[3] - range[1] + 1);
+        }
+
+        if (totalTiles > Integer.MAX_VALUE)
+            throw new IllegalArgumentException(totalTiles + " tiles is too many to export");
+
+        TilePipeline pipeline = new TilePipeline(store, listener, (int) totalTiles);
+        boolean finished = false;
+        try {
+            for (int zoom = minZoom; zoom <= maxZoom; zoom++) {
+                double pixelSize = world[2] / ((double) TILE_SIZE * (1 << zoom));
+                int maxIterations = this.iterationBudget.getMaxIterations(pixelSize);
+                int[] range = tileRange(world, region, regionHeight, zoom);
+
+                for (int y = range[1]; y <= range[3]; y++) {
+                    for (int x = range[0]; x <= range[2]; x++) {
+                        if (this.cancelled)
+                            throw new CancellationException("Export cancelled");
+
+                        if (store.contains(zoom, x, y)) {
+                            pipeline.skip();
+                        } else {
+                            pipeline.render(new TileTask(world, pixelSize, maxIterations, colourStrategy, zoom, x, y));
+                        }
+                    }
+                }
+            }
+
+            pipeline.drain();
+            finished = true;
+        } finally {
+            // Tiles still running give up at their next row, rather than running on after a failure
+            if (!finished)
+                this.cancelled = true;
+        }
+
+        double seconds = (System.nanoTime() - startTime) / 1000000000D;
+        LOGGER.info("Rendered {} tiles, skipped {} already there, in {} seconds: {} tiles/s", pipeline.renderedTiles,
+                pipeline.skippedTiles, seconds, pipeline.renderedTiles / seconds);
+    }
+
+    int[] renderTile(double[] world, double pixelSize, int maxIterations, EnumColourStrategy colourStrategy, int tileX, int tileY) {
+        int[] pixels = new int[TILE_SIZE * TILE_SIZE];
+        double left = world[0] + ((double) tileX * TILE_SIZE * pixelSize);
+        double top = world[1] - ((double) tileY * TILE_SIZE * pixelSize);
+
+        for (int y = 0; y < TILE_SIZE; y++) {
+            if (this.cancelled)
+                throw new CancellationException("Export cancelled");
+
+            double y0 = top - (y * pixelSize);
+            for (int x = 0; x < TILE_SIZE; x++) {
+                double x0 = left + (x * pixelSize);
+                int iterations = this.strategy.iteratePoint(x0, y0, maxIterations);
+                pixels[(y * TILE_SIZE) + x] = ColourStrategies.colourPoint(colourStrategy, iterations, maxIterations);
+            }
+        }
+
+        return pixels;
+    }
+
+    // Tiles are small enough that each one is encoded on one thread, and the threads take a tile each
+    private static byte[] encodeTile(int[] pixels) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        PngWriter writer = new PngWriter(output, TILE_SIZE, TILE_SIZE);
+        writer.writeRows(pixels, 0, TILE_SIZE, TILE_SIZE);
+        writer.finish();
+        return output.toByteArray();
+    }
+
+    // {first x, first y, last x, last y} of the tiles at a zoom level that overlap the region. Last comes before first if none do.
+    static int[] tileRange(double[] world, double[] region, double regionHeight, int zoom) {
+        int tilesAcross = 1 << zoom;
+        double tileSpan = world[2] / tilesAcross;
+
+        return new int[]{
+                firstTile((region[0] - world[0]) / tileSpan, tilesAcross),
+                firstTile((world[1] - region[1]) / tileSpan, tilesAcross),
+                lastTile((region[0] + region[2] - world[0]) / tileSpan, tilesAcross),
+                lastTile((world[1] - (region[1] - regionHeight)) / tileSpan, tilesAcross)};
+    }
+
+    // The tile an edge starting at this many tiles in is on, or just past the world's edge if it's off the world
+    private static int firstTile(double edge, int tilesAcross) {
+        return (int) Math.max(0, Math.min(Math.floor(edge), tilesAcross));
+    }
+
+    // The tile just before an edge ending this many tiles in, so a region ending on a tile boundary doesn't take the next tile
+    private static int lastTile(double edge, int tilesAcross) {
+        return (int) Math.max(-1, Math.min(Math.ceil(edge) - 1, tilesAcross - 1));
+    }
+
+    private class TileTask implements Callable<byte[]> {
+        private final double[] world;
+        private final double pixelSize;
+        private final int maxIterations;
+        private final EnumColourStrategy colourStrategy;
+        private final int zoom;
+        private final int x;
+        private final int y;
+
+        TileTask(double[] world, double pixelSize, int maxIterations, EnumColourStrategy colourStrategy, int zoom, int x, int y) {
+            this.world = world;
+            this.pixelSize = pixelSize;
+            this.maxIterations = maxIterations;
+            this.colourStrategy = colourStrategy;
+            this.zoom = zoom;
+            this.x = x;
+            this.y = y;
+        }
+
+        @Override
+        public byte[] call() throws IOException {
+            return encodeTile(renderTile(this.world, this.pixelSize, this.maxIterations, this.colourStrategy, this.x, this.y));
+        }
+    }
+
+    /*
+     * Keeps TILES_PER_THREAD tiles queued for every thread, so none of them goes idle waiting on a slow tile, and
+     * stores each tile on the calling thread as it finishes. Without an executor each tile is rendered there and then.
+     */
+    private class TilePipeline {
+        private final IXyzTileStore store;
+        private final IExportProgressListener listener;
+        private final int totalTiles;
+        private final CompletionService<byte[]> completionService;
+        private final Map<Future<byte[]>, TileTask> running = new HashMap<>();
+        private final int maxRunning;
+
+        int renderedTiles = 0;
+        int skippedTiles = 0;
+
+        TilePipeline(IXyzTileStore store, IExportProgressListener listener, int totalTiles) {
+            this.store = store;
+            this.listener = listener;
+            this.totalTiles = totalTiles;
+            this.completionService = (executor != null) ? new ExecutorCompletionService<byte[]>(executor) : null;
+            this.maxRunning = TILES_PER_THREAD * Runtime.getRuntime().availableProcessors();
+        }
+
+        void skip() {
+            this.skippedTiles++;
+            this.reportProgress();
+        }
+
+        void render(TileTask task) throws IOException {
+            if (this.completionService == null) {
+                this.store(task, task.call());
+                return;
+            }
+
+            this.running.put(this.completionService.submit(task), task);
+            while (this.running.size() >= this.maxRunning) {
+                this.storeNext();
+            }
+        }
+
+        void drain() throws IOException {
+            while (!this.running.isEmpty()) {
+                this.storeNext();
+            }
+        }
+
+        private void storeNext() throws IOException {
+            try {
+                Future<byte[]> future = this.completionService.take();
+                this.store(this.running.remove(future), future.get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted exporting tiles");
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof CancellationException)
+                    throw (CancellationException) e.getCause();
+
+                throw new IOException("Failed to export tiles", e.getCause());
+            }
+        }
+
+        private void store(TileTask task, byte[] png) throws IOException {
+            this.store.write(task.zoom, task.x, task.y, png);
+            this.renderedTiles++;
+            this.reportProgress();
+        }
+
+        private void reportProgress() {
+            if (this.listener != null)
+                this.listener.onExportProgress(this.renderedTiles + this.skippedTiles, this.totalTiles);
+        }
+    }
+}
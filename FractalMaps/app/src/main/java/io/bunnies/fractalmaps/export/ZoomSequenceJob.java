@@ -0,0 +1,65 @@
+package io.bunnies.fractalmaps.export;
+
+import java.io.File;
+import java.io.IOException;
+
+import io.bunnies.fractalmaps.compute.strategies.IFractalComputeStrategy;
+import io.bunnies.fractalmaps.presenter.IFractalPresenter;
+
+/*
+ * Renders a zoom into a graph area through ZoomSequenceRenderer, as a directory of numbered frames. The job
+ * owns its strategy, which should be a fresh one rather than a view's, and tears it down when done.
+ */
+public class ZoomSequenceJob extends ExportJob {
+    private final IFractalComputeStrategy strategy;
+    private final ZoomSequenceRenderer renderer;
+    private final double[] endGraphArea;
+    private final double startGraphWidth;
+    private final int width;
+    private final int height;
+    private final int frameCount;
+    private final IExportProgressListener listener;
+
+    public ZoomSequenceJob(File outputDirectory, IFractalComputeStrategy strategy, IFractalPresenter iterationBudget,
+                           double[] endGraphArea, double startGraphWidth, int width, int height, int frameCount,
+                           IExportProgressListener listener) {
+        super(outputDirectory);
+        this.strategy = strategy;
+        this.renderer = new ZoomSequenceRenderer(strategy, iterationBudget);
+        this.endGraphArea = endGraphArea.clone();
+        this.startGraphWidth = startGraphWidth;
+        this.width = width;
+        this.height = height;
+        this.frameCount = frameCount;
+        this.listener = listener;
+    }
+
+    @Override
+    protected void export() throws IOException {
+        this.renderer.render(this.endGraphArea, this.startGraphWidth, this.width, this.height, this.frameCount,
+                this.getOutputFile(), this.listener);
+    }
+
+    @Override
+    protected void onCancelled() {
+        this.renderer.cancel();
+    }
+
+    // The frames have to go before their directory can
+    @Override
+    protected boolean deleteOutput() {
+        File[] frames = this.getOutputFile().listFiles();
+        if (frames != null) {
+            for (File frame : frames) {
+                frame.delete();
+            }
+        }
+
+        return super.deleteOutput();
+    }
+
+    @Override
+    protected void release() {
+        this.strategy.tearDown();
+    }
+}
@@ -0,0 +1,321 @@
+package io.bunnies.fractalmaps.export;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import io.bunnies.fractalmaps.compute.FractalComputeArguments;
+import io.bunnies.fractalmaps.compute.IFractalComputeDelegate;
+import io.bunnies.fractalmaps.compute.PixelBufferPair;
+import io.bunnies.fractalmaps.compute.strategies.IFractalComputeStrategy;
+import io.bunnies.fractalmaps.presenter.FractalPresenter;
+import io.bunnies.fractalmaps.presenter.IFractalPresenter;
+
+/*
+ * Renders a zoom from a wide view down into a graph area as a numbered sequence of PNGs, for stitching into
+ * a video. The frames zoom in by the same ratio each time, about the middle of the end area, so consecutive
+ * ones overlap almost entirely.
+ *
+ * Only keyframes are computed. Each one covers the first frame of its run at up to KEYFRAME_MARGIN times the
+ * output size, which leaves enough pixels for the frames zoomed in after it to be resampled from it, until
+ * the next keyframe. The next keyframe is computed while the last one's frames are resampled and written.
+ *
+ * The strategy is set up at the keyframe size and belongs to the renderer until render() returns, so give it
+ * one that isn't drawing a view. The presenter only sets each keyframe's iteration budget.
+ */
+public class ZoomSequenceRenderer {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ZoomSequenceRenderer.class);
+
+    // How much bigger than the output a keyframe can be, which is how far it can be zoomed into before the next
+    public static final double KEYFRAME_MARGIN = 1.25;
+    public static final String FRAME_NAME_FORMAT = "frame_%05d.png";
+
+    private static final int FULL_PIXEL_SIZE = 1;
+    private static final byte UNRENDERED_PIXEL_SIZE = (byte) 0xFF;
+    private static final long CANCEL_POLL_MILLIS = 100;
+    private static final int OUTPUT_BUFFER_BYTES = 64 * 1024;
+
+    private final IFractalComputeStrategy strategy;
+    private final IFractalPresenter iterationBudget;
+    private final Semaphore keyframeFinished = new Semaphore(0);
+    private volatile boolean cancelled = false;
+    // Only touched by the strategy before it releases keyframeFinished, and read after acquiring it
+    private double keyframeSeconds = 0;
+    // Measured over the last render
+    private double framesPerSecond = 0;
+    private double keyframesPerSecond = 0;
+
+    public ZoomSequenceRenderer(IFractalComputeStrategy strategy, IFractalPresenter iterationBudget) {
+        this.strategy = strategy;
+        this.iterationBudget = iterationBudget;
+    }
+
+    // Frames written per second of the last render, from start to finish
+    public double getFramesPerSecond() {
+        return this.framesPerSecond;
+    }
+
+    // Keyframes computed per second the strategy spent on them in the last render, which is about how fast frames would come if each was computed
+    public double getKeyframesPerSecond() {
+        return this.keyframesPerSecond;
+    }
+
+    // Safe from any thread. render() throws CancellationException once it notices.
+    public void cancel() {
+        this.cancelled = true;
+        this.strategy.stopAllRendering();
+    }
+
+    /*
+     * Writes frameCount frames into directory, starting startGraphWidth wide and ending on endGraphArea, which
+     * is {xMin, yMax, width} as in the presenters. Frames are width by height pixels.
+     */
+    public void render(double[] endGraphArea, double startGraphWidth, int width, int height, int frameCount,
+                       File directory, IExportProgressListener listener) throws IOException {
+        if (frameCount < 2 || startGraphWidth <= endGraphArea[2])
+            throw new IllegalArgumentException("A zoom sequence needs two or more frames, zooming in");
+
+        if (!directory.isDirectory() && !directory.mkdirs())
+            throw new IOException("Couldn't create " + directory);
+
+        long startTime = System.nanoTime();
+        this.keyframeSeconds = 0;
+
+        double[] startGraphArea = startGraphArea(endGraphArea, startGraphWidth, width, height);
+        double frameScale = frameScale(startGraphWidth, endGraphArea[2], frameCount);
+        int framesPerKeyframe = framesPerKeyframe(frameScale, frameCount);
+
+        double margin = Math.pow(frameScale, -(framesPerKeyframe - 1));
+        int keyframeWidth = (int) Math.ceil(width * margin);
+        int keyframeHeight = (int) Math.ceil(height * margin);
+
+        // One pair is resampled from while the strategy computes into the other
+        PixelBufferPair[] keyframeBuffers = {new PixelBufferPair(keyframeWidth, keyframeHeight), new PixelBufferPair(keyframeWidth, keyframeHeight)};
+        byte[][] keyframeSizes = {new byte[keyframeWidth * keyframeHeight], new byte[keyframeWidth * keyframeHeight]};
+        int[] frame = new int[width * height];
+
+        this.strategy.initialise(keyframeWidth, keyframeHeight, new KeyframeDelegate());
+        if (!this.strategy.canCompute())
+            throw new IOException("Strategy can't compute, so no keyframe would ever finish");
+
+        int keyframeCount = (frameCount + framesPerKeyframe - 1) / framesPerKeyframe;
+        this.computeKeyframe(frameGraphArea(startGraphArea, endGraphArea, frameScale, 0, frameCount), keyframeWidth,
+                keyframeHeight, keyframeBuffers[0], keyframeSizes[0]);
+
+        for (int keyframe = 0; keyframe < keyframeCount; keyframe++) {
+            this.awaitKeyframe();
+
+            int firstFrame = keyframe * framesPerKeyframe;
+            double[] keyframeGraphArea = frameGraphArea(startGraphArea, endGraphArea, frameScale, firstFrame, frameCount);
+            PixelBufferPair buffers = keyframeBuffers[keyframe % 2];
+
+            int nextFrame = firstFrame + framesPerKeyframe;
+            if (nextFrame < frameCount) {
+                this.computeKeyframe(frameGraphArea(startGraphArea, endGraphArea, frameScale, nextFrame, frameCount),
+                        keyframeWidth, keyframeHeight, keyframeBuffers[(keyframe + 1) % 2], keyframeSizes[(keyframe + 1) % 2]);
+            }
+
+            int[] keyframePixels = buffers.acquireFront();
+            try {
+                for (int frameIndex = firstFrame; frameIndex < Math.min(nextFrame, frameCount); frameIndex++) {
+                    if (this.cancelled)
+                        throw new CancellationException("Export cancelled");
+
+                    double[] frameGraphArea = frameGraphArea(startGraphArea, endGraphArea, frameScale, frameIndex, frameCount);
+                    resample(keyframePixels, keyframeWidth, keyframeHeight, keyframeGraphArea, frame, width, height, frameGraphArea);
+                    this.writeFrame(new File(directory, String.format(Locale.US, FRAME_NAME_FORMAT, frameIndex)), frame, width, height);
+
+                    if (listener != null)
+                        listener.onExportProgress(frameIndex + 1, frameCount);
+                }
+            } finally {
+                buffers.releaseFront(keyframePixels);
+            }
+        }
+
+        double seconds = (System.nanoTime() - startTime) / 1000000000D;
+        this.framesPerSecond = frameCount / seconds;
+        this.keyframesPerSecond = keyframeCount / this.keyframeSeconds;
+        LOGGER.info("Rendered {} {}x{} frames from {} keyframes in {} seconds: {} frames/s, {} keyframes/s computed",
+                frameCount, width, height, keyframeCount, seconds, this.framesPerSecond, this.keyframesPerSecond);
+    }
+
+    private void computeKeyframe(double[] graphArea, int keyframeWidth, int keyframeHeight, PixelBufferPair buffers, byte[] pixelSizes) {
+        double pixelSize = graphArea[2] / keyframeWidth;
+
+        Arrays.fill(pixelSizes, UNRENDERED_PIXEL_SIZE);
+        FractalComputeArguments arguments = new FractalComputeArguments(FULL_PIXEL_SIZE,
+                this.iterationBudget.getMaxIterations(pixelSize),
+                keyframeHeight,
+                FULL_PIXEL_SIZE,
+                keyframeWidth,
+                keyframeHeight,
+                graphArea[0],
+                graphArea[1],
+                pixelSize,
+                buffers,
+                pixelSizes);
+        arguments.startTime = System.nanoTime();
+
+        this.strategy.computeFractal(arguments);
+    }
+
+    private void awaitKeyframe() {
+        try {
+            while (!this.keyframeFinished.tryAcquire(CANCEL_POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+                if (this.cancelled)
+                    throw new CancellationException("Export cancelled");
+            }
+        } catch (InterruptedException e) {
+            this.strategy.stopAllRendering();
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Export interrupted");
+        }
+
+        if (this.cancelled)
+            throw new CancellationException("Export cancelled");
+    }
+
+    private void writeFrame(File file, int[] frame, int width, int height) throws IOException {
+        OutputStream output = new BufferedOutputStream(new FileOutputStream(file), OUTPUT_BUFFER_BYTES);
+        try {
+            PngWriter writer = new PngWriter(output, width, height, ExportExecutor.getPngEncoderExecutor());
+            writer.writeRows(frame, 0, width, height);
+            writer.finish();
+        } finally {
+            output.close();
+        }
+    }
+
+    // The view's graph area cut to the frames' shape, as wide as the view and about its middle
+    public static double[] endGraphArea(double[] viewGraphArea, int viewWidth, int viewHeight, int width, int height) {
+        double centreY = viewGraphArea[1] - (viewGraphArea[2] * viewHeight / viewWidth / 2.0);
+        return new double[]{viewGraphArea[0], centreY + (viewGraphArea[2] * height / width / 2.0), viewGraphArea[2]};
+    }
+
+    // The first frame: as wide as asked, centred on the end area
+    static double[] startGraphArea(double[] endGraphArea, double startGraphWidth, int width, int height) {
+        double pixelSize = endGraphArea[2] / width;
+        double centreX = endGraphArea[0] + (pixelSize * width / 2.0);
+        double centreY = endGraphArea[1] - (pixelSize * height / 2.0);
+
+        return FractalPresenter.zoomGraphArea(endGraphArea, centreX, centreY, startGraphWidth / endGraphArea[2]);
+    }
+
+    // How much narrower each frame is than the one before
+    static double frameScale(double startGraphWidth, double endGraphWidth, int frameCount) {
+        return Math.pow(endGraphWidth / startGraphWidth, 1.0 / (frameCount - 1));
+    }
+
+    // As many frames as can be zoomed into from one keyframe without needing more than KEYFRAME_MARGIN of it
+    static int framesPerKeyframe(double frameScale, int frameCount) {
+        int frames = 1 + (int) Math.floor(Math.log(KEYFRAME_MARGIN) / -Math.log(frameScale));
+        return Math.max(1, Math.min(frames, frameCount));
+    }
+
+    // Every frame comes from the start area rather than the frame before, so rounding doesn't build up along the way
+    static double[] frameGraphArea(double[] startGraphArea, double[] endGraphArea, double frameScale, int frameIndex, int frameCount) {
+        if (frameIndex == frameCount - 1)
+            return endGraphArea.clone();
+
+        // The middle of the end area is the one point every frame shares
+        double zoomRatio = endGraphArea[2] / startGraphArea[2];
+        double centreX = (endGraphArea[0] - (zoomRatio * startGraphArea[0])) / (1 - zoomRatio);
+        double centreY = (endGraphArea[1] - (zoomRatio * startGraphArea[1])) / (1 - zoomRatio);
+
+        return FractalPresenter.zoomGraphArea(startGraphArea, centreX, centreY, Math.pow(frameScale, frameIndex));
+    }
+
+    /*
+     * Fills frame, in plain row order, by sampling the keyframe bilinearly. The frame has to lie within the
+     * keyframe, and its pixels shouldn't be much smaller than the keyframe's; anything past the keyframe's edge
+     * takes the edge colour.
+     */
+    static void resample(int[] keyframe, int keyframeWidth, int keyframeHeight, double[] keyframeGraphArea,
+                         int[] frame, int width, int height, double[] frameGraphArea) {
+        double keyframePixelSize = keyframeGraphArea[2] / keyframeWidth;
+        double step = (frameGraphArea[2] / width) / keyframePixelSize;
+
+        int[] columns = new int[width];
+        int[] columnWeights = new int[width];
+        int[] rows = new int[height];
+        int[] rowWeights = new int[height];
+        mapAxis((frameGraphArea[0] - keyframeGraphArea[0]) / keyframePixelSize, step, keyframeWidth, columns, columnWeights);
+        mapAxis((keyframeGraphArea[1] - frameGraphArea[1]) / keyframePixelSize, step, keyframeHeight, rows, rowWeights);
+
+        for (int y = 0; y < height; y++) {
+            int topRow = rows[y] * keyframeWidth;
+            int bottomRow = Math.min(rows[y] + 1, keyframeHeight - 1) * keyframeWidth;
+            int rowWeight = rowWeights[y];
+            int frameRow = y * width;
+
+            for (int x = 0; x < width; x++) {
+                int left = columns[x];
+                int right = Math.min(left + 1, keyframeWidth - 1);
+                int columnWeight = columnWeights[x];
+
+                int top = blend(keyframe[topRow + left], keyframe[topRow + right], columnWeight);
+                int bottom = blend(keyframe[bottomRow + left], keyframe[bottomRow + right], columnWeight);
+                frame[frameRow + x] = blend(top, bottom, rowWeight);
+            }
+        }
+    }
+
+    // Keyframe pixel at or before each frame pixel along an axis, and how far towards the next one it is, out of 256
+    private static void mapAxis(double offset, double step, int size, int[] sources, int[] weights) {
+        for (int i = 0; i < sources.length; i++) {
+            double position = Math.max(0, Math.min(offset + (i * step), size - 1));
+            int source = (int) position;
+
+            sources[i] = source;
+            weights[i] = (int) Math.round((position - source) * 256);
+        }
+    }
+
+    // Both colours' channels mixed at once, two to an int, weight out of 256 towards the second colour
+    private static int blend(int first, int second, int weight) {
+        if (weight == 0 || first == second)
+            return first;
+
+        int firstWeight = 256 - weight;
+        int redBlue = (((first & 0xFF00FF) * firstWeight) + ((second & 0xFF00FF) * weight)) >>> 8;
+        int alphaGreen = ((((first >>> 8) & 0xFF00FF) * firstWeight) + (((second >>> 8) & 0xFF00FF) * weight));
+
+        return (redBlue & 0xFF00FF) | (alphaGreen & 0xFF00FF00);
+    }
+
+    // Only the end of each keyframe matters
+    private class KeyframeDelegate implements IFractalComputeDelegate {
+        @Override
+        public void postUpdate(PixelBufferPair pixels, byte[] pixelSizes) {
+        }
+
+        @Override
+        public void postUpdate(PixelBufferPair pixels, byte[] pixelSizes, int rowStart, int rowEnd) {
+        }
+
+        @Override
+        public void postBitmapUpdate() {
+        }
+
+        @Override
+        public void postFinished(PixelBufferPair pixels, byte[] pixelSizes, int pixelBlockSize, double timeTakenInSeconds) {
+            keyframeSeconds += timeTakenInSeconds;
+            keyframeFinished.release();
+        }
+
+        @Override
+        public void onComputeStarted(int pixelBlockSize) {
+        }
+    }
+}
@@ -8,18 +8,35 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import io.bunnies.fractalmaps.IFractalSceneDelegate;
+import io.bunnies.fractalmaps.colouring.EnumColourStrategy;
+import io.bunnies.fractalmaps.compute.EnumPixelFormat;
 import io.bunnies.fractalmaps.compute.FractalComputeArguments;
+import io.bunnies.fractalmaps.compute.FrameBufferPool;
 import io.bunnies.fractalmaps.compute.IFractalComputeDelegate;
+import io.bunnies.fractalmaps.compute.IterationCounts;
+import io.bunnies.fractalmaps.compute.PixelBufferPair;
+import io.bunnies.fractalmaps.compute.ZoomResampler;
 import io.bunnies.fractalmaps.compute.strategies.IFractalComputeStrategy;
+import io.bunnies.fractalmaps.compute.strategies.JuliaSeedSettable;
+import io.bunnies.fractalmaps.compute.strategies.StrategyStartup;
 import io.bunnies.fractalmaps.overlay.IFractalOverlay;
 import io.bunnies.fractalmaps.overlay.label.LabelOverlay;
+import io.bunnies.fractalmaps.settings.FractalTypeEnum;
+import io.bunnies.fractalmaps.settings.saved_state.SavedFrame;
+import io.bunnies.fractalmaps.tiles.TileCache;
+import io.bunnies.fractalmaps.tiles.TileKey;
+import io.bunnies.fractalmaps.tiles.TilePyramid;
 import io.bunnies.fractalmaps.touch.IFractalTouchDelegate;
 import io.bunnies.fractalmaps.touch.IFractalTouchHandler;
+import io.bunnies.fractalmaps.view.FrameUpdateAggregator;
 import io.bunnies.fractalmaps.view.IFractalView;
+import io.bunnies.fractalmaps.view.IFrameScheduler;
 import io.bunnies.fractalmaps.view.IViewResizeListener;
+import io.bunnies.fractalmaps.view.VsyncFrameScheduler;
 
 public class FractalPresenter implements IFractalPresenter, IFractalComputeDelegate, IFractalTouchDelegate, IViewResizeListener {
     private final Logger LOGGER = LoggerFactory.getLogger(FractalPresenter.class);
@@ -27,16 +44,49 @@ public class FractalPresenter implements IFractalPresenter, IFractalComputeDeleg
     public IFractalComputeStrategy fractalStrategy;
     public IFractalView view;
     public IFractalTouchHandler touchHandler;
+    private FrameUpdateAggregator frameUpdateAggregator;
+    private IFrameScheduler frameScheduler = new VsyncFrameScheduler();
     private IFractalSceneDelegate sceneDelegate;
 
     private Context context;
 
+    // The strategy is set up off the UI thread, and nothing is rendered until it's ready at the current view size
+    private StrategyStartup strategyStartup = StrategyStartup.getSharedStartup();
+    private int strategyInitialisations = 0;
+    private boolean strategyReady = false;
+
     private Matrix transformMatrix;
 
-    private int[] pixelBuffer;
-    private int[] pixelBufferSizes;
+    private PixelBufferPair pixelBuffers;
+    private byte[] pixelBufferSizes;
+    // Each pixel's escape count, laid out like the sizes, so a zoom can colour samples again for the new budget
+    private int[] pixelIterations;
+    private FrameBufferPool frameBufferPool = FrameBufferPool.getSharedPool();
+    // Renders go straight into the view's bitmap, rather than being uploaded to it from pixelBuffers
+    private boolean bitmapOutput = false;
+    private EnumPixelFormat pixelFormat = EnumPixelFormat.RGB_565;
     private double[] graphArea;
 
+    // What the samples in pixelBuffers were last computed over, for carrying them across a zoom
+    private double[] renderedGraphArea;
+    private int renderedMaxIterations;
+    private ZoomResampler zoomResampler;
+
+    // Finished tiles, shared by every view, and the key of the tiles the latest render is computing
+    private TileCache tileCache = TileCache.getSharedCache();
+    private TileKey renderedTiles;
+    // Only the render started after the latest request has its tiles kept
+    private volatile int renderRequests = 0;
+    private volatile int renderRequestsAtStart = -1;
+    // Whether every pixel size marked as computed is also in the front buffer, which it isn't part way through a render
+    private volatile boolean renderFinished = false;
+    // Whether renders for the latest frame may still be running, so another render of it leaves them be
+    private volatile boolean frameInProgress = false;
+
+    // The frame saved last time, waiting for the view to be laid out, and whether one is showing
+    private SavedFrame pendingFrame;
+    private boolean frameRestored = false;
+
     private int viewWidth;
     private int viewHeight;
 
@@ -48,10 +98,22 @@ public class FractalPresenter implements IFractalPresenter, IFractalComputeDeleg
     // Touch
     boolean hasZoomed;
 
+    // Where the user is looking, rendered first
+    private float renderFocusX;
+    private float renderFocusY;
+
     // Default pixel block sizes for crude, detailed renders
     public static final int CRUDE_PIXEL_BLOCK = 3;
     public static final int DEFAULT_PIXEL_SIZE = 1;
 
+    // Pixel size for pixels that have not been rendered at all
+    // Larger than any pixel block size, so every strategy renders over it. Stored as an unsigned byte.
+    private static final byte UNRENDERED_PIXEL_SIZE = (byte) 0xFF;
+
+    // Pixel size for pixels taken from the level below with a different budget, right in place but not in colour.
+    // Finer than any crude block, so only the detailed render goes over them.
+    private static final int DOWNSAMPLED_PIXEL_SIZE = 2;
+
     // How many iterations, at the very fewest, will we do?
     protected int MIN_ITERATIONS = 10;
 
@@ -108,50 +170,60 @@ public class FractalPresenter implements IFractalPresenter, IFractalComputeDeleg
         this.view.setResizeListener(this);
         this.view.setTouchHandler(this.touchHandler);
         this.view.setPresenterOverlays(this.fractalPresenterOverlays);
+        this.frameUpdateAggregator = new FrameUpdateAggregator(view, this.frameScheduler);
+    }
+
+    public void setFrameScheduler(IFrameScheduler frameScheduler) {
+        this.frameScheduler = frameScheduler;
+        if (this.view != null)
+            this.frameUpdateAggregator = new FrameUpdateAggregator(this.view, frameScheduler);
+    }
+
+    public void setFrameBufferPool(FrameBufferPool frameBufferPool) {
+        this.frameBufferPool = frameBufferPool;
+    }
+
+    public void setStrategyStartup(StrategyStartup strategyStartup) {
+        this.strategyStartup = strategyStartup;
+    }
+
+    public void setTileCache(TileCache tileCache) {
+        this.tileCache = tileCache;
+    }
+
+    public FrameUpdateAggregator getFrameUpdateAggregator() {
+        return this.frameUpdateAggregator;
     }
 
     @Override
     public int[] getPixelBuffer() {
-        return this.pixelBuffer;
+        return this.pixelBuffers.peekFront();
     }
 
+    // Moves the picture by shifting the buffers' origin, only clearing the strips that come into view
     @Override
     public void translatePixelBuffer(int x, int y) {
-        int[] newPixels = new int[this.viewWidth * this.viewHeight];
-        int[] newSizes = new int[this.viewWidth * this.viewHeight];
-        for (int i = 0; i < newSizes.length; i++) newSizes[i] = 1000;
-
-        //Choose rows to copy from
-        int rowNum = this.viewHeight - Math.abs(y);
-        int origStartRow = (y < 0 ? Math.abs(y) : 0);
-
-        //Choose columns to copy from
-        int colNum = this.viewWidth - Math.abs(x);
-        int origStartCol = (x < 0 ? Math.abs(x) : 0);
-
-        //Choose columns to copy to
-        int destStartCol = (x < 0 ? 0 : x);
-
-        //Copy useful parts into new array
-        for (int origY = origStartRow; origY < origStartRow + rowNum; origY++) {
-            int destY = origY + y;
-            System.arraycopy(this.pixelBuffer, (origY * this.viewWidth) + origStartCol,
-                    newPixels, (destY * this.viewWidth) + destStartCol,
-                    colNum);
-            System.arraycopy(this.pixelBufferSizes, (origY * this.viewWidth) + origStartCol,
-                    newSizes, (destY * this.viewWidth) + destStartCol,
-                    colNum);
-        }
+        this.stopRenderingFrame();
+        this.pixelBuffers.translate(x, y, this.pixelBufferSizes, UNRENDERED_PIXEL_SIZE);
+    }
 
-        this.pixelBuffer = newPixels;
-        this.pixelBufferSizes = newSizes;
+    public PixelBufferPair getPixelBuffers() {
+        return this.pixelBuffers;
     }
 
     @Override
     public void recomputeGraph(int pixelBlockSize) {
+        // Started again from onFractalViewReady once the strategy is ready
+        if (!this.strategyReady) {
+            LOGGER.debug("Strategy not ready, not rendering yet");
+            return;
+        }
+
         LOGGER.debug("Starting new style render");
 
-        double[] graphArea = this.getGraphArea();
+        // Onto the tile pyramid, less than a pixel away, so that tiles from before line up
+        double[] graphArea = TilePyramid.normaliseGraphArea(this.getGraphArea(), this.viewWidth);
+        this.setGraphArea(graphArea);
 
         String coordinates = "Coordinates " + graphArea[0] + " " + graphArea[1] + " " + graphArea[2];
         this.coordinatesOverlay.setText(coordinates);
@@ -177,7 +249,7 @@ public class FractalPresenter implements IFractalPresenter, IFractalComputeDeleg
         if (pixelBlockSize == DEFAULT_PIXEL_SIZE)
             this.sceneDelegate.setRenderingStatus(this, true);
 
-        this.fractalStrategy.computeFractal(new FractalComputeArguments(pixelBlockSize,
+        FractalComputeArguments arguments = new FractalComputeArguments(pixelBlockSize,
                 this.getMaxIterations(),
                 linesPerUpdate,
                 DEFAULT_PIXEL_SIZE,
@@ -186,12 +258,224 @@ public class FractalPresenter implements IFractalPresenter, IFractalComputeDeleg
                 graphArea[0],
                 graphArea[1],
                 getPixelSize(this.viewWidth, this.graphArea),
-                this.pixelBuffer,
-                this.pixelBufferSizes));
+                this.pixelBuffers,
+                this.pixelBufferSizes);
+        arguments.pixelIterations = this.pixelIterations;
+
+        // The detailed pass queued behind a crude one is the same frame: the crude one carries on, and the tiles are
+        // already in. Anything else is stopped before the tiles go in, as renders write the same sizes and counts.
+        TileKey tiles = this.getTileKey(graphArea, arguments.maxIterations);
+        boolean sameFrame = this.frameInProgress && tiles.equals(this.renderedTiles) && Arrays.equals(graphArea, this.renderedGraphArea);
+        if (!sameFrame)
+            this.stopRenderingFrame();
+
+        this.renderedGraphArea = graphArea.clone();
+        this.renderedMaxIterations = arguments.maxIterations;
+
+        this.renderRequests++;
+        this.renderFinished = false;
+        this.renderedTiles = tiles;
+        if (!sameFrame)
+            this.fillFromTileCache(graphArea, true);
+
+        arguments.focusX = (int) this.renderFocusX;
+        arguments.focusY = (int) this.renderFocusY;
+        arguments.pixelFormat = this.pixelFormat;
+        if (this.bitmapOutput)
+            arguments.outputBitmap = this.view.getCurrentBitmap();
+
+        this.fractalStrategy.computeFractal(arguments);
+        this.frameInProgress = true;
 
         this.sceneDelegate.onFractalRecomputeScheduled(this);
     }
 
+    // Every edit the UI makes to the pixel sizes and counts goes after this, as the renders write them too
+    private void stopRenderingFrame() {
+        this.fractalStrategy.stopAllRendering();
+        this.frameInProgress = false;
+    }
+
+    // The key of the top left tile on the pyramid that graphArea is on, for this fractal and colouring
+    private TileKey getTileKey(double[] graphArea, int maxIterations) {
+        double pixelSize = this.getPixelSize(this.viewWidth, graphArea);
+
+        FractalTypeEnum fractalType = (this.fractalStrategy instanceof JuliaSeedSettable) ? FractalTypeEnum.JULIA : FractalTypeEnum.MANDELBROT;
+        double[] juliaSeed = this.getJuliaSeed();
+
+        return new TileKey(fractalType, juliaSeed[0], juliaSeed[1], TilePyramid.scaleOf(pixelSize), TilePyramid.levelOf(pixelSize),
+                0, 0, maxIterations, this.fractalStrategy.getColourStrategy());
+    }
+
+    private double[] getJuliaSeed() {
+        if (this.fractalStrategy instanceof JuliaSeedSettable)
+            return ((JuliaSeedSettable) this.fractalStrategy).getJuliaSeed();
+
+        return new double[]{0.0, 0.0};
+    }
+
+    /*
+     * Copies tiles that are in memory into the view, marking their pixels as computed so the render skips them.
+     * Tiles that aren't, but whose four tiles on the level below are, such as after zooming out, are downsampled
+     * from those. The rest are looked for on disk off the UI thread, and filled in as well if they turn up before
+     * the view moves on. The render has been handed the pixel sizes by then, so it's stopped first and started again
+     * afterwards.
+     */
+    private void fillFromTileCache(final double[] graphArea, boolean loadFromDisk) {
+        double pixelSize = this.getPixelSize(this.viewWidth, graphArea);
+        long firstPixelX = TilePyramid.firstPixelX(graphArea[0], pixelSize);
+        long firstPixelY = TilePyramid.firstPixelY(graphArea[1], pixelSize);
+
+        int childMaxIterations = this.getMaxIterations(pixelSize / 2);
+
+        List<TileKey> cachedKeys = new ArrayList<>();
+        List<int[]> cachedTiles = new ArrayList<>();
+        List<Integer> cachedPixelSizes = new ArrayList<>();
+        List<TileKey> missingKeys = new ArrayList<>();
+        for (long tileY = TilePyramid.tileOf(firstPixelY); tileY <= TilePyramid.tileOf(firstPixelY + this.viewHeight - 1); tileY++) {
+            for (long tileX = TilePyramid.tileOf(firstPixelX); tileX <= TilePyramid.tileOf(firstPixelX + this.viewWidth - 1); tileX++) {
+                TileKey key = this.renderedTiles.forTile(tileX, tileY);
+                int[] tile = this.tileCache.getFromMemory(key);
+                if (tile != null) {
+                    cachedKeys.add(key);
+                    cachedTiles.add(tile);
+                    cachedPixelSizes.add(DEFAULT_PIXEL_SIZE);
+                    continue;
+                }
+
+                missingKeys.add(key);
+
+                tile = this.downsampleFromTileCache(key, childMaxIterations);
+                if (tile != null) {
+                    cachedKeys.add(key);
+                    cachedTiles.add(tile);
+                    // With the same budget they're exactly what the render would make
+                    cachedPixelSizes.add(childMaxIterations == key.maxIterations ? DEFAULT_PIXEL_SIZE : DOWNSAMPLED_PIXEL_SIZE);
+                }
+            }
+        }
+
+        if (loadFromDisk && !missingKeys.isEmpty()) {
+            final int request = this.renderRequests;
+            this.tileCache.loadFromDisk(missingKeys, new Runnable() {
+                @Override
+                public void run() {
+                    if (request != renderRequests || !Arrays.equals(graphArea, getGraphArea()))
+                        return;
+
+                    if (!frameInProgress) {
+                        fillFromTileCache(graphArea, false);
+                        return;
+                    }
+
+                    // Started again as a new frame, which stops this one and fills the tiles in first
+                    stopRenderingFrame();
+                    recomputeGraph(DEFAULT_PIXEL_SIZE);
+                }
+            });
+        }
+
+        if (cachedTiles.isEmpty())
+            return;
+
+        int filledPixels = 0;
+        int[] backPixels = this.pixelBuffers.beginWrite();
+        try {
+            for (int i = 0; i < cachedTiles.size(); i++) {
+                int[] tile = cachedTiles.get(i);
+                int tilePixelSize = cachedPixelSizes.get(i);
+                int tileLeft = (int) ((cachedKeys.get(i).tileX * TilePyramid.TILE_SIZE) - firstPixelX);
+                int tileTop = (int) ((cachedKeys.get(i).tileY * TilePyramid.TILE_SIZE) - firstPixelY);
+
+                int xEnd = Math.min(this.viewWidth, tileLeft + TilePyramid.TILE_SIZE);
+                int yEnd = Math.min(this.viewHeight, tileTop + TilePyramid.TILE_SIZE);
+                for (int y = Math.max(0, tileTop); y < yEnd; y++) {
+                    int tileRowStart = ((y - tileTop) * TilePyramid.TILE_SIZE) - tileLeft;
+                    for (int x = Math.max(0, tileLeft); x < xEnd; x++) {
+                        int index = this.pixelBuffers.indexOf(x, y);
+                        if ((this.pixelBufferSizes[index] & 0xFF) <= tilePixelSize)
+                            continue;
+
+                        backPixels[index] = tile[tileRowStart + x];
+                        this.pixelBufferSizes[index] = (byte) tilePixelSize;
+                        this.pixelIterations[index] = IterationCounts.UNKNOWN;
+                        filledPixels++;
+                    }
+                }
+            }
+        } finally {
+            this.pixelBuffers.publishAll();
+        }
+
+        LOGGER.debug("Filled {} pixels from {} cached tiles", filledPixels, cachedTiles.size());
+        if (filledPixels == 0)
+            return;
+
+        int[] frontPixels = this.pixelBuffers.acquireFront();
+        this.view.setBitmapPixels(frontPixels, this.pixelBuffers.getOriginX(), this.pixelBuffers.getOriginY(), 0, this.viewHeight);
+        this.pixelBuffers.releaseFront(frontPixels);
+    }
+
+    // The tile from its four on the level below, if they're all in memory, or null
+    private int[] downsampleFromTileCache(TileKey key, int childMaxIterations) {
+        int[][] childTiles = new int[4][];
+        for (int child = 0; child < childTiles.length; child++) {
+            childTiles[child] = this.tileCache.getFromMemory(key.forChildTile(child % 2, child / 2, childMaxIterations));
+            if (childTiles[child] == null)
+                return null;
+        }
+
+        return TilePyramid.downsampleTile(childTiles);
+    }
+
+    // Keeps every tile that the finished render covered completely, for when the view comes back over it
+    private void storeTilesInCache() {
+        double pixelSize = this.getPixelSize(this.viewWidth, this.renderedGraphArea);
+        long firstPixelX = TilePyramid.firstPixelX(this.renderedGraphArea[0], pixelSize);
+        long firstPixelY = TilePyramid.firstPixelY(this.renderedGraphArea[1], pixelSize);
+
+        int storedTiles = 0;
+        int[] frontPixels = this.pixelBuffers.acquireFront();
+        try {
+            long lastTileY = TilePyramid.tileOf(firstPixelY + this.viewHeight) - 1;
+            long lastTileX = TilePyramid.tileOf(firstPixelX + this.viewWidth) - 1;
+            for (long tileY = TilePyramid.tileOf(firstPixelY + TilePyramid.TILE_SIZE - 1); tileY <= lastTileY; tileY++) {
+                for (long tileX = TilePyramid.tileOf(firstPixelX + TilePyramid.TILE_SIZE - 1); tileX <= lastTileX; tileX++) {
+                    TileKey key = this.renderedTiles.forTile(tileX, tileY);
+                    if (this.tileCache.contains(key))
+                        continue;
+
+                    int[] tile = this.copyTile(frontPixels, (int) ((tileX * TilePyramid.TILE_SIZE) - firstPixelX),
+                            (int) ((tileY * TilePyramid.TILE_SIZE) - firstPixelY));
+                    if (tile != null) {
+                        this.tileCache.put(key, tile);
+                        storedTiles++;
+                    }
+                }
+            }
+        } finally {
+            this.pixelBuffers.releaseFront(frontPixels);
+        }
+
+        LOGGER.debug("Stored {} tiles, cache holds {} ({} bytes)", storedTiles, this.tileCache.size(), this.tileCache.getBytes());
+    }
+
+    // The tile with its top left at view pixel (left, top), or null if any of it hasn't been computed
+    private int[] copyTile(int[] pixels, int left, int top) {
+        int[] tile = new int[TilePyramid.TILE_SIZE * TilePyramid.TILE_SIZE];
+        for (int y = 0; y < TilePyramid.TILE_SIZE; y++) {
+            for (int x = 0; x < TilePyramid.TILE_SIZE; x++) {
+                int index = this.pixelBuffers.indexOf(left + x, top + y);
+                if (this.pixelBufferSizes[index] != DEFAULT_PIXEL_SIZE)
+                    return null;
+
+                tile[(y * TilePyramid.TILE_SIZE) + x] = pixels[index];
+            }
+        }
+
+        return tile;
+    }
+
     private static int nextClosestPowerOfTwo(int x) {
         int y = 1;
         while (y < x) {
@@ -200,6 +484,12 @@ public class FractalPresenter implements IFractalPresenter, IFractalComputeDeleg
         return y;
     }
 
+    @Override
+    public void setRenderFocus(float x, float y) {
+        this.renderFocusX = Math.max(0, Math.min(x, this.viewWidth - 1));
+        this.renderFocusY = Math.max(0, Math.min(y, this.viewHeight - 1));
+    }
+
     @Override
     public void translateGraphArea(int dx, int dy) {
         // What does each pixel correspond to, on the complex plane?
@@ -216,15 +506,19 @@ public class FractalPresenter implements IFractalPresenter, IFractalComputeDeleg
     public double[] zoomGraphArea(int x, int y, double scale) {
         double pixelSize = this.getPixelSize(this.viewWidth, this.graphArea);
 
-        double[] oldGraphArea = this.graphArea;
+        // What is the zoom centre?
+        double zoomCentreX = this.graphArea[0] + ((double) x * pixelSize);
+        double zoomCentreY = this.graphArea[1] - ((double) y * pixelSize);
+
+        return zoomGraphArea(this.graphArea, zoomCentreX, zoomCentreY, scale);
+    }
+
+    // The graph area zoomed by scale about a point on the complex plane, which stays where it is in the view
+    public static double[] zoomGraphArea(double[] oldGraphArea, double zoomCentreX, double zoomCentreY, double scale) {
         double[] newGraphArea = new double[3];
 
         double zoomPercentChange = scale;
 
-        // What is the zoom centre?
-        double zoomCentreX = oldGraphArea[0] + ((double) x * pixelSize);
-        double zoomCentreY = oldGraphArea[1] - ((double) y * pixelSize);
-
         // Since we're zooming in on a point (the "zoom centre"),
         // let's now shrink each of the distances from the zoom centre
         // to the edges of the picture by a constant percentage.
@@ -247,7 +541,12 @@ public class FractalPresenter implements IFractalPresenter, IFractalComputeDeleg
     }
 
     public int getMaxIterations() {
-        double absLnPixelSize = Math.abs(Math.log(getPixelSize(this.viewWidth, this.graphArea)));
+        return this.getMaxIterations(getPixelSize(this.viewWidth, this.graphArea));
+    }
+
+    // The iterations this fractal's detail setting asks for at pixels this size, for renders other than the view's
+    public int getMaxIterations(double pixelSize) {
+        double absLnPixelSize = Math.abs(Math.log(pixelSize));
 
         LOGGER.debug("Abs ln pixel size: " + absLnPixelSize);
         double dblIterations = (this.detail / DETAIL_DIVISOR) * this.fractalStrategy.getIterationConstantFactor() * Math.pow(this.fractalStrategy.getIterationBase(), absLnPixelSize);
@@ -287,17 +586,39 @@ public class FractalPresenter implements IFractalPresenter, IFractalComputeDeleg
     }
 
     public void initialisePixelBuffers() {
-        this.pixelBuffer = new int[this.viewWidth * this.viewHeight];
-        this.pixelBufferSizes = new int[this.viewWidth * this.viewHeight];
-        this.clearPixelSizes();
+        if (this.pixelBuffers != null)
+            this.releasePixelBuffers();
+
+        this.pixelBuffers = new PixelBufferPair(this.viewWidth, this.viewHeight, this.frameBufferPool);
+        this.pixelBufferSizes = this.frameBufferPool.borrowByteBuffer(this.viewWidth, this.viewHeight);
+        this.pixelIterations = this.frameBufferPool.borrowIntBuffer(this.viewWidth, this.viewHeight);
+        // No render has these yet, so there's nothing to stop
+        Arrays.fill(this.pixelBufferSizes, UNRENDERED_PIXEL_SIZE);
+
+        this.zoomResampler = new ZoomResampler(this.viewWidth, this.viewHeight, (byte) DEFAULT_PIXEL_SIZE, UNRENDERED_PIXEL_SIZE);
+        this.renderedGraphArea = null;
+    }
+
+    // Hands the buffers for the old view size back to the pool, for when the view comes back to that size
+    private void releasePixelBuffers() {
+        this.stopRenderingFrame();
+        if (this.frameUpdateAggregator != null)
+            this.frameUpdateAggregator.dropPendingUpdates();
+
+        this.pixelBuffers.release(this.frameBufferPool);
+        this.frameBufferPool.returnByteBuffer(this.pixelBufferSizes, this.pixelBuffers.getWidth(), this.pixelBuffers.getHeight());
+        this.frameBufferPool.returnIntBuffer(this.pixelIterations, this.pixelBuffers.getWidth(), this.pixelBuffers.getHeight());
+
+        this.pixelBuffers = null;
+        this.pixelBufferSizes = null;
+        this.pixelIterations = null;
     }
 
     // Reset pixel sizes to force a full render on the next pass
     public void clearPixelSizes() {
         LOGGER.debug("Clearing pixel sizes");
-        for (int i = 0; i < this.pixelBufferSizes.length; i++) {
-            this.pixelBufferSizes[i] = 1000;
-        }
+        this.stopRenderingFrame();
+        Arrays.fill(this.pixelBufferSizes, UNRENDERED_PIXEL_SIZE);
     }
 
     @Override
@@ -322,6 +643,25 @@ public class FractalPresenter implements IFractalPresenter, IFractalComputeDeleg
             this.sceneDelegate.setRenderingStatus(this, false);
 
             this.sceneDelegate.onFractalRecomputed(this, timeTakenInSeconds);
+
+            LOGGER.debug("Frame updates: {} received, {} merged, {} dropped, {} frames presented",
+                    this.frameUpdateAggregator.getReceivedUpdateCount(),
+                    this.frameUpdateAggregator.getMergedUpdateCount(),
+                    this.frameUpdateAggregator.getDroppedUpdateCount(),
+                    this.frameUpdateAggregator.getPresentedFrameCount());
+
+            LOGGER.debug("Frame buffers: {} allocated ({} bytes), {} reused, {} discarded",
+                    this.frameBufferPool.getAllocatedBufferCount(),
+                    this.frameBufferPool.getAllocatedBytes(),
+                    this.frameBufferPool.getReusedBufferCount(),
+                    this.frameBufferPool.getDiscardedBufferCount());
+
+            LOGGER.debug("Tile cache: {} hits ({} from disk), {} misses, {} tiles held, {} evicted",
+                    this.tileCache.getHitCount(),
+                    this.tileCache.getDiskHitCount(),
+                    this.tileCache.getMissCount(),
+                    this.tileCache.size(),
+                    this.tileCache.getEvictedTileCount());
         }
     }
 
@@ -347,9 +687,24 @@ public class FractalPresenter implements IFractalPresenter, IFractalComputeDeleg
         return point;
     }
 
+    // Off the UI thread. The view is ready once the strategy is, unless it's been resized again in the meantime.
     @Override
     public void initialiseStrategy() {
-        this.fractalStrategy.initialise(this.viewWidth, this.viewHeight, this);
+        this.strategyReady = false;
+        final int initialisation = ++this.strategyInitialisations;
+        final long startTime = System.nanoTime();
+
+        this.strategyStartup.initialise(this.fractalStrategy, this.viewWidth, this.viewHeight, this, new Runnable() {
+            @Override
+            public void run() {
+                if (initialisation != strategyInitialisations)
+                    return;
+
+                LOGGER.info("Strategy ready {} ms after the view was sized", (System.nanoTime() - startTime) / 1000000D);
+                strategyReady = true;
+                sceneDelegate.onFractalViewReady(FractalPresenter.this);
+            }
+        });
     }
 
     @Override
@@ -360,22 +715,43 @@ public class FractalPresenter implements IFractalPresenter, IFractalComputeDeleg
     // IFractalComputeDelegate
 
     @Override
-    public void postUpdate(int[] pixels, int[] pixelSizes) {
+    public void postUpdate(PixelBufferPair pixels, byte[] pixelSizes) {
         //Log.i("FP", "Got compute update");
-        this.pixelBuffer = pixels;
-        this.pixelBufferSizes = pixelSizes;
-        this.view.setBitmapPixels(this.pixelBuffer);
-        this.view.postThreadSafeRedraw();
+        this.postUpdate(pixels, pixelSizes, 0, this.viewHeight);
+    }
+
+    @Override
+    public void postUpdate(PixelBufferPair pixels, byte[] pixelSizes, int rowStart, int rowEnd) {
+        // Uploaded on the UI thread at the next frame, along with anything else that arrives before then
+        this.frameUpdateAggregator.postUpdate(pixels, rowStart, rowEnd);
+    }
+
+    @Override
+    public void postBitmapUpdate() {
+        this.frameUpdateAggregator.postRedraw();
     }
 
     @Override
-    public void postFinished(int[] pixels, int[] pixelSizes, int pixelBlockSize, double timeTakenInSeconds) {
-        this.postUpdate(pixels, pixelSizes);
+    public void postFinished(PixelBufferPair pixels, byte[] pixelSizes, int pixelBlockSize, double timeTakenInSeconds) {
+        if (this.bitmapOutput) {
+            this.postBitmapUpdate();
+        } else {
+            this.postUpdate(pixels, pixelSizes);
+        }
+
+        if (pixelBlockSize == DEFAULT_PIXEL_SIZE && this.renderRequestsAtStart == this.renderRequests) {
+            this.storeTilesInCache();
+            this.renderFinished = true;
+            this.frameInProgress = false;
+        }
+
         this.notifyRecomputeComplete(pixelBlockSize, timeTakenInSeconds);
     }
 
     @Override
     public void onComputeStarted(int pixelBlockSize) {
+        this.renderRequestsAtStart = this.renderRequests;
+
         if (pixelBlockSize == DEFAULT_PIXEL_SIZE)
             this.sceneDelegate.setRenderingStatus(this, true);
     }
@@ -386,7 +762,8 @@ public class FractalPresenter implements IFractalPresenter, IFractalComputeDeleg
     public void startDraggingFractal() {
         LOGGER.debug("Started dragging");
 
-        this.fractalStrategy.stopAllRendering();
+        this.sceneDelegate.onFractalInteraction(this);
+        this.stopRenderingFrame();
 
         this.transformMatrix.reset();
         this.view.setFractalTransformMatrix(this.transformMatrix);
@@ -418,8 +795,12 @@ public class FractalPresenter implements IFractalPresenter, IFractalComputeDeleg
             totalDragY = this.viewHeight;
 
         if (!hasZoomed && !stoppedOnZoom) {
+            this.frameUpdateAggregator.dropPendingUpdates();
             this.translatePixelBuffer((int) totalDragX, (int) totalDragY);
-            this.view.setBitmapPixels(this.pixelBuffer);
+
+            int[] frontPixels = this.pixelBuffers.acquireFront();
+            this.view.setBitmapPixels(frontPixels, this.pixelBuffers.getOriginX(), this.pixelBuffers.getOriginY(), 0, this.viewHeight);
+            this.pixelBuffers.releaseFront(frontPixels);
         }
 
         this.translateGraphArea((int) totalDragX, (int) totalDragY);
@@ -440,19 +821,72 @@ public class FractalPresenter implements IFractalPresenter, IFractalComputeDeleg
 
     public void startScalingFractal(float x, float y) {
         LOGGER.debug("Started scaling");
+        this.sceneDelegate.onFractalInteraction(this);
         hasZoomed = true;
-        this.clearPixelSizes();
     }
 
     public void stopScalingFractal() {
         LOGGER.debug("Stopped scaling");
-        this.clearPixelSizes();
-
-        this.view.cacheCurrentBitmap(this.pixelBuffer);
+        this.stopRenderingFrame();
+        this.frameUpdateAggregator.dropPendingUpdates();
+
+        if (this.renderedGraphArea != null) {
+            this.resampleLastRender();
+        } else {
+            // Nothing rendered to carry over, so just keep what's on screen
+            this.clearPixelSizes();
+
+            int[] backPixels = this.pixelBuffers.beginFullWrite();
+            try {
+                this.view.cacheCurrentBitmap(backPixels);
+            } finally {
+                this.pixelBuffers.publishAll();
+            }
+        }
 
         this.transformMatrix.reset();
     }
 
+    // Seeds the zoomed view from the last render, keeping its samples that land exactly on new pixels and are still right for the new budget
+    private void resampleLastRender() {
+        double[] snappedGraphArea = this.zoomResampler.snapGraphArea(this.renderedGraphArea, this.graphArea);
+        if (this.isSaneZoomLevel(this.viewWidth, snappedGraphArea))
+            this.setGraphArea(snappedGraphArea);
+
+        // Where the next render will really be, so samples that land on it are exact
+        this.setGraphArea(TilePyramid.normaliseGraphArea(this.graphArea, this.viewWidth));
+
+        int[] oldPixels = this.frameBufferPool.borrowIntBuffer(this.viewWidth, this.viewHeight);
+        byte[] oldPixelSizes = this.frameBufferPool.borrowByteBuffer(this.viewWidth, this.viewHeight);
+        int[] oldIterations = this.frameBufferPool.borrowIntBuffer(this.viewWidth, this.viewHeight);
+
+        int[] frontPixels = this.pixelBuffers.acquireFront();
+        this.pixelBuffers.copyInRowOrder(frontPixels, oldPixels);
+        this.pixelBuffers.releaseFront(frontPixels);
+        this.pixelBuffers.copyInRowOrder(this.pixelBufferSizes, oldPixelSizes);
+        this.pixelBuffers.copyInRowOrder(this.pixelIterations, oldIterations);
+
+        int maxIterations = this.getMaxIterations();
+        int[] backPixels = this.pixelBuffers.beginFullWrite();
+        try {
+            int reusedPixels = this.zoomResampler.resample(this.renderedGraphArea, this.graphArea, oldPixels, oldPixelSizes, oldIterations,
+                    backPixels, this.pixelBufferSizes, this.pixelIterations, this.fractalStrategy.getColourStrategy(), maxIterations);
+            LOGGER.debug("Zoom kept {} of {} samples", reusedPixels, this.viewWidth * this.viewHeight);
+
+            this.view.setBitmapPixels(backPixels);
+        } finally {
+            this.pixelBuffers.publishAll();
+        }
+
+        // The buffers now hold the zoomed view, ready to be resampled again if another zoom comes first
+        this.renderedGraphArea = this.graphArea.clone();
+        this.renderedMaxIterations = maxIterations;
+
+        this.frameBufferPool.returnIntBuffer(oldPixels, this.viewWidth, this.viewHeight);
+        this.frameBufferPool.returnByteBuffer(oldPixelSizes, this.viewWidth, this.viewHeight);
+        this.frameBufferPool.returnIntBuffer(oldIterations, this.viewWidth, this.viewHeight);
+    }
+
     @Override
     public void scaleFractal(float scaleFactor, float midX, float midY) {
         double[] newGraphArea = this.zoomGraphArea((int) midX, (int) midY, 1 / scaleFactor);
@@ -464,6 +898,7 @@ public class FractalPresenter implements IFractalPresenter, IFractalComputeDeleg
         }
 
         this.setGraphArea(newGraphArea);
+        this.setRenderFocus(midX, midY);
 
         this.transformMatrix.postScale(scaleFactor, scaleFactor, midX, midY);
         this.view.setFractalTransformMatrix(this.transformMatrix);
@@ -476,20 +911,181 @@ public class FractalPresenter implements IFractalPresenter, IFractalComputeDeleg
         this.sceneDelegate.onFractalLongClick(this, x, y);
     }
 
+    @Override
+    public void setPixelFormat(EnumPixelFormat pixelFormat) {
+        if (pixelFormat == this.pixelFormat)
+            return;
+
+        this.pixelFormat = pixelFormat;
+        if (this.pixelBuffers == null)
+            return;
+
+        // Swap the bitmap for one in the new format, keeping the picture, then let any unfinished render carry on
+        this.stopRenderingFrame();
+        this.frameUpdateAggregator.dropPendingUpdates();
+
+        this.createFractalBitmap();
+
+        int[] frontPixels = this.pixelBuffers.acquireFront();
+        this.view.setBitmapPixels(frontPixels, this.pixelBuffers.getOriginX(), this.pixelBuffers.getOriginY(), 0, this.viewHeight);
+        this.pixelBuffers.releaseFront(frontPixels);
+        this.view.postUIThreadRedraw();
+
+        this.sceneDelegate.scheduleRecomputeBasedOnPreferences(this, false);
+    }
+
+    public EnumPixelFormat getPixelFormat() {
+        return this.pixelFormat;
+    }
+
+    private void createFractalBitmap() {
+        LOGGER.debug("Creating {} bitmap, {} bytes", this.pixelFormat, this.viewWidth * this.viewHeight * this.pixelFormat.bytesPerPixel);
+
+        // The bitmap copies these pixels, so the blank buffer can go straight back in the pool
+        int[] blankPixels = this.frameBufferPool.borrowIntBuffer(this.viewWidth, this.viewHeight);
+        this.view.createNewFractalBitmap(blankPixels, this.pixelFormat);
+        this.frameBufferPool.returnIntBuffer(blankPixels, this.viewWidth, this.viewHeight);
+    }
+
+    // A copy of the last render, to show straight away next time. Its pixel sizes are only kept if the render finished.
+    @Override
+    public SavedFrame saveFrame() {
+        if (this.pixelBuffers == null || this.renderedGraphArea == null)
+            return null;
+
+        int[] pixels = new int[this.viewWidth * this.viewHeight];
+        byte[] pixelSizes = new byte[this.viewWidth * this.viewHeight];
+        int[] pixelIterations = new int[this.viewWidth * this.viewHeight];
+
+        int[] frontPixels = this.pixelBuffers.acquireFront();
+        this.pixelBuffers.copyInRowOrder(frontPixels, pixels);
+        this.pixelBuffers.releaseFront(frontPixels);
+
+        if (this.renderFinished) {
+            this.pixelBuffers.copyInRowOrder(this.pixelBufferSizes, pixelSizes);
+            this.pixelBuffers.copyInRowOrder(this.pixelIterations, pixelIterations);
+        } else {
+            Arrays.fill(pixelSizes, UNRENDERED_PIXEL_SIZE);
+            Arrays.fill(pixelIterations, IterationCounts.UNKNOWN);
+        }
+
+        return new SavedFrame(this.viewWidth, this.viewHeight, this.renderedGraphArea.clone(), this.getJuliaSeed(),
+                this.renderedMaxIterations, this.fractalStrategy.getColourStrategy(), pixels, pixelSizes, pixelIterations);
+    }
+
+    // Shows a saved frame if it's of what this view is rendering. Before the view is laid out, it waits until it is.
+    @Override
+    public void restoreFrame(SavedFrame frame) {
+        if (this.pixelBuffers == null) {
+            this.pendingFrame = frame;
+            return;
+        }
+
+        if (!this.matchesSavedFrame(frame))
+            return;
+
+        if (!this.strategyReady) {
+            // The first render hasn't started, and will keep the frame's samples when it does
+            this.applySavedFrame(frame);
+            this.frameRestored = true;
+            return;
+        }
+
+        // Turned up after the first render started, so fill in what that hasn't done yet and let it carry on
+        this.stopRenderingFrame();
+        this.frameUpdateAggregator.dropPendingUpdates();
+        this.applySavedFrame(frame);
+        this.sceneDelegate.scheduleRecomputeBasedOnPreferences(this, false);
+    }
+
+    // Whether a saved frame is showing at the current view size, so the first render shouldn't start from scratch
+    @Override
+    public boolean hasRestoredFrame() {
+        return this.frameRestored;
+    }
+
+    private boolean matchesSavedFrame(SavedFrame frame) {
+        if (frame.width != this.viewWidth || frame.height != this.viewHeight || this.graphArea == null)
+            return false;
+
+        double[] graphArea = TilePyramid.normaliseGraphArea(this.graphArea, this.viewWidth);
+        double[] frameGraphArea = TilePyramid.normaliseGraphArea(frame.graphArea, this.viewWidth);
+        return Arrays.equals(graphArea, frameGraphArea) && Arrays.equals(this.getJuliaSeed(), frame.juliaSeed);
+    }
+
+    /*
+     * Copies the saved frame over every pixel not yet computed. Its samples are marked as computed, with their counts,
+     * if they were coloured with the same iteration budget and colour strategy. Otherwise those whose counts are good
+     * for the current budget are coloured again from them, and the rest of the frame is just a preview.
+     */
+    private void applySavedFrame(SavedFrame frame) {
+        int maxIterations = this.getMaxIterations();
+        EnumColourStrategy colourStrategy = this.fractalStrategy.getColourStrategy();
+        boolean samplesValid = frame.maxIterations == maxIterations && frame.colourStrategy == colourStrategy;
+
+        int restoredSamples = 0;
+        int[] backPixels = this.pixelBuffers.beginWrite();
+        try {
+            for (int y = 0; y < this.viewHeight; y++) {
+                int rowStart = y * this.viewWidth;
+                for (int x = 0; x < this.viewWidth; x++) {
+                    int index = this.pixelBuffers.indexOf(x, y);
+                    if (this.pixelBufferSizes[index] == DEFAULT_PIXEL_SIZE)
+                        continue;
+
+                    backPixels[index] = frame.pixels[rowStart + x];
+                    if (frame.pixelSizes[rowStart + x] != DEFAULT_PIXEL_SIZE)
+                        continue;
+
+                    int count = frame.pixelIterations[rowStart + x];
+                    if (!samplesValid) {
+                        if (!IterationCounts.isKnownAt(count, maxIterations))
+                            continue;
+
+                        backPixels[index] = IterationCounts.colourAt(count, colourStrategy, maxIterations);
+                    }
+
+                    this.pixelBufferSizes[index] = (byte) DEFAULT_PIXEL_SIZE;
+                    this.pixelIterations[index] = count;
+                    restoredSamples++;
+                }
+            }
+        } finally {
+            this.pixelBuffers.publishAll();
+        }
+
+        LOGGER.debug("Restored saved frame, keeping {} of {} samples", restoredSamples, this.viewWidth * this.viewHeight);
+
+        int[] frontPixels = this.pixelBuffers.acquireFront();
+        this.view.setBitmapPixels(frontPixels, this.pixelBuffers.getOriginX(), this.pixelBuffers.getOriginY(), 0, this.viewHeight);
+        this.pixelBuffers.releaseFront(frontPixels);
+        this.view.postUIThreadRedraw();
+    }
+
     // IViewResizeListener
 
     @Override
     public void onViewResized(IFractalView view, int width, int height) {
         this.viewWidth = width;
         this.viewHeight = height;
+        this.setRenderFocus(width / 2.0f, height / 2.0f);
+        this.strategyReady = false;
 
         this.initialisePixelBuffers();
-        this.initialiseStrategy();
-        this.view.createNewFractalBitmap(new int[this.viewWidth * this.viewHeight]);
+        this.bitmapOutput = this.fractalStrategy.supportsBitmapOutput();
+
+        this.createFractalBitmap();
 
         this.coordinatesOverlay.setPosition(this.viewWidth, 48.0f);
 
-        this.sceneDelegate.onFractalViewReady(this);
+        // Shown while the strategy starts up
+        this.frameRestored = false;
+        SavedFrame frame = this.pendingFrame;
+        this.pendingFrame = null;
+        if (frame != null)
+            this.restoreFrame(frame);
+
+        this.initialiseStrategy();
     }
 
     // IFractalPresenterDelegate
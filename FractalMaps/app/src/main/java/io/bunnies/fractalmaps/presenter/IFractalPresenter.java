@@ -2,7 +2,9 @@ package io.bunnies.fractalmaps.presenter;
 
 import android.graphics.Matrix;
 
+import io.bunnies.fractalmaps.compute.EnumPixelFormat;
 import io.bunnies.fractalmaps.compute.strategies.IFractalComputeStrategy;
+import io.bunnies.fractalmaps.settings.saved_state.SavedFrame;
 import io.bunnies.fractalmaps.touch.IFractalTouchHandler;
 import io.bunnies.fractalmaps.view.IFractalView;
 import io.bunnies.fractalmaps.view.IViewResizeListener;
@@ -16,12 +18,18 @@ public interface IFractalPresenter extends IFractalPresenterDelegate {
 
     public void recomputeGraph(int pixelBlockSize);
 
+    public void setRenderFocus(float x, float y);
+
     public void notifyRecomputeComplete(int pixelBlockSize, double timeTakenInSeconds);
 
     public int getMaxIterations();
 
+    public int getMaxIterations(double pixelSize);
+
     public void setFractalDetail(double detail);
 
+    public void setPixelFormat(EnumPixelFormat pixelFormat);
+
     public void setView(IFractalView view, Matrix matrix, IViewResizeListener listener);
 
     public void setTouchHandler(IFractalTouchHandler touchHandler);
@@ -36,6 +44,14 @@ public interface IFractalPresenter extends IFractalPresenterDelegate {
 
     public IFractalComputeStrategy getComputeStrategy();
 
+    // Saved frames
+
+    public SavedFrame saveFrame();
+
+    public void restoreFrame(SavedFrame frame);
+
+    public boolean hasRestoredFrame();
+
     // Graph area affecting
 
     public void translateGraphArea(int dx, int dy);
@@ -3,6 +3,7 @@ package io.bunnies.fractalmaps.settings;
 import android.content.Context;
 import android.content.SharedPreferences;
 import android.preference.PreferenceManager;
+import android.util.Base64;
 
 import com.google.gson.Gson;
 import com.google.gson.JsonSyntaxException;
@@ -10,12 +11,16 @@ import com.google.gson.JsonSyntaxException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+
 import io.bunnies.fractalmaps.IFractalSceneDelegate;
 import io.bunnies.fractalmaps.R;
 import io.bunnies.fractalmaps.colouring.EnumColourStrategy;
+import io.bunnies.fractalmaps.compute.EnumPixelFormat;
 import io.bunnies.fractalmaps.overlay.pin.PinColour;
 import io.bunnies.fractalmaps.settings.saved_state.SavedGraphArea;
 import io.bunnies.fractalmaps.settings.saved_state.SavedJuliaGraph;
+import io.bunnies.fractalmaps.settings.saved_state.SavedLocation;
 
 public class SettingsManager implements SharedPreferences.OnSharedPreferenceChangeListener {
     private final Logger LOGGER = LoggerFactory.getLogger(SettingsManager.class);
@@ -50,10 +55,16 @@ public class SettingsManager implements SharedPreferences.OnSharedPreferenceChan
     private static final String PREFERENCE_KEY_JULIA_COLOUR = "JULIA_COLOURS_V4";
     private static final EnumColourStrategy PREFERENCE_JULIA_COLOUR_DEFAULT = EnumColourStrategy.PURPLE_YELLOW;
 
+    private static final String PREFERENCE_KEY_PIXEL_FORMAT = "PIXEL_FORMAT";
+    private static final EnumPixelFormat PREFERENCE_PIXEL_FORMAT_DEFAULT = EnumPixelFormat.RGB_565;
+
     public static final String PREVIOUS_MAIN_GRAPH_AREA = "prevMainGraphArea";
     public static final String PREVIOUS_LITTLE_GRAPH_AREA = "prevLittleGraphArea";
     public static final String PREVIOUS_JULIA_PARAMS = "prevJuliaParams";
     public final String PREVIOUS_JULIA_GRAPH = "prevJuliaGraph";
+    // Where the fractals were left, as SavedLocations. The Gson keys above are only read, to carry older installs over.
+    public static final String PREVIOUS_MANDELBROT_LOCATION = "prevMandelbrotLocation";
+    public static final String PREVIOUS_JULIA_LOCATION = "prevJuliaLocation";
 
     public static final String PREFERENCE_KEY_MANDELBROT_DETAIL = "MANDELBROT_DETAIL";
     public static final String PREFERENCE_KEY_JULIA_DETAIL = "JULIA_DETAIL";
@@ -97,6 +108,21 @@ public class SettingsManager implements SharedPreferences.OnSharedPreferenceChan
             this.sceneDelegate.onJuliaColourSchemeChanged(colourStrategy, false);
     }
 
+    public void refreshPixelFormatSettings() {
+        this.sceneDelegate.onPixelFormatChanged(this.getPixelFormat());
+    }
+
+    public EnumPixelFormat getPixelFormat() {
+        String preference = this.getDefaultSharedPreferences().getString(PREFERENCE_KEY_PIXEL_FORMAT, PREFERENCE_PIXEL_FORMAT_DEFAULT.name());
+
+        try {
+            return EnumPixelFormat.valueOf(preference);
+        } catch (IllegalArgumentException e) {
+            LOGGER.error("Failed to load pixel format from preference, using default");
+            return PREFERENCE_PIXEL_FORMAT_DEFAULT;
+        }
+    }
+
     private EnumColourStrategy strategyFromPreference(String preference, EnumColourStrategy defaultStrategy) {
         EnumColourStrategy colourStrategy;
 
@@ -114,33 +140,63 @@ public class SettingsManager implements SharedPreferences.OnSharedPreferenceChan
         return colourStrategy;
     }
 
-    public SavedGraphArea getPreviousMandelbrotGraph() {
-        String storedArea = this.getDefaultSharedPreferences().getString(PREVIOUS_MAIN_GRAPH_AREA, "");
-        if (storedArea.isEmpty())
+    public SavedLocation getPreviousMandelbrotLocation() {
+        SavedLocation location = this.loadLocation(PREVIOUS_MANDELBROT_LOCATION);
+        if (location != null)
+            return location;
+
+        return this.loadLegacyLocation(PREVIOUS_MAIN_GRAPH_AREA, SavedGraphArea.class);
+    }
+
+    public void savePreviousMandelbrotLocation(SavedLocation location) {
+        this.saveLocation(PREVIOUS_MANDELBROT_LOCATION, PREVIOUS_MAIN_GRAPH_AREA, location);
+    }
+
+    public SavedLocation getPreviousJuliaLocation() {
+        SavedLocation location = this.loadLocation(PREVIOUS_JULIA_LOCATION);
+        if (location != null)
+            return location;
+
+        return this.loadLegacyLocation(PREVIOUS_JULIA_GRAPH, SavedJuliaGraph.class);
+    }
+
+    public void savePreviousJuliaLocation(SavedLocation location) {
+        this.saveLocation(PREVIOUS_JULIA_LOCATION, PREVIOUS_JULIA_GRAPH, location);
+    }
+
+    private SavedLocation loadLocation(String key) {
+        String storedLocation = this.getDefaultSharedPreferences().getString(key, "");
+        if (storedLocation.isEmpty())
             return null;
-        else
-            return new Gson().fromJson(storedArea, SavedGraphArea.class);
+
+        try {
+            return SavedLocation.fromBytes(Base64.decode(storedLocation, Base64.NO_WRAP));
+        } catch (IOException | IllegalArgumentException e) {
+            LOGGER.error("Failed to load saved location " + key + ", ignoring it", e);
+            return null;
+        }
     }
 
-    public void savePreviousMandelbrotGraph(SavedGraphArea graphArea) {
+    // Once the new format is written the old one is stale, so it goes
+    private void saveLocation(String key, String legacyKey, SavedLocation location) {
         SharedPreferences.Editor editor = this.getDefaultSharedPreferences().edit();
-        editor.putString(PREVIOUS_MAIN_GRAPH_AREA, new Gson().toJson(graphArea));
+        editor.putString(key, Base64.encodeToString(location.toBytes(), Base64.NO_WRAP));
+        editor.remove(legacyKey);
         editor.commit();
     }
 
-    public SavedJuliaGraph getPreviousJuliaGraph() {
-        String storedArea = this.getDefaultSharedPreferences().getString(PREVIOUS_JULIA_GRAPH, "");
+    private SavedLocation loadLegacyLocation(String key, Class<? extends SavedGraphArea> graphClass) {
+        String storedArea = this.getDefaultSharedPreferences().getString(key, "");
         if (storedArea.isEmpty())
             return null;
-        else
-            return new Gson().fromJson(storedArea, SavedJuliaGraph.class);
-    }
 
-    public void savePreviousJuliaGraph(SavedJuliaGraph juliaGraph) {
-        SharedPreferences.Editor editor = this.getDefaultSharedPreferences().edit();
-        String gsonString = new Gson().toJson(juliaGraph);
-        editor.putString(PREVIOUS_JULIA_GRAPH, gsonString);
-        editor.commit();
+        try {
+            SavedGraphArea graphArea = new Gson().fromJson(storedArea, graphClass);
+            return (graphArea != null) ? SavedLocation.fromLegacy(graphArea) : null;
+        } catch (JsonSyntaxException | IllegalArgumentException e) {
+            LOGGER.error("Failed to load old saved graph " + key + ", ignoring it");
+            return null;
+        }
     }
 
     public double getDetailFromPrefs(FractalTypeEnum fractalTypeEnum) {
@@ -218,6 +274,12 @@ public class SettingsManager implements SharedPreferences.OnSharedPreferenceChan
 
             if (colourStrategy != null)
                 this.sceneDelegate.onJuliaColourSchemeChanged(colourStrategy, true);
+        } else if (key.equalsIgnoreCase(PREFERENCE_KEY_PIXEL_FORMAT)) {
+            EnumPixelFormat pixelFormat = this.getPixelFormat();
+
+            LOGGER.info("Pixel format changed to: {}", pixelFormat);
+
+            this.sceneDelegate.onPixelFormatChanged(pixelFormat);
         }
     }
 }
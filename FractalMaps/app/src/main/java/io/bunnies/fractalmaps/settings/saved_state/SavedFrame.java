@@ -0,0 +1,144 @@
+package io.bunnies.fractalmaps.settings.saved_state;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+import io.bunnies.fractalmaps.colouring.EnumColourStrategy;
+
+/*
+ * The last frame a view showed, with what it was rendered over, so the next launch can show it straight
+ * away. Pixels, pixel sizes and iteration counts (as in IterationCounts) are in plain row order. The file
+ * is a small header followed by the deflated pixels, pixel sizes and counts; fractals have big flat areas,
+ * so this comes out far smaller than the raw buffers.
+ */
+public class SavedFrame {
+    private static final int MAGIC = 0x46524D45;
+    private static final int VERSION = 2;
+
+    public final int width;
+    public final int height;
+    public final double[] graphArea;
+    public final double[] juliaSeed;
+    public final int maxIterations;
+    public final EnumColourStrategy colourStrategy;
+    public final int[] pixels;
+    public final byte[] pixelSizes;
+    public final int[] pixelIterations;
+
+    public SavedFrame(int width, int height, double[] graphArea, double[] juliaSeed, int maxIterations,
+                      EnumColourStrategy colourStrategy, int[] pixels, byte[] pixelSizes, int[] pixelIterations) {
+        this.width = width;
+        this.height = height;
+        this.graphArea = graphArea;
+        this.juliaSeed = juliaSeed;
+        this.maxIterations = maxIterations;
+        this.colourStrategy = colourStrategy;
+        this.pixels = pixels;
+        this.pixelSizes = pixelSizes;
+        this.pixelIterations = pixelIterations;
+    }
+
+    // Written to a temporary file first, so a crash part way through leaves the last frame alone
+    public void writeTo(File file) throws IOException {
+        File temporaryFile = new File(file.getPath() + ".tmp");
+
+        FileOutputStream fileStream = new FileOutputStream(temporaryFile);
+        try {
+            DataOutputStream header = new DataOutputStream(fileStream);
+            header.writeInt(MAGIC);
+            header.writeInt(VERSION);
+            header.writeInt(this.width);
+            header.writeInt(this.height);
+            for (double value : this.graphArea) {
+                header.writeDouble(value);
+            }
+            header.writeDouble(this.juliaSeed[0]);
+            header.writeDouble(this.juliaSeed[1]);
+            header.writeInt(this.maxIterations);
+            header.writeInt((this.colourStrategy != null) ? this.colourStrategy.ordinal() : -1);
+
+            Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+            DeflaterOutputStream body = new DeflaterOutputStream(new BufferedOutputStream(fileStream), deflater);
+            try {
+                byte[] row = new byte[this.width * 4];
+                writeRows(body, this.pixels, row, this.width, this.height);
+                body.write(this.pixelSizes);
+                writeRows(body, this.pixelIterations, row, this.width, this.height);
+                body.finish();
+                body.flush();
+                fileStream.getFD().sync();
+            } finally {
+                deflater.end();
+            }
+        } finally {
+            fileStream.close();
+        }
+
+        if (!temporaryFile.renameTo(file))
+            throw new IOException("Couldn't replace " + file);
+    }
+
+    public static SavedFrame readFrom(File file) throws IOException {
+        FileInputStream fileStream = new FileInputStream(file);
+        try {
+            DataInputStream header = new DataInputStream(fileStream);
+            if (header.readInt() != MAGIC || header.readInt() != VERSION)
+                throw new IOException("Not a saved frame: " + file);
+
+            int width = header.readInt();
+            int height = header.readInt();
+            if (width <= 0 || height <= 0 || (long) width * height > Integer.MAX_VALUE / 4)
+                throw new IOException("Bad frame size " + width + "x" + height);
+
+            double[] graphArea = {header.readDouble(), header.readDouble(), header.readDouble()};
+            double[] juliaSeed = {header.readDouble(), header.readDouble()};
+            int maxIterations = header.readInt();
+            int colourStrategy = header.readInt();
+
+            EnumColourStrategy[] colourStrategies = EnumColourStrategy.values();
+            if (colourStrategy < -1 || colourStrategy >= colourStrategies.length)
+                throw new IOException("Unknown colour strategy " + colourStrategy);
+
+            DataInputStream body = new DataInputStream(new InflaterInputStream(new BufferedInputStream(fileStream)));
+            byte[] row = new byte[width * 4];
+            int[] pixels = readRows(body, row, width, height);
+
+            byte[] pixelSizes = new byte[width * height];
+            body.readFully(pixelSizes);
+
+            int[] pixelIterations = readRows(body, row, width, height);
+
+            return new SavedFrame(width, height, graphArea, juliaSeed, maxIterations,
+                    (colourStrategy >= 0) ? colourStrategies[colourStrategy] : null, pixels, pixelSizes, pixelIterations);
+        } finally {
+            fileStream.close();
+        }
+    }
+
+    private static void writeRows(DeflaterOutputStream body, int[] values, byte[] row, int width, int height) throws IOException {
+        for (int y = 0; y < height; y++) {
+            ByteBuffer.wrap(row).asIntBuffer().put(values, y * width, width);
+            body.write(row);
+        }
+    }
+
+    private static int[] readRows(DataInputStream body, byte[] row, int width, int height) throws IOException {
+        int[] values = new int[width * height];
+        for (int y = 0; y < height; y++) {
+            body.readFully(row);
+            ByteBuffer.wrap(row).asIntBuffer().get(values, y * width, width);
+        }
+
+        return values;
+    }
+}
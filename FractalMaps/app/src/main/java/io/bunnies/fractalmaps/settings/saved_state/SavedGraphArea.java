@@ -1,5 +1,8 @@
 package io.bunnies.fractalmaps.settings.saved_state;
 
+/*
+ * How the Mandelbrot view was saved before SavedLocation, as Gson. Only read now, to carry it over.
+ */
 public class SavedGraphArea {
     public double graphX;
     public double graphY;
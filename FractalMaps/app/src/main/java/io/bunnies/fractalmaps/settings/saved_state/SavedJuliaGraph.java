@@ -1,5 +1,8 @@
 package io.bunnies.fractalmaps.settings.saved_state;
 
+/*
+ * How the Julia view was saved before SavedLocation, as Gson. Only read now, to carry it over.
+ */
 public class SavedJuliaGraph extends SavedGraphArea {
     public double juliaSeedX;
     public double juliaSeedY;
@@ -0,0 +1,216 @@
+package io.bunnies.fractalmaps.settings.saved_state;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+
+import io.bunnies.fractalmaps.settings.FractalTypeEnum;
+
+/*
+ * A place in a fractal, kept exactly however deep it is. The corner and the Julia seed are BigDecimals, so
+ * nothing is lost to a double, and the view's width is a binary exponent and a mantissa in [1, 2), so the
+ * zoom can go past where a double runs out of exponent. It also keeps the iteration budget it was viewed
+ * with, and optionally a small PNG of it.
+ *
+ * The binary form is a version, then each field in turn. A BigDecimal is its scale then its unscaled
+ * value's two's complement bytes, and the Julia seed and thumbnail are each preceded by whether they're there:
+ *
+ *   int magic, int version, int fractal type, decimal xMin, decimal yMax, int width exponent,
+ *   double width mantissa, boolean has seed, [decimal seed x, decimal seed y], int max iterations,
+ *   boolean has thumbnail, [int length, the PNG]
+ */
+public class SavedLocation {
+    private static final int MAGIC = 0x464C4F43;
+    private static final int VERSION = 1;
+
+    // Far bigger than any real coordinate or thumbnail, to stop a corrupt length allocating the heap away
+    private static final int MAX_DECIMAL_BYTES = 64 * 1024;
+    private static final int MAX_THUMBNAIL_BYTES = 4 * 1024 * 1024;
+
+    public final FractalTypeEnum fractalType;
+    public final BigDecimal xMin;
+    public final BigDecimal yMax;
+    // The graph width is zoomMantissa * 2^zoomExponent
+    public final int zoomExponent;
+    public final double zoomMantissa;
+    // Both null for the Mandelbrot set
+    public final BigDecimal juliaSeedX;
+    public final BigDecimal juliaSeedY;
+    public final int maxIterations;
+    // A PNG, or null
+    public final byte[] thumbnail;
+
+    public SavedLocation(FractalTypeEnum fractalType, BigDecimal xMin, BigDecimal yMax, int zoomExponent, double zoomMantissa,
+                         BigDecimal juliaSeedX, BigDecimal juliaSeedY, int maxIterations, byte[] thumbnail) {
+        if (!(zoomMantissa >= 1 && zoomMantissa < 2))
+            throw new IllegalArgumentException("Zoom mantissa " + zoomMantissa + " isn't in [1, 2)");
+
+        if ((juliaSeedX == null) != (juliaSeedY == null))
+            throw new IllegalArgumentException("A Julia seed needs both parts");
+
+        this.fractalType = fractalType;
+        this.xMin = xMin;
+        this.yMax = yMax;
+        this.zoomExponent = zoomExponent;
+        this.zoomMantissa = zoomMantissa;
+        this.juliaSeedX = juliaSeedX;
+        this.juliaSeedY = juliaSeedY;
+        this.maxIterations = maxIterations;
+        this.thumbnail = thumbnail;
+    }
+
+    // graphArea is {xMin, yMax, width} as in the presenters. juliaSeed can be null.
+    public static SavedLocation fromGraphArea(FractalTypeEnum fractalType, double[] graphArea, double[] juliaSeed,
+                                              int maxIterations, byte[] thumbnail) {
+        double width = graphArea[2];
+        if (!(width > 0) || Double.isInfinite(width))
+            throw new IllegalArgumentException("Graph width " + width + " can't be saved");
+
+        // Subnormal widths have no leading one, so normalise them by hand
+        int exponent = Math.getExponent(width);
+        if (exponent < Double.MIN_EXPONENT)
+            exponent = Math.getExponent(width * 0x1p64) - 64;
+
+        return new SavedLocation(fractalType,
+                BigDecimal.valueOf(graphArea[0]),
+                BigDecimal.valueOf(graphArea[1]),
+                exponent,
+                Math.scalb(width, -exponent),
+                (juliaSeed != null) ? BigDecimal.valueOf(juliaSeed[0]) : null,
+                (juliaSeed != null) ? BigDecimal.valueOf(juliaSeed[1]) : null,
+                maxIterations,
+                thumbnail);
+    }
+
+    // From the Gson form that was saved before this one, which didn't keep the budget
+    public static SavedLocation fromLegacy(SavedGraphArea graphArea) {
+        double[] juliaSeed = null;
+        FractalTypeEnum fractalType = FractalTypeEnum.MANDELBROT;
+        if (graphArea instanceof SavedJuliaGraph) {
+            SavedJuliaGraph juliaGraph = (SavedJuliaGraph) graphArea;
+            juliaSeed = new double[]{juliaGraph.juliaSeedX, juliaGraph.juliaSeedY};
+            fractalType = FractalTypeEnum.JULIA;
+        }
+
+        return fromGraphArea(fractalType, new double[]{graphArea.graphX, graphArea.graphY, graphArea.graphZ}, juliaSeed, 0, null);
+    }
+
+    public double getGraphWidth() {
+        return Math.scalb(this.zoomMantissa, this.zoomExponent);
+    }
+
+    // As doubles, for the presenters, so only as exact as they are
+    public double[] getGraphArea() {
+        return new double[]{this.xMin.doubleValue(), this.yMax.doubleValue(), this.getGraphWidth()};
+    }
+
+    // As doubles, or null if there's no seed
+    public double[] getJuliaSeed() {
+        if (this.juliaSeedX == null)
+            return null;
+
+        return new double[]{this.juliaSeedX.doubleValue(), this.juliaSeedY.doubleValue()};
+    }
+
+    public byte[] toBytes() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream output = new DataOutputStream(bytes);
+
+        try {
+            output.writeInt(MAGIC);
+            output.writeInt(VERSION);
+            output.writeInt(this.fractalType.ordinal());
+            writeDecimal(output, this.xMin);
+            writeDecimal(output, this.yMax);
+            output.writeInt(this.zoomExponent);
+            output.writeDouble(this.zoomMantissa);
+
+            output.writeBoolean(this.juliaSeedX != null);
+            if (this.juliaSeedX != null) {
+                writeDecimal(output, this.juliaSeedX);
+                writeDecimal(output, this.juliaSeedY);
+            }
+
+            output.writeInt(this.maxIterations);
+
+            output.writeBoolean(this.thumbnail != null);
+            if (this.thumbnail != null) {
+                output.writeInt(this.thumbnail.length);
+                output.write(this.thumbnail);
+            }
+
+            output.flush();
+        } catch (IOException e) {
+            // Nothing here can fail writing to memory
+            throw new IllegalStateException(e);
+        }
+
+        return bytes.toByteArray();
+    }
+
+    public static SavedLocation fromBytes(byte[] bytes) throws IOException {
+        DataInputStream input = new DataInputStream(new ByteArrayInputStream(bytes));
+        if (input.readInt() != MAGIC)
+            throw new IOException("Not a saved location");
+
+        int version = input.readInt();
+        if (version != VERSION)
+            throw new IOException("Unknown saved location version " + version);
+
+        int fractalType = input.readInt();
+        FractalTypeEnum[] fractalTypes = FractalTypeEnum.values();
+        if (fractalType < 0 || fractalType >= fractalTypes.length)
+            throw new IOException("Unknown fractal type " + fractalType);
+
+        BigDecimal xMin = readDecimal(input);
+        BigDecimal yMax = readDecimal(input);
+        int zoomExponent = input.readInt();
+        double zoomMantissa = input.readDouble();
+        if (!(zoomMantissa >= 1 && zoomMantissa < 2))
+            throw new IOException("Bad zoom mantissa " + zoomMantissa);
+
+        BigDecimal juliaSeedX = null;
+        BigDecimal juliaSeedY = null;
+        if (input.readBoolean()) {
+            juliaSeedX = readDecimal(input);
+            juliaSeedY = readDecimal(input);
+        }
+
+        int maxIterations = input.readInt();
+
+        byte[] thumbnail = null;
+        if (input.readBoolean()) {
+            int length = input.readInt();
+            if (length < 0 || length > MAX_THUMBNAIL_BYTES)
+                throw new IOException("Bad thumbnail length " + length);
+
+            thumbnail = new byte[length];
+            input.readFully(thumbnail);
+        }
+
+        return new SavedLocation(fractalTypes[fractalType], xMin, yMax, zoomExponent, zoomMantissa, juliaSeedX, juliaSeedY,
+                maxIterations, thumbnail);
+    }
+
+    private static void writeDecimal(DataOutputStream output, BigDecimal value) throws IOException {
+        byte[] unscaled = value.unscaledValue().toByteArray();
+        output.writeInt(value.scale());
+        output.writeInt(unscaled.length);
+        output.write(unscaled);
+    }
+
+    private static BigDecimal readDecimal(DataInputStream input) throws IOException {
+        int scale = input.readInt();
+        int length = input.readInt();
+        if (length <= 0 || length > MAX_DECIMAL_BYTES)
+            throw new IOException("Bad decimal length " + length);
+
+        byte[] unscaled = new byte[length];
+        input.readFully(unscaled);
+        return new BigDecimal(new BigInteger(unscaled), scale);
+    }
+}
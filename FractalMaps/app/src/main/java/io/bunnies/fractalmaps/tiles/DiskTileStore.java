@@ -0,0 +1,443 @@
+package io.bunnies.fractalmaps.tiles;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+import io.bunnies.fractalmaps.colouring.EnumColourStrategy;
+import io.bunnies.fractalmaps.settings.FractalTypeEnum;
+
+/*
+ * Finished tiles on disk, so they outlive the activity. Tiles live in fixed-size slots in segment files
+ * that are memory-mapped, and an index file maps each tile's key to its slot in least recently used order.
+ * Once the store is full, the least recently used tile's slot is reused.
+ *
+ * Every slot starts with a header holding its key and a checksum of its pixels, and the header's magic
+ * number is written last. A slot is only trusted if its header matches the key being looked up and its
+ * pixels match the checksum. A crash part way through a write, or an index that's out of date, just
+ * loses those tiles. The index is written to a temporary file and renamed over the old one.
+ */
+public class DiskTileStore {
+    private static final Logger LOGGER = LoggerFactory.getLogger(DiskTileStore.class);
+
+    private static final int SLOT_MAGIC = 0x54494C45;
+    private static final int INDEX_MAGIC = 0x54494458;
+    private static final int INDEX_VERSION = 1;
+
+    // Fractal type, Julia seed, scale, level, tile x and y, iteration budget and colour strategy
+    private static final int KEY_BYTES = 4 + 8 + 8 + 8 + 4 + 8 + 8 + 4 + 4;
+    // Magic number, checksum, then the key
+    static final int HEADER_BYTES = 64;
+    static final int SLOT_BYTES = HEADER_BYTES + TileCache.TILE_BYTES;
+    private static final int SLOTS_PER_SEGMENT = 32;
+
+    private static final String INDEX_FILE = "index";
+    private static final String SEGMENT_PREFIX = "segment-";
+
+    private final File directory;
+    private final int maxSlots;
+
+    private final LinkedHashMap<TileKey, Integer> index = new LinkedHashMap<>(64, 0.75f, true);
+    private final List<MappedByteBuffer> segments = new ArrayList<>();
+    private final ArrayDeque<Integer> freeSlots = new ArrayDeque<>();
+    private int nextUnusedSlot = 0;
+    private boolean indexChanged = false;
+
+    // Scratch space for one slot's key and pixels
+    private final byte[] keyBytes = new byte[KEY_BYTES];
+    private final byte[] slotKeyBytes = new byte[KEY_BYTES];
+    private final byte[] pixelBytes = new byte[TileCache.TILE_BYTES];
+    private final CRC32 checksum = new CRC32();
+
+    private long hits = 0;
+    private long misses = 0;
+    private long writtenTiles = 0;
+    private long evictedTiles = 0;
+    private long corruptTiles = 0;
+
+    public DiskTileStore(File directory, long maxBytes) {
+        this.directory = directory;
+        this.maxSlots = (int) Math.max(1, Math.min(Integer.MAX_VALUE, maxBytes / SLOT_BYTES));
+
+        if (!directory.isDirectory() && !directory.mkdirs())
+            LOGGER.warn("Couldn't create tile store at {}", directory);
+
+        this.open();
+    }
+
+    public synchronized int[] read(TileKey key) {
+        Integer slot = this.index.get(key);
+        if (slot == null) {
+            this.misses++;
+            return null;
+        }
+
+        ByteBuffer buffer = this.slotBuffer(slot);
+        if (buffer == null || !this.slotHolds(buffer, key) || !this.readPixels(buffer)) {
+            LOGGER.warn("Dropping corrupt tile {}", key);
+            this.index.remove(key);
+            this.freeSlots.add(slot);
+            this.indexChanged = true;
+
+            this.corruptTiles++;
+            this.misses++;
+            return null;
+        }
+
+        int[] tile = new int[TilePyramid.TILE_SIZE * TilePyramid.TILE_SIZE];
+        ByteBuffer.wrap(this.pixelBytes).asIntBuffer().get(tile);
+
+        this.hits++;
+        return tile;
+    }
+
+    public synchronized boolean contains(TileKey key) {
+        return this.index.containsKey(key);
+    }
+
+    public synchronized void write(TileKey key, int[] tile) {
+        if (this.index.containsKey(key))
+            return;
+
+        Integer slot = this.allocateSlot();
+        ByteBuffer buffer = (slot != null) ? this.slotBuffer(slot) : null;
+        if (buffer == null)
+            return;
+
+        // Invalidate the slot first, so it can't be trusted until the new header goes in
+        buffer.putInt(0, 0);
+
+        ByteBuffer.wrap(this.pixelBytes).asIntBuffer().put(tile);
+        this.checksum.reset();
+        this.checksum.update(this.pixelBytes, 0, this.pixelBytes.length);
+
+        buffer.position(HEADER_BYTES);
+        buffer.put(this.pixelBytes);
+
+        encodeKey(key, this.keyBytes);
+        buffer.position(8);
+        buffer.put(this.keyBytes);
+        buffer.putInt(4, (int) this.checksum.getValue());
+        buffer.putInt(0, SLOT_MAGIC);
+
+        this.index.put(key, slot);
+        this.indexChanged = true;
+        this.writtenTiles++;
+    }
+
+    // Writes the segments and the index out to disk, e.g. when the app goes into the background
+    public synchronized void flush() {
+        // Segments that were never mapped, or failed to map, are left as nulls
+        for (MappedByteBuffer segment : this.segments) {
+            if (segment != null)
+                segment.force();
+        }
+
+        if (!this.indexChanged)
+            return;
+
+        File indexFile = new File(this.directory, INDEX_FILE);
+        File temporaryFile = new File(this.directory, INDEX_FILE + ".tmp");
+
+        FileOutputStream fileStream = null;
+        try {
+            fileStream = new FileOutputStream(temporaryFile);
+            DataOutputStream output = new DataOutputStream(new BufferedOutputStream(fileStream));
+            output.writeInt(INDEX_MAGIC);
+            output.writeInt(INDEX_VERSION);
+            output.writeInt(SLOT_BYTES);
+            output.writeInt(this.index.size());
+
+            // Least recently used first, so loading them in order brings back the same order
+            for (Map.Entry<TileKey, Integer> entry : this.index.entrySet()) {
+                encodeKey(entry.getKey(), this.keyBytes);
+                output.write(this.keyBytes);
+                output.writeInt(entry.getValue());
+            }
+
+            output.flush();
+            fileStream.getFD().sync();
+            output.close();
+            fileStream = null;
+
+            if (!temporaryFile.renameTo(indexFile))
+                throw new IOException("Couldn't replace " + indexFile);
+
+            this.indexChanged = false;
+        } catch (IOException e) {
+            LOGGER.warn("Failed to write tile index: {}", e.getMessage());
+        } finally {
+            closeQuietly(fileStream);
+        }
+    }
+
+    public synchronized int size() {
+        return this.index.size();
+    }
+
+    public synchronized long getHitCount() {
+        return this.hits;
+    }
+
+    public synchronized long getMissCount() {
+        return this.misses;
+    }
+
+    public synchronized long getWrittenTileCount() {
+        return this.writtenTiles;
+    }
+
+    public synchronized long getEvictedTileCount() {
+        return this.evictedTiles;
+    }
+
+    public synchronized long getCorruptTileCount() {
+        return this.corruptTiles;
+    }
+
+    private void open() {
+        File[] segmentFiles = this.directory.listFiles();
+        int segmentCount = 0;
+        if (segmentFiles != null) {
+            for (File file : segmentFiles) {
+                if (file.getName().startsWith(SEGMENT_PREFIX))
+                    segmentCount++;
+            }
+        }
+
+        // Only whole, numbered segments from 0 are kept, and never more than fit in the store now
+        int usableSegments = 0;
+        while (usableSegments < segmentCount && (usableSegments * SLOTS_PER_SEGMENT) < this.maxSlots
+                && this.segmentFile(usableSegments).length() == (long) SLOTS_PER_SEGMENT * SLOT_BYTES) {
+            usableSegments++;
+        }
+        this.nextUnusedSlot = Math.min(usableSegments * SLOTS_PER_SEGMENT, this.maxSlots);
+
+        if (!this.loadIndex())
+            this.rebuildIndex();
+
+        boolean[] usedSlots = new boolean[this.nextUnusedSlot];
+        for (int slot : this.index.values()) {
+            usedSlots[slot] = true;
+        }
+
+        for (int slot = 0; slot < this.nextUnusedSlot; slot++) {
+            if (!usedSlots[slot])
+                this.freeSlots.add(slot);
+        }
+
+        LOGGER.debug("Opened tile store with {} tiles in {} slots", this.index.size(), this.nextUnusedSlot);
+    }
+
+    private boolean loadIndex() {
+        File indexFile = new File(this.directory, INDEX_FILE);
+        if (!indexFile.isFile())
+            return false;
+
+        FileInputStream fileStream = null;
+        try {
+            fileStream = new FileInputStream(indexFile);
+            DataInputStream input = new DataInputStream(new BufferedInputStream(fileStream));
+            if (input.readInt() != INDEX_MAGIC || input.readInt() != INDEX_VERSION || input.readInt() != SLOT_BYTES)
+                return false;
+
+            boolean[] seenSlots = new boolean[this.nextUnusedSlot];
+            int entries = input.readInt();
+            for (int i = 0; i < entries; i++) {
+                input.readFully(this.keyBytes);
+                int slot = input.readInt();
+
+                // Slots past the end of the store, or that turn up twice, can't be trusted
+                if (slot < 0 || slot >= this.nextUnusedSlot || seenSlots[slot])
+                    continue;
+
+                TileKey key = decodeKey(this.keyBytes);
+                if (key != null) {
+                    this.index.put(key, slot);
+                    seenSlots[slot] = true;
+                }
+            }
+
+            return true;
+        } catch (IOException e) {
+            LOGGER.warn("Failed to read tile index, rebuilding it: {}", e.getMessage());
+            this.index.clear();
+            return false;
+        } finally {
+            closeQuietly(fileStream);
+        }
+    }
+
+    // Finds every slot with a header in it, for when the index is missing or broken. Pixels are checked when they're read.
+    private void rebuildIndex() {
+        for (int slot = 0; slot < this.nextUnusedSlot; slot++) {
+            ByteBuffer buffer = this.slotBuffer(slot);
+            if (buffer == null || buffer.getInt(0) != SLOT_MAGIC)
+                continue;
+
+            buffer.position(8);
+            buffer.get(this.keyBytes);
+
+            TileKey key = decodeKey(this.keyBytes);
+            if (key != null)
+                this.index.put(key, slot);
+        }
+
+        this.indexChanged = true;
+        LOGGER.debug("Rebuilt tile index, found {} tiles", this.index.size());
+    }
+
+    private Integer allocateSlot() {
+        Integer slot = this.freeSlots.pollFirst();
+        if (slot != null)
+            return slot;
+
+        if (this.nextUnusedSlot < this.maxSlots)
+            return this.nextUnusedSlot++;
+
+        Iterator<Map.Entry<TileKey, Integer>> eldest = this.index.entrySet().iterator();
+        if (!eldest.hasNext())
+            return null;
+
+        slot = eldest.next().getValue();
+        eldest.remove();
+        this.evictedTiles++;
+
+        return slot;
+    }
+
+    // The slot, as a buffer with its own position, mapping its segment first if need be
+    private ByteBuffer slotBuffer(int slot) {
+        int segmentNumber = slot / SLOTS_PER_SEGMENT;
+        MappedByteBuffer segment = this.mapSegment(segmentNumber);
+        if (segment == null)
+            return null;
+
+        ByteBuffer buffer = segment.duplicate();
+        int offset = (slot % SLOTS_PER_SEGMENT) * SLOT_BYTES;
+        buffer.position(offset);
+        buffer.limit(offset + SLOT_BYTES);
+
+        return buffer.slice();
+    }
+
+    private MappedByteBuffer mapSegment(int segmentNumber) {
+        while (this.segments.size() <= segmentNumber) {
+            this.segments.add(null);
+        }
+
+        MappedByteBuffer segment = this.segments.get(segmentNumber);
+        if (segment != null)
+            return segment;
+
+        RandomAccessFile file = null;
+        try {
+            long segmentBytes = (long) SLOTS_PER_SEGMENT * SLOT_BYTES;
+            file = new RandomAccessFile(this.segmentFile(segmentNumber), "rw");
+            if (file.length() != segmentBytes)
+                file.setLength(segmentBytes);
+
+            segment = file.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes);
+            this.segments.set(segmentNumber, segment);
+            return segment;
+        } catch (IOException e) {
+            LOGGER.warn("Failed to map tile segment {}: {}", segmentNumber, e.getMessage());
+            return null;
+        } finally {
+            closeQuietly(file);
+        }
+    }
+
+    private File segmentFile(int segmentNumber) {
+        return new File(this.directory, SEGMENT_PREFIX + segmentNumber);
+    }
+
+    private boolean slotHolds(ByteBuffer buffer, TileKey key) {
+        if (buffer.getInt(0) != SLOT_MAGIC)
+            return false;
+
+        encodeKey(key, this.keyBytes);
+        buffer.position(8);
+        buffer.get(this.slotKeyBytes);
+
+        return Arrays.equals(this.keyBytes, this.slotKeyBytes);
+    }
+
+    // Reads the slot's pixels into pixelBytes, returning whether they match its checksum
+    private boolean readPixels(ByteBuffer buffer) {
+        buffer.position(HEADER_BYTES);
+        buffer.get(this.pixelBytes);
+
+        this.checksum.reset();
+        this.checksum.update(this.pixelBytes, 0, this.pixelBytes.length);
+
+        return buffer.getInt(4) == (int) this.checksum.getValue();
+    }
+
+    static void encodeKey(TileKey key, byte[] bytes) {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        buffer.putInt(key.fractalType.ordinal());
+        buffer.putDouble(key.juliaX);
+        buffer.putDouble(key.juliaY);
+        buffer.putLong(key.scale);
+        buffer.putInt(key.level);
+        buffer.putLong(key.tileX);
+        buffer.putLong(key.tileY);
+        buffer.putInt(key.maxIterations);
+        buffer.putInt((key.colourStrategy != null) ? key.colourStrategy.ordinal() : -1);
+    }
+
+    // The key written by encodeKey(), or null if it names a fractal type or colour strategy that no longer exists
+    static TileKey decodeKey(byte[] bytes) {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        int fractalType = buffer.getInt();
+        double juliaX = buffer.getDouble();
+        double juliaY = buffer.getDouble();
+        long scale = buffer.getLong();
+        int level = buffer.getInt();
+        long tileX = buffer.getLong();
+        long tileY = buffer.getLong();
+        int maxIterations = buffer.getInt();
+        int colourStrategy = buffer.getInt();
+
+        FractalTypeEnum[] fractalTypes = FractalTypeEnum.values();
+        EnumColourStrategy[] colourStrategies = EnumColourStrategy.values();
+        if (fractalType < 0 || fractalType >= fractalTypes.length || colourStrategy < -1 || colourStrategy >= colourStrategies.length)
+            return null;
+
+        return new TileKey(fractalTypes[fractalType], juliaX, juliaY, scale, level, tileX, tileY, maxIterations,
+                (colourStrategy >= 0) ? colourStrategies[colourStrategy] : null);
+    }
+
+    private static void closeQuietly(Closeable closeable) {
+        if (closeable == null)
+            return;
+
+        try {
+            closeable.close();
+        } catch (IOException e) {
+            LOGGER.warn("Failed to close tile store file: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,241 @@
+package io.bunnies.fractalmaps.tiles;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import java.io.File;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/*
+ * Finished tiles, kept in memory so that going back over ground the view has already covered doesn't mean
+ * computing it again. Tiles are dropped least recently used first once they go over the memory budget.
+ *
+ * Tiles are never written once they're in the cache, so whoever gets one can read it without holding a lock.
+ *
+ * With a DiskTileStore behind it, every tile put in is written through to disk as well, and tiles that
+ * aren't in memory are looked for on disk before giving up. The UI thread only ever looks in memory, and
+ * has the store opened, flushed and read on the disk executor, one job at a time.
+ */
+public class TileCache {
+    // A few screens' worth of tiles
+    private static final long DEFAULT_MAX_BYTES = 16L * 1024 * 1024;
+
+    public static final int TILE_BYTES = TilePyramid.TILE_SIZE * TilePyramid.TILE_SIZE * 4;
+
+    private static TileCache sharedCache;
+
+    private final long maxBytes;
+    private final LinkedHashMap<TileKey, int[]> tiles = new LinkedHashMap<>(64, 0.75f, true);
+
+    private DiskTileStore diskStore;
+    private final Executor diskExecutor;
+    private final Executor uiExecutor;
+
+    private long hits = 0;
+    private long misses = 0;
+    private long diskHits = 0;
+    private long storedTiles = 0;
+    private long evictedTiles = 0;
+
+    public static synchronized TileCache getSharedCache() {
+        if (sharedCache == null) {
+            final Handler mainHandler = new Handler(Looper.getMainLooper());
+            Executor uiExecutor = new Executor() {
+                @Override
+                public void execute(Runnable command) {
+                    mainHandler.post(command);
+                }
+            };
+
+            sharedCache = new TileCache(DEFAULT_MAX_BYTES, Executors.newSingleThreadExecutor(new DiskThreadFactory()), uiExecutor);
+        }
+
+        return sharedCache;
+    }
+
+    // Disk work runs on whichever thread asks for it
+    public TileCache(long maxBytes) {
+        this(maxBytes, new DirectExecutor(), new DirectExecutor());
+    }
+
+    public TileCache(long maxBytes, Executor diskExecutor, Executor uiExecutor) {
+        this.maxBytes = maxBytes;
+        this.diskExecutor = diskExecutor;
+        this.uiExecutor = uiExecutor;
+    }
+
+    // Opens the store on the disk executor, unless there already is one. Until then, tiles are only kept in memory.
+    public void openDiskStore(final File directory, final long maxBytes) {
+        this.diskExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                if (getDiskStore() == null)
+                    setDiskStore(new DiskTileStore(directory, maxBytes));
+            }
+        });
+    }
+
+    public void flushDiskStore() {
+        this.diskExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                DiskTileStore diskStore = getDiskStore();
+                if (diskStore != null)
+                    diskStore.flush();
+            }
+        });
+    }
+
+    public synchronized void setDiskStore(DiskTileStore diskStore) {
+        this.diskStore = diskStore;
+    }
+
+    public synchronized DiskTileStore getDiskStore() {
+        return this.diskStore;
+    }
+
+    // Never touches the disk, so safe on the UI thread. Returns null if the tile isn't in memory.
+    public synchronized int[] getFromMemory(TileKey key) {
+        int[] tile = this.tiles.get(key);
+        if (tile != null)
+            this.hits++;
+
+        return tile;
+    }
+
+    /*
+     * Brings any of the tiles that are on disk into memory, on the disk executor, then runs onLoaded on the
+     * UI executor if it found any. Tiles already in memory are left alone.
+     */
+    public void loadFromDisk(final List<TileKey> keys, final Runnable onLoaded) {
+        this.diskExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                boolean loadedAny = false;
+                for (TileKey key : keys) {
+                    if (get(key) != null)
+                        loadedAny = true;
+                }
+
+                if (loadedAny)
+                    uiExecutor.execute(onLoaded);
+            }
+        });
+    }
+
+    // Reads the disk on the calling thread, so not for the UI thread
+    public int[] get(TileKey key) {
+        DiskTileStore diskStore;
+        synchronized (this) {
+            int[] tile = this.tiles.get(key);
+            if (tile != null) {
+                this.hits++;
+                return tile;
+            }
+
+            diskStore = this.diskStore;
+        }
+
+        // Off the lock, so the other view isn't held up by the disk
+        int[] tile = (diskStore != null) ? diskStore.read(key) : null;
+
+        synchronized (this) {
+            if (tile == null) {
+                this.misses++;
+                return null;
+            }
+
+            this.hits++;
+            this.diskHits++;
+            this.keep(key, tile);
+            return tile;
+        }
+    }
+
+    // Doesn't count as a use of the tile
+    public synchronized boolean contains(TileKey key) {
+        return this.tiles.containsKey(key) || (this.diskStore != null && this.diskStore.contains(key));
+    }
+
+    // Written through to disk on the disk executor, so a render worker putting its tiles isn't held up by the disk
+    public void put(final TileKey key, final int[] tile) {
+        synchronized (this) {
+            this.keep(key, tile);
+            this.storedTiles++;
+        }
+
+        this.diskExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                DiskTileStore diskStore = getDiskStore();
+                if (diskStore != null)
+                    diskStore.write(key, tile);
+            }
+        });
+    }
+
+    private void keep(TileKey key, int[] tile) {
+        this.tiles.put(key, tile);
+
+        Iterator<Map.Entry<TileKey, int[]>> eldest = this.tiles.entrySet().iterator();
+        while (this.getBytes() > this.maxBytes && eldest.hasNext()) {
+            eldest.next();
+            eldest.remove();
+            this.evictedTiles++;
+        }
+    }
+
+    public synchronized void clear() {
+        this.tiles.clear();
+    }
+
+    public synchronized int size() {
+        return this.tiles.size();
+    }
+
+    public synchronized long getBytes() {
+        return (long) this.tiles.size() * TILE_BYTES;
+    }
+
+    public synchronized long getHitCount() {
+        return this.hits;
+    }
+
+    public synchronized long getMissCount() {
+        return this.misses;
+    }
+
+    public synchronized long getDiskHitCount() {
+        return this.diskHits;
+    }
+
+    public synchronized long getStoredTileCount() {
+        return this.storedTiles;
+    }
+
+    public synchronized long getEvictedTileCount() {
+        return this.evictedTiles;
+    }
+
+    private static class DirectExecutor implements Executor {
+        @Override
+        public void execute(Runnable command) {
+            command.run();
+        }
+    }
+
+    private static class DiskThreadFactory implements ThreadFactory {
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "TileStoreDisk");
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package io.bunnies.fractalmaps.tiles;
+
+import io.bunnies.fractalmaps.colouring.EnumColourStrategy;
+import io.bunnies.fractalmaps.settings.FractalTypeEnum;
+
+/*
+ * Everything that decides what a tile looks like: which fractal (and Julia seed, zero for the Mandelbrot
+ * set), where the tile is on which pyramid, the iteration budget and the colouring.
+ */
+public class TileKey {
+    public final FractalTypeEnum fractalType;
+    public final double juliaX;
+    public final double juliaY;
+    public final long scale;
+    public final int level;
+    public final long tileX;
+    public final long tileY;
+    public final int maxIterations;
+    public final EnumColourStrategy colourStrategy;
+
+    public TileKey(FractalTypeEnum fractalType, double juliaX, double juliaY, long scale, int level,
+                   long tileX, long tileY, int maxIterations, EnumColourStrategy colourStrategy) {
+        this.fractalType = fractalType;
+        this.juliaX = juliaX;
+        this.juliaY = juliaY;
+        this.scale = scale;
+        this.level = level;
+        this.tileX = tileX;
+        this.tileY = tileY;
+        this.maxIterations = maxIterations;
+        this.colourStrategy = colourStrategy;
+    }
+
+    // The same fractal, pyramid level and colouring, at another tile
+    public TileKey forTile(long tileX, long tileY) {
+        return new TileKey(this.fractalType, this.juliaX, this.juliaY, this.scale, this.level, tileX, tileY,
+                this.maxIterations, this.colourStrategy);
+    }
+
+    // One of the four tiles on the level below that this one covers, (0, 0) being its top left, with that level's budget
+    public TileKey forChildTile(int childX, int childY, int maxIterations) {
+        return new TileKey(this.fractalType, this.juliaX, this.juliaY, this.scale, this.level + 1,
+                (2 * this.tileX) + childX, (2 * this.tileY) + childY, maxIterations, this.colourStrategy);
+    }
+
+    public double getPixelSize() {
+        return TilePyramid.pixelSizeOf(this.scale, this.level);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o)
+            return true;
+
+        if (!(o instanceof TileKey))
+            return false;
+
+        TileKey other = (TileKey) o;
+        return this.fractalType == other.fractalType
+                && Double.compare(this.juliaX, other.juliaX) == 0
+                && Double.compare(this.juliaY, other.juliaY) == 0
+                && this.scale == other.scale
+                && this.level == other.level
+                && this.tileX == other.tileX
+                && this.tileY == other.tileY
+                && this.maxIterations == other.maxIterations
+                && this.colourStrategy == other.colourStrategy;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = (this.fractalType != null) ? this.fractalType.hashCode() : 0;
+        result = (31 * result) + hashLong(Double.doubleToLongBits(this.juliaX));
+        result = (31 * result) + hashLong(Double.doubleToLongBits(this.juliaY));
+        result = (31 * result) + hashLong(this.scale);
+        result = (31 * result) + this.level;
+        result = (31 * result) + hashLong(this.tileX);
+        result = (31 * result) + hashLong(this.tileY);
+        result = (31 * result) + this.maxIterations;
+        result = (31 * result) + ((this.colourStrategy != null) ? this.colourStrategy.hashCode() : 0);
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return this.fractalType + " (" + this.juliaX + ", " + this.juliaY + ") level " + this.level + "/" + this.scale
+                + " tile (" + this.tileX + ", " + this.tileY + ") " + this.maxIterations + " " + this.colourStrategy;
+    }
+
+    private static int hashLong(long value) {
+        return (int) (value ^ (value >>> 32));
+    }
+}
@@ -0,0 +1,97 @@
+package io.bunnies.fractalmaps.tiles;
+
+/*
+ * The plane, cut into square tiles on a power-of-two zoom pyramid. A pixel size is scale * 2^-(SCALE_BITS + level),
+ * with scale one of SCALE_STEPS steps of 2^(1/SCALE_STEPS), so halving the pixel size moves one level down the same
+ * pyramid, and zooming by hand keeps landing on the same few pyramids rather than starting a new one. Pixels are numbered from the origin of the plane, rightwards and downwards, and tile (x, y) on a
+ * level holds pixels [x * TILE_SIZE, (x + 1) * TILE_SIZE) by [y * TILE_SIZE, (y + 1) * TILE_SIZE).
+ *
+ * Graph areas are normalised onto the pyramid before they're rendered, which moves them by less than a
+ * pixel, so the same place always lands on the same tiles.
+ */
+public class TilePyramid {
+    public static final int TILE_SIZE = 128;
+
+    // How many bits of a pixel size's mantissa a scale has, beyond the leading one
+    static final int SCALE_BITS = 32;
+
+    // Pyramids per doubling of the pixel size, each 2^(1/SCALE_STEPS) times the last
+    static final int SCALE_STEPS = 4;
+    private static final long[] SCALES = new long[SCALE_STEPS];
+
+    static {
+        for (int step = 0; step < SCALE_STEPS; step++) {
+            SCALES[step] = Math.round(Math.scalb(StrictMath.pow(2.0, step / (double) SCALE_STEPS), SCALE_BITS));
+        }
+    }
+
+    public static int levelOf(double pixelSize) {
+        return -exponentOf(pixelSize);
+    }
+
+    public static long scaleOf(double pixelSize) {
+        return SCALES[scaleStep(pixelSize) % SCALE_STEPS];
+    }
+
+    public static double pixelSizeOf(long scale, int level) {
+        return Math.scalb((double) scale, -SCALE_BITS - level);
+    }
+
+    // The graph area {xMin, yMax, width} nearest to the given one, with a pyramid pixel size and whole pixel edges
+    public static double[] normaliseGraphArea(double[] graphArea, int viewWidth) {
+        double pixelSize = graphArea[2] / viewWidth;
+        pixelSize = pixelSizeOf(scaleOf(pixelSize), levelOf(pixelSize));
+
+        double[] normalisedGraphArea = new double[3];
+        normalisedGraphArea[0] = firstPixelX(graphArea[0], pixelSize) * pixelSize;
+        normalisedGraphArea[1] = -firstPixelY(graphArea[1], pixelSize) * pixelSize;
+        normalisedGraphArea[2] = pixelSize * viewWidth;
+
+        return normalisedGraphArea;
+    }
+
+    // Number of the pixel at the left of a view starting at xMin
+    public static long firstPixelX(double xMin, double pixelSize) {
+        return (long) Math.rint(xMin / pixelSize);
+    }
+
+    // Number of the pixel at the top of a view starting at yMax
+    public static long firstPixelY(double yMax, double pixelSize) {
+        return (long) Math.rint(-yMax / pixelSize);
+    }
+
+    // The tile that a numbered pixel is in
+    public static long tileOf(long pixel) {
+        long tile = pixel / TILE_SIZE;
+        return (pixel % TILE_SIZE < 0) ? tile - 1 : tile;
+    }
+
+    /*
+     * A tile a level up the same pyramid, from the four tiles under it: topLeft, topRight, bottomLeft and
+     * bottomRight. Every other pixel of theirs is at exactly the same point as one of its pixels.
+     */
+    public static int[] downsampleTile(int[][] childTiles) {
+        int[] tile = new int[TILE_SIZE * TILE_SIZE];
+        int half = TILE_SIZE / 2;
+        for (int y = 0; y < TILE_SIZE; y++) {
+            for (int x = 0; x < TILE_SIZE; x++) {
+                int[] childTile = childTiles[((y / half) * 2) + (x / half)];
+                tile[(y * TILE_SIZE) + x] = childTile[(((y % half) * 2) * TILE_SIZE) + ((x % half) * 2)];
+            }
+        }
+
+        return tile;
+    }
+
+    // The nearest step to the pixel size's mantissa, which is SCALE_STEPS when it rounds up to the next power of two
+    private static int scaleStep(double pixelSize) {
+        double mantissa = Math.scalb(pixelSize, -Math.getExponent(pixelSize));
+        return (int) Math.round(SCALE_STEPS * (Math.log(mantissa) / Math.log(2.0)));
+    }
+
+    private static int exponentOf(double pixelSize) {
+        // Rounding can carry all the way up to the next power of two
+        int exponent = Math.getExponent(pixelSize);
+        return scaleStep(pixelSize) == SCALE_STEPS ? exponent + 1 : exponent;
+    }
+}
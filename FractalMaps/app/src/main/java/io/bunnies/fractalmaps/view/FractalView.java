@@ -13,6 +13,7 @@ import org.slf4j.LoggerFactory;
 
 import java.util.List;
 
+import io.bunnies.fractalmaps.compute.EnumPixelFormat;
 import io.bunnies.fractalmaps.overlay.IFractalOverlay;
 import io.bunnies.fractalmaps.touch.IFractalTouchHandler;
 
@@ -54,14 +55,32 @@ public class FractalView extends View implements IFractalView {
         this.fractalTransformMatrix = fractalTransformMatrix;
     }
 
-    public void createNewFractalBitmap(int[] pixels) {
-        this.fractalBitmap = Bitmap.createBitmap(pixels, 0, this.width, this.width, this.height, Bitmap.Config.RGB_565).copy(Bitmap.Config.RGB_565, true);
+    public void createNewFractalBitmap(int[] pixels, EnumPixelFormat pixelFormat) {
+        Bitmap.Config config = pixelFormat.bitmapConfig;
+        this.fractalBitmap = Bitmap.createBitmap(pixels, 0, this.width, this.width, this.height, config).copy(config, true);
     }
 
     public void setBitmapPixels(int[] pixels) {
         this.fractalBitmap.setPixels(pixels, 0, this.width, 0, 0, this.width, this.height);
     }
 
+    public void setBitmapPixels(int[] pixels, int originX, int originY, int rowStart, int rowEnd) {
+        int row = rowStart;
+        while (row < rowEnd) {
+            int bufferRow = (row + originY) % this.height;
+            int rows = Math.min(rowEnd - row, this.height - bufferRow);
+            int offset = bufferRow * this.width;
+
+            // Columns from originX to the right-hand edge of the buffer, then the ones that wrapped round
+            this.fractalBitmap.setPixels(pixels, offset + originX, this.width, 0, row, this.width - originX, rows);
+            if (originX > 0)
+                this.fractalBitmap.setPixels(pixels, offset, this.width, this.width - originX, row, originX, rows);
+
+            row += rows;
+        }
+    }
+
+    @Override
     public Bitmap getCurrentBitmap() {
         return this.fractalBitmap;
     }
@@ -0,0 +1,183 @@
+package io.bunnies.fractalmaps.view;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import io.bunnies.fractalmaps.compute.PixelBufferPair;
+
+/*
+ * Sits between the presenter and the view, collecting the dirty rows that renders report and uploading
+ * them to the bitmap at most once per frame, on the UI thread. With both views rendering, the UI thread
+ * would otherwise get more uploads and invalidates than it can draw.
+ */
+public class FrameUpdateAggregator {
+    private final IFractalView view;
+    private final IFrameScheduler frameScheduler;
+
+    private final Object pendingLock = new Object();
+    private PixelBufferPair pendingPixels;
+    private List<int[]> pendingRowRanges = new ArrayList<>();
+    private int pendingUpdates = 0;
+    private boolean pendingRedraw = false;
+    private boolean frameScheduled = false;
+
+    // Updates handed to us, updates folded into a frame that was already pending,
+    // frames uploaded, and updates thrown away before they were shown
+    private long receivedUpdates = 0;
+    private long mergedUpdates = 0;
+    private long presentedFrames = 0;
+    private long droppedUpdates = 0;
+
+    private final Runnable frameCallback = new Runnable() {
+        @Override
+        public void run() {
+            onFrame();
+        }
+    };
+
+    public FrameUpdateAggregator(IFractalView view, IFrameScheduler frameScheduler) {
+        this.view = view;
+        this.frameScheduler = frameScheduler;
+    }
+
+    // Marks rows [rowStart, rowEnd) of pixels as needing upload. Safe to call from any thread.
+    public void postUpdate(PixelBufferPair pixels, int rowStart, int rowEnd) {
+        boolean scheduleFrame;
+        synchronized (this.pendingLock) {
+            this.receivedUpdates++;
+
+            // Rows pending from a buffer that has since been replaced are stale
+            if (this.pendingPixels != null && this.pendingPixels != pixels) {
+                this.droppedUpdates += this.pendingUpdates;
+                this.pendingUpdates = 0;
+                this.pendingRowRanges.clear();
+            }
+
+            this.pendingPixels = pixels;
+            if (this.frameScheduled)
+                this.mergedUpdates++;
+
+            addRowRange(this.pendingRowRanges, rowStart, rowEnd);
+            this.pendingUpdates++;
+
+            scheduleFrame = !this.frameScheduled;
+            this.frameScheduled = true;
+        }
+
+        if (scheduleFrame)
+            this.frameScheduler.postFrameCallback(this.frameCallback);
+    }
+
+    // For when the pixels are already in the bitmap, and it only needs drawing. Safe to call from any thread.
+    public void postRedraw() {
+        boolean scheduleFrame;
+        synchronized (this.pendingLock) {
+            this.receivedUpdates++;
+            if (this.frameScheduled)
+                this.mergedUpdates++;
+
+            this.pendingRedraw = true;
+            this.pendingUpdates++;
+
+            scheduleFrame = !this.frameScheduled;
+            this.frameScheduled = true;
+        }
+
+        if (scheduleFrame)
+            this.frameScheduler.postFrameCallback(this.frameCallback);
+    }
+
+    // Forgets anything not yet uploaded, for when the caller is about to replace the whole bitmap
+    public void dropPendingUpdates() {
+        synchronized (this.pendingLock) {
+            this.droppedUpdates += this.pendingUpdates;
+            this.pendingUpdates = 0;
+            this.pendingRowRanges.clear();
+            this.pendingPixels = null;
+            this.pendingRedraw = false;
+        }
+    }
+
+    void onFrame() {
+        PixelBufferPair pixels;
+        List<int[]> rowRanges;
+        boolean redraw;
+        synchronized (this.pendingLock) {
+            this.frameScheduled = false;
+
+            pixels = this.pendingPixels;
+            rowRanges = this.pendingRowRanges;
+            redraw = this.pendingRedraw;
+            this.pendingPixels = null;
+            this.pendingRowRanges = new ArrayList<>();
+            this.pendingRedraw = false;
+            this.pendingUpdates = 0;
+
+            boolean upload = pixels != null && !rowRanges.isEmpty();
+            if (!upload && !redraw)
+                return;
+
+            if (!upload)
+                pixels = null;
+
+            this.presentedFrames++;
+        }
+
+        if (pixels != null) {
+            // Whatever is at the front now, which may be newer than when these rows were posted
+            int[] frontPixels = pixels.acquireFront();
+            try {
+                for (int[] rowRange : rowRanges) {
+                    this.view.setBitmapPixels(frontPixels, pixels.getOriginX(), pixels.getOriginY(), rowRange[0], rowRange[1]);
+                }
+            } finally {
+                pixels.releaseFront(frontPixels);
+            }
+        }
+
+        this.view.postUIThreadRedraw();
+    }
+
+    // Keeps the ranges sorted and disjoint, joining any that touch
+    static void addRowRange(List<int[]> rowRanges, int rowStart, int rowEnd) {
+        if (rowEnd <= rowStart)
+            return;
+
+        int index = 0;
+        while (index < rowRanges.size() && rowRanges.get(index)[1] < rowStart) {
+            index++;
+        }
+
+        while (index < rowRanges.size() && rowRanges.get(index)[0] <= rowEnd) {
+            int[] overlapping = rowRanges.remove(index);
+            rowStart = Math.min(rowStart, overlapping[0]);
+            rowEnd = Math.max(rowEnd, overlapping[1]);
+        }
+
+        rowRanges.add(index, new int[]{rowStart, rowEnd});
+    }
+
+    public long getReceivedUpdateCount() {
+        synchronized (this.pendingLock) {
+            return this.receivedUpdates;
+        }
+    }
+
+    public long getMergedUpdateCount() {
+        synchronized (this.pendingLock) {
+            return this.mergedUpdates;
+        }
+    }
+
+    public long getPresentedFrameCount() {
+        synchronized (this.pendingLock) {
+            return this.presentedFrames;
+        }
+    }
+
+    public long getDroppedUpdateCount() {
+        synchronized (this.pendingLock) {
+            return this.droppedUpdates;
+        }
+    }
+}
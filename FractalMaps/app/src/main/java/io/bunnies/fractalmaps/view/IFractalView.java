@@ -1,9 +1,11 @@
 package io.bunnies.fractalmaps.view;
 
+import android.graphics.Bitmap;
 import android.graphics.Matrix;
 
 import java.util.List;
 
+import io.bunnies.fractalmaps.compute.EnumPixelFormat;
 import io.bunnies.fractalmaps.overlay.IFractalOverlay;
 import io.bunnies.fractalmaps.touch.IFractalTouchHandler;
 
@@ -16,10 +18,15 @@ public interface IFractalView {
 
     public void setFractalTransformMatrix(Matrix fractalTransformMatrix);
 
-    public void createNewFractalBitmap(int[] pixels);
+    public void createNewFractalBitmap(int[] pixels, EnumPixelFormat pixelFormat);
+
+    public Bitmap getCurrentBitmap();
 
     public void setBitmapPixels(int[] pixels);
 
+    // Rows [rowStart, rowEnd) of the view, from pixels that wrap around with (originX, originY) at the top left
+    public void setBitmapPixels(int[] pixels, int originX, int originY, int rowStart, int rowEnd);
+
     public void cacheCurrentBitmap(int[] pixelBuffer);
 
     public void setTouchHandler(IFractalTouchHandler handler);
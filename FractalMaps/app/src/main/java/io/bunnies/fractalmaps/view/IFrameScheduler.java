@@ -0,0 +1,6 @@
+package io.bunnies.fractalmaps.view;
+
+public interface IFrameScheduler {
+    // Runs the callback on the UI thread at the start of the next frame. Safe to call from any thread.
+    public void postFrameCallback(Runnable callback);
+}
@@ -0,0 +1,50 @@
+package io.bunnies.fractalmaps.view;
+
+import android.annotation.TargetApi;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.view.Choreographer;
+
+/*
+ * Lines frame callbacks up with vsync using the Choreographer. Before Jelly Bean there isn't one, so
+ * callbacks go on the next 16ms boundary instead.
+ */
+public class VsyncFrameScheduler implements IFrameScheduler {
+    private static final long FALLBACK_FRAME_INTERVAL_MS = 16;
+
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    @Override
+    public void postFrameCallback(final Runnable callback) {
+        if (Looper.myLooper() == Looper.getMainLooper()) {
+            this.scheduleOnUIThread(callback);
+            return;
+        }
+
+        // The Choreographer belongs to the UI thread, so hop over to it first
+        this.mainHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                scheduleOnUIThread(callback);
+            }
+        });
+    }
+
+    @TargetApi(Build.VERSION_CODES.JELLY_BEAN)
+    private void scheduleOnUIThread(final Runnable callback) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {
+            Choreographer.getInstance().postFrameCallback(new Choreographer.FrameCallback() {
+                @Override
+                public void doFrame(long frameTimeNanos) {
+                    callback.run();
+                }
+            });
+        } else {
+            long now = SystemClock.uptimeMillis();
+            long nextFrame = now + FALLBACK_FRAME_INTERVAL_MS - (now % FALLBACK_FRAME_INTERVAL_MS);
+            this.mainHandler.postAtTime(callback, nextFrame);
+        }
+    }
+}
@@ -9,12 +9,22 @@ rs_script gScript;
 
 // [0] is fractal, [1] is pixel buffer sizes
 int *returnPixelBuffer;
-int *returnPixelBufferSizes;
+// Pixel sizes are one byte per pixel, 0xFF meaning not rendered yet
+uchar *returnPixelBufferSizes;
+// Escape counts, two bytes a pixel, as the budget less the iterations taken, so 0 for points that didn't escape.
+// Only written when pixelIterationsOutput is 1, and read back into IterationCounts once the render stops.
+ushort *returnPixelIterations;
+int pixelIterationsOutput;
+
+// Iteration counts for pixels this render hasn't written, and for escapes too early to fit
+static const ushort ITERATIONS_NOT_RENDERED = 0xFFFF;
+static const ushort ITERATIONS_TOO_EARLY = 0xFFFE;
 
 int pixelBlockSize;
 int maxIterations;
 int defaultPixelSize;
 int viewWidth;
+int viewHeight;
 double xMin;
 double yMax;
 double pixelSize;
@@ -26,13 +36,40 @@ double juliaY;
 int32_t xPixelMin;
 int32_t xPixelMax;
 int32_t imgWidth;
+int32_t imgHeight;
+
+// The buffers wrap around, with view pixel (0, 0) stored at (originX, originY)
+int originX;
+int originY;
 
-// 0 is Mandelbrot, 1 is Julia
+// 0 is Mandelbrot, 1 is Julia. Set by mandelbrot() and julia(), as the script is shared by both strategies
 int fractalMode;
 
+// When 1, pixels are also written straight into the view's bitmap, in view coordinates
+int bitmapOutput;
+rs_allocation gBitmapOut;
+
+// The bitmap's pixel format: 0 is ARGB_8888, 1 is RGB_565
+int outputFormat;
+
 // 0 is Purple-Red, 1 is Purple-Yellow, 2 is RGB, 3 is Pastels
 int colourMode;
 
+static int bufferIndex(int32_t xPixel, int32_t yPixel) {
+    int32_t bufferX = xPixel + originX;
+    if (bufferX >= imgWidth) {
+        bufferX -= imgWidth;
+    }
+
+    int32_t bufferY = yPixel + originY;
+    if (bufferY >= imgHeight) {
+        bufferY -= imgHeight;
+    }
+
+    return (imgWidth * bufferY) + bufferX;
+}
+
+// Returns the iterations taken to escape, or maxIterations if the point didn't
 static int pixelInMandelbrotSet(int32_t xPixel, int32_t yPixel, double xMin, double yMax, double pixelSize, int32_t maxIterations) {
     int inside = 1;
 
@@ -62,25 +99,9 @@ static int pixelInMandelbrotSet(int32_t xPixel, int32_t yPixel, double xMin, dou
     }
 
     if (inside == 1) {
-        return colourInsidePoint();
+        return maxIterations;
     } else {
-        switch(colourMode) {
-            case 1:
-                return colourPurpleYellowPoint(iterationNumber, maxIterations);
-                break;
-
-            case 2:
-                return colourRGBPoint(iterationNumber, maxIterations);
-                break;
-
-            case 3:
-                return colourPastelPoint(iterationNumber, maxIterations);
-                break;
-
-            default:
-                return colourPurpleRedPoint(iterationNumber, maxIterations);
-                break;
-        }
+        return iterationNumber;
     }
 }
 
@@ -109,6 +130,14 @@ static int pixelInJuliaSet(int32_t xPixel, int32_t yPixel, double xMin, double y
     }
 
     if (inside == 1) {
+        return maxIterations;
+    } else {
+        return iterationNumber;
+    }
+}
+
+static int colourIterations(int32_t iterationNumber, int32_t maxIterations) {
+    if (iterationNumber >= maxIterations) {
         return colourInsidePoint();
     } else {
         switch(colourMode) {
@@ -137,15 +166,18 @@ void root(const int32_t *v_in, int32_t *v_out, const void *usrData, uint32_t x,
     //int32_t yPixel = v_in;
 
     int xPixel = 0;
+    int iterationNumber;
+    ushort iterationCount;
     int colourCodeHex;
     int pixelBlockA;
     int pixelBlockB;
 
     int *pixelBuffer = returnPixelBuffer;
-    int *pixelBufferSizes = returnPixelBufferSizes;
+    uchar *pixelBufferSizes = returnPixelBufferSizes;
+    ushort *pixelIterations = returnPixelIterations;
 
     for (xPixel = xPixelMin; xPixel < xPixelMax + 1 - pixelBlockSize; xPixel += pixelBlockSize) {
-        if (pixelBufferSizes[(imgWidth * yPixel) + xPixel] <= pixelBlockSize) {
+        if (pixelBufferSizes[bufferIndex(xPixel, yPixel)] <= pixelBlockSize) {
             //rsDebug("already iterated to block size", 0);
             //rsDebug("pixelBufferSizes[(imgWidth * yPixel) + xPixel]", pixelBufferSizes[(imgWidth * yPixel) + xPixel]);
             //rsDebug("pixelBlockSize", pixelBlockSize);
@@ -154,34 +186,74 @@ void root(const int32_t *v_in, int32_t *v_out, const void *usrData, uint32_t x,
 
         //rsDebug("inner loop", 0);
         if (fractalMode == 0) {
-            colourCodeHex = pixelInMandelbrotSet(xPixel, yPixel, xMin, yMax, pixelSize, maxIterations);
+            iterationNumber = pixelInMandelbrotSet(xPixel, yPixel, xMin, yMax, pixelSize, maxIterations);
         } else if(fractalMode == 1) {
-            colourCodeHex = pixelInJuliaSet(xPixel, yPixel, xMin, yMax, pixelSize, maxIterations);
+            iterationNumber = pixelInJuliaSet(xPixel, yPixel, xMin, yMax, pixelSize, maxIterations);
         }
+
+        colourCodeHex = colourIterations(iterationNumber, maxIterations);
+        iterationCount = (maxIterations - iterationNumber < ITERATIONS_TOO_EARLY) ? (ushort) (maxIterations - iterationNumber) : ITERATIONS_TOO_EARLY;
         //if (value != 0) {
         //    rsDebug("value", value);
         //}
 
-        pixelBufferSizes[(imgWidth * yPixel) + (xPixel)] = defaultPixelSize;
+        pixelBufferSizes[bufferIndex(xPixel, yPixel)] = (uchar) defaultPixelSize;
+
+        // Only the bitmap's own format is worked out, once for the block, and only if there's a bitmap to fill
+        uchar4 bitmapColourCode;
+        ushort bitmapColourCode565;
+        if (bitmapOutput == 1) {
+            if (outputFormat == 1) {
+                bitmapColourCode565 = bitmapColour565(colourCodeHex);
+            } else {
+                bitmapColourCode = bitmapColour8888(colourCodeHex);
+            }
+        }
 
         int p = 0;
         for (pixelBlockA = 0; pixelBlockA < pixelBlockSize; pixelBlockA++) {
             for (pixelBlockB = 0; pixelBlockB < pixelBlockSize; pixelBlockB++) {
+                int index = bufferIndex(xPixel + pixelBlockA, yPixel + pixelBlockB);
                 if (p != 0) {
-                    pixelBufferSizes[imgWidth * (yPixel + pixelBlockB) + (xPixel + pixelBlockA)] = pixelBlockSize;
+                    // Already finer than this block, e.g. a sample kept from before a zoom
+                    if (pixelBufferSizes[index] < pixelBlockSize) {
+                        p++;
+                        continue;
+                    }
+
+                    pixelBufferSizes[index] = (uchar) pixelBlockSize;
                 }
                 p++;
-                pixelBuffer[imgWidth * (yPixel + pixelBlockB) + (xPixel + pixelBlockA)] = colourCodeHex;
+                pixelBuffer[index] = colourCodeHex;
+                if (pixelIterationsOutput == 1) {
+                    pixelIterations[index] = iterationCount;
+                }
+
+                if (bitmapOutput == 1) {
+                    if (outputFormat == 1) {
+                        rsSetElementAt(gBitmapOut, &bitmapColourCode565, xPixel + pixelBlockA, yPixel + pixelBlockB);
+                    } else {
+                        rsSetElementAt_uchar4(gBitmapOut, bitmapColourCode, xPixel + pixelBlockA, yPixel + pixelBlockB);
+                    }
+                }
             }
         }
     }
 }
 
+// Marks every pixel's count as not rendered, before a render that writes counts starts
+void forgetIterations() {
+    for (int i = 0; i < arraySize; i++) {
+        returnPixelIterations[i] = ITERATIONS_NOT_RENDERED;
+    }
+}
+
 void mandelbrot() {
     //rsDebug("Number of rows: ", rsAllocationGetDimX(gIn));
-    imgWidth = xPixelMax - xPixelMin;
     xPixelMin = 0;
     xPixelMax = viewWidth;
+    imgWidth = xPixelMax - xPixelMin;
+    imgHeight = viewHeight;
 
     fractalMode = 0;
 
@@ -190,9 +262,10 @@ void mandelbrot() {
 
 void julia() {
     //rsDebug("Number of rows: ", rsAllocationGetDimX(gIn));
-    imgWidth = xPixelMax - xPixelMin;
     xPixelMin = 0;
     xPixelMax = viewWidth;
+    imgWidth = xPixelMax - xPixelMin;
+    imgHeight = viewHeight;
 
     fractalMode = 1;
 
@@ -22,8 +22,7 @@ import io.bunnies.fractalmaps.overlay.pin.PinOverlay;
 import io.bunnies.fractalmaps.presenter.FractalPresenter;
 import io.bunnies.fractalmaps.presenter.IFractalPresenter;
 import io.bunnies.fractalmaps.settings.SettingsManager;
-import io.bunnies.fractalmaps.settings.saved_state.SavedGraphArea;
-import io.bunnies.fractalmaps.settings.saved_state.SavedJuliaGraph;
+import io.bunnies.fractalmaps.settings.saved_state.SavedLocation;
 import io.bunnies.fractalmaps.view.FractalView;
 
 import static org.junit.Assert.assertEquals;
@@ -79,22 +78,23 @@ public class FractalSceneActivityTest {
 
         this.activity.saveGraphStates();
 
-        ArgumentCaptor<SavedGraphArea> mandelbrotArgument = ArgumentCaptor.forClass(SavedGraphArea.class);
-        verify(this.activity.settings).savePreviousMandelbrotGraph(mandelbrotArgument.capture());
-        SavedGraphArea savedMandelbrotArea = mandelbrotArgument.getValue();
-
-        ArgumentCaptor<SavedJuliaGraph> juliaArgument = ArgumentCaptor.forClass(SavedJuliaGraph.class);
-        verify(this.activity.settings).savePreviousJuliaGraph(juliaArgument.capture());
-        SavedJuliaGraph savedJuliaGraph = juliaArgument.getValue();
-
-        assertEquals(savedMandelbrotArea.graphX, mandelbrotGraphArea[0], 0.01f);
-        assertEquals(savedMandelbrotArea.graphY, mandelbrotGraphArea[1], 0.01f);
-        assertEquals(savedMandelbrotArea.graphZ, mandelbrotGraphArea[2], 0.01f);
-        assertEquals(savedJuliaGraph.graphX, juliaGraphArea[0], 0.01f);
-        assertEquals(savedJuliaGraph.graphY, juliaGraphArea[1], 0.01f);
-        assertEquals(savedJuliaGraph.graphZ, juliaGraphArea[2], 0.01f);
-        assertEquals(savedJuliaGraph.juliaSeedX, juliaParams[0], 0.01f);
-        assertEquals(savedJuliaGraph.juliaSeedY, juliaParams[1], 0.01f);
+        ArgumentCaptor<SavedLocation> mandelbrotArgument = ArgumentCaptor.forClass(SavedLocation.class);
+        verify(this.activity.settings).savePreviousMandelbrotLocation(mandelbrotArgument.capture());
+        double[] savedMandelbrotArea = mandelbrotArgument.getValue().getGraphArea();
+
+        ArgumentCaptor<SavedLocation> juliaArgument = ArgumentCaptor.forClass(SavedLocation.class);
+        verify(this.activity.settings).savePreviousJuliaLocation(juliaArgument.capture());
+        double[] savedJuliaArea = juliaArgument.getValue().getGraphArea();
+        double[] savedJuliaSeed = juliaArgument.getValue().getJuliaSeed();
+
+        assertEquals(savedMandelbrotArea[0], mandelbrotGraphArea[0], 0.01f);
+        assertEquals(savedMandelbrotArea[1], mandelbrotGraphArea[1], 0.01f);
+        assertEquals(savedMandelbrotArea[2], mandelbrotGraphArea[2], 0.01f);
+        assertEquals(savedJuliaArea[0], juliaGraphArea[0], 0.01f);
+        assertEquals(savedJuliaArea[1], juliaGraphArea[1], 0.01f);
+        assertEquals(savedJuliaArea[2], juliaGraphArea[2], 0.01f);
+        assertEquals(savedJuliaSeed[0], juliaParams[0], 0.01f);
+        assertEquals(savedJuliaSeed[1], juliaParams[1], 0.01f);
     }
 
     @Test
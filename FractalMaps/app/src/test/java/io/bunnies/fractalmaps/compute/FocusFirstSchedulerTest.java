@@ -0,0 +1,69 @@
+package io.bunnies.fractalmaps.compute;
+
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class FocusFirstSchedulerTest {
+    @Test
+    public void testOrderRowsCoversEveryRow() {
+        int[] rows = FocusFirstScheduler.orderRows(100, 1, 20);
+
+        Set<Integer> rowsSeen = new HashSet<>();
+        for (int row : rows) {
+            rowsSeen.add(row);
+        }
+
+        assertEquals(rows.length, 100);
+        assertEquals(rowsSeen.size(), 100);
+    }
+
+    @Test
+    public void testOrderRowsStartsAtFocus() {
+        int[] rows = FocusFirstScheduler.orderRows(100, 1, 20);
+
+        assertEquals(rows[0], 20);
+        for (int i = 1; i < rows.length; i++) {
+            assertTrue(Math.abs(rows[i] - 20) >= Math.abs(rows[i - 1] - 20));
+        }
+    }
+
+    @Test
+    public void testOrderRowsWithBlocksStaysInBounds() {
+        int[] rows = FocusFirstScheduler.orderRows(100, 3, 99);
+
+        assertEquals(rows[0], 97);
+        for (int row : rows) {
+            assertTrue(row >= 0);
+            assertTrue(row + 3 <= 100);
+            assertEquals((row - 97) % 3, 0);
+        }
+    }
+
+    @Test
+    public void testChunkRows() {
+        int[] rows = FocusFirstScheduler.orderRows(100, 1, 50);
+        int[][] chunks = FocusFirstScheduler.chunkRows(rows, 32);
+
+        assertEquals(chunks.length, 4);
+        assertEquals(chunks[0].length, 32);
+        assertEquals(chunks[3].length, 4);
+        assertEquals(chunks[0][0], 50);
+    }
+
+    @Test
+    public void testOrderTiles() {
+        List<int[]> tiles = FocusFirstScheduler.orderTiles(100, 100, 32, 90, 90);
+
+        assertEquals(tiles.size(), 16);
+        assertEquals(tiles.get(0)[0], 96);
+        assertEquals(tiles.get(0)[1], 96);
+        assertEquals(tiles.get(tiles.size() - 1)[0], 0);
+        assertEquals(tiles.get(tiles.size() - 1)[1], 0);
+    }
+}
@@ -0,0 +1,102 @@
+package io.bunnies.fractalmaps.compute;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricGradleTestRunner;
+import org.robolectric.annotation.Config;
+
+import io.bunnies.fractalmaps.BuildConfig;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+@Config(constants = BuildConfig.class)
+@RunWith(RobolectricGradleTestRunner.class)
+public class FrameBufferPoolTest {
+    private FrameBufferPool pool;
+
+    @Before
+    public void setup() {
+        this.pool = new FrameBufferPool(1024 * 1024);
+    }
+
+    @Test
+    public void testReturnedBufferIsReusedZeroed() {
+        int[] buffer = this.pool.borrowIntBuffer(10, 10);
+        buffer[42] = 0xFF00FF00;
+        this.pool.returnIntBuffer(buffer, 10, 10);
+
+        int[] reused = this.pool.borrowIntBuffer(10, 10);
+
+        assertSame(buffer, reused);
+        assertEquals(0, reused[42]);
+        assertEquals(1, this.pool.getAllocatedBufferCount());
+        assertEquals(1, this.pool.getReusedBufferCount());
+        assertEquals(400, this.pool.getAllocatedBytes());
+    }
+
+    @Test
+    public void testBuffersAreKeyedByDimensions() {
+        int[] buffer = this.pool.borrowIntBuffer(10, 20);
+        this.pool.returnIntBuffer(buffer, 10, 20);
+
+        int[] other = this.pool.borrowIntBuffer(20, 10);
+
+        assertNotSame(buffer, other);
+        assertEquals(2, this.pool.getAllocatedBufferCount());
+        assertEquals(0, this.pool.getReusedBufferCount());
+    }
+
+    @Test
+    public void testBuffersAreKeyedByElementType() {
+        byte[] levels = this.pool.borrowByteBuffer(10, 10);
+        levels[42] = (byte) 0xFF;
+        this.pool.returnByteBuffer(levels, 10, 10);
+
+        this.pool.borrowIntBuffer(10, 10);
+        byte[] reused = this.pool.borrowByteBuffer(10, 10);
+
+        assertSame(levels, reused);
+        assertEquals(0, reused[42]);
+        assertEquals(500, this.pool.getAllocatedBytes());
+    }
+
+    @Test
+    public void testPoolStaysWithinBudget() {
+        // Each buffer is 400KB, so only two fit in the 1MB budget
+        int[] first = this.pool.borrowIntBuffer(100, 1000);
+        int[] second = this.pool.borrowIntBuffer(100, 1000);
+        int[] third = this.pool.borrowIntBuffer(100, 1000);
+        this.pool.returnIntBuffer(first, 100, 1000);
+        this.pool.returnIntBuffer(second, 100, 1000);
+        this.pool.returnIntBuffer(third, 100, 1000);
+
+        assertEquals(1, this.pool.getDiscardedBufferCount());
+        assertEquals(800000, this.pool.getPooledBytes());
+    }
+
+    @Test
+    public void testOtherSizesMakeRoomForNewBuffers() {
+        int[] small = this.pool.borrowIntBuffer(100, 1000);
+        int[] large = this.pool.borrowIntBuffer(200, 1000);
+        this.pool.returnIntBuffer(small, 100, 1000);
+        this.pool.returnIntBuffer(large, 200, 1000);
+
+        assertEquals(1, this.pool.getDiscardedBufferCount());
+        assertSame(large, this.pool.borrowIntBuffer(200, 1000));
+    }
+
+    @Test
+    public void testPixelBufferPairGivesBuffersBack() {
+        PixelBufferPair pair = new PixelBufferPair(10, 10, this.pool);
+        pair.release(this.pool);
+
+        PixelBufferPair next = new PixelBufferPair(10, 10, this.pool);
+
+        assertEquals(2, this.pool.getAllocatedBufferCount());
+        assertEquals(2, this.pool.getReusedBufferCount());
+        assertEquals(0, next.peekFront()[0]);
+    }
+}
@@ -0,0 +1,167 @@
+package io.bunnies.fractalmaps.compute;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class PixelBufferPairTest {
+    private static final int WIDTH = 4;
+    private static final int HEIGHT = 4;
+
+    @Test
+    public void testPublishSwapsBuffers() {
+        PixelBufferPair buffers = new PixelBufferPair(WIDTH, HEIGHT);
+        int[] front = buffers.peekFront();
+
+        int[] back = buffers.beginWrite();
+        assertNotSame(front, back);
+        back[0] = 1;
+        buffers.publishRows(0, 1);
+
+        assertSame(back, buffers.peekFront());
+        assertEquals(1, buffers.peekFront()[0]);
+    }
+
+    @Test
+    public void testBackBroughtUpToDateBeforeWriting() {
+        PixelBufferPair buffers = new PixelBufferPair(WIDTH, HEIGHT);
+
+        int[] back = buffers.beginWrite();
+        back[WIDTH + 1] = 5;
+        buffers.publish(1, 1, 1, 1);
+
+        back = buffers.beginWrite();
+        assertEquals(5, back[WIDTH + 1]);
+        back[(3 * WIDTH) + 3] = 7;
+        buffers.publish(3, 3, 1, 1);
+
+        int[] front = buffers.peekFront();
+        int[] expected = new int[WIDTH * HEIGHT];
+        expected[WIDTH + 1] = 5;
+        expected[(3 * WIDTH) + 3] = 7;
+        assertArrayEquals(expected, front);
+    }
+
+    @Test
+    public void testWriterWaitsForReaders() throws InterruptedException {
+        final PixelBufferPair buffers = new PixelBufferPair(WIDTH, HEIGHT);
+
+        // Swap once, so the buffer the reader holds becomes the next back buffer
+        int[] readerBuffer = buffers.acquireFront();
+        buffers.beginWrite();
+        buffers.publishAll();
+
+        final CountDownLatch writeStarted = new CountDownLatch(1);
+        final AtomicBoolean wroteWhileRead = new AtomicBoolean(false);
+        final AtomicBoolean readerDone = new AtomicBoolean(false);
+
+        Thread writer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                buffers.beginWrite();
+                wroteWhileRead.set(!readerDone.get());
+                buffers.publishAll();
+                writeStarted.countDown();
+            }
+        });
+        writer.start();
+
+        assertFalse(writeStarted.await(100, TimeUnit.MILLISECONDS));
+
+        readerDone.set(true);
+        buffers.releaseFront(readerBuffer);
+
+        assertTrue(writeStarted.await(5, TimeUnit.SECONDS));
+        assertFalse(wroteWhileRead.get());
+    }
+
+    // Nesting would wait on the writer's own readers, or publish the outer write early
+    @Test(expected = IllegalStateException.class)
+    public void testBeginWriteTwiceThrows() {
+        PixelBufferPair buffers = new PixelBufferPair(WIDTH, HEIGHT);
+
+        buffers.beginWrite();
+        buffers.beginWrite();
+    }
+
+    @Test
+    public void testTranslateMovesOrigin() {
+        PixelBufferPair buffers = new PixelBufferPair(WIDTH, HEIGHT);
+        byte[] pixelSizes = new byte[WIDTH * HEIGHT];
+
+        int[] back = buffers.beginWrite();
+        for (int i = 0; i < back.length; i++) {
+            back[i] = i + 1;
+        }
+        buffers.publishAll();
+
+        int[] front = buffers.peekFront();
+        int oldTopLeft = front[buffers.indexOf(0, 0)];
+
+        buffers.translate(1, 2, pixelSizes, (byte) 0xFF);
+
+        assertSame(front, buffers.peekFront());
+        assertEquals(oldTopLeft, front[buffers.indexOf(1, 2)]);
+
+        // The column and rows that came into view are cleared, everything else is kept
+        for (int y = 0; y < HEIGHT; y++) {
+            for (int x = 0; x < WIDTH; x++) {
+                boolean exposed = x < 1 || y < 2;
+                assertEquals(exposed, front[buffers.indexOf(x, y)] == 0);
+                assertEquals(exposed, pixelSizes[buffers.indexOf(x, y)] == (byte) 0xFF);
+            }
+        }
+    }
+
+    @Test
+    public void testPublishAfterTranslate() {
+        PixelBufferPair buffers = new PixelBufferPair(WIDTH, HEIGHT);
+        buffers.translate(-1, -1, new byte[WIDTH * HEIGHT], (byte) 0xFF);
+
+        int[] back = buffers.beginWrite();
+        back[buffers.indexOf(WIDTH - 1, HEIGHT - 1)] = 9;
+        buffers.publish(WIDTH - 1, HEIGHT - 1, 1, 1);
+
+        assertEquals(9, buffers.peekFront()[buffers.indexOf(WIDTH - 1, HEIGHT - 1)]);
+        assertEquals(0, buffers.peekFront()[(WIDTH - 1) + ((HEIGHT - 1) * WIDTH)]);
+
+        back = buffers.beginWrite();
+        assertEquals(9, back[buffers.indexOf(WIDTH - 1, HEIGHT - 1)]);
+        buffers.publishAll();
+    }
+
+    @Test
+    public void testCopyInRowOrderUnwraps() {
+        PixelBufferPair buffers = new PixelBufferPair(WIDTH, HEIGHT);
+        byte[] pixelSizes = new byte[WIDTH * HEIGHT];
+        buffers.translate(-1, 2, pixelSizes, (byte) 0xFF);
+
+        int[] back = buffers.beginWrite();
+        for (int y = 0; y < HEIGHT; y++) {
+            for (int x = 0; x < WIDTH; x++) {
+                back[buffers.indexOf(x, y)] = (y * WIDTH) + x;
+                pixelSizes[buffers.indexOf(x, y)] = (byte) x;
+            }
+        }
+        buffers.publishAll();
+
+        int[] pixels = new int[WIDTH * HEIGHT];
+        byte[] sizes = new byte[WIDTH * HEIGHT];
+        buffers.copyInRowOrder(buffers.peekFront(), pixels);
+        buffers.copyInRowOrder(pixelSizes, sizes);
+
+        for (int i = 0; i < pixels.length; i++) {
+            assertEquals(i, pixels[i]);
+            assertEquals(i % WIDTH, sizes[i]);
+        }
+    }
+}
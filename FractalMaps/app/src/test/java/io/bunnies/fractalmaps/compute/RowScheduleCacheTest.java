@@ -0,0 +1,51 @@
+package io.bunnies.fractalmaps.compute;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+public class RowScheduleCacheTest {
+    private static final int HEIGHT = 100;
+
+    @Test
+    public void testScheduleMatchesScheduler() {
+        RowScheduleCache cache = new RowScheduleCache(4);
+
+        int[][] schedule = cache.getSchedule(HEIGHT, 10, 3, 40);
+        int[][] expected = FocusFirstScheduler.chunkRows(FocusFirstScheduler.orderRows(HEIGHT, 3, 40), 10);
+
+        assertEquals(expected.length, schedule.length);
+        for (int chunk = 0; chunk < expected.length; chunk++) {
+            assertArrayEquals(expected[chunk], schedule[chunk]);
+        }
+    }
+
+    @Test
+    public void testSchedulesAreMemoised() {
+        RowScheduleCache cache = new RowScheduleCache(4);
+
+        int[][] schedule = cache.getSchedule(HEIGHT, 10, 1, 50);
+
+        assertSame(schedule, cache.getSchedule(HEIGHT, 10, 1, 50));
+        assertNotSame(schedule, cache.getSchedule(HEIGHT, 10, 3, 50));
+        assertEquals(2, cache.getBuiltScheduleCount());
+        assertEquals(1, cache.getCachedScheduleCount());
+    }
+
+    @Test
+    public void testLeastRecentlyUsedScheduleEvicted() {
+        RowScheduleCache cache = new RowScheduleCache(2);
+
+        int[][] crude = cache.getSchedule(HEIGHT, 10, 3, 50);
+        int[][] detailed = cache.getSchedule(HEIGHT, 10, 1, 50);
+        cache.getSchedule(HEIGHT, 10, 3, 50);
+        cache.getSchedule(HEIGHT, 10, 1, 20);
+
+        assertEquals(2, cache.size());
+        assertSame(crude, cache.getSchedule(HEIGHT, 10, 3, 50));
+        assertNotSame(detailed, cache.getSchedule(HEIGHT, 10, 1, 50));
+    }
+}
@@ -0,0 +1,198 @@
+package io.bunnies.fractalmaps.compute;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import io.bunnies.fractalmaps.colouring.ColourStrategies;
+import io.bunnies.fractalmaps.colouring.EnumColourStrategy;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+public class ZoomResamplerTest {
+    private static final int SIZE = 8;
+    private static final byte SAMPLE = 1;
+    private static final byte UNRENDERED = (byte) 0xFF;
+    private static final EnumColourStrategy COLOURING = EnumColourStrategy.PURPLE_RED;
+    private static final int OLD_MAX_ITERATIONS = 100;
+
+    // One unit per pixel, with y going up the plane as it goes down the view
+    private static final double[] OLD_GRAPH_AREA = {0.0, 8.0, 8.0};
+
+    private final ZoomResampler resampler = new ZoomResampler(SIZE, SIZE, SAMPLE, UNRENDERED);
+
+    // Every old pixel escaped, after its index plus one iterations
+    private int[] oldIterations() {
+        int[] iterations = new int[SIZE * SIZE];
+        for (int i = 0; i < iterations.length; i++) {
+            iterations[i] = i + 1;
+        }
+
+        return iterations;
+    }
+
+    private int[] oldPixels(int[] oldIterations) {
+        int[] pixels = new int[SIZE * SIZE];
+        for (int i = 0; i < pixels.length; i++) {
+            pixels[i] = IterationCounts.colourAt(oldIterations[i], COLOURING, OLD_MAX_ITERATIONS);
+        }
+
+        return pixels;
+    }
+
+    private byte[] sizes(byte size) {
+        byte[] sizes = new byte[SIZE * SIZE];
+        Arrays.fill(sizes, size);
+        return sizes;
+    }
+
+    private int countInstancesOfValue(byte[] array, byte value) {
+        int instances = 0;
+        for (byte element : array) {
+            if (element == value) {
+                instances++;
+            }
+        }
+
+        return instances;
+    }
+
+    @Test
+    public void testZoomInByTwoKeepsAQuarter() {
+        int[] oldIterations = this.oldIterations();
+        int[] oldPixels = this.oldPixels(oldIterations);
+        int[] newPixels = new int[SIZE * SIZE];
+        byte[] newSizes = new byte[SIZE * SIZE];
+        int[] newIterations = new int[SIZE * SIZE];
+
+        double[] newGraphArea = {2.0, 6.0, 4.0};
+        int reused = this.resampler.resample(OLD_GRAPH_AREA, newGraphArea, oldPixels, this.sizes(SAMPLE), oldIterations,
+                newPixels, newSizes, newIterations, COLOURING, OLD_MAX_ITERATIONS);
+
+        assertEquals(SIZE * SIZE / 4, reused);
+        assertEquals(reused, this.resampler.getLastReusedPixelCount());
+        assertEquals(reused, this.countInstancesOfValue(newSizes, SAMPLE));
+
+        // New (2, 4) sits exactly on old (3, 4), new (3, 4) is between two old pixels
+        assertEquals(SAMPLE, newSizes[(4 * SIZE) + 2]);
+        assertEquals(oldPixels[(4 * SIZE) + 3], newPixels[(4 * SIZE) + 2]);
+        assertEquals(oldIterations[(4 * SIZE) + 3], newIterations[(4 * SIZE) + 2]);
+        assertEquals(UNRENDERED, newSizes[(4 * SIZE) + 3]);
+    }
+
+    @Test
+    public void testZoomOutByTwoKeepsTheOldView() {
+        int[] oldIterations = this.oldIterations();
+        int[] oldPixels = this.oldPixels(oldIterations);
+        int[] newPixels = new int[SIZE * SIZE];
+        byte[] newSizes = new byte[SIZE * SIZE];
+        int[] newIterations = new int[SIZE * SIZE];
+
+        double[] newGraphArea = {-4.0, 12.0, 16.0};
+        int reused = this.resampler.resample(OLD_GRAPH_AREA, newGraphArea, oldPixels, this.sizes(SAMPLE), oldIterations,
+                newPixels, newSizes, newIterations, COLOURING, OLD_MAX_ITERATIONS);
+
+        // New pixels 2 to 5 land on old pixels 0, 2, 4 and 6, the rest are off the old view
+        assertEquals(16, reused);
+        assertEquals(oldPixels[(2 * SIZE) + 2], newPixels[(3 * SIZE) + 3]);
+        assertEquals(0, newPixels[0]);
+        assertEquals(UNRENDERED, newSizes[0]);
+        assertEquals(IterationCounts.UNKNOWN, newIterations[0]);
+    }
+
+    @Test
+    public void testOnlyComputedSamplesKept() {
+        byte[] oldSizes = this.sizes((byte) 3);
+        for (int y = 0; y < SIZE; y += 3) {
+            for (int x = 0; x < SIZE; x += 3) {
+                oldSizes[(y * SIZE) + x] = SAMPLE;
+            }
+        }
+
+        byte[] newSizes = new byte[SIZE * SIZE];
+        int[] oldIterations = this.oldIterations();
+        int reused = this.resampler.resample(OLD_GRAPH_AREA, new double[]{0.0, 8.0, 4.0}, this.oldPixels(oldIterations), oldSizes, oldIterations,
+                new int[SIZE * SIZE], newSizes, new int[SIZE * SIZE], COLOURING, OLD_MAX_ITERATIONS);
+
+        // Old columns and rows 0 and 3 are sampled and show up as new 0 and 6, the other samples are off the new view
+        assertEquals(4, reused);
+        assertEquals(SAMPLE, newSizes[(6 * SIZE) + 6]);
+        assertEquals(UNRENDERED, newSizes[(2 * SIZE) + 2]);
+    }
+
+    @Test
+    public void testGrownBudgetRecoloursEscapedPoints() {
+        // Old (0, 0) never escaped, so it might with the bigger budget
+        int[] oldIterations = this.oldIterations();
+        oldIterations[0] = IterationCounts.encode(OLD_MAX_ITERATIONS, OLD_MAX_ITERATIONS);
+        int[] oldPixels = this.oldPixels(oldIterations);
+
+        int[] newPixels = new int[SIZE * SIZE];
+        byte[] newSizes = new byte[SIZE * SIZE];
+        int[] newIterations = new int[SIZE * SIZE];
+        double[] newGraphArea = {0.0, 8.0, 4.0};
+        int newMaxIterations = OLD_MAX_ITERATIONS * 2;
+
+        assertEquals(15, this.resampler.resample(OLD_GRAPH_AREA, newGraphArea, oldPixels, this.sizes(SAMPLE), oldIterations,
+                newPixels, newSizes, newIterations, COLOURING, newMaxIterations));
+
+        // The purple colourings shift with the budget, so escaped samples are coloured again for it
+        assertEquals(SAMPLE, newSizes[2]);
+        assertEquals(ColourStrategies.colourPoint(COLOURING, oldIterations[1], newMaxIterations), newPixels[2]);
+        assertEquals(oldIterations[1], newIterations[2]);
+
+        // The point that didn't escape stays as a preview, to be iterated again
+        assertEquals(UNRENDERED, newSizes[0]);
+        assertEquals(ColourStrategies.colourInsidePoint(), newPixels[0]);
+        assertEquals(IterationCounts.UNKNOWN, newIterations[0]);
+
+        // With a smaller budget it's still inside, but escaped points past the budget now count as inside too
+        int smallMaxIterations = 4;
+        assertEquals(SIZE * SIZE / 4, this.resampler.resample(OLD_GRAPH_AREA, newGraphArea, oldPixels, this.sizes(SAMPLE), oldIterations,
+                newPixels, newSizes, newIterations, COLOURING, smallMaxIterations));
+        assertEquals(ColourStrategies.colourInsidePoint(), newPixels[0]);
+        assertEquals(ColourStrategies.colourInsidePoint(), newPixels[(2 * SIZE) + 2]);
+    }
+
+    @Test
+    public void testPixelsWithoutCountsAreOnlyPreviews() {
+        int[] oldIterations = this.oldIterations();
+        int[] oldPixels = this.oldPixels(oldIterations);
+        Arrays.fill(oldIterations, IterationCounts.UNKNOWN);
+
+        int[] newPixels = new int[SIZE * SIZE];
+        byte[] newSizes = new byte[SIZE * SIZE];
+        int[] newIterations = new int[SIZE * SIZE];
+
+        assertEquals(0, this.resampler.resample(OLD_GRAPH_AREA, new double[]{0.0, 8.0, 4.0}, oldPixels, this.sizes(SAMPLE), oldIterations,
+                newPixels, newSizes, newIterations, COLOURING, OLD_MAX_ITERATIONS * 2));
+        assertEquals(oldPixels[1], newPixels[2]);
+        assertEquals(UNRENDERED, newSizes[2]);
+    }
+
+    @Test
+    public void testSnapsNearlyWholeZoom() {
+        double[] pinchedGraphArea = {2.03, 6.1, 8.0 / 1.98};
+        double[] snappedGraphArea = this.resampler.snapGraphArea(OLD_GRAPH_AREA, pinchedGraphArea);
+
+        assertEquals(4.0, snappedGraphArea[2], 1e-9);
+        assertEquals(0.0, snappedGraphArea[0] % 0.5, 1e-9);
+        assertEquals(0.0, snappedGraphArea[1] % 0.5, 1e-9);
+
+        int[] oldIterations = this.oldIterations();
+        int reused = this.resampler.resample(OLD_GRAPH_AREA, snappedGraphArea, this.oldPixels(oldIterations), this.sizes(SAMPLE), oldIterations,
+                new int[SIZE * SIZE], new byte[SIZE * SIZE], new int[SIZE * SIZE], COLOURING, OLD_MAX_ITERATIONS);
+        assertEquals(SIZE * SIZE / 4, reused);
+    }
+
+    @Test
+    public void testLeavesOtherZoomsAlone() {
+        double[] pinchedGraphArea = {2.0, 6.0, 8.0 / 1.5};
+        assertSame(pinchedGraphArea, this.resampler.snapGraphArea(OLD_GRAPH_AREA, pinchedGraphArea));
+
+        double[] barelyZoomedGraphArea = {0.1, 7.9, 7.8};
+        assertArrayEquals(barelyZoomedGraphArea, this.resampler.snapGraphArea(OLD_GRAPH_AREA, barelyZoomedGraphArea), 0.0);
+    }
+}
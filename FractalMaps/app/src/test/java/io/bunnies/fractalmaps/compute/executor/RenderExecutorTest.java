@@ -0,0 +1,159 @@
+package io.bunnies.fractalmaps.compute.executor;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricGradleTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import io.bunnies.fractalmaps.BuildConfig;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+@Config(constants = BuildConfig.class)
+@RunWith(RobolectricGradleTestRunner.class)
+public class RenderExecutorTest {
+    private RenderExecutor executor;
+
+    @Before
+    public void setup() {
+        this.executor = new RenderExecutor(1);
+    }
+
+    @After
+    public void tearDown() {
+        this.executor.shutdown();
+    }
+
+    private static class TestTask extends RenderTask {
+        private final RenderPriority priority;
+        private final Runnable body;
+
+        TestTask(RenderPriority priority, Runnable body) {
+            this.priority = priority;
+            this.body = body;
+        }
+
+        @Override
+        public RenderPriority getPriority() {
+            return this.priority;
+        }
+
+        @Override
+        public void run() {
+            this.body.run();
+        }
+    }
+
+    @Test
+    public void testForegroundTasksRunFirst() throws InterruptedException {
+        final CountDownLatch blockerStarted = new CountDownLatch(1);
+        final CountDownLatch releaseBlocker = new CountDownLatch(1);
+        final CountDownLatch allDone = new CountDownLatch(2);
+        final List<RenderPriority> order = new CopyOnWriteArrayList<>();
+
+        this.executor.submit(new TestTask(RenderPriority.BACKGROUND, new Runnable() {
+            @Override
+            public void run() {
+                blockerStarted.countDown();
+                try {
+                    releaseBlocker.await();
+                } catch (InterruptedException e) {
+                }
+            }
+        }));
+
+        assertTrue(blockerStarted.await(5, TimeUnit.SECONDS));
+
+        this.executor.submit(new TestTask(RenderPriority.BACKGROUND, new Runnable() {
+            @Override
+            public void run() {
+                order.add(RenderPriority.BACKGROUND);
+                allDone.countDown();
+            }
+        }));
+
+        this.executor.submit(new TestTask(RenderPriority.FOREGROUND, new Runnable() {
+            @Override
+            public void run() {
+                order.add(RenderPriority.FOREGROUND);
+                allDone.countDown();
+            }
+        }));
+
+        releaseBlocker.countDown();
+        assertTrue(allDone.await(5, TimeUnit.SECONDS));
+
+        assertEquals(order.get(0), RenderPriority.FOREGROUND);
+        assertEquals(order.get(1), RenderPriority.BACKGROUND);
+    }
+
+    @Test
+    public void testRemoveQueuedTask() throws InterruptedException {
+        final CountDownLatch blockerStarted = new CountDownLatch(1);
+        final CountDownLatch releaseBlocker = new CountDownLatch(1);
+        final CountDownLatch removedTaskRan = new CountDownLatch(1);
+        final CountDownLatch laterTaskRan = new CountDownLatch(1);
+
+        this.executor.submit(new TestTask(RenderPriority.BACKGROUND, new Runnable() {
+            @Override
+            public void run() {
+                blockerStarted.countDown();
+                try {
+                    releaseBlocker.await();
+                } catch (InterruptedException e) {
+                }
+            }
+        }));
+
+        // With the only worker busy, the task can't be taken before we remove it
+        assertTrue(blockerStarted.await(5, TimeUnit.SECONDS));
+
+        TestTask task = new TestTask(RenderPriority.BACKGROUND, new Runnable() {
+            @Override
+            public void run() {
+                removedTaskRan.countDown();
+            }
+        });
+
+        this.executor.submit(task);
+        assertTrue(this.executor.remove(task));
+
+        // Queued behind where the removed task was, so once this has run the removed one would have too
+        this.executor.submit(new TestTask(RenderPriority.BACKGROUND, new Runnable() {
+            @Override
+            public void run() {
+                laterTaskRan.countDown();
+            }
+        }));
+
+        releaseBlocker.countDown();
+        assertTrue(laterTaskRan.await(5, TimeUnit.SECONDS));
+        assertEquals(1, removedTaskRan.getCount());
+    }
+
+    @Test
+    public void testTasksSpreadAcrossWorkers() throws InterruptedException {
+        RenderExecutor multiWorkerExecutor = new RenderExecutor(4);
+        final CountDownLatch allDone = new CountDownLatch(64);
+
+        for (int i = 0; i < 64; i++) {
+            multiWorkerExecutor.submit(new TestTask(RenderPriority.BACKGROUND, new Runnable() {
+                @Override
+                public void run() {
+                    allDone.countDown();
+                }
+            }));
+        }
+
+        assertTrue(allDone.await(5, TimeUnit.SECONDS));
+        multiWorkerExecutor.shutdown();
+    }
+}
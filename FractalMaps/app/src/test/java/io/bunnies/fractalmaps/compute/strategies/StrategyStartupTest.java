@@ -0,0 +1,78 @@
+package io.bunnies.fractalmaps.compute.strategies;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricGradleTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import io.bunnies.fractalmaps.BuildConfig;
+import io.bunnies.fractalmaps.compute.IFractalComputeDelegate;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+@Config(constants = BuildConfig.class)
+@RunWith(RobolectricGradleTestRunner.class)
+public class StrategyStartupTest {
+    // Holds on to tasks until the test runs them
+    private static class QueueExecutor implements Executor {
+        final List<Runnable> tasks = new ArrayList<>();
+
+        @Override
+        public void execute(Runnable command) {
+            this.tasks.add(command);
+        }
+
+        void runAll() {
+            while (!this.tasks.isEmpty()) {
+                this.tasks.remove(0).run();
+            }
+        }
+    }
+
+    @Test
+    public void testInitialisedOffTheUIThread() {
+        QueueExecutor background = new QueueExecutor();
+        QueueExecutor ui = new QueueExecutor();
+        StrategyStartup startup = new StrategyStartup(background, ui);
+
+        IFractalComputeStrategy strategy = mock(IFractalComputeStrategy.class);
+        IFractalComputeDelegate delegate = mock(IFractalComputeDelegate.class);
+        Runnable onReady = mock(Runnable.class);
+
+        startup.initialise(strategy, 100, 50, delegate, onReady);
+        verify(strategy, never()).initialise(100, 50, delegate);
+
+        background.runAll();
+        verify(strategy).initialise(100, 50, delegate);
+        verify(onReady, never()).run();
+
+        assertEquals(1, ui.tasks.size());
+        ui.runAll();
+        verify(onReady).run();
+    }
+
+    @Test
+    public void testPreparedOffTheUIThread() {
+        QueueExecutor background = new QueueExecutor();
+        StrategyStartup startup = new StrategyStartup(background, new QueueExecutor());
+
+        IFractalComputeStrategy mandelbrot = mock(IFractalComputeStrategy.class);
+        IFractalComputeStrategy julia = mock(IFractalComputeStrategy.class);
+
+        startup.prepare(mandelbrot);
+        startup.prepare(julia);
+        verify(mandelbrot, never()).prepare();
+        verify(julia, never()).prepare();
+
+        background.runAll();
+        verify(mandelbrot).prepare();
+        verify(julia).prepare();
+    }
+}
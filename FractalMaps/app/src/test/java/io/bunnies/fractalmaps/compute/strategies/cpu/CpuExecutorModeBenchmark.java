@@ -0,0 +1,50 @@
+package io.bunnies.fractalmaps.compute.strategies.cpu;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricGradleTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowLog;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.bunnies.fractalmaps.BuildConfig;
+
+/*
+ * Times a drag of the Julia pin in each executor mode, with a classic fixed pool as the baseline, and logs
+ * each mode's best. Left out of the unit tests, as timings only mean anything on a quiet machine: run it
+ * with ./gradlew benchmark.
+ */
+@Config(constants = BuildConfig.class)
+@RunWith(RobolectricGradleTestRunner.class)
+public class CpuExecutorModeBenchmark {
+    private static final Logger LOGGER = LoggerFactory.getLogger(CpuExecutorModeBenchmark.class);
+
+    // Each mode's best of a few drags, after one to warm up, so a stray pause doesn't decide it
+    private static final int BENCHMARK_RUNS = 3;
+
+    @Before
+    public void setup() {
+        ShadowLog.stream = System.out;
+    }
+
+    @Test
+    public void benchmarkDragBurst() throws InterruptedException {
+        for (CpuExecutorMode mode : CpuExecutorMode.values()) {
+            if (mode == CpuExecutorMode.VIRTUAL_THREADS && !VirtualThreadTileExecutor.isSupported()) {
+                LOGGER.info("{}: not supported by this runtime", mode);
+                continue;
+            }
+
+            JuliaPinDrag.run(mode);
+
+            long best = Long.MAX_VALUE;
+            for (int i = 0; i < BENCHMARK_RUNS; i++) {
+                best = Math.min(best, JuliaPinDrag.run(mode));
+            }
+
+            LOGGER.info("{}: {} ms", mode, best / 1000000);
+        }
+    }
+}
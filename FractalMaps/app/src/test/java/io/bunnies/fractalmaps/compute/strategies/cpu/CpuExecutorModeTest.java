@@ -0,0 +1,45 @@
+package io.bunnies.fractalmaps.compute.strategies.cpu;
+
+import org.junit.Assume;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricGradleTestRunner;
+import org.robolectric.annotation.Config;
+
+import io.bunnies.fractalmaps.BuildConfig;
+
+import static org.junit.Assert.assertEquals;
+
+// Each mode gets through a drag of the Julia pin with the view filled in. CpuExecutorModeBenchmark times them.
+@Config(constants = BuildConfig.class)
+@RunWith(RobolectricGradleTestRunner.class)
+public class CpuExecutorModeTest {
+
+    @Test
+    public void testDragBurstSharedPool() throws InterruptedException {
+        JuliaPinDrag.run(CpuExecutorMode.SHARED_POOL);
+    }
+
+    @Test
+    public void testDragBurstFixedPool() throws InterruptedException {
+        JuliaPinDrag.run(CpuExecutorMode.FIXED_POOL);
+    }
+
+    @Test
+    public void testDragBurstVirtualThreads() throws InterruptedException {
+        Assume.assumeTrue(VirtualThreadTileExecutor.isSupported());
+
+        JuliaPinDrag.run(CpuExecutorMode.VIRTUAL_THREADS);
+    }
+
+    @Test
+    public void testFallsBackWithoutVirtualThreads() {
+        JuliaCpuFractalComputeStrategy strategy = new JuliaCpuFractalComputeStrategy(CpuExecutorMode.VIRTUAL_THREADS);
+        strategy.initialise(JuliaPinDrag.VIEW_WIDTH, JuliaPinDrag.VIEW_HEIGHT, new JuliaPinDrag.CountingDelegate());
+
+        CpuExecutorMode expectedMode = VirtualThreadTileExecutor.isSupported() ? CpuExecutorMode.VIRTUAL_THREADS : CpuExecutorMode.SHARED_POOL;
+        assertEquals(expectedMode, strategy.getExecutorMode());
+
+        strategy.tearDown();
+    }
+}
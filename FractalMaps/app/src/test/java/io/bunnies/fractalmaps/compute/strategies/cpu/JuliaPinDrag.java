@@ -0,0 +1,104 @@
+package io.bunnies.fractalmaps.compute.strategies.cpu;
+
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.bunnies.fractalmaps.colouring.EnumColourStrategy;
+import io.bunnies.fractalmaps.compute.FractalComputeArguments;
+import io.bunnies.fractalmaps.compute.IFractalComputeDelegate;
+import io.bunnies.fractalmaps.compute.PixelBufferPair;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/*
+ * Drags the Julia pin: bursts of crude and detailed renders, each cancelled shortly after it was
+ * submitted, then one render left to finish, which must have filled the whole view.
+ */
+class JuliaPinDrag {
+    static final int VIEW_WIDTH = 320;
+    static final int VIEW_HEIGHT = 240;
+    private static final int MAX_ITERATIONS = 200;
+    private static final int DRAG_EVENTS = 40;
+    private static final long DRAG_EVENT_INTERVAL_MS = 4;
+
+    static class CountingDelegate implements IFractalComputeDelegate {
+        private final AtomicInteger updates = new AtomicInteger();
+        private volatile CountDownLatch detailedRenderFinished = new CountDownLatch(1);
+
+        @Override
+        public void postUpdate(PixelBufferPair pixels, byte[] pixelSizes) {
+            this.updates.incrementAndGet();
+        }
+
+        @Override
+        public void postUpdate(PixelBufferPair pixels, byte[] pixelSizes, int rowStart, int rowEnd) {
+            this.updates.incrementAndGet();
+        }
+
+        @Override
+        public void postBitmapUpdate() {
+            this.updates.incrementAndGet();
+        }
+
+        @Override
+        public void postFinished(PixelBufferPair pixels, byte[] pixelSizes, int pixelBlockSize, double timeTakenInSeconds) {
+            if (pixelBlockSize == 1)
+                this.detailedRenderFinished.countDown();
+        }
+
+        @Override
+        public void onComputeStarted(int pixelBlockSize) {
+        }
+    }
+
+    private static FractalComputeArguments createArguments(int pixelBlockSize, PixelBufferPair pixelBuffer, byte[] pixelBufferSizes) {
+        return new FractalComputeArguments(pixelBlockSize, MAX_ITERATIONS, VIEW_HEIGHT / 8, 1, VIEW_WIDTH, VIEW_HEIGHT,
+                -2.0, 1.5, 4.0 / VIEW_WIDTH, pixelBuffer, pixelBufferSizes);
+    }
+
+    // Returns how long the drag took, in nanoseconds, up to the last render finishing
+    static long run(CpuExecutorMode mode) throws InterruptedException {
+        CountingDelegate delegate = new CountingDelegate();
+        JuliaCpuFractalComputeStrategy strategy = new JuliaCpuFractalComputeStrategy(mode);
+        strategy.setColourStrategy(EnumColourStrategy.PURPLE_RED);
+        strategy.initialise(VIEW_WIDTH, VIEW_HEIGHT, delegate);
+
+        PixelBufferPair pixelBuffer = new PixelBufferPair(VIEW_WIDTH, VIEW_HEIGHT);
+        byte[] pixelBufferSizes = new byte[VIEW_WIDTH * VIEW_HEIGHT];
+
+        long start = System.nanoTime();
+        for (int i = 0; i < DRAG_EVENTS; i++) {
+            strategy.stopAllRendering();
+            Arrays.fill(pixelBufferSizes, (byte) 0xFF);
+
+            // Nothing more comes from the cancelled renders, so only the last drag's render can set this off
+            delegate.detailedRenderFinished = new CountDownLatch(1);
+
+            strategy.setJuliaSeed(-0.8 + (i * 0.01), 0.156);
+            strategy.computeFractal(createArguments(3, pixelBuffer, pixelBufferSizes));
+            strategy.computeFractal(createArguments(1, pixelBuffer, pixelBufferSizes));
+
+            Thread.sleep(DRAG_EVENT_INTERVAL_MS);
+        }
+
+        assertTrue(delegate.detailedRenderFinished.await(30, TimeUnit.SECONDS));
+        long elapsed = System.nanoTime() - start;
+
+        for (byte pixelSize : pixelBufferSizes) {
+            assertEquals(1, pixelSize);
+        }
+
+        for (int pixel : pixelBuffer.peekFront()) {
+            assertTrue(pixel != 0);
+        }
+
+        assertEquals(mode, strategy.getExecutorMode());
+        assertTrue(delegate.updates.get() > 0);
+
+        strategy.tearDown();
+        return elapsed;
+    }
+}
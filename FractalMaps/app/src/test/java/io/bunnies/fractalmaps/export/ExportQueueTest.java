@@ -0,0 +1,161 @@
+package io.bunnies.fractalmaps.export;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricGradleTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import io.bunnies.fractalmaps.BuildConfig;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+@Config(constants = BuildConfig.class)
+@RunWith(RobolectricGradleTestRunner.class)
+public class ExportQueueTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    // Holds on to tasks until the test runs them
+    private static class QueueExecutor implements Executor {
+        final List<Runnable> tasks = new ArrayList<>();
+
+        @Override
+        public void execute(Runnable command) {
+            this.tasks.add(command);
+        }
+
+        void runAll() {
+            while (!this.tasks.isEmpty()) {
+                this.tasks.remove(0).run();
+            }
+        }
+    }
+
+    // Writes a few bytes, then fails or cancels itself part way if asked to
+    private static class TestJob extends ExportJob {
+        boolean exported = false;
+        boolean released = false;
+        boolean failPartWay = false;
+        boolean cancelPartWay = false;
+
+        TestJob(File outputFile) {
+            super(outputFile);
+        }
+
+        @Override
+        protected void export() throws IOException {
+            this.exported = true;
+
+            FileOutputStream output = new FileOutputStream(this.getOutputFile());
+            try {
+                output.write(new byte[]{1, 2, 3});
+            } finally {
+                output.close();
+            }
+
+            if (this.cancelPartWay)
+                this.cancel();
+
+            if (this.failPartWay)
+                throw new IOException("Disk full");
+        }
+
+        @Override
+        protected void release() {
+            this.released = true;
+        }
+    }
+
+    private QueueExecutor worker;
+    private QueueExecutor ui;
+    private ExportQueue queue;
+    private IExportCallback callback;
+
+    @Before
+    public void setUp() {
+        this.worker = new QueueExecutor();
+        this.ui = new QueueExecutor();
+        this.queue = new ExportQueue(this.worker, this.ui);
+        this.callback = mock(IExportCallback.class);
+    }
+
+    @Test
+    public void testFinishedOffTheUIThread() throws Exception {
+        TestJob job = new TestJob(this.folder.newFile("finished.png"));
+
+        this.queue.submit(job, this.callback);
+        assertFalse(job.exported);
+        assertEquals(1, this.queue.getPendingJobCount());
+
+        this.worker.runAll();
+        assertTrue(job.exported);
+        assertTrue(job.released);
+        verify(this.callback).onExportWritten(job, job.getOutputFile());
+        verify(this.callback, never()).onExportFinished(any(ExportJob.class), any(File.class));
+
+        this.ui.runAll();
+        verify(this.callback).onExportFinished(job, job.getOutputFile());
+        assertTrue(job.getOutputFile().exists());
+        assertEquals(0, this.queue.getPendingJobCount());
+    }
+
+    @Test
+    public void testCancelledBeforeItRuns() throws Exception {
+        TestJob job = new TestJob(this.folder.newFile("waiting.png"));
+
+        this.queue.submit(job, this.callback);
+        this.queue.cancelAll();
+        this.worker.runAll();
+        this.ui.runAll();
+
+        assertFalse(job.exported);
+        assertTrue(job.released);
+        verify(this.callback).onExportCancelled(job);
+        verify(this.callback, never()).onExportWritten(any(ExportJob.class), any(File.class));
+    }
+
+    @Test
+    public void testCancelledPartWayDeletesTheFile() throws Exception {
+        TestJob job = new TestJob(this.folder.newFile("cancelled.png"));
+        job.cancelPartWay = true;
+
+        this.queue.submit(job, this.callback);
+        this.worker.runAll();
+        this.ui.runAll();
+
+        verify(this.callback).onExportCancelled(job);
+        assertFalse(job.getOutputFile().exists());
+    }
+
+    @Test
+    public void testFailureDeletesTheFile() throws Exception {
+        TestJob job = new TestJob(this.folder.newFile("failed.png"));
+        job.failPartWay = true;
+
+        this.queue.submit(job, this.callback);
+        this.worker.runAll();
+        this.ui.runAll();
+
+        verify(this.callback).onExportFailed(eq(job), any(IOException.class));
+        verify(this.callback, never()).onExportFinished(any(ExportJob.class), any(File.class));
+        assertTrue(job.released);
+        assertFalse(job.getOutputFile().exists());
+    }
+}
@@ -0,0 +1,146 @@
+package io.bunnies.fractalmaps.export;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricGradleTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import io.bunnies.fractalmaps.BuildConfig;
+import io.bunnies.fractalmaps.colouring.ColourStrategies;
+import io.bunnies.fractalmaps.colouring.EnumColourStrategy;
+import io.bunnies.fractalmaps.compute.strategies.cpu.CpuFractalComputeStrategy;
+import io.bunnies.fractalmaps.compute.strategies.cpu.JuliaCpuFractalComputeStrategy;
+import io.bunnies.fractalmaps.compute.strategies.cpu.MandelbrotCpuFractalComputeStrategy;
+import io.bunnies.fractalmaps.settings.FractalTypeEnum;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+@Config(constants = BuildConfig.class)
+@RunWith(RobolectricGradleTestRunner.class)
+public class IterationDataTest {
+    private static final double[] GRAPH_AREA = {-2.0, 1.2, 3.0};
+    private static final int WIDTH = 300;
+    private static final int HEIGHT = 200;
+    private static final int MAX_ITERATIONS = 60;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testTilesHoldTheSmoothIterationCounts() throws Exception {
+        MandelbrotCpuFractalComputeStrategy strategy = new MandelbrotCpuFractalComputeStrategy();
+        File file = this.folder.newFile("mandelbrot.iterations");
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            new IterationDataExporter(strategy, executor).export(GRAPH_AREA, WIDTH, HEIGHT, MAX_ITERATIONS, file, null);
+        } finally {
+            executor.shutdown();
+        }
+
+        IterationData data = IterationData.open(file);
+        assertEquals(FractalTypeEnum.MANDELBROT, data.getFractalType());
+        assertEquals(WIDTH, data.getWidth());
+        assertEquals(HEIGHT, data.getHeight());
+        assertEquals(MAX_ITERATIONS, data.getMaxIterations());
+        assertArrayEquals(GRAPH_AREA, data.getGraphArea(), 0);
+        assertEquals(2, data.getTilesAcross());
+        assertEquals(1, data.getTilesDown());
+
+        // The second tile on its own, without reading the first
+        float[] tile = data.readTile(1, 0);
+        assertEquals(data.getTileWidth(1) * HEIGHT, tile.length);
+
+        double pixelSize = GRAPH_AREA[2] / WIDTH;
+        for (int y = 0; y < HEIGHT; y += 7) {
+            for (int x = 0; x < data.getTileWidth(1); x += 5) {
+                double x0 = GRAPH_AREA[0] + ((IterationDataExporter.TILE_SIZE + x) * pixelSize);
+                double y0 = GRAPH_AREA[1] - (y * pixelSize);
+                float expected = IterationDataExporter.toStoredValue(strategy.smoothIteratePoint(x0, y0, MAX_ITERATIONS));
+
+                assertEquals(expected, tile[(y * data.getTileWidth(1)) + x], 0);
+            }
+        }
+    }
+
+    @Test
+    public void testRecolouredWithoutRecomputing() throws Exception {
+        JuliaCpuFractalComputeStrategy strategy = new JuliaCpuFractalComputeStrategy();
+        strategy.setJuliaSeed(-0.8, 0.156);
+        File file = this.folder.newFile("julia.iterations");
+        new IterationDataExporter(strategy, null).export(new double[]{-1.6, 1.0, 3.2}, 64, 40, MAX_ITERATIONS, file, null);
+
+        IterationData data = IterationData.open(file);
+        assertEquals(FractalTypeEnum.JULIA, data.getFractalType());
+        assertArrayEquals(new double[]{-0.8, 0.156}, data.getJuliaSeed(), 0);
+
+        float[] values = data.readTile(0, 0);
+        int[] rgb = data.colourTile(0, 0, EnumColourStrategy.RGB);
+        int[] pastel = data.colourTile(0, 0, EnumColourStrategy.PASTEL);
+        for (int i = 0; i < values.length; i++) {
+            assertEquals(ColourStrategies.colourPoint(EnumColourStrategy.RGB, (int) values[i], MAX_ITERATIONS), rgb[i]);
+            assertEquals(ColourStrategies.colourPoint(EnumColourStrategy.PASTEL, (int) values[i], MAX_ITERATIONS), pastel[i]);
+        }
+        assertFalse(Arrays.equals(rgb, pastel));
+    }
+
+    @Test
+    public void testStoredValueKeepsTheWholePart() {
+        assertEquals(99, (int) IterationDataExporter.toStoredValue(99.99999999D));
+        assertEquals(12.5F, IterationDataExporter.toStoredValue(12.5D), 0);
+    }
+
+    @Test
+    public void testSmoothCountsKeepTheWholePart() {
+        JuliaCpuFractalComputeStrategy julia = new JuliaCpuFractalComputeStrategy();
+        julia.setJuliaSeed(-0.8, 0.156);
+
+        for (CpuFractalComputeStrategy strategy : new CpuFractalComputeStrategy[]{new MandelbrotCpuFractalComputeStrategy(), julia}) {
+            int escapedPoints = 0;
+            int pointsWithoutFraction = 0;
+            for (int y = 0; y < HEIGHT; y++) {
+                for (int x = 0; x < WIDTH; x++) {
+                    double x0 = GRAPH_AREA[0] + (x * GRAPH_AREA[2] / WIDTH);
+                    double y0 = GRAPH_AREA[1] - (y * GRAPH_AREA[2] / WIDTH);
+                    int iterations = strategy.iteratePoint(x0, y0, MAX_ITERATIONS);
+                    double smoothIterations = strategy.smoothIteratePoint(x0, y0, MAX_ITERATIONS);
+
+                    assertEquals(iterations, (int) smoothIterations);
+                    if (iterations < MAX_ITERATIONS) {
+                        escapedPoints++;
+                        if (smoothIterations == iterations)
+                            pointsWithoutFraction++;
+                    }
+                }
+            }
+
+            // Only points right at the edge of a band should need their fraction clamping
+            assertTrue(pointsWithoutFraction < escapedPoints / 4);
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void testOtherFilesRejected() throws Exception {
+        File file = this.folder.newFile("not.iterations");
+        FileOutputStream output = new FileOutputStream(file);
+        try {
+            output.write(new byte[128]);
+        } finally {
+            output.close();
+        }
+
+        IterationData.open(file);
+    }
+}
@@ -0,0 +1,197 @@
+package io.bunnies.fractalmaps.export;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.CRC32;
+import java.util.zip.Inflater;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class PngWriterTest {
+    private static final int WIDTH = 37;
+    private static final int HEIGHT = 23;
+
+    @Test
+    public void testRowsDecodeToTheSamePixels() throws Exception {
+        int[] pixels = this.makePixels(WIDTH, HEIGHT);
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        PngWriter writer = new PngWriter(output, WIDTH, HEIGHT);
+        writer.writeRows(pixels, 0, WIDTH, 10);
+        writer.writeRows(pixels, 10 * WIDTH, WIDTH, HEIGHT - 10);
+        writer.finish();
+
+        assertDecodesTo(pixels, WIDTH, HEIGHT, output.toByteArray());
+    }
+
+    @Test
+    public void testParallelChunksDecodeToTheSamePixels() throws Exception {
+        // Enough rows for several chunks in each call, so chunks join both within a call and across calls
+        int width = 200;
+        int height = 700;
+        int[] pixels = this.makePixels(width, height);
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            ByteArrayOutputStream output = new ByteArrayOutputStream();
+            PngWriter writer = new PngWriter(output, width, height, executor);
+            writer.writeRows(pixels, 0, width, 300);
+            writer.writeRows(pixels, 300 * width, width, height - 300);
+            writer.finish();
+
+            assertDecodesTo(pixels, width, height, output.toByteArray());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testEveryFilterReverses() {
+        byte[] previousRow = new byte[WIDTH * 3];
+        byte[] row = new byte[WIDTH * 3];
+        for (int i = 0; i < row.length; i++) {
+            previousRow[i] = (byte) (i * 7);
+            row[i] = (byte) (i * 13 + 5);
+        }
+
+        for (int filter = PngWriter.FILTER_NONE; filter <= PngWriter.FILTER_PAETH; filter++) {
+            byte[] filteredRow = new byte[row.length + 1];
+            filteredRow[0] = (byte) filter;
+            PngWriter.filterRow(filter, row, previousRow, filteredRow);
+
+            assertArrayEquals("Filter " + filter, row, unfilter(filteredRow, previousRow));
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testFinishingEarlyThrows() throws Exception {
+        PngWriter writer = new PngWriter(new ByteArrayOutputStream(), WIDTH, HEIGHT);
+        writer.writeRows(this.makePixels(WIDTH, 1), 0, WIDTH, 1);
+        writer.finish();
+    }
+
+    private int[] makePixels(int width, int height) {
+        int[] pixels = new int[width * height];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                pixels[(y * width) + x] = 0xFF000000 | ((x * 5) << 16) | ((y * 9) << 8) | ((x * y) & 0xFF);
+            }
+        }
+
+        return pixels;
+    }
+
+    private static void assertDecodesTo(int[] pixels, int width, int height, byte[] png) throws Exception {
+        int[] decoded = decode(png, width, height);
+        for (int i = 0; i < pixels.length; i++) {
+            assertEquals("Pixel " + i, pixels[i] & 0xFFFFFF, decoded[i]);
+        }
+    }
+
+    // Checks every chunk's CRC and the zlib checksum, and returns the image as RGB ints
+    static int[] decode(byte[] png, int expectedWidth, int expectedHeight) throws Exception {
+        DataInputStream input = new DataInputStream(new ByteArrayInputStream(png));
+        byte[] signature = new byte[8];
+        input.readFully(signature);
+        assertEquals((byte) 0x89, signature[0]);
+        assertEquals('P', signature[1]);
+
+        int width = 0;
+        int height = 0;
+        ByteArrayOutputStream imageData = new ByteArrayOutputStream();
+        while (true) {
+            int length = input.readInt();
+            byte[] type = new byte[4];
+            input.readFully(type);
+            byte[] data = new byte[length];
+            input.readFully(data);
+
+            CRC32 crc = new CRC32();
+            crc.update(type);
+            crc.update(data);
+            assertEquals((int) crc.getValue(), input.readInt());
+
+            String chunkType = new String(type, "US-ASCII");
+            if (chunkType.equals("IHDR")) {
+                DataInputStream header = new DataInputStream(new ByteArrayInputStream(data));
+                width = header.readInt();
+                height = header.readInt();
+                assertEquals(8, header.readByte());
+                assertEquals(2, header.readByte());
+            } else if (chunkType.equals("IDAT")) {
+                imageData.write(data);
+            } else if (chunkType.equals("IEND")) {
+                break;
+            }
+        }
+
+        assertEquals(expectedWidth, width);
+        assertEquals(expectedHeight, height);
+
+        Inflater inflater = new Inflater();
+        inflater.setInput(imageData.toByteArray());
+        byte[] raw = new byte[height * ((width * 3) + 1)];
+        assertEquals(raw.length, inflater.inflate(raw));
+        assertTrue(inflater.finished());
+        assertEquals(0, inflater.getRemaining());
+        inflater.end();
+
+        int[] pixels = new int[width * height];
+        byte[] previousRow = new byte[width * 3];
+        for (int y = 0; y < height; y++) {
+            byte[] filteredRow = new byte[(width * 3) + 1];
+            System.arraycopy(raw, y * filteredRow.length, filteredRow, 0, filteredRow.length);
+
+            byte[] row = unfilter(filteredRow, previousRow);
+            for (int x = 0; x < width; x++) {
+                pixels[(y * width) + x] = ((row[x * 3] & 0xFF) << 16) | ((row[(x * 3) + 1] & 0xFF) << 8) | (row[(x * 3) + 2] & 0xFF);
+            }
+            previousRow = row;
+        }
+
+        return pixels;
+    }
+
+    private static byte[] unfilter(byte[] filteredRow, byte[] previousRow) {
+        byte[] row = new byte[filteredRow.length - 1];
+        for (int i = 0; i < row.length; i++) {
+            int left = (i >= 3) ? row[i - 3] & 0xFF : 0;
+            int up = previousRow[i] & 0xFF;
+            int upLeft = (i >= 3) ? previousRow[i - 3] & 0xFF : 0;
+
+            int predicted;
+            switch (filteredRow[0]) {
+                case 1:
+                    predicted = left;
+                    break;
+                case 2:
+                    predicted = up;
+                    break;
+                case 3:
+                    predicted = (left + up) / 2;
+                    break;
+                case 4:
+                    int estimate = left + up - upLeft;
+                    int leftDistance = Math.abs(estimate - left);
+                    int upDistance = Math.abs(estimate - up);
+                    int upLeftDistance = Math.abs(estimate - upLeft);
+                    predicted = (leftDistance <= upDistance && leftDistance <= upLeftDistance) ? left : (upDistance <= upLeftDistance) ? up : upLeft;
+                    break;
+                default:
+                    predicted = 0;
+                    break;
+            }
+
+            row[i] = (byte) ((filteredRow[i + 1] & 0xFF) + predicted);
+        }
+
+        return row;
+    }
+}
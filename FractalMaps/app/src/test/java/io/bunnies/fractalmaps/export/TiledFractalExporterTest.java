@@ -0,0 +1,86 @@
+package io.bunnies.fractalmaps.export;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricGradleTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import io.bunnies.fractalmaps.BuildConfig;
+import io.bunnies.fractalmaps.colouring.ColourStrategies;
+import io.bunnies.fractalmaps.colouring.EnumColourStrategy;
+import io.bunnies.fractalmaps.compute.FractalComputeArguments;
+import io.bunnies.fractalmaps.compute.strategies.cpu.MandelbrotCpuFractalComputeStrategy;
+
+import static org.junit.Assert.assertEquals;
+
+@Config(constants = BuildConfig.class)
+@RunWith(RobolectricGradleTestRunner.class)
+public class TiledFractalExporterTest {
+    private static final double[] GRAPH_AREA = {-2.5, 2.0, 4.0};
+    private static final int MAX_ITERATIONS = 50;
+
+    // Like a RenderScript strategy whose runtime failed to start: renders are dropped without ever finishing
+    private static class BrokenStrategy extends MandelbrotCpuFractalComputeStrategy {
+        @Override
+        public boolean canCompute() {
+            return false;
+        }
+
+        @Override
+        public void computeFractal(FractalComputeArguments arguments) {
+        }
+    }
+
+    private static class ProgressListener implements IExportProgressListener {
+        private int rowsDone;
+        private int totalRows;
+
+        @Override
+        public void onExportProgress(int rowsDone, int totalRows) {
+            this.rowsDone = rowsDone;
+            this.totalRows = totalRows;
+        }
+    }
+
+    // Not a whole number of tiles either way, so the stitching has partial tiles on the right and bottom edges
+    @Test
+    public void testTilesStitchedIntoOneImage() throws Exception {
+        int width = 300;
+        int height = 300;
+        MandelbrotCpuFractalComputeStrategy strategy = new MandelbrotCpuFractalComputeStrategy();
+        strategy.setColourStrategy(EnumColourStrategy.PURPLE_RED);
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        ProgressListener listener = new ProgressListener();
+
+        new TiledFractalExporter(strategy).export(GRAPH_AREA, width, height, MAX_ITERATIONS, output, listener);
+        strategy.tearDown();
+
+        int[] pixels = PngWriterTest.decode(output.toByteArray(), width, height);
+        double pixelSize = GRAPH_AREA[2] / width;
+        for (int y = 0; y < height; y++) {
+            int stripY = y - (y % TiledFractalExporter.TILE_SIZE);
+            double yMax = GRAPH_AREA[1] - (stripY * pixelSize);
+            for (int x = 0; x < width; x++) {
+                int tileX = x - (x % TiledFractalExporter.TILE_SIZE);
+                double xMin = GRAPH_AREA[0] + (tileX * pixelSize);
+
+                // Worked out just as the tile's render does, from the tile's own corner
+                int iterations = strategy.iteratePoint(xMin + ((double) (x - tileX) * pixelSize), yMax - ((double) (y - stripY) * pixelSize), MAX_ITERATIONS);
+                int colour = ColourStrategies.colourPoint(EnumColourStrategy.PURPLE_RED, iterations, MAX_ITERATIONS);
+                assertEquals("Pixel (" + x + ", " + y + ")", colour & 0xFFFFFF, pixels[(y * width) + x]);
+            }
+        }
+
+        assertEquals(height, listener.rowsDone);
+        assertEquals(height, listener.totalRows);
+    }
+
+    // Rather than waiting forever for the first tile
+    @Test(expected = IOException.class)
+    public void testStrategyThatCantComputeFailsStraightAway() throws IOException {
+        new TiledFractalExporter(new BrokenStrategy()).export(GRAPH_AREA, 300, 300, MAX_ITERATIONS, new ByteArrayOutputStream(), null);
+    }
+}
@@ -0,0 +1,96 @@
+package io.bunnies.fractalmaps.export;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricGradleTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+import io.bunnies.fractalmaps.BuildConfig;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+@Config(constants = BuildConfig.class)
+@RunWith(RobolectricGradleTestRunner.class)
+public class XyzTileArchiveTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testTilesReadBackAfterReopening() throws Exception {
+        File file = new File(this.folder.getRoot(), "tiles.xyz");
+
+        XyzTileArchive archive = new XyzTileArchive(file);
+        archive.write(0, 0, 0, new byte[]{1, 2, 3});
+        archive.write(3, 5, 7, new byte[]{4, 5});
+        archive.close();
+
+        archive = new XyzTileArchive(file);
+        assertEquals(2, archive.size());
+        assertTrue(archive.contains(3, 5, 7));
+        assertFalse(archive.contains(3, 7, 5));
+        assertArrayEquals(new byte[]{1, 2, 3}, archive.read(0, 0, 0));
+        assertNull(archive.read(1, 0, 0));
+
+        // Adding more goes where the old index was
+        archive.write(1, 1, 0, new byte[]{6});
+        archive.close();
+
+        archive = new XyzTileArchive(file);
+        assertEquals(3, archive.size());
+        assertArrayEquals(new byte[]{4, 5}, archive.read(3, 5, 7));
+        assertArrayEquals(new byte[]{6}, archive.read(1, 1, 0));
+        archive.close();
+    }
+
+    @Test
+    public void testArchiveThatWasNeverClosedKeepsItsWholeTiles() throws Exception {
+        File file = new File(this.folder.getRoot(), "interrupted.xyz");
+
+        XyzTileArchive archive = new XyzTileArchive(file);
+        archive.write(2, 0, 1, new byte[]{1, 1, 1, 1});
+        archive.write(2, 1, 1, new byte[]{2, 2, 2, 2});
+
+        // Cut the last tile short, as if the app died writing it
+        RandomAccessFile raw = new RandomAccessFile(file, "rw");
+        try {
+            raw.setLength(raw.length() - 2);
+        } finally {
+            raw.close();
+        }
+
+        archive = new XyzTileArchive(file);
+        assertEquals(1, archive.size());
+        assertArrayEquals(new byte[]{1, 1, 1, 1}, archive.read(2, 0, 1));
+        assertFalse(archive.contains(2, 1, 1));
+
+        archive.write(2, 1, 1, new byte[]{3});
+        archive.close();
+
+        archive = new XyzTileArchive(file);
+        assertArrayEquals(new byte[]{3}, archive.read(2, 1, 1));
+        archive.close();
+    }
+
+    @Test(expected = IOException.class)
+    public void testOtherFilesRejected() throws Exception {
+        File file = this.folder.newFile("not.xyz");
+        RandomAccessFile raw = new RandomAccessFile(file, "rw");
+        try {
+            raw.write(new byte[64]);
+        } finally {
+            raw.close();
+        }
+
+        new XyzTileArchive(file);
+    }
+}
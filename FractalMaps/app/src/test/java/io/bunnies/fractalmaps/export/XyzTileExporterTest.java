@@ -0,0 +1,136 @@
+package io.bunnies.fractalmaps.export;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricGradleTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import io.bunnies.fractalmaps.BuildConfig;
+import io.bunnies.fractalmaps.colouring.EnumColourStrategy;
+import io.bunnies.fractalmaps.compute.strategies.cpu.MandelbrotCpuFractalComputeStrategy;
+import io.bunnies.fractalmaps.presenter.IFractalPresenter;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.anyDouble;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.stub;
+
+@Config(constants = BuildConfig.class)
+@RunWith(RobolectricGradleTestRunner.class)
+public class XyzTileExporterTest {
+    private static final byte[] PNG_SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+    private static final double[] WORLD = {-2.5, 2.0, 4.0};
+    // The top right quarter of the world's top left tile at zoom 1
+    private static final double[] REGION = {-1.5, 2.0, 1.0};
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private MandelbrotCpuFractalComputeStrategy strategy;
+    private IFractalPresenter iterationBudget;
+
+    @Before
+    public void setUp() {
+        this.strategy = new MandelbrotCpuFractalComputeStrategy();
+        this.strategy.setColourStrategy(EnumColourStrategy.RGB);
+
+        this.iterationBudget = mock(IFractalPresenter.class);
+        stub(this.iterationBudget.getMaxIterations(anyDouble())).toReturn(50);
+    }
+
+    @Test
+    public void testTileRangeCoversTheRegion() {
+        assertArrayEquals(new int[]{0, 0, 0, 0}, XyzTileExporter.tileRange(WORLD, REGION, 1.0, 0));
+        assertArrayEquals(new int[]{0, 0, 0, 0}, XyzTileExporter.tileRange(WORLD, REGION, 1.0, 1));
+        assertArrayEquals(new int[]{1, 0, 1, 0}, XyzTileExporter.tileRange(WORLD, REGION, 1.0, 2));
+        assertArrayEquals(new int[]{2, 0, 3, 1}, XyzTileExporter.tileRange(WORLD, REGION, 1.0, 3));
+
+        // Off the world there's nothing to export
+        int[] range = XyzTileExporter.tileRange(WORLD, new double[]{5.0, 2.0, 1.0}, 1.0, 3);
+        assertTrue(range[2] < range[0]);
+    }
+
+    @Test
+    public void testDirectoryHoldsEveryTileAsPng() throws Exception {
+        File directory = this.folder.newFolder("tiles");
+        XyzTileDirectory store = new XyzTileDirectory(directory);
+
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            new XyzTileExporter(this.strategy, this.iterationBudget, executor).export(WORLD, REGION, 1.0, 0, 3, store, null);
+        } finally {
+            executor.shutdown();
+        }
+
+        // 1 + 1 + 1 + 4 tiles
+        for (int[] tile : new int[][]{{0, 0, 0}, {1, 0, 0}, {2, 1, 0}, {3, 2, 0}, {3, 3, 0}, {3, 2, 1}, {3, 3, 1}}) {
+            File tileFile = store.getTileFile(tile[0], tile[1], tile[2]);
+            assertTrue(tileFile + " missing", tileFile.isFile());
+            assertArrayEquals(PNG_SIGNATURE, readStart(tileFile, PNG_SIGNATURE.length));
+        }
+    }
+
+    @Test
+    public void testInterruptedExportCarriesOn() throws Exception {
+        File file = new File(this.folder.getRoot(), "tiles.xyz");
+
+        // The first run only gets as far as zoom 2
+        XyzTileArchive archive = new XyzTileArchive(file);
+        new XyzTileExporter(this.strategy, this.iterationBudget, null).export(WORLD, REGION, 1.0, 0, 2, archive, null);
+        archive.close();
+
+        archive = new XyzTileArchive(file);
+        byte[] firstTile = archive.read(2, 1, 0);
+        CountingListener listener = new CountingListener();
+        new XyzTileExporter(this.strategy, this.iterationBudget, null).export(WORLD, REGION, 1.0, 0, 3, archive, listener);
+
+        assertEquals(7, archive.size());
+        assertArrayEquals(firstTile, archive.read(2, 1, 0));
+        assertEquals(7, listener.lastDone);
+        assertEquals(7, listener.total);
+        archive.close();
+
+        // The same tiles come out of a fresh export
+        File freshFile = new File(this.folder.getRoot(), "fresh.xyz");
+        XyzTileArchive fresh = new XyzTileArchive(freshFile);
+        new XyzTileExporter(this.strategy, this.iterationBudget, null).export(WORLD, REGION, 1.0, 0, 3, fresh, null);
+        archive = new XyzTileArchive(file);
+        assertArrayEquals(fresh.read(3, 3, 1), archive.read(3, 3, 1));
+        fresh.close();
+        archive.close();
+    }
+
+    private static byte[] readStart(File file, int length) throws IOException {
+        byte[] bytes = new byte[length];
+        FileInputStream input = new FileInputStream(file);
+        try {
+            assertEquals(length, input.read(bytes));
+        } finally {
+            input.close();
+        }
+
+        return bytes;
+    }
+
+    private static class CountingListener implements IExportProgressListener {
+        int lastDone = 0;
+        int total = 0;
+
+        @Override
+        public void onExportProgress(int rowsDone, int totalRows) {
+            this.lastDone = rowsDone;
+            this.total = totalRows;
+        }
+    }
+}
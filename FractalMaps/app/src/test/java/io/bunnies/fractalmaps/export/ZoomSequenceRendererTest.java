@@ -0,0 +1,158 @@
+package io.bunnies.fractalmaps.export;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricGradleTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.io.File;
+import java.io.IOException;
+
+import io.bunnies.fractalmaps.BuildConfig;
+import io.bunnies.fractalmaps.compute.FractalComputeArguments;
+import io.bunnies.fractalmaps.compute.strategies.cpu.MandelbrotCpuFractalComputeStrategy;
+import io.bunnies.fractalmaps.presenter.IFractalPresenter;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.anyDouble;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.stub;
+
+@Config(constants = BuildConfig.class)
+@RunWith(RobolectricGradleTestRunner.class)
+public class ZoomSequenceRendererTest {
+    private static final double[] END_GRAPH_AREA = {-0.75, 0.11, 0.001};
+    private static final int WIDTH = 160;
+    private static final int HEIGHT = 90;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testFramesZoomEvenlyFromStartToEnd() {
+        int frameCount = 61;
+        double[] start = ZoomSequenceRenderer.startGraphArea(END_GRAPH_AREA, 4.0, WIDTH, HEIGHT);
+        double frameScale = ZoomSequenceRenderer.frameScale(4.0, END_GRAPH_AREA[2], frameCount);
+
+        assertEquals(4.0, ZoomSequenceRenderer.frameGraphArea(start, END_GRAPH_AREA, frameScale, 0, frameCount)[2], 1e-12);
+        assertArrayEquals(END_GRAPH_AREA, ZoomSequenceRenderer.frameGraphArea(start, END_GRAPH_AREA, frameScale, frameCount - 1, frameCount), 0);
+
+        double endCentreX = END_GRAPH_AREA[0] + (END_GRAPH_AREA[2] / 2);
+        double endCentreY = END_GRAPH_AREA[1] - (END_GRAPH_AREA[2] * HEIGHT / WIDTH / 2);
+        double[] previous = null;
+        for (int i = 0; i < frameCount - 1; i++) {
+            double[] frame = ZoomSequenceRenderer.frameGraphArea(start, END_GRAPH_AREA, frameScale, i, frameCount);
+
+            // Every frame keeps the end area's middle in its own middle
+            assertEquals(endCentreX, frame[0] + (frame[2] / 2), frame[2] * 1e-9);
+            assertEquals(endCentreY, frame[1] - (frame[2] * HEIGHT / WIDTH / 2), frame[2] * 1e-9);
+
+            if (previous != null)
+                assertEquals(frameScale, frame[2] / previous[2], 1e-9);
+
+            previous = frame;
+        }
+    }
+
+    @Test
+    public void testEndAreaIsTheMiddleOfTheView() {
+        // A square view, cut down to a wide frame
+        double[] end = ZoomSequenceRenderer.endGraphArea(new double[]{-1.0, 1.0, 2.0}, 100, 100, WIDTH, HEIGHT);
+
+        assertEquals(-1.0, end[0], 1e-12);
+        assertEquals(2.0, end[2], 1e-12);
+        assertEquals(0.0, end[1] - (end[2] * HEIGHT / WIDTH / 2), 1e-12);
+    }
+
+    @Test
+    public void testKeyframesCoverTheirFramesAtFullResolution() {
+        double frameScale = ZoomSequenceRenderer.frameScale(4.0, END_GRAPH_AREA[2], 400);
+        int framesPerKeyframe = ZoomSequenceRenderer.framesPerKeyframe(frameScale, 400);
+
+        double margin = Math.pow(frameScale, -(framesPerKeyframe - 1));
+        assertTrue(framesPerKeyframe > 1);
+        assertTrue(margin <= ZoomSequenceRenderer.KEYFRAME_MARGIN);
+        assertTrue(Math.pow(frameScale, -framesPerKeyframe) > ZoomSequenceRenderer.KEYFRAME_MARGIN);
+
+        // A zoom too quick to share keyframes computes every frame
+        assertEquals(1, ZoomSequenceRenderer.framesPerKeyframe(0.5, 20));
+    }
+
+    @Test
+    public void testResamplingTheSameAreaKeepsThePixels() {
+        int[] keyframe = new int[WIDTH * HEIGHT];
+        for (int i = 0; i < keyframe.length; i++) {
+            keyframe[i] = 0xFF000000 | (i * 7919);
+        }
+
+        int[] frame = new int[WIDTH * HEIGHT];
+        ZoomSequenceRenderer.resample(keyframe, WIDTH, HEIGHT, END_GRAPH_AREA, frame, WIDTH, HEIGHT, END_GRAPH_AREA);
+
+        assertArrayEquals(keyframe, frame);
+    }
+
+    @Test
+    public void testResamplingBlendsBetweenKeyframePixels() {
+        int[] keyframe = {0xFF000000, 0xFFFFFFFF, 0xFF000000, 0xFFFFFFFF};
+        double[] keyframeGraphArea = {0, 2, 2};
+
+        // One pixel half way between the columns, on the top row
+        int[] frame = new int[1];
+        ZoomSequenceRenderer.resample(keyframe, 2, 2, keyframeGraphArea, frame, 1, 1, new double[]{0.5, 2, 1});
+
+        assertEquals(0xFF7F7F7F, frame[0]);
+    }
+
+    // Finishes every render straight away without computing anything, counting how many it was asked for
+    private static class CountingStrategy extends MandelbrotCpuFractalComputeStrategy {
+        private int computedKeyframes;
+
+        @Override
+        public void computeFractal(FractalComputeArguments arguments) {
+            this.computedKeyframes++;
+            this.delegate.postFinished(arguments.pixelBuffers, arguments.pixelBufferSizes, arguments.pixelBlockSize, 0.0);
+        }
+    }
+
+    @Test
+    public void testOnlyKeyframesComputed() throws Exception {
+        CountingStrategy strategy = new CountingStrategy();
+        IFractalPresenter iterationBudget = mock(IFractalPresenter.class);
+        stub(iterationBudget.getMaxIterations(anyDouble())).toReturn(500);
+
+        // Not a whole number of keyframes, so the last one has fewer frames
+        int frameCount = 41;
+        double frameScale = ZoomSequenceRenderer.frameScale(4.0, END_GRAPH_AREA[2], frameCount);
+        int framesPerKeyframe = ZoomSequenceRenderer.framesPerKeyframe(frameScale, frameCount);
+        assertTrue(framesPerKeyframe > 1);
+        assertTrue(frameCount % framesPerKeyframe != 0);
+
+        File directory = this.folder.newFolder("frames");
+        new ZoomSequenceRenderer(strategy, iterationBudget).render(END_GRAPH_AREA, 4.0, WIDTH, HEIGHT, frameCount, directory, null);
+
+        assertEquals(frameCount, directory.listFiles().length);
+        assertEquals((int) Math.ceil(frameCount / (double) framesPerKeyframe), strategy.computedKeyframes);
+    }
+
+    // Rather than waiting forever for the first keyframe
+    @Test(expected = IOException.class)
+    public void testStrategyThatCantComputeFailsStraightAway() throws IOException {
+        MandelbrotCpuFractalComputeStrategy strategy = new MandelbrotCpuFractalComputeStrategy() {
+            @Override
+            public boolean canCompute() {
+                return false;
+            }
+
+            @Override
+            public void computeFractal(FractalComputeArguments arguments) {
+            }
+        };
+
+        new ZoomSequenceRenderer(strategy, mock(IFractalPresenter.class)).render(END_GRAPH_AREA, 4.0, WIDTH, HEIGHT, 10,
+                this.folder.newFolder("frames"), null);
+    }
+}
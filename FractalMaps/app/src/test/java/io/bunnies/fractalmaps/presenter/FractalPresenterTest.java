@@ -10,20 +10,43 @@ import org.robolectric.RobolectricGradleTestRunner;
 import org.robolectric.RuntimeEnvironment;
 import org.robolectric.annotation.Config;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executor;
+
 import io.bunnies.fractalmaps.BuildConfig;
 import io.bunnies.fractalmaps.Constants;
 import io.bunnies.fractalmaps.IFractalSceneDelegate;
+import io.bunnies.fractalmaps.colouring.ColourStrategies;
+import io.bunnies.fractalmaps.colouring.EnumColourStrategy;
+import io.bunnies.fractalmaps.compute.EnumPixelFormat;
 import io.bunnies.fractalmaps.compute.FractalComputeArguments;
+import io.bunnies.fractalmaps.compute.IterationCounts;
+import io.bunnies.fractalmaps.compute.PixelBufferPair;
 import io.bunnies.fractalmaps.compute.strategies.IFractalComputeStrategy;
+import io.bunnies.fractalmaps.compute.strategies.StrategyStartup;
+import io.bunnies.fractalmaps.settings.saved_state.SavedFrame;
+import io.bunnies.fractalmaps.tiles.TileCache;
+import io.bunnies.fractalmaps.tiles.TileKey;
+import io.bunnies.fractalmaps.tiles.TilePyramid;
 import io.bunnies.fractalmaps.touch.IFractalTouchHandler;
 import io.bunnies.fractalmaps.view.IFractalView;
+import io.bunnies.fractalmaps.view.IFrameScheduler;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.anyInt;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 @Config(constants = BuildConfig.class)
 @RunWith(RobolectricGradleTestRunner.class)
@@ -37,6 +60,14 @@ public class FractalPresenterTest {
     private static final int VIEW_WIDTH = 100;
     private static final int VIEW_HEIGHT = 100;
 
+    // Sets strategies up straight away, on the calling thread
+    private static final Executor DIRECT_EXECUTOR = new Executor() {
+        @Override
+        public void execute(Runnable command) {
+            command.run();
+        }
+    };
+
     @Before
     public void setup() {
         this.sceneDelegate = mock(IFractalSceneDelegate.class);
@@ -45,7 +76,14 @@ public class FractalPresenterTest {
         this.view = mock(IFractalView.class);
         this.presenter = new FractalPresenter(RuntimeEnvironment.application, this.sceneDelegate, this.computeStrategy);
         this.presenter.setTouchHandler(this.touchHandler);
+        this.presenter.setStrategyStartup(new StrategyStartup(DIRECT_EXECUTOR, DIRECT_EXECUTOR));
         this.presenter.setView(this.view, new Matrix(), this.presenter);
+        this.presenter.setFrameScheduler(new IFrameScheduler() {
+            @Override
+            public void postFrameCallback(Runnable callback) {
+                callback.run();
+            }
+        });
         this.presenter.onViewResized(this.view, VIEW_WIDTH, VIEW_HEIGHT);
     }
 
@@ -76,24 +114,37 @@ public class FractalPresenterTest {
 
     @Test
     public void testTranslatePixelBuffer() {
-        int[] pixelBuffer = this.presenter.getPixelBuffer();
+        PixelBufferPair pixelBuffers = this.presenter.getPixelBuffers();
+        int[] pixelBuffer = pixelBuffers.peekFront();
 
         int zeroes = countInstancesOfValue(pixelBuffer, 0);
         int total = VIEW_WIDTH * VIEW_HEIGHT;
 
-        pixelBuffer[0] = 123;
-        pixelBuffer[VIEW_WIDTH - 1] = 456;
+        pixelBuffer[pixelBuffers.indexOf(0, 0)] = 123;
+        pixelBuffer[pixelBuffers.indexOf(VIEW_WIDTH - 1, 0)] = 456;
 
         this.presenter.translatePixelBuffer(5, 5);
-        pixelBuffer = this.presenter.getPixelBuffer();
+        pixelBuffer = pixelBuffers.peekFront();
 
         assertEquals(zeroes, total);
-        assertEquals(pixelBuffer[0], 0);
+        assertEquals(pixelBuffer[pixelBuffers.indexOf(0, 0)], 0);
 
         assertEquals(countInstancesOfValue(pixelBuffer, 123), 1);
         assertEquals(countInstancesOfValue(pixelBuffer, 0), total - 1);
-        assertEquals(pixelBuffer[5 + (VIEW_WIDTH * 5)], 123);
-        assertEquals(pixelBuffer[VIEW_WIDTH - 1], 0);
+        assertEquals(pixelBuffer[pixelBuffers.indexOf(5, 5)], 123);
+        assertEquals(pixelBuffer[pixelBuffers.indexOf(VIEW_WIDTH - 1, 0)], 0);
+    }
+
+    @Test
+    public void testTranslatePixelBufferReusesBuffers() {
+        PixelBufferPair pixelBuffers = this.presenter.getPixelBuffers();
+        int[] pixelBuffer = pixelBuffers.peekFront();
+
+        this.presenter.translatePixelBuffer(-20, 10);
+
+        assertSame(pixelBuffer, pixelBuffers.peekFront());
+        assertEquals(20, pixelBuffers.getOriginX());
+        assertEquals(VIEW_HEIGHT - 10, pixelBuffers.getOriginY());
     }
 
     @Test
@@ -116,6 +167,36 @@ public class FractalPresenterTest {
         assertTrue(arguments.linesPerProgressUpdate > 1);
     }
 
+    @Test
+    public void testRecomputeGraphStopsOtherFramesFirst() {
+        this.presenter.setGraphArea(Constants.testGraphPointOne.clone());
+        this.presenter.recomputeGraph(FractalPresenter.CRUDE_PIXEL_BLOCK);
+        verify(this.computeStrategy, times(1)).stopAllRendering();
+
+        // The detailed pass of the same frame leaves the crude one running
+        this.presenter.recomputeGraph(FractalPresenter.DEFAULT_PIXEL_SIZE);
+        verify(this.computeStrategy, times(1)).stopAllRendering();
+
+        this.presenter.translateGraphArea(5, 5);
+        this.presenter.recomputeGraph(FractalPresenter.DEFAULT_PIXEL_SIZE);
+        verify(this.computeStrategy, times(2)).stopAllRendering();
+        verify(this.computeStrategy, times(3)).computeFractal(any(FractalComputeArguments.class));
+    }
+
+    @Test
+    public void testRecomputeGraphUsesRenderFocus() {
+        this.presenter.setGraphArea(Constants.testGraphPointOne);
+        this.presenter.setRenderFocus(10f, 80f);
+        this.presenter.recomputeGraph(1);
+
+        ArgumentCaptor<FractalComputeArguments> argument = ArgumentCaptor.forClass(FractalComputeArguments.class);
+        verify(this.computeStrategy).computeFractal(argument.capture());
+
+        FractalComputeArguments arguments = argument.getValue();
+        assertEquals(arguments.focusX, 10);
+        assertEquals(arguments.focusY, 80);
+    }
+
     @Test
     public void testShiftGraphArea() {
         this.presenter.setGraphArea(Constants.testGraphPointOne);
@@ -168,27 +249,72 @@ public class FractalPresenterTest {
 
     @Test
     public void testPostUpdate() {
-        int[] pixels = new int[VIEW_WIDTH * VIEW_HEIGHT];
-        int[] pixelSizes = new int[VIEW_WIDTH * VIEW_HEIGHT];
+        PixelBufferPair pixels = new PixelBufferPair(VIEW_WIDTH, VIEW_HEIGHT);
+        byte[] pixelSizes = new byte[VIEW_WIDTH * VIEW_HEIGHT];
 
         this.presenter.postUpdate(pixels, pixelSizes);
 
-        verify(this.view).setBitmapPixels(pixels);
-        verify(this.view).postThreadSafeRedraw();
+        verify(this.view).setBitmapPixels(pixels.peekFront(), 0, 0, 0, VIEW_HEIGHT);
+        verify(this.view).postUIThreadRedraw();
+    }
+
+    @Test
+    public void testPostRegionUpdate() {
+        PixelBufferPair pixels = new PixelBufferPair(VIEW_WIDTH, VIEW_HEIGHT);
+        byte[] pixelSizes = new byte[VIEW_WIDTH * VIEW_HEIGHT];
+
+        this.presenter.postUpdate(pixels, pixelSizes, 10, 20);
+
+        verify(this.view).setBitmapPixels(pixels.peekFront(), 0, 0, 10, 20);
+        verify(this.view).postUIThreadRedraw();
     }
 
     @Test
     public void testPostFinished() {
-        int[] pixels = new int[VIEW_WIDTH * VIEW_HEIGHT];
-        int[] pixelSizes = new int[VIEW_WIDTH * VIEW_HEIGHT];
+        PixelBufferPair pixels = new PixelBufferPair(VIEW_WIDTH, VIEW_HEIGHT);
+        byte[] pixelSizes = new byte[VIEW_WIDTH * VIEW_HEIGHT];
 
         this.presenter.postFinished(pixels, pixelSizes, 1, 1.0f);
 
-        verify(this.view).setBitmapPixels(pixels);
-        verify(this.view).postThreadSafeRedraw();
+        verify(this.view).setBitmapPixels(pixels.peekFront(), 0, 0, 0, VIEW_HEIGHT);
+        verify(this.view).postUIThreadRedraw();
         verify(this.sceneDelegate).setRenderingStatus(this.presenter, false);
     }
 
+    @Test
+    public void testBitmapOutput() {
+        IFractalComputeStrategy bitmapStrategy = mock(IFractalComputeStrategy.class);
+        when(bitmapStrategy.supportsBitmapOutput()).thenReturn(true);
+        IFractalView bitmapView = mock(IFractalView.class);
+
+        FractalPresenter bitmapPresenter = new FractalPresenter(RuntimeEnvironment.application, this.sceneDelegate, bitmapStrategy);
+        bitmapPresenter.setView(bitmapView, new Matrix(), bitmapPresenter);
+        bitmapPresenter.setFrameScheduler(new IFrameScheduler() {
+            @Override
+            public void postFrameCallback(Runnable callback) {
+                callback.run();
+            }
+        });
+        bitmapPresenter.onViewResized(bitmapView, VIEW_WIDTH, VIEW_HEIGHT);
+
+        bitmapPresenter.postFinished(bitmapPresenter.getPixelBuffers(), new byte[VIEW_WIDTH * VIEW_HEIGHT], 1, 1.0f);
+
+        verify(bitmapView, never()).setBitmapPixels(any(int[].class), anyInt(), anyInt(), anyInt(), anyInt());
+        verify(bitmapView).postUIThreadRedraw();
+    }
+
+    @Test
+    public void testSetPixelFormat() {
+        verify(this.view).createNewFractalBitmap(any(int[].class), eq(EnumPixelFormat.RGB_565));
+
+        this.presenter.setPixelFormat(EnumPixelFormat.ARGB_8888);
+
+        verify(this.computeStrategy).stopAllRendering();
+        verify(this.view).createNewFractalBitmap(any(int[].class), eq(EnumPixelFormat.ARGB_8888));
+        verify(this.view).setBitmapPixels(this.presenter.getPixelBuffer(), 0, 0, 0, VIEW_HEIGHT);
+        verify(this.sceneDelegate).scheduleRecomputeBasedOnPreferences(this.presenter, false);
+    }
+
     @Test
     public void testOnComputeStarted() {
         this.presenter.onComputeStarted(1);
@@ -220,7 +346,8 @@ public class FractalPresenterTest {
         this.presenter.setGraphArea(Constants.testGraphPointOne);
         this.presenter.stopDraggingFractal(false, 1f, 2f);
 
-        verify(this.view).setBitmapPixels(this.presenter.getPixelBuffer());
+        PixelBufferPair pixelBuffers = this.presenter.getPixelBuffers();
+        verify(this.view).setBitmapPixels(pixelBuffers.peekFront(), pixelBuffers.getOriginX(), pixelBuffers.getOriginY(), 0, VIEW_HEIGHT);
         verify(this.sceneDelegate).scheduleRecomputeBasedOnPreferences(this.presenter, false);
         verify(this.view, times(2)).setFractalTransformMatrix(any(Matrix.class));
         verify(this.view).postUIThreadRedraw();
@@ -233,6 +360,300 @@ public class FractalPresenterTest {
         verify(this.view).cacheCurrentBitmap(this.presenter.getPixelBuffer());
     }
 
+    @Test
+    public void testStopScalingFractalKeepsSamples() {
+        // The Mandelbrot strategies' budget, which grows as the pixels shrink
+        when(this.computeStrategy.getIterationBase()).thenReturn(1.24);
+        when(this.computeStrategy.getIterationConstantFactor()).thenReturn(54.0);
+        when(this.computeStrategy.getColourStrategy()).thenReturn(EnumColourStrategy.PURPLE_RED);
+        this.presenter.setFractalDetail(50.0);
+
+        double pixelSize = 1.0 / 64;
+        this.presenter.setGraphArea(new double[]{0.0, VIEW_HEIGHT * pixelSize, VIEW_WIDTH * pixelSize});
+        this.presenter.recomputeGraph(1);
+
+        ArgumentCaptor<FractalComputeArguments> argument = ArgumentCaptor.forClass(FractalComputeArguments.class);
+        verify(this.computeStrategy).computeFractal(argument.capture());
+        FractalComputeArguments arguments = argument.getValue();
+        int oldMaxIterations = arguments.maxIterations;
+        Arrays.fill(arguments.pixelBufferSizes, (byte) FractalPresenter.DEFAULT_PIXEL_SIZE);
+
+        // Every point escaped after 5 iterations, except the one that the new view's top left lands on
+        int[] pixelIterations = arguments.pixelIterations;
+        Arrays.fill(pixelIterations, 5);
+        int insideIndex = arguments.pixelBuffers.indexOf(VIEW_WIDTH / 4, VIEW_HEIGHT / 4);
+        pixelIterations[insideIndex] = IterationCounts.encode(oldMaxIterations, oldMaxIterations);
+
+        // Zoomed in 2x about the middle of the view
+        this.presenter.startScalingFractal(50f, 50f);
+        this.presenter.setGraphArea(new double[]{25 * pixelSize, 75 * pixelSize, 50 * pixelSize});
+        this.presenter.stopScalingFractal();
+
+        int newMaxIterations = this.presenter.getMaxIterations();
+        assertTrue(newMaxIterations > oldMaxIterations);
+
+        PixelBufferPair pixelBuffers = this.presenter.getPixelBuffers();
+        byte[] pixelSizes = arguments.pixelBufferSizes;
+        int samples = 0;
+        for (byte size : pixelSizes) {
+            if (size == FractalPresenter.DEFAULT_PIXEL_SIZE)
+                samples++;
+        }
+
+        // A quarter of the new pixels are on old samples, and all but the inside one keep it, coloured for the new budget
+        assertEquals((VIEW_WIDTH * VIEW_HEIGHT / 4) - 1, samples);
+        assertEquals((byte) 0xFF, pixelSizes[pixelBuffers.indexOf(0, 0)]);
+        assertEquals(FractalPresenter.DEFAULT_PIXEL_SIZE, pixelSizes[pixelBuffers.indexOf(2, 0)]);
+        assertEquals(ColourStrategies.colourPoint(EnumColourStrategy.PURPLE_RED, 5, newMaxIterations),
+                pixelBuffers.peekFront()[pixelBuffers.indexOf(2, 0)]);
+
+        verify(this.view).setBitmapPixels(this.presenter.getPixelBuffer());
+        verify(this.view, never()).cacheCurrentBitmap(any(int[].class));
+    }
+
+    private FractalComputeArguments renderWholeView(double[] graphArea, int colour) {
+        this.presenter.setGraphArea(graphArea);
+        this.presenter.recomputeGraph(FractalPresenter.DEFAULT_PIXEL_SIZE);
+
+        ArgumentCaptor<FractalComputeArguments> argument = ArgumentCaptor.forClass(FractalComputeArguments.class);
+        verify(this.computeStrategy, atLeastOnce()).computeFractal(argument.capture());
+        FractalComputeArguments arguments = argument.getValue();
+
+        int[] backPixels = arguments.pixelBuffers.beginWrite();
+        Arrays.fill(backPixels, colour);
+        arguments.pixelBuffers.publishAll();
+        Arrays.fill(arguments.pixelBufferSizes, (byte) FractalPresenter.DEFAULT_PIXEL_SIZE);
+
+        return arguments;
+    }
+
+    @Test
+    public void testFinishedTilesServedFromCache() {
+        TileCache tileCache = new TileCache(64 * TileCache.TILE_BYTES);
+        this.presenter.setTileCache(tileCache);
+        this.presenter.onViewResized(this.view, 2 * TilePyramid.TILE_SIZE, 2 * TilePyramid.TILE_SIZE);
+
+        double[] graphArea = {0.0, 0.0, 2 * TilePyramid.TILE_SIZE};
+        FractalComputeArguments arguments = this.renderWholeView(graphArea, 0xFF123456);
+        this.presenter.onComputeStarted(FractalPresenter.DEFAULT_PIXEL_SIZE);
+        this.presenter.postFinished(arguments.pixelBuffers, arguments.pixelBufferSizes, FractalPresenter.DEFAULT_PIXEL_SIZE, 1.0);
+
+        assertEquals(4, tileCache.size());
+
+        // Coming back to the same place finds every pixel already computed
+        this.presenter.clearPixelSizes();
+        this.presenter.setGraphArea(graphArea.clone());
+        this.presenter.recomputeGraph(FractalPresenter.DEFAULT_PIXEL_SIZE);
+
+        byte[] pixelSizes = arguments.pixelBufferSizes;
+        for (byte pixelSize : pixelSizes) {
+            assertEquals(FractalPresenter.DEFAULT_PIXEL_SIZE, pixelSize);
+        }
+        assertEquals(0xFF123456, this.presenter.getPixelBuffer()[0]);
+        assertEquals(4, tileCache.getHitCount());
+    }
+
+    @Test
+    public void testZoomingOutDownsamplesTilesFromTheLevelBelow() {
+        TileCache tileCache = new TileCache(64 * TileCache.TILE_BYTES);
+        this.presenter.setTileCache(tileCache);
+        this.presenter.onViewResized(this.view, 2 * TilePyramid.TILE_SIZE, 2 * TilePyramid.TILE_SIZE);
+
+        FractalComputeArguments arguments = this.renderWholeView(new double[]{0.0, 0.0, TilePyramid.TILE_SIZE}, 0xFF123456);
+        this.presenter.onComputeStarted(FractalPresenter.DEFAULT_PIXEL_SIZE);
+        this.presenter.postFinished(arguments.pixelBuffers, arguments.pixelBufferSizes, FractalPresenter.DEFAULT_PIXEL_SIZE, 1.0);
+        assertEquals(4, tileCache.size());
+
+        // Twice as far out, where the four tiles cover the top left tile of the view
+        this.presenter.clearPixelSizes();
+        this.presenter.setGraphArea(new double[]{0.0, 0.0, 2 * TilePyramid.TILE_SIZE});
+        this.presenter.recomputeGraph(FractalPresenter.DEFAULT_PIXEL_SIZE);
+
+        // The mock strategy gets the fewest iterations on both levels, so the tile is exact
+        PixelBufferPair pixelBuffers = arguments.pixelBuffers;
+        assertEquals(FractalPresenter.DEFAULT_PIXEL_SIZE, arguments.pixelBufferSizes[pixelBuffers.indexOf(0, 0)]);
+        assertEquals(FractalPresenter.DEFAULT_PIXEL_SIZE, arguments.pixelBufferSizes[pixelBuffers.indexOf(TilePyramid.TILE_SIZE - 1, TilePyramid.TILE_SIZE - 1)]);
+        assertEquals((byte) 0xFF, arguments.pixelBufferSizes[pixelBuffers.indexOf(TilePyramid.TILE_SIZE, 0)]);
+    }
+
+    @Test
+    public void testTilesFromDiskRestartTheRender() {
+        final List<TileKey> diskKeys = new ArrayList<>();
+        final List<Runnable> diskLoads = new ArrayList<>();
+        TileCache tileCache = new TileCache(64 * TileCache.TILE_BYTES) {
+            @Override
+            public void loadFromDisk(List<TileKey> keys, Runnable onLoaded) {
+                diskKeys.addAll(keys);
+                diskLoads.add(onLoaded);
+            }
+        };
+        this.presenter.setTileCache(tileCache);
+
+        this.presenter.setGraphArea(new double[]{0.0, 0.0, VIEW_WIDTH});
+        this.presenter.recomputeGraph(FractalPresenter.DEFAULT_PIXEL_SIZE);
+        verify(this.computeStrategy, times(1)).stopAllRendering();
+        assertFalse(diskKeys.isEmpty());
+
+        // Turn up once the render has already been given the pixel sizes
+        int[] tile = new int[TilePyramid.TILE_SIZE * TilePyramid.TILE_SIZE];
+        Arrays.fill(tile, 0xFF123456);
+        for (TileKey key : diskKeys) {
+            tileCache.put(key, tile);
+        }
+        diskLoads.get(0).run();
+
+        ArgumentCaptor<FractalComputeArguments> argument = ArgumentCaptor.forClass(FractalComputeArguments.class);
+        verify(this.computeStrategy, times(2)).computeFractal(argument.capture());
+        for (byte pixelSize : argument.getValue().pixelBufferSizes) {
+            assertEquals(FractalPresenter.DEFAULT_PIXEL_SIZE, pixelSize);
+        }
+        assertEquals(0xFF123456, this.presenter.getPixelBuffer()[0]);
+        assertEquals(1, diskLoads.size());
+    }
+
+    @Test
+    public void testSupersededRenderNotCached() {
+        TileCache tileCache = new TileCache(64 * TileCache.TILE_BYTES);
+        this.presenter.setTileCache(tileCache);
+        this.presenter.onViewResized(this.view, 2 * TilePyramid.TILE_SIZE, 2 * TilePyramid.TILE_SIZE);
+
+        FractalComputeArguments arguments = this.renderWholeView(new double[]{0.0, 0.0, 2 * TilePyramid.TILE_SIZE}, 0xFF123456);
+        this.presenter.onComputeStarted(FractalPresenter.DEFAULT_PIXEL_SIZE);
+
+        // Asked for again before the first one finished
+        this.presenter.recomputeGraph(FractalPresenter.DEFAULT_PIXEL_SIZE);
+        this.presenter.postFinished(arguments.pixelBuffers, arguments.pixelBufferSizes, FractalPresenter.DEFAULT_PIXEL_SIZE, 1.0);
+
+        assertEquals(0, tileCache.size());
+    }
+
+    // A presenter as it is at launch, before its view has been laid out
+    private FractalPresenter newPresenterBeforeLayout(double[] graphArea) {
+        FractalPresenter presenter = new FractalPresenter(RuntimeEnvironment.application, this.sceneDelegate, this.computeStrategy);
+        presenter.setTouchHandler(this.touchHandler);
+        presenter.setStrategyStartup(new StrategyStartup(DIRECT_EXECUTOR, DIRECT_EXECUTOR));
+        presenter.setView(this.view, new Matrix(), presenter);
+        presenter.setGraphArea(graphArea);
+
+        return presenter;
+    }
+
+    @Test
+    public void testSavedFrameRestoredBeforeFirstRender() {
+        double[] graphArea = {0.0, 0.0, VIEW_WIDTH};
+        FractalComputeArguments arguments = this.renderWholeView(graphArea.clone(), 0xFF123456);
+        this.presenter.onComputeStarted(FractalPresenter.DEFAULT_PIXEL_SIZE);
+        this.presenter.postFinished(arguments.pixelBuffers, arguments.pixelBufferSizes, FractalPresenter.DEFAULT_PIXEL_SIZE, 1.0);
+        SavedFrame frame = this.presenter.saveFrame();
+
+        FractalPresenter launched = this.newPresenterBeforeLayout(graphArea.clone());
+        launched.restoreFrame(frame);
+        launched.onViewResized(this.view, VIEW_WIDTH, VIEW_HEIGHT);
+
+        assertTrue(launched.hasRestoredFrame());
+        assertEquals(0xFF123456, launched.getPixelBuffer()[0]);
+
+        ArgumentCaptor<FractalComputeArguments> argument = ArgumentCaptor.forClass(FractalComputeArguments.class);
+        launched.recomputeGraph(FractalPresenter.DEFAULT_PIXEL_SIZE);
+        verify(this.computeStrategy, atLeastOnce()).computeFractal(argument.capture());
+        for (byte pixelSize : argument.getValue().pixelBufferSizes) {
+            assertEquals(FractalPresenter.DEFAULT_PIXEL_SIZE, pixelSize);
+        }
+    }
+
+    @Test
+    public void testSavedCountsRecolouredForANewBudget() {
+        when(this.computeStrategy.getColourStrategy()).thenReturn(EnumColourStrategy.PURPLE_RED);
+        double[] graphArea = {0.0, 0.0, VIEW_WIDTH};
+        FractalPresenter launched = this.newPresenterBeforeLayout(graphArea.clone());
+        launched.onViewResized(this.view, VIEW_WIDTH, VIEW_HEIGHT);
+        int maxIterations = launched.getMaxIterations();
+
+        int[] pixels = new int[VIEW_WIDTH * VIEW_HEIGHT];
+        byte[] pixelSizes = new byte[VIEW_WIDTH * VIEW_HEIGHT];
+        int[] pixelIterations = new int[VIEW_WIDTH * VIEW_HEIGHT];
+        Arrays.fill(pixels, 0xFF123456);
+        Arrays.fill(pixelSizes, (byte) FractalPresenter.DEFAULT_PIXEL_SIZE);
+        Arrays.fill(pixelIterations, IterationCounts.UNKNOWN);
+        pixelIterations[0] = 5;
+        pixelIterations[1] = IterationCounts.encode(maxIterations / 2, maxIterations / 2);
+
+        // Rendered with a bigger budget and another colouring, so only the counts are any use
+        launched.restoreFrame(new SavedFrame(VIEW_WIDTH, VIEW_HEIGHT, graphArea.clone(), new double[]{0.0, 0.0},
+                2 * maxIterations, EnumColourStrategy.RGB, pixels, pixelSizes, pixelIterations));
+
+        ArgumentCaptor<FractalComputeArguments> argument = ArgumentCaptor.forClass(FractalComputeArguments.class);
+        launched.recomputeGraph(FractalPresenter.DEFAULT_PIXEL_SIZE);
+        verify(this.computeStrategy, atLeastOnce()).computeFractal(argument.capture());
+        FractalComputeArguments arguments = argument.getValue();
+
+        PixelBufferPair pixelBuffers = arguments.pixelBuffers;
+        assertEquals(ColourStrategies.colourPoint(EnumColourStrategy.PURPLE_RED, 5, maxIterations),
+                pixelBuffers.peekFront()[pixelBuffers.indexOf(0, 0)]);
+        assertEquals(FractalPresenter.DEFAULT_PIXEL_SIZE, arguments.pixelBufferSizes[pixelBuffers.indexOf(0, 0)]);
+        assertEquals(5, arguments.pixelIterations[pixelBuffers.indexOf(0, 0)]);
+
+        // Didn't escape within half the budget, and one with no count, are only a preview
+        assertEquals((byte) 0xFF, arguments.pixelBufferSizes[pixelBuffers.indexOf(1, 0)]);
+        assertEquals((byte) 0xFF, arguments.pixelBufferSizes[pixelBuffers.indexOf(2, 0)]);
+        assertEquals(0xFF123456, pixelBuffers.peekFront()[pixelBuffers.indexOf(2, 0)]);
+    }
+
+    @Test
+    public void testUnfinishedRenderSavedAsPreview() {
+        double[] graphArea = {0.0, 0.0, VIEW_WIDTH};
+        this.renderWholeView(graphArea.clone(), 0xFF123456);
+        SavedFrame frame = this.presenter.saveFrame();
+
+        FractalPresenter launched = this.newPresenterBeforeLayout(graphArea.clone());
+        launched.restoreFrame(frame);
+        launched.onViewResized(this.view, VIEW_WIDTH, VIEW_HEIGHT);
+
+        assertTrue(launched.hasRestoredFrame());
+        assertEquals(0xFF123456, launched.getPixelBuffer()[0]);
+        for (byte pixelSize : frame.pixelSizes) {
+            assertEquals((byte) 0xFF, pixelSize);
+        }
+    }
+
+    @Test
+    public void testSavedFrameOfElsewhereIgnored() {
+        this.renderWholeView(new double[]{0.0, 0.0, VIEW_WIDTH}, 0xFF123456);
+        SavedFrame frame = this.presenter.saveFrame();
+
+        FractalPresenter launched = this.newPresenterBeforeLayout(new double[]{10.0, 0.0, VIEW_WIDTH});
+        launched.restoreFrame(frame);
+        launched.onViewResized(this.view, VIEW_WIDTH, VIEW_HEIGHT);
+
+        assertFalse(launched.hasRestoredFrame());
+        assertEquals(0, launched.getPixelBuffer()[0]);
+    }
+
+    @Test
+    public void testRenderWaitsForStrategy() {
+        final List<Runnable> startupTasks = new ArrayList<>();
+        this.presenter.setStrategyStartup(new StrategyStartup(new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                startupTasks.add(command);
+            }
+        }, DIRECT_EXECUTOR));
+
+        this.presenter.onViewResized(this.view, VIEW_WIDTH, VIEW_HEIGHT);
+        this.presenter.setGraphArea(Constants.testGraphPointOne);
+        this.presenter.recomputeGraph(FractalPresenter.DEFAULT_PIXEL_SIZE);
+
+        verify(this.computeStrategy, never()).computeFractal(any(FractalComputeArguments.class));
+        // Once in @Before
+        verify(this.sceneDelegate, times(1)).onFractalViewReady(this.presenter);
+
+        assertEquals(1, startupTasks.size());
+        startupTasks.get(0).run();
+
+        verify(this.computeStrategy, times(2)).initialise(VIEW_WIDTH, VIEW_HEIGHT, this.presenter);
+        verify(this.sceneDelegate, times(2)).onFractalViewReady(this.presenter);
+    }
+
     @Test
     public void testScaleFractal() {
         this.presenter.setGraphArea(Constants.testGraphPointOne);
@@ -1,7 +1,5 @@
 package io.bunnies.fractalmaps.compute.strategies.renderscript;
 
-import android.util.SparseArray;
-
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -9,18 +7,19 @@ import org.robolectric.RobolectricGradleTestRunner;
 import org.robolectric.RuntimeEnvironment;
 import org.robolectric.annotation.Config;
 
-import java.util.Arrays;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
 import io.bunnies.fractalmaps.BuildConfig;
 import io.bunnies.fractalmaps.Constants;
 import io.bunnies.fractalmaps.compute.FractalComputeArguments;
 import io.bunnies.fractalmaps.compute.IFractalComputeDelegate;
+import io.bunnies.fractalmaps.compute.IterationCounts;
+import io.bunnies.fractalmaps.compute.PixelBufferPair;
 
 import static org.junit.Assert.assertEquals;
-import static org.mockito.Matchers.anyInt;
-import static org.mockito.Matchers.anyList;
+import static org.junit.Assert.assertSame;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.verify;
@@ -43,20 +42,13 @@ public class MandelbrotRenderscriptFractalComputeStrategyTest {
     }
 
     @Test
-    public void testInitialisation() {
-        MandelbrotRenderscriptFractalComputeStrategy strategySpy = spy(this.strategy);
-        strategySpy.initialise(VIEW_WIDTH, VIEW_HEIGHT, this.delegate);
-
-        verify(strategySpy).initialiseRowIndexCache(anyList(), anyInt(), anyInt());
+    public void testInitialisationBuildsNoRowIndices() {
+        assertEquals(0, this.strategy.getRowSchedules().size());
     }
 
     @Test
-    public void testInitialiseRowIndexCache() {
-        MandelbrotRenderscriptFractalComputeStrategy strategySpy = spy(this.strategy);
-        strategySpy.initialiseRowIndexCache(Arrays.asList(1, 3), 1, 4);
-
-        SparseArray<int[][]> rowIndexMap = strategySpy.rowIndices.get(32);
-        int[][] indices = rowIndexMap.get(1);
+    public void testRowIndicesBuiltOnDemand() {
+        int[][] indices = this.strategy.getRowIndices(32, 1, VIEW_HEIGHT / 2);
         int progressUpdates = indices.length;
 
         Set<Integer> indexSeenMap = new HashSet<>();
@@ -69,6 +61,34 @@ public class MandelbrotRenderscriptFractalComputeStrategyTest {
         }
 
         assertEquals(indexSeenMap.size(), VIEW_HEIGHT);
+        assertSame(indices, this.strategy.getRowIndices(32, 1, VIEW_HEIGHT / 2));
+        assertEquals(1, this.strategy.getRowSchedules().size());
+    }
+
+    @Test
+    public void testTouchedRowRanges() {
+        List<int[]> ranges = RenderscriptFractalComputeStrategy.touchedRowRanges(new int[]{50, 53, 47, 56, 44}, 3, VIEW_HEIGHT);
+
+        assertEquals(ranges.size(), 1);
+        assertEquals(ranges.get(0)[0], 44);
+        assertEquals(ranges.get(0)[1], 59);
+
+        ranges = RenderscriptFractalComputeStrategy.touchedRowRanges(new int[]{98, 10, 11}, 3, VIEW_HEIGHT);
+
+        assertEquals(ranges.size(), 2);
+        assertEquals(ranges.get(0)[0], 10);
+        assertEquals(ranges.get(0)[1], 14);
+        assertEquals(ranges.get(1)[0], 98);
+        assertEquals(ranges.get(1)[1], VIEW_HEIGHT);
+    }
+
+    @Test
+    public void testIterationsDecodedFromBudgetLeft() {
+        assertEquals(IterationCounts.encode(200, 200), RenderscriptFractalComputeStrategy.decodeIterations(0, 200));
+        assertEquals(190, RenderscriptFractalComputeStrategy.decodeIterations(10, 200));
+        assertEquals(0, RenderscriptFractalComputeStrategy.decodeIterations(200, 200));
+        assertEquals(IterationCounts.UNKNOWN,
+                RenderscriptFractalComputeStrategy.decodeIterations(RenderscriptFractalComputeStrategy.ITERATIONS_TOO_EARLY, 100000));
     }
 
     @Test
@@ -77,14 +97,13 @@ public class MandelbrotRenderscriptFractalComputeStrategyTest {
         strategySpy.tearDown();
 
         verify(strategySpy).stopAllRendering();
-        verify(strategySpy).interruptThreads();
         verify(strategySpy).destroyRenderscriptObjects();
     }
 
     @Test
     public void testComputeFractal() {
-        int[] pixelBuffer = new int[VIEW_WIDTH * VIEW_HEIGHT];
-        int[] pixelBufferSizes = new int[VIEW_WIDTH * VIEW_HEIGHT];
+        PixelBufferPair pixelBuffer = new PixelBufferPair(VIEW_WIDTH, VIEW_HEIGHT);
+        byte[] pixelBufferSizes = new byte[VIEW_WIDTH * VIEW_HEIGHT];
 
         FractalComputeArguments arguments = new FractalComputeArguments(1, 32, 32, 1, VIEW_WIDTH, VIEW_HEIGHT,
                 Constants.testGraphPointOne[0], Constants.testGraphPointOne[1], Constants.testGraphPointOne[2] / VIEW_WIDTH,
@@ -0,0 +1,103 @@
+package io.bunnies.fractalmaps.settings.saved_state;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+import io.bunnies.fractalmaps.colouring.EnumColourStrategy;
+import io.bunnies.fractalmaps.compute.IterationCounts;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class SavedFrameTest {
+    private static final int WIDTH = 40;
+    private static final int HEIGHT = 30;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private SavedFrame newFrame(EnumColourStrategy colourStrategy) {
+        int[] pixels = new int[WIDTH * HEIGHT];
+        byte[] pixelSizes = new byte[WIDTH * HEIGHT];
+        int[] pixelIterations = new int[WIDTH * HEIGHT];
+        for (int i = 0; i < pixels.length; i++) {
+            pixels[i] = 0xFF000000 | (i * 7919);
+            pixelSizes[i] = (byte) ((i % 3 == 0) ? 0xFF : 1);
+            pixelIterations[i] = (i % 5 == 0) ? IterationCounts.encode(400, 400) : i % 400;
+        }
+
+        return new SavedFrame(WIDTH, HEIGHT, new double[]{-2.5, 1.25, 3.0}, new double[]{-0.8, 0.156}, 400,
+                colourStrategy, pixels, pixelSizes, pixelIterations);
+    }
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        File file = new File(this.folder.getRoot(), "frame");
+        SavedFrame frame = this.newFrame(EnumColourStrategy.PASTEL);
+        frame.writeTo(file);
+
+        SavedFrame read = SavedFrame.readFrom(file);
+        assertEquals(WIDTH, read.width);
+        assertEquals(HEIGHT, read.height);
+        assertArrayEquals(frame.graphArea, read.graphArea, 0.0);
+        assertArrayEquals(frame.juliaSeed, read.juliaSeed, 0.0);
+        assertEquals(400, read.maxIterations);
+        assertEquals(EnumColourStrategy.PASTEL, read.colourStrategy);
+        assertArrayEquals(frame.pixels, read.pixels);
+        assertArrayEquals(frame.pixelSizes, read.pixelSizes);
+        assertArrayEquals(frame.pixelIterations, read.pixelIterations);
+
+        assertFalse(new File(this.folder.getRoot(), "frame.tmp").exists());
+    }
+
+    @Test
+    public void testRoundTripWithoutColourStrategy() throws IOException {
+        File file = new File(this.folder.getRoot(), "frame");
+        this.newFrame(null).writeTo(file);
+
+        assertNull(SavedFrame.readFrom(file).colourStrategy);
+    }
+
+    @Test
+    public void testSmallerThanRawBuffers() throws IOException {
+        File file = new File(this.folder.getRoot(), "frame");
+        int[] pixels = new int[WIDTH * HEIGHT];
+        byte[] pixelSizes = new byte[WIDTH * HEIGHT];
+        int[] pixelIterations = new int[WIDTH * HEIGHT];
+        new SavedFrame(WIDTH, HEIGHT, new double[]{0.0, 0.0, 1.0}, new double[]{0.0, 0.0}, 10, EnumColourStrategy.RGB,
+                pixels, pixelSizes, pixelIterations).writeTo(file);
+
+        assertTrue(file.length() < WIDTH * HEIGHT);
+    }
+
+    @Test(expected = IOException.class)
+    public void testTruncatedFrameRejected() throws IOException {
+        File file = new File(this.folder.getRoot(), "frame");
+        this.newFrame(EnumColourStrategy.RGB).writeTo(file);
+
+        RandomAccessFile truncated = new RandomAccessFile(file, "rw");
+        truncated.setLength(truncated.length() / 2);
+        truncated.close();
+
+        SavedFrame.readFrom(file);
+    }
+
+    @Test(expected = IOException.class)
+    public void testOtherFileRejected() throws IOException {
+        File file = this.folder.newFile("other");
+        RandomAccessFile other = new RandomAccessFile(file, "rw");
+        other.writeInt(0x12345678);
+        other.writeInt(1);
+        other.close();
+
+        SavedFrame.readFrom(file);
+    }
+}
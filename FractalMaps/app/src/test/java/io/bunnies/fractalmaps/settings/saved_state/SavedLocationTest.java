@@ -0,0 +1,69 @@
+package io.bunnies.fractalmaps.settings.saved_state;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+
+import io.bunnies.fractalmaps.settings.FractalTypeEnum;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class SavedLocationTest {
+
+    @Test
+    public void testDeepLocationRoundTrips() throws IOException {
+        // Far more digits than a double holds, and a width far below the smallest double
+        BigDecimal xMin = new BigDecimal("-1.7499999999999999999999999999999999999999123456789");
+        BigDecimal yMax = new BigDecimal("0.0000000000000000000000000000000000000000000000001");
+        SavedLocation location = new SavedLocation(FractalTypeEnum.JULIA, xMin, yMax, -2000, 1.5,
+                new BigDecimal("-0.8"), new BigDecimal("0.156"), 25000, new byte[]{1, 2, 3});
+
+        SavedLocation read = SavedLocation.fromBytes(location.toBytes());
+        assertEquals(FractalTypeEnum.JULIA, read.fractalType);
+        assertEquals(xMin, read.xMin);
+        assertEquals(yMax, read.yMax);
+        assertEquals(-2000, read.zoomExponent);
+        assertEquals(1.5, read.zoomMantissa, 0.0);
+        assertEquals(new BigDecimal("-0.8"), read.juliaSeedX);
+        assertEquals(new BigDecimal("0.156"), read.juliaSeedY);
+        assertEquals(25000, read.maxIterations);
+        assertArrayEquals(new byte[]{1, 2, 3}, read.thumbnail);
+    }
+
+    @Test
+    public void testGraphAreaRoundTripsExactly() throws IOException {
+        double[] graphArea = {-0.743643887037151, 0.131825904205330, 3.0e-12};
+        SavedLocation location = SavedLocation.fromGraphArea(FractalTypeEnum.MANDELBROT, graphArea, null, 800, null);
+
+        SavedLocation read = SavedLocation.fromBytes(location.toBytes());
+        assertArrayEquals(graphArea, read.getGraphArea(), 0.0);
+        assertNull(read.getJuliaSeed());
+        assertNull(read.thumbnail);
+        assertEquals(800, read.maxIterations);
+
+        // Even a subnormal width keeps every bit
+        double[] tinyArea = {0.0, 0.0, Double.MIN_VALUE * 3};
+        assertArrayEquals(tinyArea, SavedLocation.fromGraphArea(FractalTypeEnum.MANDELBROT, tinyArea, null, 0, null).getGraphArea(), 0.0);
+    }
+
+    @Test
+    public void testLegacyGraphsCarryOver() {
+        SavedLocation mandelbrot = SavedLocation.fromLegacy(new SavedGraphArea(-2.5, 1.25, 3.0));
+        assertEquals(FractalTypeEnum.MANDELBROT, mandelbrot.fractalType);
+        assertArrayEquals(new double[]{-2.5, 1.25, 3.0}, mandelbrot.getGraphArea(), 0.0);
+        assertNull(mandelbrot.getJuliaSeed());
+
+        SavedLocation julia = SavedLocation.fromLegacy(new SavedJuliaGraph(-1.6, 1.2, 3.2, -0.8, 0.156));
+        assertEquals(FractalTypeEnum.JULIA, julia.fractalType);
+        assertArrayEquals(new double[]{-1.6, 1.2, 3.2}, julia.getGraphArea(), 0.0);
+        assertArrayEquals(new double[]{-0.8, 0.156}, julia.getJuliaSeed(), 0.0);
+    }
+
+    @Test(expected = IOException.class)
+    public void testOtherBytesRejected() throws IOException {
+        SavedLocation.fromBytes(new byte[64]);
+    }
+}
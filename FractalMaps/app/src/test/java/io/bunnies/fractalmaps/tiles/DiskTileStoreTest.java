@@ -0,0 +1,212 @@
+package io.bunnies.fractalmaps.tiles;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricGradleTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import io.bunnies.fractalmaps.BuildConfig;
+import io.bunnies.fractalmaps.colouring.EnumColourStrategy;
+import io.bunnies.fractalmaps.settings.FractalTypeEnum;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+@Config(constants = BuildConfig.class)
+@RunWith(RobolectricGradleTestRunner.class)
+public class DiskTileStoreTest {
+    private static final TileKey ORIGIN = new TileKey(FractalTypeEnum.JULIA, -0.8, 0.156, 3L << 31, 10, -2, 5, 400, EnumColourStrategy.PASTEL);
+    private static final long MAX_BYTES = 16L * DiskTileStore.SLOT_BYTES;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private int[] newTile(int seed) {
+        int[] tile = new int[TilePyramid.TILE_SIZE * TilePyramid.TILE_SIZE];
+        for (int i = 0; i < tile.length; i++) {
+            tile[i] = 0xFF000000 | (seed * 31) + i;
+        }
+
+        return tile;
+    }
+
+    @Test
+    public void testKeyRoundTrips() {
+        byte[] bytes = new byte[DiskTileStore.SLOT_BYTES - TileCache.TILE_BYTES];
+        DiskTileStore.encodeKey(ORIGIN, bytes);
+
+        assertEquals(ORIGIN, DiskTileStore.decodeKey(bytes));
+    }
+
+    @Test
+    public void testTilesReadBack() throws IOException {
+        DiskTileStore store = new DiskTileStore(this.folder.newFolder(), MAX_BYTES);
+        int[] tile = this.newTile(1);
+
+        assertNull(store.read(ORIGIN));
+        store.write(ORIGIN, tile);
+
+        assertArrayEquals(tile, store.read(ORIGIN));
+        assertNull(store.read(ORIGIN.forTile(0, 0)));
+        assertEquals(1, store.getHitCount());
+        assertEquals(2, store.getMissCount());
+    }
+
+    @Test
+    public void testTilesSurviveReopening() throws IOException {
+        File directory = this.folder.newFolder();
+        DiskTileStore store = new DiskTileStore(directory, MAX_BYTES);
+        store.write(ORIGIN, this.newTile(1));
+        store.write(ORIGIN.forTile(7, 7), this.newTile(2));
+        store.flush();
+
+        DiskTileStore reopened = new DiskTileStore(directory, MAX_BYTES);
+        assertEquals(2, reopened.size());
+        assertArrayEquals(this.newTile(2), reopened.read(ORIGIN.forTile(7, 7)));
+    }
+
+    @Test
+    public void testIndexRebuiltWithoutFlush() throws IOException {
+        File directory = this.folder.newFolder();
+        DiskTileStore store = new DiskTileStore(directory, MAX_BYTES);
+        store.write(ORIGIN, this.newTile(1));
+
+        // As if the process died before the index was written
+        DiskTileStore reopened = new DiskTileStore(directory, MAX_BYTES);
+        assertArrayEquals(this.newTile(1), reopened.read(ORIGIN));
+    }
+
+    @Test
+    public void testCorruptTileDropped() throws IOException {
+        File directory = this.folder.newFolder();
+        DiskTileStore store = new DiskTileStore(directory, MAX_BYTES);
+        store.write(ORIGIN, this.newTile(1));
+        store.flush();
+
+        RandomAccessFile segment = new RandomAccessFile(new File(directory, "segment-0"), "rw");
+        try {
+            segment.seek(DiskTileStore.HEADER_BYTES + 100);
+            segment.write(0x5A);
+        } finally {
+            segment.close();
+        }
+
+        DiskTileStore reopened = new DiskTileStore(directory, MAX_BYTES);
+        assertNull(reopened.read(ORIGIN));
+        assertFalse(reopened.contains(ORIGIN));
+        assertEquals(1, reopened.getCorruptTileCount());
+    }
+
+    @Test
+    public void testLeastRecentlyUsedTileEvicted() throws IOException {
+        DiskTileStore store = new DiskTileStore(this.folder.newFolder(), 2L * DiskTileStore.SLOT_BYTES);
+
+        store.write(ORIGIN.forTile(0, 0), this.newTile(0));
+        store.write(ORIGIN.forTile(1, 0), this.newTile(1));
+        store.read(ORIGIN.forTile(0, 0));
+        store.write(ORIGIN.forTile(2, 0), this.newTile(2));
+
+        assertEquals(2, store.size());
+        assertTrue(store.contains(ORIGIN.forTile(0, 0)));
+        assertFalse(store.contains(ORIGIN.forTile(1, 0)));
+        assertArrayEquals(this.newTile(2), store.read(ORIGIN.forTile(2, 0)));
+        assertEquals(1, store.getEvictedTileCount());
+    }
+
+    @Test
+    public void testCacheFallsBackToDisk() throws IOException {
+        DiskTileStore store = new DiskTileStore(this.folder.newFolder(), MAX_BYTES);
+        TileCache cache = new TileCache(4 * TileCache.TILE_BYTES);
+        cache.setDiskStore(store);
+
+        cache.put(ORIGIN, this.newTile(1));
+        cache.clear();
+
+        assertTrue(cache.contains(ORIGIN));
+        assertArrayEquals(this.newTile(1), cache.get(ORIGIN));
+        assertEquals(1, cache.getDiskHitCount());
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void testUiThreadOnlyLooksInMemory() throws IOException {
+        DiskTileStore store = new DiskTileStore(this.folder.newFolder(), MAX_BYTES);
+        store.write(ORIGIN, this.newTile(1));
+
+        QueuedExecutor diskExecutor = new QueuedExecutor();
+        QueuedExecutor uiExecutor = new QueuedExecutor();
+        TileCache cache = new TileCache(4 * TileCache.TILE_BYTES, diskExecutor, uiExecutor);
+        cache.setDiskStore(store);
+
+        assertNull(cache.getFromMemory(ORIGIN));
+        assertEquals(0, store.getHitCount() + store.getMissCount());
+
+        final boolean[] loaded = {false};
+        cache.loadFromDisk(Arrays.asList(ORIGIN, ORIGIN.forTile(1, 0)), new Runnable() {
+            @Override
+            public void run() {
+                loaded[0] = true;
+            }
+        });
+
+        // Nothing happens until the disk executor gets to it
+        assertEquals(0, store.getHitCount() + store.getMissCount());
+        diskExecutor.runAll();
+        assertFalse(loaded[0]);
+
+        uiExecutor.runAll();
+        assertTrue(loaded[0]);
+        assertArrayEquals(this.newTile(1), cache.getFromMemory(ORIGIN));
+        assertEquals(1, store.getHitCount());
+    }
+
+    @Test
+    public void testStoreOpenedAndFlushedOnDiskExecutor() throws IOException {
+        File directory = this.folder.newFolder();
+        QueuedExecutor diskExecutor = new QueuedExecutor();
+        TileCache cache = new TileCache(4 * TileCache.TILE_BYTES, diskExecutor, new QueuedExecutor());
+
+        cache.openDiskStore(directory, MAX_BYTES);
+        cache.flushDiskStore();
+        assertNull(cache.getDiskStore());
+
+        diskExecutor.runAll();
+        DiskTileStore store = cache.getDiskStore();
+        assertNotNull(store);
+
+        // Opening again keeps the store that's there
+        cache.openDiskStore(directory, MAX_BYTES);
+        diskExecutor.runAll();
+        assertSame(store, cache.getDiskStore());
+    }
+
+    private static class QueuedExecutor implements Executor {
+        private final List<Runnable> queued = new ArrayList<>();
+
+        @Override
+        public void execute(Runnable command) {
+            this.queued.add(command);
+        }
+
+        void runAll() {
+            while (!this.queued.isEmpty()) {
+                this.queued.remove(0).run();
+            }
+        }
+    }
+}
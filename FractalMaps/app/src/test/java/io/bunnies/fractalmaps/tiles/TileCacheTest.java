@@ -0,0 +1,65 @@
+package io.bunnies.fractalmaps.tiles;
+
+import org.junit.Test;
+
+import io.bunnies.fractalmaps.colouring.EnumColourStrategy;
+import io.bunnies.fractalmaps.settings.FractalTypeEnum;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class TileCacheTest {
+    private static final TileKey ORIGIN = new TileKey(FractalTypeEnum.MANDELBROT, 0.0, 0.0, 1L << 32, 8, 0, 0, 250, EnumColourStrategy.PURPLE_RED);
+
+    private int[] newTile() {
+        return new int[TilePyramid.TILE_SIZE * TilePyramid.TILE_SIZE];
+    }
+
+    @Test
+    public void testKeyCoversEverythingThatChangesATile() {
+        assertEquals(ORIGIN, ORIGIN.forTile(0, 0));
+        assertEquals(ORIGIN.hashCode(), ORIGIN.forTile(0, 0).hashCode());
+
+        assertNotEquals(ORIGIN, ORIGIN.forTile(1, 0));
+        assertNotEquals(ORIGIN, new TileKey(FractalTypeEnum.JULIA, 0.0, 0.0, 1L << 32, 8, 0, 0, 250, EnumColourStrategy.PURPLE_RED));
+        assertNotEquals(ORIGIN, new TileKey(FractalTypeEnum.MANDELBROT, 0.0, 0.1, 1L << 32, 8, 0, 0, 250, EnumColourStrategy.PURPLE_RED));
+        assertNotEquals(ORIGIN, new TileKey(FractalTypeEnum.MANDELBROT, 0.0, 0.0, 1L << 32, 9, 0, 0, 250, EnumColourStrategy.PURPLE_RED));
+        assertNotEquals(ORIGIN, new TileKey(FractalTypeEnum.MANDELBROT, 0.0, 0.0, 1L << 32, 8, 0, 0, 251, EnumColourStrategy.PURPLE_RED));
+        assertNotEquals(ORIGIN, new TileKey(FractalTypeEnum.MANDELBROT, 0.0, 0.0, 1L << 32, 8, 0, 0, 250, EnumColourStrategy.RGB));
+    }
+
+    @Test
+    public void testStoredTilesReturned() {
+        TileCache cache = new TileCache(4 * TileCache.TILE_BYTES);
+        int[] tile = this.newTile();
+
+        assertNull(cache.get(ORIGIN));
+        cache.put(ORIGIN, tile);
+
+        assertSame(tile, cache.get(ORIGIN.forTile(0, 0)));
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+        assertEquals(TileCache.TILE_BYTES, cache.getBytes());
+    }
+
+    @Test
+    public void testLeastRecentlyUsedTileEvicted() {
+        TileCache cache = new TileCache(2 * TileCache.TILE_BYTES);
+
+        cache.put(ORIGIN.forTile(0, 0), this.newTile());
+        cache.put(ORIGIN.forTile(1, 0), this.newTile());
+        cache.get(ORIGIN.forTile(0, 0));
+        cache.put(ORIGIN.forTile(2, 0), this.newTile());
+
+        assertEquals(2, cache.size());
+        assertTrue(cache.contains(ORIGIN.forTile(0, 0)));
+        assertFalse(cache.contains(ORIGIN.forTile(1, 0)));
+        assertTrue(cache.contains(ORIGIN.forTile(2, 0)));
+        assertEquals(1, cache.getEvictedTileCount());
+        assertEquals(3, cache.getStoredTileCount());
+    }
+}
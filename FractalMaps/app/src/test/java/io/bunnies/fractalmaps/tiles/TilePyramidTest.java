@@ -0,0 +1,103 @@
+package io.bunnies.fractalmaps.tiles;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+public class TilePyramidTest {
+    // Pixel sizes are moved to the nearest step of 2^(1/4), so by less than this fraction of themselves
+    private static final double HALF_SCALE_STEP = Math.pow(2.0, 1.0 / (2 * TilePyramid.SCALE_STEPS)) - 1.0;
+
+    @Test
+    public void testHalvingMovesDownALevel() {
+        double pixelSize = 5.0 / 1080;
+
+        assertEquals(TilePyramid.levelOf(pixelSize) + 1, TilePyramid.levelOf(pixelSize / 2));
+        assertEquals(TilePyramid.scaleOf(pixelSize), TilePyramid.scaleOf(pixelSize / 2));
+        assertEquals(TilePyramid.scaleOf(pixelSize), TilePyramid.scaleOf(pixelSize * 1024));
+    }
+
+    @Test
+    public void testPixelSizeRoundTrips() {
+        double pixelSize = 3.0 / 720;
+        double pyramidPixelSize = TilePyramid.pixelSizeOf(TilePyramid.scaleOf(pixelSize), TilePyramid.levelOf(pixelSize));
+
+        assertEquals(1.0, pyramidPixelSize / pixelSize, HALF_SCALE_STEP);
+        assertEquals(pyramidPixelSize, TilePyramid.pixelSizeOf(TilePyramid.scaleOf(pyramidPixelSize), TilePyramid.levelOf(pyramidPixelSize)), 0.0);
+    }
+
+    @Test
+    public void testNearbyPixelSizesShareAPyramid() {
+        double pixelSize = 4.0 / 1080;
+
+        assertEquals(TilePyramid.scaleOf(pixelSize), TilePyramid.scaleOf(pixelSize * 1.03));
+        assertEquals(TilePyramid.levelOf(pixelSize), TilePyramid.levelOf(pixelSize * 1.03));
+        assertNotEquals(TilePyramid.scaleOf(pixelSize), TilePyramid.scaleOf(pixelSize * 1.2));
+    }
+
+    @Test
+    public void testScaleRoundsUpToTheNextLevel() {
+        double pixelSize = 1.0 / 1024;
+
+        assertEquals(TilePyramid.scaleOf(pixelSize), TilePyramid.scaleOf(pixelSize * 1.95));
+        assertEquals(TilePyramid.levelOf(pixelSize) - 1, TilePyramid.levelOf(pixelSize * 1.95));
+    }
+
+    @Test
+    public void testDownsampledTileTakesEveryOtherPixel() {
+        int[][] childTiles = new int[4][TilePyramid.TILE_SIZE * TilePyramid.TILE_SIZE];
+        for (int child = 0; child < childTiles.length; child++) {
+            for (int i = 0; i < childTiles[child].length; i++) {
+                childTiles[child][i] = (child << 16) | i;
+            }
+        }
+
+        int[] tile = TilePyramid.downsampleTile(childTiles);
+        int half = TilePyramid.TILE_SIZE / 2;
+
+        assertEquals(0, tile[0]);
+        assertEquals(2, tile[1]);
+        assertEquals(2 * TilePyramid.TILE_SIZE, tile[TilePyramid.TILE_SIZE]);
+        assertEquals(1 << 16, tile[half]);
+        assertEquals(2 << 16, tile[half * TilePyramid.TILE_SIZE]);
+        assertEquals((3 << 16) | ((TilePyramid.TILE_SIZE - 2) * TilePyramid.TILE_SIZE) + TilePyramid.TILE_SIZE - 2, tile[tile.length - 1]);
+    }
+
+    @Test
+    public void testNormalisingMovesLessThanAPixel() {
+        double[] graphArea = {-3.1, 1.5625, 5.0};
+        double[] normalisedGraphArea = TilePyramid.normaliseGraphArea(graphArea, 1080);
+        double pixelSize = normalisedGraphArea[2] / 1080;
+
+        assertEquals(graphArea[0], normalisedGraphArea[0], pixelSize / 2);
+        assertEquals(graphArea[1], normalisedGraphArea[1], pixelSize / 2);
+        assertEquals(1.0, normalisedGraphArea[2] / graphArea[2], HALF_SCALE_STEP);
+
+        double[] again = TilePyramid.normaliseGraphArea(normalisedGraphArea, 1080);
+        assertEquals(normalisedGraphArea[0], again[0], 0.0);
+        assertEquals(normalisedGraphArea[1], again[1], 0.0);
+        assertEquals(normalisedGraphArea[2], again[2], 0.0);
+    }
+
+    @Test
+    public void testPanningByWholePixelsStaysOnTheGrid() {
+        double[] graphArea = TilePyramid.normaliseGraphArea(new double[]{-2.0, 1.25, 4.0}, 1000);
+        double pixelSize = graphArea[2] / 1000;
+        long firstPixelX = TilePyramid.firstPixelX(graphArea[0], pixelSize);
+        long firstPixelY = TilePyramid.firstPixelY(graphArea[1], pixelSize);
+
+        assertEquals(firstPixelX + 37, TilePyramid.firstPixelX(graphArea[0] + (37 * pixelSize), pixelSize));
+        assertEquals(firstPixelY + 12, TilePyramid.firstPixelY(graphArea[1] - (12 * pixelSize), pixelSize));
+    }
+
+    @Test
+    public void testTileOfNegativePixels() {
+        assertEquals(0, TilePyramid.tileOf(0));
+        assertEquals(0, TilePyramid.tileOf(TilePyramid.TILE_SIZE - 1));
+        assertEquals(1, TilePyramid.tileOf(TilePyramid.TILE_SIZE));
+        assertEquals(-1, TilePyramid.tileOf(-1));
+        assertEquals(-1, TilePyramid.tileOf(-TilePyramid.TILE_SIZE));
+        assertEquals(-2, TilePyramid.tileOf(-TilePyramid.TILE_SIZE - 1));
+    }
+}
@@ -0,0 +1,125 @@
+package io.bunnies.fractalmaps.view;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricGradleTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import io.bunnies.fractalmaps.BuildConfig;
+import io.bunnies.fractalmaps.compute.PixelBufferPair;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@Config(constants = BuildConfig.class)
+@RunWith(RobolectricGradleTestRunner.class)
+public class FrameUpdateAggregatorTest {
+    private IFractalView view;
+    private List<Runnable> frameCallbacks;
+    private FrameUpdateAggregator aggregator;
+
+    @Before
+    public void setup() {
+        this.view = mock(IFractalView.class);
+        this.frameCallbacks = new ArrayList<>();
+        this.aggregator = new FrameUpdateAggregator(this.view, new IFrameScheduler() {
+            @Override
+            public void postFrameCallback(Runnable callback) {
+                frameCallbacks.add(callback);
+            }
+        });
+    }
+
+    private void runFrame() {
+        List<Runnable> callbacks = new ArrayList<>(this.frameCallbacks);
+        this.frameCallbacks.clear();
+        for (Runnable callback : callbacks) {
+            callback.run();
+        }
+    }
+
+    @Test
+    public void testUpdatesMergedIntoOneFrame() {
+        PixelBufferPair pixels = new PixelBufferPair(10, 100);
+
+        this.aggregator.postUpdate(pixels, 0, 10);
+        this.aggregator.postUpdate(pixels, 10, 20);
+        this.aggregator.postUpdate(pixels, 40, 50);
+        this.aggregator.postUpdate(pixels, 45, 60);
+
+        assertEquals(1, this.frameCallbacks.size());
+        this.runFrame();
+
+        verify(this.view).setBitmapPixels(pixels.peekFront(), 0, 0, 0, 20);
+        verify(this.view).setBitmapPixels(pixels.peekFront(), 0, 0, 40, 60);
+        verify(this.view, times(1)).postUIThreadRedraw();
+
+        assertEquals(4, this.aggregator.getReceivedUpdateCount());
+        assertEquals(3, this.aggregator.getMergedUpdateCount());
+        assertEquals(1, this.aggregator.getPresentedFrameCount());
+    }
+
+    @Test
+    public void testNextUpdateSchedulesNewFrame() {
+        PixelBufferPair pixels = new PixelBufferPair(10, 100);
+
+        this.aggregator.postUpdate(pixels, 0, 10);
+        this.runFrame();
+        this.aggregator.postUpdate(pixels, 10, 20);
+        this.runFrame();
+
+        assertEquals(2, this.aggregator.getPresentedFrameCount());
+        assertEquals(0, this.aggregator.getMergedUpdateCount());
+    }
+
+    @Test
+    public void testStaleBufferDropped() {
+        PixelBufferPair oldPixels = new PixelBufferPair(10, 100);
+        PixelBufferPair newPixels = new PixelBufferPair(10, 100);
+
+        this.aggregator.postUpdate(oldPixels, 0, 10);
+        this.aggregator.postUpdate(newPixels, 20, 30);
+        this.runFrame();
+
+        verify(this.view, never()).setBitmapPixels(oldPixels.peekFront(), 0, 0, 0, 10);
+        verify(this.view).setBitmapPixels(newPixels.peekFront(), 0, 0, 20, 30);
+        assertEquals(1, this.aggregator.getDroppedUpdateCount());
+    }
+
+    @Test
+    public void testDropPendingUpdates() {
+        PixelBufferPair pixels = new PixelBufferPair(10, 100);
+
+        this.aggregator.postUpdate(pixels, 0, 10);
+        this.aggregator.dropPendingUpdates();
+        this.runFrame();
+
+        verify(this.view, never()).setBitmapPixels(pixels.peekFront(), 0, 0, 0, 10);
+        verify(this.view, never()).postUIThreadRedraw();
+        assertEquals(1, this.aggregator.getDroppedUpdateCount());
+        assertEquals(0, this.aggregator.getPresentedFrameCount());
+    }
+
+    @Test
+    public void testRedrawWithoutUpload() {
+        this.aggregator.postRedraw();
+        this.aggregator.postRedraw();
+
+        assertEquals(1, this.frameCallbacks.size());
+        this.runFrame();
+
+        verify(this.view, never()).setBitmapPixels(any(int[].class), anyInt(), anyInt(), anyInt(), anyInt());
+        verify(this.view).postUIThreadRedraw();
+        assertEquals(1, this.aggregator.getMergedUpdateCount());
+        assertEquals(1, this.aggregator.getPresentedFrameCount());
+    }
+}